@@ -82,6 +82,25 @@ public class Course {
         this.currentParticipants = 0;
     }
 
+    /**
+     * Constructeur de copie.
+     * 
+     * @param other La course à copier
+     */
+    public Course(Course other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.description = other.description;
+        this.date = other.date;
+        this.city = other.city;
+        this.distance = other.distance;
+        this.maxParticipants = other.maxParticipants;
+        this.currentParticipants = other.currentParticipants;
+        this.cause = other.cause;
+        this.prix = other.prix;
+        this.userCreateId = other.userCreateId;
+    }
+
     /**
      * Retourne l'identifiant unique de la course.
      * 
@@ -0,0 +1,60 @@
+package com.colorrun.business;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Page de résultats d'une liste de courses paginée par curseur.
+ *
+ * Le curseur est une chaîne opaque désignant la dernière course de la page
+ * (clé de tri et identifiant). Il se passe tel quel pour obtenir la page
+ * suivante ; il vaut null lorsque la page est la dernière.
+ *
+ * @author Équipe Color Run
+ * @version 1.0
+ * @since 1.0
+ */
+public class CoursePage {
+    /** Courses de la page, dans l'ordre de tri demandé */
+    private final List<Course> courses;
+
+    /** Curseur de la page suivante, ou null s'il n'y en a pas */
+    private final String nextCursor;
+
+    /** Taille de page effectivement appliquée */
+    private final int pageSize;
+
+    public CoursePage(List<Course> courses, String nextCursor, int pageSize) {
+        this.courses = Collections.unmodifiableList(courses);
+        this.nextCursor = nextCursor;
+        this.pageSize = pageSize;
+    }
+
+    public List<Course> getCourses() {
+        return courses;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return true si une page suivante existe
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "CoursePage{" +
+                "courses=" + courses.size() +
+                ", pageSize=" + pageSize +
+                ", hasNext=" + hasNext() +
+                '}';
+    }
+}
@@ -0,0 +1,221 @@
+package com.colorrun.business;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email en attente d'envoi dans la file persistante (table EmailOutbox).
+ *
+ * Les services n'envoient plus les emails eux-mêmes : ils enregistrent un
+ * OutboxEmail, si possible dans la transaction de la modification métier,
+ * et le dispatcher se charge de l'envoi SMTP en tâche de fond.
+ *
+ * <p><strong>Statuts possibles :</strong></p>
+ * <ul>
+ *   <li><code>PENDING</code> : En attente d'envoi (premier essai ou nouvel essai programmé)</li>
+ *   <li><code>SENDING</code> : Réservé par un dispatcher, en cours d'envoi</li>
+ *   <li><code>SENT</code> : Envoyé</li>
+ *   <li><code>DEAD</code> : Abandonné après le nombre maximal d'essais ou une erreur définitive</li>
+ * </ul>
+ *
+ * @author Équipe Color Run
+ * @version 1.0
+ * @since 1.0
+ */
+public class OutboxEmail {
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_DEAD = "DEAD";
+
+    /** Identifiant en base de données */
+    private long id;
+
+    /** Adresse du destinataire */
+    private String recipient;
+
+    /** Sujet de l'email */
+    private String subject;
+
+    /** Contenu HTML de l'email */
+    private String htmlBody;
+
+    /** Pièce jointe éventuelle (null si aucune) */
+    private byte[] attachment;
+
+    /** Nom de fichier de la pièce jointe */
+    private String attachmentName;
+
+    /** Type MIME de la pièce jointe */
+    private String attachmentType;
+
+    /** Statut d'envoi (PENDING, SENDING, SENT, DEAD) */
+    private String status;
+
+    /** Nombre d'essais d'envoi déjà effectués */
+    private int attempts;
+
+    /** Date du prochain essai (ou de fin de réservation pour SENDING) */
+    private LocalDateTime nextAttemptAt;
+
+    /** Message de la dernière erreur d'envoi */
+    private String lastError;
+
+    /** Date de mise en file */
+    private LocalDateTime createdAt;
+
+    /** Date d'envoi effectif */
+    private LocalDateTime sentAt;
+
+    public OutboxEmail() {
+        this.status = STATUS_PENDING;
+    }
+
+    /**
+     * Crée un email HTML à envoyer.
+     *
+     * @param recipient L'adresse du destinataire
+     * @param subject Le sujet
+     * @param htmlBody Le contenu HTML
+     */
+    public OutboxEmail(String recipient, String subject, String htmlBody) {
+        this();
+        this.recipient = recipient;
+        this.subject = subject;
+        this.htmlBody = htmlBody;
+    }
+
+    /**
+     * Ajoute une pièce jointe.
+     *
+     * @return cet email, pour chaîner les appels
+     */
+    public OutboxEmail withAttachment(byte[] content, String name, String mimeType) {
+        this.attachment = content;
+        this.attachmentName = name;
+        this.attachmentType = mimeType;
+        return this;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getHtmlBody() {
+        return htmlBody;
+    }
+
+    public void setHtmlBody(String htmlBody) {
+        this.htmlBody = htmlBody;
+    }
+
+    public byte[] getAttachment() {
+        return attachment;
+    }
+
+    public void setAttachment(byte[] attachment) {
+        this.attachment = attachment;
+    }
+
+    public String getAttachmentName() {
+        return attachmentName;
+    }
+
+    public void setAttachmentName(String attachmentName) {
+        this.attachmentName = attachmentName;
+    }
+
+    public String getAttachmentType() {
+        return attachmentType;
+    }
+
+    public void setAttachmentType(String attachmentType) {
+        this.attachmentType = attachmentType;
+    }
+
+    /**
+     * @return true si l'email porte une pièce jointe
+     */
+    public boolean hasAttachment() {
+        return attachment != null;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEmail{" +
+                "id=" + id +
+                ", recipient='" + recipient + '\'' +
+                ", subject='" + subject + '\'' +
+                ", status='" + status + '\'' +
+                ", attempts=" + attempts +
+                ", attachment=" + (attachmentName != null ? attachmentName : "none") +
+                '}';
+    }
+}
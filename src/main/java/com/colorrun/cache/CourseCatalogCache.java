@@ -0,0 +1,243 @@
+package com.colorrun.cache;
+
+import com.colorrun.business.Course;
+import com.colorrun.util.Logger;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache en mémoire du catalogue des courses (lecture traversante).
+ *
+ * <p>Le catalogue est conservé sous la forme d'un {@link Snapshot} immuable :
+ * liste des courses triée par date, villes et distances distinctes. Tant que
+ * l'instantané est valide, la page d'accueil et la liste des courses sont
+ * servies sans interroger H2.</p>
+ *
+ * <p><strong>Cohérence :</strong> chaque écriture sur une course appelle
+ * {@link #invalidate()}, qui incrémente une génération. Un chargement démarré
+ * avant une invalidation n'est jamais publié : l'instantané installé reflète
+ * toujours une lecture postérieure à la dernière écriture. Les inscriptions
+ * et annulations n'invalident pas le catalogue : le nombre d'inscrits des
+ * courses en cache n'est pas tenu à jour, il se lit dans
+ * {@link CourseSeatCounter}.</p>
+ *
+ * <p><strong>Bornes (propriétés système) :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.cache.courses.ttlMs</code> : durée de vie d'un instantané (défaut : 60000)</li>
+ *   <li><code>colorrun.cache.courses.maxEntries</code> : au-delà, le catalogue n'est pas mis en cache (défaut : 10000)</li>
+ *   <li><code>colorrun.cache.courses.enabled</code> : active le cache (défaut : true)</li>
+ * </ul>
+ */
+public class CourseCatalogCache {
+
+    /**
+     * Chargement du catalogue complet depuis la source de données.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        List<Course> load() throws SQLException;
+    }
+
+    private static final CourseCatalogCache INSTANCE = new CourseCatalogCache(
+            Long.getLong("colorrun.cache.courses.ttlMs", 60_000L),
+            Integer.getInteger("colorrun.cache.courses.maxEntries", 10_000),
+            Boolean.parseBoolean(System.getProperty("colorrun.cache.courses.enabled", "true")));
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final boolean enabled;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Object loadLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    CourseCatalogCache(long ttlMs, int maxEntries, boolean enabled) {
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.maxEntries = maxEntries;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return l'instance partagée par tous les services de courses
+     */
+    public static CourseCatalogCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Retourne l'instantané courant, en le (re)chargeant via {@code loader}
+     * s'il est absent, expiré ou invalidé. Un seul thread recharge à la fois ;
+     * les autres réutilisent le résultat.
+     *
+     * @param loader lecture du catalogue complet en base
+     * @return un instantané immuable du catalogue
+     * @throws SQLException si le chargement échoue
+     */
+    public Snapshot get(Loader loader) throws SQLException {
+        Snapshot snapshot = current.get();
+        if (isFresh(snapshot)) {
+            hits.increment();
+            return snapshot;
+        }
+
+        misses.increment();
+        if (!enabled) {
+            return new Snapshot(loader.load(), generation.get());
+        }
+
+        synchronized (loadLock) {
+            snapshot = current.get();
+            if (isFresh(snapshot)) {
+                return snapshot;
+            }
+
+            long loadGeneration = generation.get();
+            List<Course> courses = loader.load();
+            loads.increment();
+            Snapshot loaded = new Snapshot(courses, loadGeneration);
+
+            if (courses.size() > maxEntries) {
+                Logger.warn("CourseCatalogCache", "Catalogue trop volumineux pour le cache: "
+                        + courses.size() + " > " + maxEntries);
+                return loaded;
+            }
+            // Publié seulement si aucune écriture n'a eu lieu pendant le chargement
+            if (generation.get() == loadGeneration) {
+                current.set(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * @return l'instantané courant s'il est encore valide, sans déclencher
+     *         de chargement ; null sinon
+     */
+    public Snapshot peek() {
+        Snapshot snapshot = current.get();
+        return isFresh(snapshot) ? snapshot : null;
+    }
+
+    private boolean isFresh(Snapshot snapshot) {
+        return snapshot != null
+                && snapshot.generation == generation.get()
+                && System.nanoTime() - snapshot.loadedAtNanos < ttlNanos;
+    }
+
+    /**
+     * Invalide le catalogue. À appeler après toute création, modification
+     * ou suppression de course.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        current.set(null);
+        invalidations.increment();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public String getStatsSummary() {
+        Snapshot snapshot = current.get();
+        return "CourseCatalogCache{hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", chargements=" + getLoadCount() +
+                ", invalidations=" + getInvalidationCount() +
+                ", taille=" + (snapshot != null ? snapshot.size() : 0) +
+                ", ratio=" + String.format("%.2f", getHitRatio()) +
+                '}';
+    }
+
+    /**
+     * Vue immuable du catalogue à un instant donné. Les agrégats
+     * (villes, distances) sont calculés une fois au chargement.
+     */
+    public static final class Snapshot {
+        private final List<Course> courses;
+        private final List<String> cities;
+        private final List<Double> distances;
+        private final Map<Integer, Course> byId;
+        private final long generation;
+        private final long loadedAtNanos;
+
+        Snapshot(List<Course> courses, long generation) {
+            this.courses = Collections.unmodifiableList(new ArrayList<>(courses));
+            this.generation = generation;
+            this.loadedAtNanos = System.nanoTime();
+
+            Set<String> citySet = new LinkedHashSet<>();
+            Set<Double> distanceSet = new LinkedHashSet<>();
+            Map<Integer, Course> index = new HashMap<>();
+            for (Course course : courses) {
+                index.put(course.getId(), course);
+                if (course.getCity() != null && !course.getCity().trim().isEmpty()) {
+                    citySet.add(course.getCity().trim());
+                }
+                if (course.getDistance() != null && course.getDistance() > 0) {
+                    distanceSet.add(course.getDistance());
+                }
+            }
+            this.cities = Collections.unmodifiableList(new ArrayList<>(citySet));
+            this.distances = Collections.unmodifiableList(new ArrayList<>(distanceSet));
+            this.byId = index;
+        }
+
+        /** @return toutes les courses, triées par date croissante */
+        public List<Course> getCourses() {
+            return courses;
+        }
+
+        /** @return les villes distinctes, dans l'ordre des courses */
+        public List<String> getCities() {
+            return cities;
+        }
+
+        /** @return les distances distinctes strictement positives */
+        public List<Double> getDistances() {
+            return distances;
+        }
+
+        /** @return la course d'identifiant donné, ou null */
+        public Course getById(int id) {
+            return byId.get(id);
+        }
+
+        public int size() {
+            return courses.size();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.colorrun.cache;
+
+import com.colorrun.util.StripedLocks;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Miroir en mémoire du nombre d'inscrits par course.
+ *
+ * <p>La valeur de référence est la colonne <code>Course.currentParticipants</code>,
+ * mise à jour dans la transaction de chaque inscription ou annulation. Ce
+ * miroir évite de relire la base pour afficher les places restantes : un
+ * compteur est chargé une fois par course puis suivi par
+ * {@link #increment(int)} / {@link #decrement(int)} après chaque écriture
+ * validée.</p>
+ *
+ * <p><strong>Cohérence :</strong> le chargement et les mises à jour d'une même
+ * course se font sous le verrou renvoyé par {@link #lockFor(int)}, que
+ * l'inscription tient déjà ; une mise à jour ne peut donc pas être perdue
+ * entre la lecture en base et l'installation du compteur. Les écritures faites
+ * par une autre instance de l'application ne sont pas vues : le miroir sert à
+ * l'affichage, la vérification des places se fait toujours en base.</p>
+ */
+public final class CourseSeatCounter {
+
+    /**
+     * Lecture du compteur persisté d'une course.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        int load(int courseId) throws SQLException;
+    }
+
+    private static final CourseSeatCounter INSTANCE = new CourseSeatCounter();
+
+    private final ConcurrentHashMap<Integer, LongAdder> counts = new ConcurrentHashMap<>();
+    private final StripedLocks locks = new StripedLocks(64);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    private CourseSeatCounter() {
+    }
+
+    /**
+     * @return l'instance partagée par les services de courses et d'inscriptions
+     */
+    public static CourseSeatCounter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Verrou sérialisant les inscriptions, annulations et chargements d'une
+     * course. À prendre avant d'emprunter une connexion.
+     */
+    public ReentrantLock lockFor(int courseId) {
+        return locks.get(courseId);
+    }
+
+    /**
+     * Nombre d'inscrits actifs, chargé via {@code loader} au premier accès.
+     *
+     * @throws SQLException si le chargement échoue
+     */
+    public int get(int courseId, Loader loader) throws SQLException {
+        LongAdder count = counts.get(courseId);
+        if (count != null) {
+            hits.increment();
+            return (int) count.sum();
+        }
+
+        ReentrantLock lock = lockFor(courseId);
+        lock.lock();
+        try {
+            count = counts.get(courseId);
+            if (count == null) {
+                count = new LongAdder();
+                count.add(loader.load(courseId));
+                loads.increment();
+                counts.put(courseId, count);
+            }
+            return (int) count.sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Enregistre une inscription validée. Sans effet si la course n'est
+     * pas encore chargée (la base est déjà à jour).
+     */
+    public void increment(int courseId) {
+        LongAdder count = counts.get(courseId);
+        if (count != null) {
+            count.increment();
+        }
+    }
+
+    /**
+     * Enregistre une annulation validée.
+     */
+    public void decrement(int courseId) {
+        LongAdder count = counts.get(courseId);
+        if (count != null) {
+            count.decrement();
+        }
+    }
+
+    /**
+     * Oublie le compteur d'une course (suppression) ; il sera rechargé.
+     */
+    public void evict(int courseId) {
+        counts.remove(courseId);
+    }
+
+    /**
+     * Oublie tous les compteurs, par exemple après une suppression en
+     * cascade qui touche plusieurs courses.
+     */
+    public void clear() {
+        counts.clear();
+    }
+
+    public String getStatsSummary() {
+        return "CourseSeatCounter{courses=" + counts.size() +
+                ", lectures=" + hits.sum() +
+                ", chargements=" + loads.sum() +
+                '}';
+    }
+}
@@ -0,0 +1,396 @@
+package com.colorrun.cache;
+
+import com.colorrun.util.Logger;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache disque des fichiers générés (PDF de dossards, QR codes PNG).
+ *
+ * <p>Chaque fichier est adressé par le contenu : sa clé est un SHA-256 de
+ * toutes les données qui entrent dans le rendu (voir {@link #key(String, Object...)}).
+ * Une modification de la course ou du participant produit donc une autre
+ * clé, et l'ancien fichier n'est plus jamais servi. Les fichiers sont
+ * aussi étiquetés par course et par utilisateur (dans leur nom, pour survivre
+ * au redémarrage) afin d'être supprimés dès une modification via
+ * {@link #invalidateCourse(int)} / {@link #invalidateUser(int)}.</p>
+ *
+ * <p>Le volume total est borné : au-delà du budget, les fichiers les moins
+ * récemment servis sont supprimés. Les fichiers sont envoyés sans être
+ * chargés en entier en mémoire : {@link #transferTo} lit par
+ * {@link FileChannel#transferTo}, mais vers un flux de servlet (enveloppé
+ * par {@code Channels.newChannel}) le JDK recopie par un petit tampon. Seul
+ * le sendfile du conteneur évite la copie (voir {@code DossardServlet}).</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.cache.render.dir</code> : répertoire du cache
+ *       (défaut : <code>${java.io.tmpdir}/colorrun-render-cache</code>)</li>
+ *   <li><code>colorrun.cache.render.maxBytes</code> : budget disque en octets (défaut : 256 Mo)</li>
+ *   <li><code>colorrun.cache.render.enabled</code> : active le cache (défaut : true)</li>
+ * </ul>
+ */
+public class RenderedFileCache {
+
+    private static final RenderedFileCache INSTANCE = new RenderedFileCache(
+            Paths.get(System.getProperty("colorrun.cache.render.dir",
+                    Paths.get(System.getProperty("java.io.tmpdir"), "colorrun-render-cache").toString())),
+            Long.getLong("colorrun.cache.render.maxBytes", 256L * 1024 * 1024),
+            Boolean.parseBoolean(System.getProperty("colorrun.cache.render.enabled", "true")));
+
+    /** Séparateur entre étiquettes et empreinte dans les noms de fichiers */
+    private static final char SEPARATOR = '_';
+
+    private final Path directory;
+    private final long maxBytes;
+    private final boolean enabled;
+
+    /** Fichiers par nom, du moins au plus récemment utilisé. Protégé par {@code this}. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    RenderedFileCache(Path directory, long maxBytes, boolean enabled) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        boolean ready = enabled;
+        if (enabled) {
+            try {
+                Files.createDirectories(directory);
+                load();
+            } catch (IOException e) {
+                Logger.warn("RenderedFileCache", "Cache de rendu désactivé (" + directory + "): " + e.getMessage());
+                ready = false;
+            }
+        }
+        this.enabled = ready;
+    }
+
+    /**
+     * @return l'instance partagée par les services de dossards
+     */
+    public static RenderedFileCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Calcule la clé d'un rendu à partir de toutes ses entrées.
+     *
+     * @param kind  type de rendu (et version de la mise en page)
+     * @param parts valeurs utilisées par le rendu, dans un ordre fixe
+     * @return une empreinte hexadécimale
+     */
+    public static String key(String kind, Object... parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(kind.getBytes(StandardCharsets.UTF_8));
+        for (Object part : parts) {
+            digest.update((byte) 0);
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Cherche un rendu en cache.
+     *
+     * @return le fichier, ou null s'il est absent
+     */
+    public Cached get(int courseId, int userId, String key, String extension) {
+        if (!enabled) {
+            return null;
+        }
+        String name = fileName(courseId, userId, key, extension);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(name);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Cached(directory.resolve(name), entry.size);
+    }
+
+    /**
+     * Lit un rendu en cache dans un tableau (pour l'intégrer à un autre
+     * document).
+     *
+     * @return le contenu, ou null s'il est absent
+     */
+    public byte[] getBytes(int courseId, int userId, String key, String extension) {
+        Cached cached = get(courseId, userId, key, extension);
+        if (cached == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(cached.path);
+        } catch (IOException e) {
+            // Supprimé entre-temps (éviction, invalidation)
+            return null;
+        }
+    }
+
+    /**
+     * Enregistre un rendu. Le fichier est écrit à part puis renommé : un
+     * lecteur ne voit jamais de fichier partiel.
+     */
+    public void put(int courseId, int userId, String key, String extension, byte[] content) {
+        if (!enabled || content.length > maxBytes) {
+            return;
+        }
+        String name = fileName(courseId, userId, key, extension);
+        Path target = directory.resolve(name);
+        try {
+            Path temp = Files.createTempFile(directory, "render-", ".part");
+            try {
+                Files.write(temp, content);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            Logger.warn("RenderedFileCache", "Rendu non mis en cache: " + e.getMessage());
+            return;
+        }
+        writes.increment();
+
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            Entry previous = entries.put(name, new Entry(courseId, userId, content.length));
+            totalBytes += content.length - (previous != null ? previous.size : 0);
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Entry> eldest = it.next();
+                if (eldest.getKey().equals(name)) {
+                    continue;
+                }
+                totalBytes -= eldest.getValue().size;
+                evicted.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        deleteFiles(evicted);
+        evictions.add(evicted.size());
+    }
+
+    /**
+     * Envoie un fichier en cache vers un canal de sortie. Sans copie
+     * seulement si la cible est un canal de fichier ou de socket ; pour un
+     * flux enveloppé, le JDK passe par un tampon de 8 Ko.
+     *
+     * @return le nombre d'octets envoyés
+     * @throws NoSuchFileException si le fichier a été supprimé depuis {@link #get}
+     */
+    public static long transferTo(Cached cached, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(cached.path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Supprime tous les rendus d'une course (modification, suppression).
+     */
+    public void invalidateCourse(int courseId) {
+        invalidate(true, courseId);
+    }
+
+    /**
+     * Supprime tous les rendus d'un utilisateur (modification, suppression).
+     */
+    public void invalidateUser(int userId) {
+        invalidate(false, userId);
+    }
+
+    private void invalidate(boolean byCourse, int id) {
+        if (!enabled) {
+            return;
+        }
+        List<String> removed = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> entry = it.next();
+                if ((byCourse ? entry.getValue().courseId : entry.getValue().userId) == id) {
+                    totalBytes -= entry.getValue().size;
+                    removed.add(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+        deleteFiles(removed);
+    }
+
+    /**
+     * Reconstruit l'index depuis le répertoire, du plus ancien au plus
+     * récent, puis applique le budget.
+     */
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()));
+
+        List<String> stale = new ArrayList<>();
+        synchronized (this) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Entry entry = parse(name, Files.size(file));
+                if (entry == null) {
+                    stale.add(name);
+                    continue;
+                }
+                entries.put(name, entry);
+                totalBytes += entry.size;
+            }
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Entry> eldest = it.next();
+                totalBytes -= eldest.getValue().size;
+                stale.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        deleteFiles(stale);
+        Logger.info("RenderedFileCache", entries.size() + " rendu(s) en cache (" + totalBytes / 1024 + " Ko) dans " + directory);
+    }
+
+    private void deleteFiles(List<String> names) {
+        for (String name : names) {
+            try {
+                Files.deleteIfExists(directory.resolve(name));
+            } catch (IOException e) {
+                Logger.warn("RenderedFileCache", "Suppression impossible: " + name);
+            }
+        }
+    }
+
+    private static String fileName(int courseId, int userId, String key, String extension) {
+        return String.valueOf(courseId) + SEPARATOR + userId + SEPARATOR + key + "." + extension;
+    }
+
+    /**
+     * @return l'entrée décrite par un nom de fichier, ou null s'il ne vient pas du cache
+     */
+    private static Entry parse(String name, long size) {
+        int first = name.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : name.indexOf(SEPARATOR, first + 1);
+        if (second < 0 || name.endsWith(".part")) {
+            return null;
+        }
+        try {
+            return new Entry(Integer.parseInt(name.substring(0, first)),
+                    Integer.parseInt(name.substring(first + 1, second)), size);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public String getStatsSummary() {
+        int count;
+        long bytes;
+        synchronized (this) {
+            count = entries.size();
+            bytes = totalBytes;
+        }
+        return "RenderedFileCache{hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", écritures=" + writes.sum() +
+                ", évictions=" + getEvictionCount() +
+                ", fichiers=" + count +
+                ", taille=" + bytes / 1024 + " Ko/" + maxBytes / 1024 + " Ko" +
+                '}';
+    }
+
+    /**
+     * Fichier trouvé en cache.
+     */
+    public static final class Cached {
+        private final Path path;
+        private final long size;
+
+        Cached(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    private static final class Entry {
+        final int courseId;
+        final int userId;
+        final long size;
+
+        Entry(int courseId, int userId, long size) {
+            this.courseId = courseId;
+            this.userId = userId;
+            this.size = size;
+        }
+    }
+}
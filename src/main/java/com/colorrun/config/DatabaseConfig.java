@@ -16,7 +16,8 @@ import org.h2.jdbcx.JdbcDataSource;
  * <ul>
  *   <li>Type : H2 Database (base de données embarquée)</li>
  *   <li>Mode : Fichier avec serveur automatique</li>
- *   <li>Emplacement : ./dbFiles/Runton_color_Prod</li>
+ *   <li>Emplacement : ./dbFiles/Runton_color_Prod (propriété système <code>colorrun.db.url</code>
+ *       pour une autre URL JDBC)</li>
  *   <li>Utilisateur : Runton</li>
  *   <li>Mot de passe : (vide)</li>
  * </ul>
@@ -26,6 +27,18 @@ import org.h2.jdbcx.JdbcDataSource;
  * à la même base de données, ce qui est utile pour les outils d'administration
  * et le développement.
  * 
+ * <p><strong>Pool de connexions :</strong></p>
+ * Par défaut, les connexions physiques sont mutualisées par un {@link PooledDataSource}
+ * borné. Le pool se configure par propriétés système :
+ * <ul>
+ *   <li><code>colorrun.db.pool.enabled</code> : active le pool (défaut : true)</li>
+ *   <li><code>colorrun.db.pool.minSize</code> : connexions ouvertes au démarrage (défaut : 2)</li>
+ *   <li><code>colorrun.db.pool.maxSize</code> : connexions simultanées maximales (défaut : 10)</li>
+ *   <li><code>colorrun.db.pool.acquireTimeoutMs</code> : attente maximale d'une connexion (défaut : 5000)</li>
+ *   <li><code>colorrun.db.pool.leakThresholdMs</code> : seuil de détection des fuites, par exemple 30000 ;
+ *       désactivée par défaut (0), car elle capture une pile d'appels à chaque emprunt</li>
+ * </ul>
+ * 
  * @author Équipe Color Run
  * @version 1.0
  * @since 1.0
@@ -35,8 +48,9 @@ import org.h2.jdbcx.JdbcDataSource;
  */
 public class DatabaseConfig {
     
-    /** URL de connexion à la base de données H2 */
-    private static final String DB_URL = "jdbc:h2:file:./dbFiles/Runton_color_Prod;AUTO_SERVER=TRUE";
+    /** URL de connexion à la base de données H2 (<code>colorrun.db.url</code> pour une autre base, par exemple en test) */
+    private static final String DB_URL = System.getProperty("colorrun.db.url",
+            "jdbc:h2:file:./dbFiles/Runton_color_Prod;AUTO_SERVER=TRUE");
     
     /** Nom d'utilisateur pour la connexion à la base de données */
     private static final String DB_USER = "Runton";
@@ -47,6 +61,9 @@ public class DatabaseConfig {
     /** Source de données partagée pour toute l'application */
     private static DataSource dataSource;
     
+    /** Pool de connexions, ou null si le pool est désactivé */
+    private static PooledDataSource pool;
+    
     /**
      * Bloc d'initialisation statique.
      * 
@@ -75,7 +92,8 @@ public class DatabaseConfig {
      * Initialise la source de données H2.
      * 
      * Cette méthode configure une source de données JDBC pour H2 avec les
-     * paramètres de connexion définis. Elle est appelée automatiquement
+     * paramètres de connexion définis, puis la place derrière un pool de
+     * connexions si celui-ci est activé. Elle est appelée automatiquement
      * lors du chargement de la classe.
      * 
      * @throws RuntimeException Si l'initialisation échoue
@@ -85,7 +103,17 @@ public class DatabaseConfig {
         ds.setURL(DB_URL);
         ds.setUser(DB_USER);
         ds.setPassword(DB_PASSWORD);
-        dataSource = ds;
+        
+        if (Boolean.parseBoolean(System.getProperty("colorrun.db.pool.enabled", "true"))) {
+            pool = new PooledDataSource(ds,
+                    Integer.getInteger("colorrun.db.pool.minSize", 2),
+                    Integer.getInteger("colorrun.db.pool.maxSize", 10),
+                    Long.getLong("colorrun.db.pool.acquireTimeoutMs", 5000L),
+                    Long.getLong("colorrun.db.pool.leakThresholdMs", 0L));
+            dataSource = pool;
+        } else {
+            dataSource = ds;
+        }
     }
     
     /**
@@ -137,7 +165,27 @@ public class DatabaseConfig {
      * @return Une chaîne contenant les informations de configuration
      */
     public static String getConfigInfo() {
-        return "Base de données H2 - URL: " + DB_URL + ", Utilisateur: " + DB_USER;
+        return "Base de données H2 - URL: " + DB_URL + ", Utilisateur: " + DB_USER
+                + (pool != null ? ", Pool: " + pool.getMinSize() + "-" + pool.getMaxSize() : ", Pool: désactivé");
+    }
+    
+    /**
+     * Retourne le pool de connexions pour consulter ses métriques
+     * (connexions actives/inactives, histogramme des temps d'attente...).
+     * 
+     * @return Le pool de connexions, ou null si le pool est désactivé
+     */
+    public static PooledDataSource getPool() {
+        return pool;
+    }
+    
+    /**
+     * Ferme les connexions du pool. Appelée à l'arrêt de l'application.
+     */
+    public static void shutdown() {
+        if (pool != null) {
+            pool.close();
+        }
     }
     
     /**
@@ -38,6 +38,17 @@ import java.util.Properties;
  *   <li>Timeout : 10 secondes</li>
  * </ul>
  * 
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.email.smtp.host</code>, <code>colorrun.email.smtp.port</code> : serveur SMTP</li>
+ *   <li><code>colorrun.email.username</code>, <code>colorrun.email.password</code> : identifiants SMTP</li>
+ *   <li><code>colorrun.email.from</code>, <code>colorrun.email.fromName</code> : expéditeur</li>
+ *   <li><code>colorrun.email.enabled</code> : active l'envoi (défaut true)</li>
+ *   <li><code>colorrun.email.smtp.auth</code> : authentification SMTP (défaut true) ;
+ *       false pour un serveur local de développement ou de test</li>
+ *   <li><code>colorrun.email.smtp.starttls</code> : STARTTLS obligatoire (défaut true)</li>
+ * </ul>
+ * 
  * @author Équipe Color Run
  * @version 1.0
  * @since 1.0
@@ -170,6 +181,18 @@ public class EmailConfig {
         if (envEnabled != null) {
             this.enabled = Boolean.parseBoolean(envEnabled);
         }
+        
+        String envAuth = System.getProperty("colorrun.email.smtp.auth");
+        if (envAuth != null) {
+            properties.setProperty("mail.smtp.auth", String.valueOf(Boolean.parseBoolean(envAuth)));
+        }
+        
+        String envStartTls = System.getProperty("colorrun.email.smtp.starttls");
+        if (envStartTls != null) {
+            String startTls = String.valueOf(Boolean.parseBoolean(envStartTls));
+            properties.setProperty("mail.smtp.starttls.enable", startTls);
+            properties.setProperty("mail.smtp.starttls.required", startTls);
+        }
     }
 
     /**
@@ -312,6 +335,25 @@ public class EmailConfig {
                password != null && !password.isEmpty();
     }
 
+    /**
+     * Indique si le serveur SMTP exige une authentification.
+     * 
+     * @return true si l'authentification SMTP est activée
+     */
+    public boolean isAuthenticationRequired() {
+        return Boolean.parseBoolean(properties.getProperty("mail.smtp.auth"));
+    }
+
+    /**
+     * Vérifie que les emails peuvent être envoyés : service activé et
+     * identifiants renseignés si le serveur les exige.
+     * 
+     * @return true si le service email est utilisable
+     */
+    public boolean isConfigured() {
+        return enabled && (!isAuthenticationRequired() || isAuthenticationConfigured());
+    }
+
     /**
      * Vérifie si TLS est activé.
      * 
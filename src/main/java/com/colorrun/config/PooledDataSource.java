@@ -0,0 +1,475 @@
+package com.colorrun.config;
+
+import com.colorrun.util.Logger;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de connexions borné placé devant une {@link DataSource} physique (H2).
+ *
+ * <p>Les DAO continuent d'appeler {@code getConnection()} puis {@code close()} :
+ * la connexion renvoyée est un proxy dont {@code close()} rend la connexion
+ * physique au pool au lieu de la fermer.</p>
+ *
+ * <p><strong>Fonctionnalités :</strong></p>
+ * <ul>
+ *   <li>Taille minimale (préchauffage) et maximale (sémaphore)</li>
+ *   <li>Timeout d'acquisition ({@link SQLTimeoutException} au-delà)</li>
+ *   <li>Validation à l'emprunt via {@link Connection#isValid(int)}</li>
+ *   <li>Détection des fuites : connexion empruntée plus longtemps que le seuil.
+ *       Elle capture la pile de l'appelant à chaque emprunt : à activer pour
+ *       diagnostiquer, pas en fonctionnement normal</li>
+ *   <li>Métriques : actives, inactives, histogramme des temps d'attente</li>
+ * </ul>
+ *
+ * @see DatabaseConfig Pour la sélection du pool via la configuration
+ */
+public class PooledDataSource implements DataSource {
+
+    /** Bornes supérieures (en ms) des classes de l'histogramme des temps d'attente */
+    private static final long[] WAIT_BUCKETS_MS = {1, 5, 10, 50, 100, 500, 1000, Long.MAX_VALUE};
+
+    private final DataSource physical;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final long leakThresholdMs;
+    private final int validationTimeoutSeconds;
+
+    /** Connexions physiques inactives, réutilisées en LIFO pour garder les plus chaudes */
+    private final LinkedBlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+
+    /** Une permission par connexion pouvant être empruntée simultanément */
+    private final Semaphore permits;
+
+    /** Connexions empruntées et horodatage (nanoTime) de leur emprunt */
+    private final Map<Connection, Borrow> borrowed = new ConcurrentHashMap<>();
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final LongAdder acquiredCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder invalidCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLongArray waitHistogram = new AtomicLongArray(WAIT_BUCKETS_MS.length);
+
+    private final ScheduledExecutorService leakDetector;
+    private volatile boolean closed;
+
+    /**
+     * Crée le pool et ouvre {@code minSize} connexions.
+     *
+     * @param physical          source de données physique
+     * @param minSize           nombre de connexions ouvertes au démarrage
+     * @param maxSize           nombre maximal de connexions simultanées
+     * @param acquireTimeoutMs  attente maximale pour obtenir une connexion
+     * @param leakThresholdMs   durée d'emprunt au-delà de laquelle une fuite est signalée (0 = désactivé)
+     */
+    public PooledDataSource(DataSource physical, int minSize, int maxSize,
+                            long acquireTimeoutMs, long leakThresholdMs) {
+        if (maxSize <= 0 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Tailles de pool invalides: min=" + minSize + ", max=" + maxSize);
+        }
+        this.physical = physical;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.validationTimeoutSeconds = 2;
+        this.permits = new Semaphore(maxSize, true);
+
+        for (int i = 0; i < minSize; i++) {
+            try {
+                idle.offerFirst(openPhysical());
+            } catch (SQLException e) {
+                Logger.warn("PooledDataSource", "Préchauffage du pool interrompu: " + e.getMessage());
+                break;
+            }
+        }
+
+        if (leakThresholdMs > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "colorrun-pool-leak-detector");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1000, leakThresholdMs / 2);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetector = null;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Le pool de connexions est fermé");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new SQLTimeoutException("Aucune connexion disponible après " + acquireTimeoutMs
+                        + " ms (actives=" + getActiveCount() + ", max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompu en attente d'une connexion", e);
+        }
+
+        Connection conn;
+        try {
+            conn = takeValidConnection();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        recordWait(System.nanoTime() - start);
+        acquiredCount.increment();
+        borrowed.put(conn, new Borrow(System.nanoTime(), leakThresholdMs > 0 ? new Throwable("Emprunt de connexion") : null));
+        return wrap(conn);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Le pool utilise les identifiants de DatabaseConfig");
+    }
+
+    /**
+     * Retourne une connexion inactive valide ou en ouvre une nouvelle.
+     * Les connexions invalides sont fermées et retirées du pool.
+     */
+    private Connection takeValidConnection() throws SQLException {
+        Connection conn;
+        while ((conn = idle.pollFirst()) != null) {
+            if (isUsable(conn)) {
+                return conn;
+            }
+            invalidCount.increment();
+            closeQuietly(conn);
+            totalConnections.decrementAndGet();
+        }
+        return openPhysical();
+    }
+
+    private boolean isUsable(Connection conn) {
+        try {
+            return !conn.isClosed() && conn.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Connection conn = physical.getConnection();
+        totalConnections.incrementAndGet();
+        return conn;
+    }
+
+    /**
+     * Rend une connexion physique au pool après avoir restauré son état par défaut.
+     */
+    private void release(Connection conn) {
+        if (borrowed.remove(conn) == null) {
+            return; // Déjà rendue
+        }
+        try {
+            boolean reusable = !closed && !conn.isClosed();
+            if (reusable) {
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+                if (conn.isReadOnly()) {
+                    conn.setReadOnly(false);
+                }
+                conn.clearWarnings();
+                idle.offerFirst(conn);
+            } else {
+                closeQuietly(conn);
+                totalConnections.decrementAndGet();
+            }
+        } catch (SQLException e) {
+            closeQuietly(conn);
+            totalConnections.decrementAndGet();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.add(nanos);
+        long ms = TimeUnit.NANOSECONDS.toMillis(nanos);
+        for (int i = 0; i < WAIT_BUCKETS_MS.length; i++) {
+            if (ms < WAIT_BUCKETS_MS[i]) {
+                waitHistogram.incrementAndGet(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Signale les connexions empruntées depuis plus longtemps que le seuil de fuite.
+     * Chaque emprunt n'est signalé qu'une fois.
+     */
+    private void detectLeaks() {
+        long now = System.nanoTime();
+        long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(leakThresholdMs);
+        for (Borrow borrow : borrowed.values()) {
+            if (!borrow.reported && now - borrow.startNanos > thresholdNanos) {
+                borrow.reported = true;
+                leakCount.increment();
+                StackTraceElement origin = findCaller(borrow.origin);
+                Logger.warn("PooledDataSource", "Fuite de connexion probable: empruntée depuis "
+                        + TimeUnit.NANOSECONDS.toMillis(now - borrow.startNanos) + " ms"
+                        + (origin != null ? " par " + origin : ""));
+            }
+        }
+    }
+
+    private static StackTraceElement findCaller(Throwable origin) {
+        if (origin == null) {
+            return null;
+        }
+        for (StackTraceElement element : origin.getStackTrace()) {
+            if (!element.getClassName().startsWith(PooledDataSource.class.getName())
+                    && !element.getClassName().equals(DatabaseConfig.class.getName())) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private Connection wrap(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(
+                PooledDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnectionHandler(conn));
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // Connexion déjà inutilisable
+        }
+    }
+
+    /**
+     * Ferme toutes les connexions inactives et refuse les nouveaux emprunts.
+     * Les connexions empruntées sont fermées à leur restitution.
+     */
+    public void close() {
+        closed = true;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        Connection conn;
+        while ((conn = idle.pollFirst()) != null) {
+            closeQuietly(conn);
+            totalConnections.decrementAndGet();
+        }
+    }
+
+    // ----- Métriques -----
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getPendingCount() {
+        return permits.getQueueLength();
+    }
+
+    public long getAcquiredCount() {
+        return acquiredCount.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    public long getInvalidCount() {
+        return invalidCount.sum();
+    }
+
+    public long getLeakCount() {
+        return leakCount.sum();
+    }
+
+    /**
+     * @return temps d'attente moyen d'acquisition en millisecondes
+     */
+    public double getAverageWaitMillis() {
+        long acquired = acquiredCount.sum();
+        return acquired == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / acquired;
+    }
+
+    /**
+     * Histogramme des temps d'attente : clé = borne supérieure exclusive en ms
+     * ({@code Long.MAX_VALUE} pour la dernière classe), valeur = nombre d'acquisitions.
+     */
+    public Map<Long, Long> getWaitHistogram() {
+        Map<Long, Long> histogram = new java.util.LinkedHashMap<>();
+        for (int i = 0; i < WAIT_BUCKETS_MS.length; i++) {
+            histogram.put(WAIT_BUCKETS_MS[i], waitHistogram.get(i));
+        }
+        return histogram;
+    }
+
+    /**
+     * Résumé des métriques du pool, au format du reste de la configuration.
+     */
+    public String getStatsSummary() {
+        return "Pool{actives=" + getActiveCount() +
+                ", inactives=" + getIdleCount() +
+                ", total=" + getTotalCount() + "/" + maxSize +
+                ", en attente=" + getPendingCount() +
+                ", acquisitions=" + getAcquiredCount() +
+                ", timeouts=" + getTimeoutCount() +
+                ", invalides=" + getInvalidCount() +
+                ", fuites=" + getLeakCount() +
+                ", attente moy.=" + String.format("%.3f", getAverageWaitMillis()) + "ms" +
+                ", histogramme=" + getWaitHistogram() +
+                '}';
+    }
+
+    // ----- DataSource -----
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return physical.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        physical.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        physical.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return physical.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return physical.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return physical.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || physical.isWrapperFor(iface);
+    }
+
+    /**
+     * Informations sur un emprunt en cours.
+     */
+    private static final class Borrow {
+        final long startNanos;
+        final Throwable origin;
+        volatile boolean reported;
+
+        Borrow(long startNanos, Throwable origin) {
+            this.startNanos = startNanos;
+            this.origin = origin;
+        }
+    }
+
+    /**
+     * Proxy de connexion : {@code close()} rend la connexion au pool,
+     * les autres appels sont délégués à la connexion physique.
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private boolean released;
+
+        PooledConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(target);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || target.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(target)) {
+                        return target;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + target + "]";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Connexion déjà rendue au pool");
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
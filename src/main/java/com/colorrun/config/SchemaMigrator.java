@@ -0,0 +1,221 @@
+package com.colorrun.config;
+
+import com.colorrun.util.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Exécute au démarrage les migrations de schéma versionnées.
+ *
+ * <p>Chaque migration est un script SQL du classpath
+ * <code>/db/migration/V&lt;version&gt;__&lt;description&gt;.sql</code>, déclaré dans
+ * {@link #MIGRATIONS} par ordre de version. Les versions appliquées sont
+ * enregistrées dans la table <code>SchemaVersion</code> : une migration déjà
+ * appliquée n'est jamais rejouée.</p>
+ *
+ * <p>Sous H2, chaque instruction DDL (<code>CREATE</code>, <code>ALTER</code>,
+ * <code>DROP</code>) valide implicitement la transaction en cours : une
+ * migration interrompue garde les instructions déjà exécutées, seule sa
+ * version n'est pas enregistrée. Les scripts doivent donc pouvoir être
+ * rejoués depuis le début (<code>IF NOT EXISTS</code>, <code>IF EXISTS</code>,
+ * mises à jour sans effet sur des données déjà corrigées).</p>
+ *
+ * <p>Une migration en échec interrompt la suite (les suivantes peuvent en
+ * dépendre) et lève une {@link IllegalStateException} : le code suppose le
+ * schéma à jour, l'application ne doit pas démarrer sans lui. Elle sera
+ * retentée au prochain démarrage.</p>
+ *
+ * <p><strong>Ajouter une migration :</strong> créer le script avec la version
+ * suivante puis l'ajouter à la fin de {@link #MIGRATIONS}.</p>
+ *
+ * @see DatabaseConfig Pour la source de données utilisée
+ */
+public final class SchemaMigrator {
+
+    /** Scripts de migration, par ordre de version croissante */
+    private static final String[] MIGRATIONS = {
+            "V1__index_hot_predicates.sql",
+            "V2__unique_participation.sql",
+            "V3__course_participant_counter.sql",
+            "V4__dossard_sequence.sql",
+            "V5__email_outbox.sql",
+            "V6__course_reminder.sql",
+            "V7__verification_token_hash.sql",
+            "V8__drop_verification_token_plaintext.sql",
+            "V9__drop_unused_sort_indexes.sql"
+    };
+
+    private static final String MIGRATION_PATH = "/db/migration/";
+
+    private SchemaMigrator() {
+        // Classe utilitaire - ne doit pas être instanciée
+    }
+
+    /**
+     * Applique les migrations manquantes.
+     *
+     * @return le nombre de migrations appliquées
+     * @throws IllegalStateException si une migration échoue ou si les versions ne peuvent être lues
+     */
+    public static int migrate() {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return migrate(conn);
+        } catch (SQLException e) {
+            Logger.error("SchemaMigrator", "Impossible de lire les versions du schéma", e);
+            throw new IllegalStateException("Impossible de lire les versions du schéma", e);
+        }
+    }
+
+    /**
+     * Applique les migrations manquantes sur une connexion donnée (base de
+     * test distincte de celle de {@link DatabaseConfig}, par exemple).
+     *
+     * @return le nombre de migrations appliquées
+     * @throws IllegalStateException si une migration échoue
+     */
+    static int migrate(Connection conn) throws SQLException {
+        int applied = 0;
+        createVersionTable(conn);
+        Set<Integer> done = appliedVersions(conn);
+
+        for (String script : MIGRATIONS) {
+            int version = versionOf(script);
+            if (done.contains(version)) {
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            try {
+                apply(conn, version, script);
+            } catch (SQLException | IOException e) {
+                Logger.error("SchemaMigrator", "Échec de la migration " + script, e);
+                throw new IllegalStateException("Échec de la migration " + script
+                        + " (" + applied + " migration(s) appliquée(s) avant)", e);
+            }
+            applied++;
+            Logger.success("SchemaMigrator", "Migration " + script + " appliquée en "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+        return applied;
+    }
+
+    /**
+     * @return la version la plus élevée appliquée, 0 si aucune
+     */
+    public static int currentVersion() throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            createVersionTable(conn);
+            int max = 0;
+            for (int version : appliedVersions(conn)) {
+                max = Math.max(max, version);
+            }
+            return max;
+        }
+    }
+
+    private static void createVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS SchemaVersion ("
+                    + "version INT PRIMARY KEY, "
+                    + "script VARCHAR(255) NOT NULL, "
+                    + "appliedAt TIMESTAMP NOT NULL)");
+        }
+    }
+
+    private static Set<Integer> appliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM SchemaVersion")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Exécute un script et enregistre sa version, dans une transaction pour
+     * les instructions DML (les instructions DDL sont validées au fil de
+     * l'eau par H2).
+     * L'insertion dans SchemaVersion échoue (clé primaire) si une autre
+     * instance a appliqué la même version entre-temps.
+     */
+    private static void apply(Connection conn, int version, String script) throws SQLException, IOException {
+        List<String> statements = readStatements(script);
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : statements) {
+                    stmt.execute(sql);
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO SchemaVersion (version, script, appliedAt) VALUES (?, ?, ?)")) {
+                stmt.setInt(1, version);
+                stmt.setString(2, script);
+                stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                stmt.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Lit un script et le découpe en instructions (séparateur « ; » en fin de
+     * ligne, commentaires « -- » ignorés).
+     */
+    private static List<String> readStatements(String script) throws IOException {
+        String content;
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(MIGRATION_PATH + script)) {
+            if (in == null) {
+                throw new IOException("Script de migration introuvable: " + script);
+            }
+            content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : content.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static int versionOf(String script) {
+        int end = script.indexOf("__");
+        if (!script.startsWith("V") || end < 0) {
+            throw new IllegalStateException("Nom de migration invalide: " + script);
+        }
+        return Integer.parseInt(script.substring(1, end));
+    }
+}
@@ -1,6 +1,9 @@
 package com.colorrun.config;
 
 import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.cache.StandardCache;
+import org.thymeleaf.cache.StandardCacheManager;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresolver.WebApplicationTemplateResolver;
 import org.thymeleaf.web.servlet.JavaxServletWebApplication;
@@ -11,10 +14,29 @@ import javax.servlet.ServletContext;
 /**
  * Configuration Thymeleaf pour remplacer les JSP
  * Utilise des templates HTML avec données dynamiques
+ *
+ * <p>En production, chaque template est lu et analysé une seule fois puis
+ * conservé dans un cache borné ; il est relu à l'expiration de sa durée de
+ * validité, ce qui suffit à prendre en compte un redéploiement à chaud. Avec
+ * le profil dev, rien n'est mis en cache : une modification du template est
+ * visible à la requête suivante.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.profile</code> : <code>dev</code> pour désactiver le cache (défaut : prod),
+ *       activé par <code>mvn -Pdev tomcat7:run</code></li>
+ *   <li><code>colorrun.thymeleaf.cacheTtlSeconds</code> : durée avant relecture d'un template (défaut : 300)</li>
+ *   <li><code>colorrun.thymeleaf.cacheMaxTemplates</code> : templates analysés conservés (défaut : 200)</li>
+ * </ul>
  */
 public class ThymeleafConfig {
     
+    private static final boolean DEV_PROFILE = "dev".equalsIgnoreCase(System.getProperty("colorrun.profile", "prod"));
+    private static final long CACHE_TTL_SECONDS = Long.getLong("colorrun.thymeleaf.cacheTtlSeconds", 300L);
+    private static final int CACHE_MAX_TEMPLATES = Integer.getInteger("colorrun.thymeleaf.cacheMaxTemplates", 200);
+    
     private static TemplateEngine templateEngine;
+    private static JavaxServletWebApplication application;
     
     /**
      * Initialise Thymeleaf pour remplacer les JSP
@@ -24,24 +46,37 @@ public class ThymeleafConfig {
         Logger.step("ThymeleafConfig", "Initialisation du moteur de template");
         
         try {
-            // Create web application
-            JavaxServletWebApplication application = JavaxServletWebApplication.buildApplication(servletContext);
+            // Create web application (partagée par tous les rendus)
+            application = JavaxServletWebApplication.buildApplication(servletContext);
             
             // Create template resolver
             WebApplicationTemplateResolver templateResolver = new WebApplicationTemplateResolver(application);
             templateResolver.setPrefix("/WEB-INF/templates/"); // Changement vers /templates/
             templateResolver.setSuffix(".html");
             templateResolver.setTemplateMode(TemplateMode.HTML);
-            templateResolver.setCacheable(false); // Pas de cache en dev
             templateResolver.setCharacterEncoding("UTF-8");
+            templateResolver.setCacheable(!DEV_PROFILE); // Pas de cache en dev
+            templateResolver.setCacheTTLMs(Math.max(1L, CACHE_TTL_SECONDS) * 1000L);
             
             Logger.info("ThymeleafConfig", "📁 Templates: /WEB-INF/templates/*.html");
             Logger.info("ThymeleafConfig", "🔤 Encodage: UTF-8");
-            Logger.info("ThymeleafConfig", "🚫 Cache: désactivé");
+            if (DEV_PROFILE) {
+                Logger.info("ThymeleafConfig", "🚫 Cache: désactivé (profil dev, rechargement à chaud)");
+            } else {
+                Logger.info("ThymeleafConfig", "💾 Cache: " + CACHE_MAX_TEMPLATES + " templates, relus après "
+                        + CACHE_TTL_SECONDS + " s");
+            }
+            
+            // Cache borné des templates analysés, avec compteurs pour getStatsSummary()
+            StandardCacheManager cacheManager = new StandardCacheManager();
+            cacheManager.setTemplateCacheMaxSize(Math.max(1, CACHE_MAX_TEMPLATES));
+            cacheManager.setTemplateCacheEnableCounters(true);
+            cacheManager.setExpressionCacheEnableCounters(true);
             
             // Create template engine
             templateEngine = new TemplateEngine();
             templateEngine.setTemplateResolver(templateResolver);
+            templateEngine.setCacheManager(cacheManager);
             
             Logger.success("ThymeleafConfig", "✅ Thymeleaf configuré avec succès");
             Logger.stepSuccess("ThymeleafConfig", "Moteur prêt à remplacer les JSP");
@@ -61,10 +96,43 @@ public class ThymeleafConfig {
         return templateEngine;
     }
     
+    /**
+     * Retourne l'application web Thymeleaf, construite une fois à l'initialisation
+     */
+    public static JavaxServletWebApplication getApplication() {
+        return application;
+    }
+    
     /**
      * Vérifie si Thymeleaf est prêt
      */
     public static boolean isReady() {
         return templateEngine != null;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Résumé des caches de templates et d'expressions, pour les logs et l'administration
+     */
+    public static String getStatsSummary() {
+        if (templateEngine == null) {
+            return "ThymeleafCache{non initialisé}";
+        }
+        if (DEV_PROFILE) {
+            return "ThymeleafCache{désactivé (profil dev)}";
+        }
+        return "ThymeleafCache{" + describe("templates", templateEngine.getCacheManager().getTemplateCache()) +
+                ", " + describe("expressions", templateEngine.getCacheManager().getExpressionCache()) +
+                ", ttl=" + CACHE_TTL_SECONDS + "s}";
+    }
+    
+    private static String describe(String name, ICache<?, ?> cache) {
+        if (!(cache instanceof StandardCache)) {
+            return name + "=?";
+        }
+        StandardCache<?, ?> stats = (StandardCache<?, ?>) cache;
+        return name + "=" + stats.size() + "/" + stats.getMaxSize() +
+                " (hits=" + stats.getHitCount() +
+                ", misses=" + stats.getMissCount() +
+                ", ratio=" + String.format("%.1f%%", stats.getHitRatio() * 100) + ")";
+    }
+}
@@ -1,11 +1,20 @@
 package com.colorrun.dao;
 
 import com.colorrun.business.Course;
+import com.colorrun.business.CoursePage;
 import com.colorrun.config.DatabaseConfig;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import javax.sql.DataSource;
 
@@ -108,6 +117,33 @@ public class CourseDAO {
         return Optional.empty();
     }
     
+    /**
+     * Récupère en une seule requête les courses dont l'identifiant figure
+     * dans la collection fournie.
+     * 
+     * @param ids Les identifiants recherchés (les doublons sont ignorés)
+     * @return Les courses trouvées, indexées par identifiant
+     * @throws SQLException En cas d'erreur lors de la requête
+     */
+    public Map<Integer, Course> findByIds(Collection<Integer> ids) throws SQLException {
+        Map<Integer, Course> courses = new HashMap<>();
+        if (ids.isEmpty()) {
+            return courses;
+        }
+        String sql = "SELECT * FROM Course WHERE ID = ANY(?)";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("INTEGER", ids.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Course course = mapRow(rs);
+                    courses.put(course.getId(), course);
+                }
+            }
+        }
+        return courses;
+    }
+    
     /**
      * Récupère toutes les courses de la base de données.
      * 
@@ -124,90 +160,229 @@ public class CourseDAO {
                 courses.add(mapRow(rs));
             }
         }
-        // Add logging to check the prices of courses
-        for (Course course : courses) {
-            System.out.println("Course ID: " + course.getId() + ", Name: " + course.getName() + ", Price: " + course.getPrix());
-        }
         return courses;
     }
     
+    /**
+     * Recherche les courses en fonction de différents critères facultatifs.
+     * <p>
+     * Tous les paramètres peuvent être {@code null} ou vides ; seuls ceux
+     * renseignés seront pris en compte dans le filtre.</p>
+     *
+     * @param date      date exacte recherchée (format « YYYY-MM-DD »)
+     * @param city      ville contenant cette chaîne (recherche LIKE)
+     * @param distance  distance en kilomètres (valeur exacte)
+     * @param sort      clé de tri : "date", "distance", "city" ou "name"
+     * @return          liste des courses correspondant aux critères, triées selon {@code sort}
+     * @throws SQLException en cas d'erreur d'accès à la base
+     */
     public List<Course> findFiltered(String date, String city, String distance, String sort) throws SQLException {
-        /**
-         * Recherche les courses en fonction de différents critères facultatifs.
-         * <p>
-         * Tous les paramètres peuvent être {@code null} ou vides ; seuls ceux
-         * renseignés seront pris en compte dans le filtre.</p>
-         *
-         * @param date      date exacte recherchée (format « YYYY-MM-DD »)
-         * @param city      ville contenant cette chaîne (recherche LIKE)
-         * @param distance  distance en kilomètres (valeur exacte)
-         * @param sort      clé de tri : "date", "distance", "city" ou "name"
-         * @return          liste des courses correspondant aux critères, triées selon {@code sort}
-         * @throws SQLException en cas d'erreur d'accès à la base
-         */
         StringBuilder sql = new StringBuilder("SELECT * FROM Course WHERE 1=1");
         List<Object> params = new ArrayList<>();
+        appendFilters(sql, params, date, city, distance);
+        sql.append(" ORDER BY ").append(sortColumn(sort));
         
+        List<Course> courses = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            bindParams(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    courses.add(mapRow(rs));
+                }
+            }
+        }
+        return courses;
+    }
+    
+    /**
+     * Variante paginée par curseur (« keyset ») de {@link #findFiltered}.
+     * <p>
+     * Les courses sont triées par (clé de tri, ID) et la page suivante reprend
+     * strictement après la dernière course de la page précédente, via
+     * {@code (col > ? OR (col = ? AND ID > ?))}. Le coût d'une page ne dépend
+     * donc que de sa taille, pas de sa position dans le catalogue.</p>
+     *
+     * @param date      date exacte recherchée (format « YYYY-MM-DD »)
+     * @param city      ville contenant cette chaîne (recherche LIKE)
+     * @param distance  distance en kilomètres (valeur exacte)
+     * @param sort      clé de tri : "date", "distance", "city" ou "name"
+     * @param cursor    curseur renvoyé par la page précédente, ou null pour la première page
+     * @param pageSize  nombre maximal de courses dans la page (strictement positif)
+     * @return          la page de courses et le curseur de la suivante
+     * @throws IllegalArgumentException si le curseur est invalide ou ne correspond pas au tri
+     * @throws SQLException en cas d'erreur d'accès à la base
+     */
+    public CoursePage findFilteredPage(String date, String city, String distance, String sort,
+                                       String cursor, int pageSize) throws SQLException {
+        String sortKey = normalizeSort(sort);
+        String column = sortColumn(sortKey);
+        
+        StringBuilder sql = new StringBuilder("SELECT * FROM Course WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendFilters(sql, params, date, city, distance);
+        
+        if (cursor != null && !cursor.isEmpty()) {
+            Object lastValue = decodeCursor(cursor, sortKey);
+            int lastId = decodeCursorId(cursor);
+            sql.append(" AND (").append(column).append(" > ? OR (")
+               .append(column).append(" = ? AND ID > ?))");
+            params.add(lastValue);
+            params.add(lastValue);
+            params.add(lastId);
+        }
+        
+        sql.append(" ORDER BY ").append(column).append(", ID LIMIT ?");
+        params.add(pageSize + 1); // Une ligne de plus pour savoir s'il existe une page suivante
+        
+        List<Course> courses = new ArrayList<>(pageSize + 1);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            bindParams(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    courses.add(mapRow(rs));
+                }
+            }
+        }
+        
+        String nextCursor = null;
+        if (courses.size() > pageSize) {
+            courses.remove(pageSize);
+            nextCursor = encodeCursor(sortKey, courses.get(pageSize - 1));
+        }
+        return new CoursePage(courses, nextCursor, pageSize);
+    }
+    
+    private void appendFilters(StringBuilder sql, List<Object> params, String date, String city, String distance) {
         if (date != null && !date.isEmpty()) {
-            sql.append(" AND DATE(DATE) = ?");
-            params.add(date);
+            try {
+                params.add(LocalDate.parse(date).toString());
+                sql.append(" AND CAST(DATE AS DATE) = ?");
+            } catch (DateTimeParseException e) {
+                // Ignore invalid date
+            }
         }
         
         if (city != null && !city.isEmpty()) {
-            sql.append(" AND LIEU LIKE ?");
-            params.add("%" + city + "%");
+            sql.append(" AND LOWER(LIEU) LIKE ?");
+            params.add("%" + city.toLowerCase(Locale.ROOT) + "%");
         }
         
         if (distance != null && !distance.isEmpty()) {
-            sql.append(" AND DISTANCE = ?");
             try {
                 params.add(Double.parseDouble(distance));
+                sql.append(" AND DISTANCE = ?");
             } catch (NumberFormatException e) {
                 // Ignore invalid distance
             }
         }
-        
-        if (sort != null && !sort.isEmpty()) {
-            switch (sort) {
-                case "date":
-                    sql.append(" ORDER BY DATE");
-                    break;
+    }
+    
+    private void bindParams(PreparedStatement stmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            Object param = params.get(i);
+            if (param instanceof String) {
+                stmt.setString(i + 1, (String) param);
+            } else if (param instanceof Double) {
+                stmt.setDouble(i + 1, (Double) param);
+            } else if (param instanceof Integer) {
+                stmt.setInt(i + 1, (Integer) param);
+            } else if (param instanceof Timestamp) {
+                stmt.setTimestamp(i + 1, (Timestamp) param);
+            }
+        }
+    }
+    
+    private static String normalizeSort(String sort) {
+        if (sort == null) {
+            return "date";
+        }
+        switch (sort) {
+            case "distance":
+            case "city":
+            case "name":
+                return sort;
+            default:
+                return "date";
+        }
+    }
+    
+    private static String sortColumn(String sort) {
+        switch (normalizeSort(sort)) {
+            case "distance":
+                return "DISTANCE";
+            case "city":
+                return "LIEU";
+            case "name":
+                return "NOM";
+            default:
+                return "DATE";
+        }
+    }
+    
+    /**
+     * Encode la position d'une course dans le tri : "tri|id|valeur" en Base64 URL.
+     * La valeur est placée en dernier car elle peut contenir le séparateur.
+     */
+    private static String encodeCursor(String sortKey, Course last) {
+        String value;
+        switch (sortKey) {
+            case "distance":
+                value = String.valueOf(last.getDistance());
+                break;
+            case "city":
+                value = last.getCity();
+                break;
+            case "name":
+                value = last.getName();
+                break;
+            default:
+                value = last.getDate().toString();
+        }
+        String raw = sortKey + "|" + last.getId() + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String[] splitCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Curseur de pagination invalide");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide", e);
+        }
+    }
+    
+    private static int decodeCursorId(String cursor) {
+        try {
+            return Integer.parseInt(splitCursor(cursor)[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide", e);
+        }
+    }
+    
+    private static Object decodeCursor(String cursor, String sortKey) {
+        String[] parts = splitCursor(cursor);
+        if (!parts[0].equals(sortKey)) {
+            throw new IllegalArgumentException("Le curseur ne correspond pas au tri demandé");
+        }
+        try {
+            switch (sortKey) {
                 case "distance":
-                    sql.append(" ORDER BY DISTANCE");
-                    break;
+                    return Double.parseDouble(parts[2]);
                 case "city":
-                    sql.append(" ORDER BY LIEU");
-                    break;
                 case "name":
-                    sql.append(" ORDER BY NOM");
-                    break;
+                    return parts[2];
                 default:
-                    sql.append(" ORDER BY DATE");
+                    return Timestamp.valueOf(LocalDateTime.parse(parts[2]));
             }
-        } else {
-            sql.append(" ORDER BY DATE");
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide", e);
         }
-        
-        List<Course> courses = new ArrayList<>();
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
-            
-            for (int i = 0; i < params.size(); i++) {
-                Object param = params.get(i);
-                if (param instanceof String) {
-                    stmt.setString(i + 1, (String) param);
-                } else if (param instanceof Double) {
-                    stmt.setDouble(i + 1, (Double) param);
-                }
-            }
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    courses.add(mapRow(rs));
-                }
-            }
-        }
-        return courses;
     }
     
     /**
@@ -252,8 +427,29 @@ public class CourseDAO {
         }
     }
     
-    // La méthode updateParticipantCount ne peut pas être utilisée car la table Course
-    // n'a pas de colonne current_participants dans le schéma SQL
+    /**
+     * Récupère les courses qui commencent dans un intervalle de dates.
+     * 
+     * @param from Début de l'intervalle (inclus)
+     * @param to Fin de l'intervalle (exclue)
+     * @return Liste des courses, triées par date croissante
+     * @throws SQLException En cas d'erreur lors de la requête
+     */
+    public List<Course> findStartingBetween(LocalDateTime from, LocalDateTime to) throws SQLException {
+        List<Course> courses = new ArrayList<>();
+        String sql = "SELECT * FROM Course WHERE DATE >= ? AND DATE < ? ORDER BY DATE, ID";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    courses.add(mapRow(rs));
+                }
+            }
+        }
+        return courses;
+    }
     
     /**
      * Récupère les courses créées par un utilisateur spécifique.
@@ -286,9 +482,8 @@ public class CourseDAO {
         course.setCity(rs.getString("LIEU"));
         course.setDistance(rs.getDouble("DISTANCE"));
         course.setMaxParticipants(rs.getInt("MAXPARTICIPANTS"));
-        // La colonne current_participants n'existe pas dans le schéma SQL
-        // Nous devrons calculer ce nombre autrement, ou l'ajouter au schéma
-        course.setCurrentParticipants(0);
+        // Compteur maintenu par les inscriptions (migration V3)
+        course.setCurrentParticipants(rs.getInt("CURRENTPARTICIPANTS"));
         course.setCause(rs.getString("CAUSE"));
         course.setPrix(rs.getInt("PRIX"));
         course.setUserCreateId(rs.getInt("USERCREATEID"));
@@ -0,0 +1,120 @@
+package com.colorrun.dao;
+
+import com.colorrun.business.User;
+import com.colorrun.config.DatabaseConfig;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO pour la table CourseReminder : rappels de course déjà mis en file,
+ * un par participant, par course et par échéance.
+ * <p>
+ * Les destinataires restants d'une course sont lus par tranches
+ * ({@link #findPendingRecipients}), en excluant ceux déjà rappelés : une
+ * nouvelle exécution reprend là où la précédente s'est arrêtée et ne
+ * renvoie rien.
+ * </p>
+ *
+ * @author Équipe Color Run
+ * @version 1.0
+ * @since 1.0
+ */
+public class CourseReminderDAO {
+
+    public CourseReminderDAO() {
+        // DatabaseConfig est statique, pas besoin d'instance
+    }
+
+    /**
+     * Lit une tranche des inscrits (participation non annulée) d'une course
+     * qui n'ont pas encore reçu le rappel de cette échéance, par
+     * identifiant croissant (pagination par clé, sans OFFSET).
+     * <p>
+     * Les utilisateurs ne portent que leur identifiant, leur nom et leur email.
+     * </p>
+     *
+     * @param afterUserId identifiant du dernier utilisateur de la tranche précédente (0 pour commencer)
+     * @param limit taille maximale de la tranche
+     */
+    public List<User> findPendingRecipients(int courseId, int daysBefore, int afterUserId, int limit)
+            throws SQLException {
+        // La tranche est choisie sur l'index (courseId, utilisateurId), parcouru
+        // dans l'ordre jusqu'à la limite ; la jointure ne porte que sur elle
+        String sql = """
+            SELECT u.id, u.prenom, u.nom, u.email
+            FROM (SELECT p.courseId, p.utilisateurId
+                  FROM Participation p
+                  WHERE p.courseId = ? AND p.utilisateurId > ?
+                    AND p.statut NOT IN ('CANCELED', 'CANCELLED')
+                    AND NOT EXISTS (SELECT 1 FROM CourseReminder r
+                                    WHERE r.courseId = p.courseId
+                                      AND r.utilisateurId = p.utilisateurId
+                                      AND r.daysBefore = ?)
+                  ORDER BY p.courseId, p.utilisateurId
+                  LIMIT ?) p
+            JOIN Utilisateur u ON u.id = p.utilisateurId
+            ORDER BY u.id
+            """;
+        List<User> users = new ArrayList<>(limit);
+
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, courseId);
+            statement.setInt(2, afterUserId);
+            statement.setInt(3, daysBefore);
+            statement.setInt(4, limit);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    User user = new User();
+                    user.setId(resultSet.getInt(1));
+                    user.setFirstName(resultSet.getString(2));
+                    user.setLastName(resultSet.getString(3));
+                    user.setEmail(resultSet.getString(4));
+                    users.add(user);
+                }
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Enregistre les rappels mis en file, dans la transaction de l'appelant
+     * (celle qui met les emails en file). Un rappel déjà enregistré, par une
+     * exécution concurrente, fait échouer le lot sur la clé primaire :
+     * l'appelant annule alors la transaction, et aucun email n'est doublé.
+     */
+    public void markQueued(Connection connection, int courseId, int daysBefore, List<User> users)
+            throws SQLException {
+        String sql = "INSERT INTO CourseReminder (courseId, utilisateurId, daysBefore) VALUES (?, ?, ?)";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (User user : users) {
+                statement.setInt(1, courseId);
+                statement.setInt(2, user.getId());
+                statement.setInt(3, daysBefore);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * @return nombre de rappels déjà mis en file pour une course et une échéance
+     */
+    public int countQueued(int courseId, int daysBefore) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM CourseReminder WHERE courseId = ? AND daysBefore = ?";
+
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, courseId);
+            statement.setInt(2, daysBefore);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        }
+    }
+}
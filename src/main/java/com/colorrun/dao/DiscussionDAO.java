@@ -150,15 +150,19 @@ public class DiscussionDAO {
      * Supprime un message de discussion.
      *
      * @param id identifiant du message à supprimer
+     * @return la course du message supprimé, ou 0 si le message n'existait pas
      * @throws SQLException en cas d'erreur SQL
      */
-    public void delete(int id) throws SQLException {
-        String sql = "DELETE FROM Discussion WHERE id = ?";
+    public int delete(int id) throws SQLException {
+        // La ligne supprimée est lue dans la même requête (table delta OLD TABLE de H2)
+        String sql = "SELECT course_id FROM OLD TABLE (DELETE FROM Discussion WHERE id = ?)";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
-            stmt.executeUpdate();
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
         }
     }
     
@@ -6,6 +6,7 @@ import com.colorrun.config.DatabaseConfig;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * DAO pour la table DOSSARD.
@@ -38,14 +39,14 @@ public class DossardDAO {
                 raceTime BIGINT,
                 finishPosition INT,
                 collected BOOLEAN DEFAULT FALSE,
-                qrCodeData TEXT,
-                pdfPath TEXT,
+                qrCodeData CLOB,
+                pdfPath CLOB,
                 createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                 updatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                 FOREIGN KEY (courseId) REFERENCES Course(id) ON DELETE CASCADE,
                 FOREIGN KEY (participantId) REFERENCES Utilisateur(id) ON DELETE SET NULL,
-                UNIQUE KEY unique_course_number (courseId, number),
-                UNIQUE KEY unique_participant_course (participantId, courseId)
+                CONSTRAINT unique_course_number UNIQUE (courseId, number),
+                CONSTRAINT unique_participant_course UNIQUE (participantId, courseId)
             )
             """;
         
@@ -55,6 +56,23 @@ public class DossardDAO {
         }
     }
     
+    /**
+     * Indique si l'échec d'un {@link #save(Dossard)} vient d'un numéro déjà
+     * enregistré pour la course (contrainte <code>unique_course_number</code>),
+     * et non d'un autre conflit comme un second dossard pour le même participant.
+     */
+    public static boolean isDuplicateNumber(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            String state = current.getSQLState();
+            String message = current.getMessage();
+            if (state != null && state.startsWith("23") && message != null
+                    && message.toUpperCase(Locale.ROOT).contains("UNIQUE_COURSE_NUMBER")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * Sauvegarde un nouveau dossard.
      */
@@ -246,8 +264,90 @@ public class DossardDAO {
         return dossards;
     }
     
+    /**
+     * Lit les dossards d'une course par tranches, dans l'ordre des numéros
+     * (pagination par clé, sans OFFSET).
+     *
+     * @param afterNumber numéro du dernier dossard de la tranche précédente (0 pour commencer)
+     * @param limit taille maximale de la tranche
+     */
+    public List<Dossard> findByCourseAfter(int courseId, int afterNumber, int limit) throws SQLException {
+        List<Dossard> dossards = new ArrayList<>();
+        String sql = "SELECT * FROM Dossard WHERE courseId = ? AND number > ? ORDER BY number LIMIT ?";
+        
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            
+            statement.setInt(1, courseId);
+            statement.setInt(2, afterNumber);
+            statement.setInt(3, limit);
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    dossards.add(mapResultSetToDossard(resultSet));
+                }
+            }
+        }
+        
+        return dossards;
+    }
+    
+    /**
+     * Compte les dossards d'une course, quel que soit leur statut.
+     */
+    public int countByCourse(int courseId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM Dossard WHERE courseId = ?";
+        
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            
+            statement.setInt(1, courseId);
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getInt(1);
+                }
+            }
+        }
+        
+        return 0;
+    }
+    
+    /**
+     * Trouve les participants inscrits (participation non annulée) à une
+     * course qui n'ont pas encore de dossard.
+     */
+    public List<Integer> findParticipantsWithoutDossard(int courseId) throws SQLException {
+        List<Integer> participantIds = new ArrayList<>();
+        String sql = """
+            SELECT p.utilisateurId FROM Participation p
+            WHERE p.courseId = ? AND p.statut NOT IN ('CANCELED', 'CANCELLED')
+              AND NOT EXISTS (SELECT 1 FROM Dossard d WHERE d.courseId = p.courseId AND d.participantId = p.utilisateurId)
+            ORDER BY p.date, p.id
+            """;
+        
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            
+            statement.setInt(1, courseId);
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    participantIds.add(resultSet.getInt(1));
+                }
+            }
+        }
+        
+        return participantIds;
+    }
+    
     /**
      * Trouve le prochain numéro de dossard disponible pour une course.
+     * <p>
+     * Parcourt les dossards de la course et ne réserve rien : deux appels
+     * concurrents renvoient le même numéro. Pour attribuer un numéro, utiliser
+     * {@link DossardNumberAllocator}.
+     * </p>
      */
     public int findNextAvailableNumber(int courseId) throws SQLException {
         String sql = "SELECT COALESCE(MAX(number), 0) + 1 FROM Dossard WHERE courseId = ?";
@@ -267,6 +367,84 @@ public class DossardDAO {
         return 1; // Premier dossard
     }
     
+    /**
+     * Réserve un bloc de numéros consécutifs pour une course en avançant
+     * son compteur persistant. Le premier bloc d'une course démarre après
+     * le plus grand numéro déjà présent dans la table Dossard.
+     *
+     * @param size taille du bloc
+     * @return le dernier numéro du bloc réservé ; le bloc couvre
+     *         {@code [fin - size + 1, fin]}
+     */
+    int reserveNumberBlock(int courseId, int size) throws SQLException {
+        String update = "UPDATE DossardSequence SET highWater = highWater + ? WHERE courseId = ?";
+        String insert = """
+            INSERT INTO DossardSequence (courseId, highWater)
+            SELECT ?, COALESCE(MAX(number), 0) + ? FROM Dossard WHERE courseId = ?
+            """;
+        String select = "SELECT highWater FROM DossardSequence WHERE courseId = ?";
+        
+        for (int attempt = 1; ; attempt++) {
+            try (Connection connection = DatabaseConfig.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    int updated;
+                    try (PreparedStatement statement = connection.prepareStatement(update)) {
+                        statement.setInt(1, size);
+                        statement.setInt(2, courseId);
+                        updated = statement.executeUpdate();
+                    }
+                    if (updated == 0) {
+                        try (PreparedStatement statement = connection.prepareStatement(insert)) {
+                            statement.setInt(1, courseId);
+                            statement.setInt(2, size);
+                            statement.setInt(3, courseId);
+                            statement.executeUpdate();
+                        }
+                    }
+                    int highWater;
+                    try (PreparedStatement statement = connection.prepareStatement(select)) {
+                        statement.setInt(1, courseId);
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            resultSet.next();
+                            highWater = resultSet.getInt(1);
+                        }
+                    }
+                    connection.commit();
+                    return highWater;
+                } catch (SQLIntegrityConstraintViolationException e) {
+                    connection.rollback();
+                    // Première réservation concurrente depuis une autre instance : la ligne existe désormais
+                    if (attempt >= 2) {
+                        throw new SQLException("Réservation de numéros impossible pour la course " + courseId, e);
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Ramène le compteur d'une course à {@code newHighWater} s'il vaut
+     * toujours {@code expectedHighWater} (aucune réservation depuis).
+     *
+     * @return true si les numéros ont été rendus
+     */
+    boolean returnNumberBlock(int courseId, int expectedHighWater, int newHighWater) throws SQLException {
+        String sql = "UPDATE DossardSequence SET highWater = ? WHERE courseId = ? AND highWater = ?";
+        
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            
+            statement.setInt(1, newHighWater);
+            statement.setInt(2, courseId);
+            statement.setInt(3, expectedHighWater);
+            return statement.executeUpdate() > 0;
+        }
+    }
+    
     /**
      * Compte le nombre de dossards attribués pour une course.
      */
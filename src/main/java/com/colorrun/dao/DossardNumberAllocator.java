@@ -0,0 +1,171 @@
+package com.colorrun.dao;
+
+import com.colorrun.util.Logger;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Attribution concurrente des numéros de dossard, par course.
+ *
+ * <p>Les numéros sont réservés en base par blocs (table
+ * <code>DossardSequence</code>, qui conserve le plus grand numéro réservé)
+ * puis distribués en mémoire : une seule écriture par bloc, aucun
+ * <code>MAX(number)</code> et aucune collision sur
+ * <code>unique_course_number</code>, y compris entre plusieurs instances
+ * (chacune reçoit des blocs disjoints).</p>
+ *
+ * <p><strong>Sans trou :</strong> un numéro obtenu mais non enregistré est
+ * rendu par {@link #rollback(int, int)} et redistribué en priorité ; à l'arrêt,
+ * {@link #close()} rend la fin des blocs entamés si aucune autre instance n'a
+ * réservé depuis. Les numéros de dossards supprimés ne sont redistribués que
+ * si <code>colorrun.dossard.reuseNumbers</code> vaut true, un numéro déjà
+ * imprimé ne devant pas désigner deux coureurs par défaut. Les numéros rendus
+ * ne sont conservés qu'en mémoire.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.dossard.blockSize</code> : numéros réservés par écriture en base (défaut : 50)</li>
+ *   <li><code>colorrun.dossard.reuseNumbers</code> : redistribue les numéros libérés (défaut : false)</li>
+ * </ul>
+ */
+public final class DossardNumberAllocator {
+
+    private static final DossardNumberAllocator INSTANCE = new DossardNumberAllocator(
+            new DossardDAO(),
+            Integer.getInteger("colorrun.dossard.blockSize", 50),
+            Boolean.parseBoolean(System.getProperty("colorrun.dossard.reuseNumbers", "false")));
+
+    /**
+     * Bloc de numéros en cours de distribution pour une course.
+     * Accès protégé par le moniteur de l'instance.
+     */
+    private static final class Range {
+        /** Prochain numéro du bloc à distribuer */
+        int next = 1;
+        /** Dernier numéro réservé du bloc (inclus) ; next > limit : bloc épuisé */
+        int limit = 0;
+        /** Numéros rendus, redistribués du plus petit au plus grand */
+        final TreeSet<Integer> returned = new TreeSet<>();
+    }
+
+    private final DossardDAO dossardDAO;
+    private final int blockSize;
+    private final boolean reuseReleased;
+    private final Map<Integer, Range> ranges = new ConcurrentHashMap<>();
+
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder blocks = new LongAdder();
+    private final LongAdder recycled = new LongAdder();
+
+    DossardNumberAllocator(DossardDAO dossardDAO, int blockSize, boolean reuseReleased) {
+        this.dossardDAO = dossardDAO;
+        this.blockSize = Math.max(1, blockSize);
+        this.reuseReleased = reuseReleased;
+    }
+
+    /**
+     * @return l'instance partagée par les services de dossards
+     */
+    public static DossardNumberAllocator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Attribue le prochain numéro de dossard d'une course.
+     *
+     * @return un numéro jamais distribué par ailleurs pour cette course
+     * @throws SQLException si la réservation d'un nouveau bloc échoue
+     */
+    public int next(int courseId) throws SQLException {
+        Range range = ranges.computeIfAbsent(courseId, id -> new Range());
+        synchronized (range) {
+            allocated.increment();
+            Integer number = range.returned.pollFirst();
+            if (number != null) {
+                recycled.increment();
+                return number;
+            }
+            if (range.next > range.limit) {
+                int end = dossardDAO.reserveNumberBlock(courseId, blockSize);
+                range.next = end - blockSize + 1;
+                range.limit = end;
+                blocks.increment();
+            }
+            return range.next++;
+        }
+    }
+
+    /**
+     * Rend un numéro obtenu par {@link #next(int)} mais jamais enregistré
+     * (échec de l'insertion) : il sera redistribué.
+     */
+    public void rollback(int courseId, int number) {
+        Range range = ranges.get(courseId);
+        if (range == null) {
+            return;
+        }
+        synchronized (range) {
+            if (number == range.next - 1) {
+                range.next--;
+            } else {
+                range.returned.add(number);
+            }
+        }
+    }
+
+    /**
+     * Signale qu'un dossard enregistré a été supprimé. Son numéro n'est
+     * redistribué que si la réutilisation est activée.
+     */
+    public void release(int courseId, int number) {
+        if (reuseReleased) {
+            rollback(courseId, number);
+        }
+    }
+
+    /**
+     * Oublie l'état d'une course supprimée.
+     */
+    public void forget(int courseId) {
+        ranges.remove(courseId);
+    }
+
+    /**
+     * Rend en base la partie non distribuée des blocs entamés, lorsque
+     * aucune autre réservation n'a eu lieu depuis. À appeler à l'arrêt.
+     */
+    public void close() {
+        int returnedBlocks = 0;
+        for (Map.Entry<Integer, Range> entry : ranges.entrySet()) {
+            Range range = entry.getValue();
+            synchronized (range) {
+                if (range.next > range.limit) {
+                    continue;
+                }
+                try {
+                    if (dossardDAO.returnNumberBlock(entry.getKey(), range.limit, range.next - 1)) {
+                        returnedBlocks++;
+                    }
+                } catch (SQLException e) {
+                    Logger.warn("DossardNumberAllocator", "Bloc de numéros non rendu pour la course "
+                            + entry.getKey() + ": " + e.getMessage());
+                }
+                range.limit = range.next - 1;
+            }
+        }
+        ranges.clear();
+        Logger.info("DossardNumberAllocator", returnedBlocks + " bloc(s) de numéros rendu(s) - " + getStatsSummary());
+    }
+
+    public String getStatsSummary() {
+        return "DossardNumberAllocator{attribués=" + allocated.sum() +
+                ", blocs=" + blocks.sum() +
+                ", réutilisés=" + recycled.sum() +
+                ", courses=" + ranges.size() +
+                '}';
+    }
+}
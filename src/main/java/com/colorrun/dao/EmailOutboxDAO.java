@@ -0,0 +1,355 @@
+package com.colorrun.dao;
+
+import com.colorrun.business.OutboxEmail;
+import com.colorrun.config.DatabaseConfig;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DAO pour la table EmailOutbox, file persistante des emails à envoyer.
+ * <p>
+ * Les emails sont enregistrés par {@link #enqueue(Connection, OutboxEmail)},
+ * dans la transaction de l'appelant, puis réservés par lots
+ * ({@link #claimDue(int, Duration)}) et marqués envoyés, reprogrammés ou
+ * abandonnés par le dispatcher.
+ * </p>
+ *
+ * @author Équipe Color Run
+ * @version 1.0
+ * @since 1.0
+ */
+public class EmailOutboxDAO {
+
+    /** Taille de la colonne lastError */
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    public EmailOutboxDAO() {
+        // DatabaseConfig est statique, pas besoin d'instance
+    }
+
+    /**
+     * Met un email en file dans une transaction ouverte par l'appelant :
+     * l'email n'existe que si la transaction est validée.
+     *
+     * @return l'identifiant de l'email en file
+     */
+    public long enqueue(Connection connection, OutboxEmail email) throws SQLException {
+        String sql = """
+            INSERT INTO EmailOutbox (recipient, subject, htmlBody, attachment, attachmentName,
+                                     attachmentType, status, attempts, nextAttemptAt, createdAt)
+            VALUES (?, ?, ?, ?, ?, ?, 'PENDING', 0, ?, ?)
+            """;
+        LocalDateTime now = LocalDateTime.now();
+
+        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, email.getRecipient());
+            statement.setString(2, email.getSubject());
+            statement.setString(3, email.getHtmlBody());
+            statement.setBytes(4, email.getAttachment());
+            statement.setString(5, email.getAttachmentName());
+            statement.setString(6, email.getAttachmentType());
+            statement.setTimestamp(7, Timestamp.valueOf(now));
+            statement.setTimestamp(8, Timestamp.valueOf(now));
+            statement.executeUpdate();
+
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("Mise en file de l'email impossible, aucun ID obtenu.");
+                }
+                email.setId(keys.getLong(1));
+            }
+        }
+        email.setStatus(OutboxEmail.STATUS_PENDING);
+        email.setAttempts(0);
+        email.setNextAttemptAt(now);
+        email.setCreatedAt(now);
+        return email.getId();
+    }
+
+    /**
+     * Met en file une série d'emails en un seul lot d'insertions, dans une
+     * transaction ouverte par l'appelant. Chaque email part à sa date
+     * {@code nextAttemptAt} si elle est renseignée, immédiatement sinon.
+     * Les identifiants ne sont pas relus.
+     *
+     * @return nombre d'emails mis en file
+     */
+    public int enqueueAll(Connection connection, List<OutboxEmail> emails) throws SQLException {
+        String sql = """
+            INSERT INTO EmailOutbox (recipient, subject, htmlBody, attachment, attachmentName,
+                                     attachmentType, status, attempts, nextAttemptAt, createdAt)
+            VALUES (?, ?, ?, ?, ?, ?, 'PENDING', 0, ?, ?)
+            """;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (OutboxEmail email : emails) {
+                statement.setString(1, email.getRecipient());
+                statement.setString(2, email.getSubject());
+                statement.setString(3, email.getHtmlBody());
+                statement.setBytes(4, email.getAttachment());
+                statement.setString(5, email.getAttachmentName());
+                statement.setString(6, email.getAttachmentType());
+                statement.setTimestamp(7, email.getNextAttemptAt() != null
+                        ? Timestamp.valueOf(email.getNextAttemptAt()) : now);
+                statement.setTimestamp(8, now);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        return emails.size();
+    }
+
+    /**
+     * Met un email en file dans sa propre transaction.
+     *
+     * @return l'identifiant de l'email en file
+     */
+    public long enqueue(OutboxEmail email) throws SQLException {
+        try (Connection connection = DatabaseConfig.getConnection()) {
+            return enqueue(connection, email);
+        }
+    }
+
+    /**
+     * Réserve les emails à envoyer : en attente et arrivés à échéance, ou
+     * réservés par un dispatcher dont la réservation a expiré (arrêt brutal
+     * pendant l'envoi). Les emails réservés passent en SENDING jusqu'à
+     * {@code now + lease} ; un autre dispatcher ne les verra pas avant.
+     * <p>
+     * L'essai est compté dans la même mise à jour que la réservation : un
+     * envoi qui n'aboutit jamais (processus arrêté ou bloqué pendant l'envoi)
+     * consomme quand même ses essais, et {@link #buryExhausted} finit par
+     * l'abandonner au lieu de le renvoyer indéfiniment.
+     * </p>
+     *
+     * @param limit nombre maximal d'emails
+     * @param lease durée de la réservation
+     * @param maxAttempts essais au-delà desquels un email n'est plus réservé
+     * @return les emails réservés, du plus ancien au plus récent, avec
+     *         l'essai en cours compté dans {@code attempts}
+     */
+    public List<OutboxEmail> claimDue(int limit, Duration lease, int maxAttempts) throws SQLException {
+        String select = """
+            SELECT * FROM EmailOutbox
+            WHERE status IN ('PENDING', 'SENDING') AND nextAttemptAt <= ? AND attempts < ?
+            ORDER BY nextAttemptAt, id
+            LIMIT ?
+            FOR UPDATE
+            """;
+        String update = """
+            UPDATE EmailOutbox SET status = 'SENDING', attempts = attempts + 1, nextAttemptAt = ?
+            WHERE id = ?
+            """;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseEnd = now.plus(lease);
+
+        try (Connection connection = DatabaseConfig.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<OutboxEmail> claimed = new ArrayList<>();
+                try (PreparedStatement statement = connection.prepareStatement(select)) {
+                    statement.setTimestamp(1, Timestamp.valueOf(now));
+                    statement.setInt(2, maxAttempts);
+                    statement.setInt(3, limit);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            claimed.add(mapRow(resultSet));
+                        }
+                    }
+                }
+                if (!claimed.isEmpty()) {
+                    try (PreparedStatement statement = connection.prepareStatement(update)) {
+                        for (OutboxEmail email : claimed) {
+                            statement.setTimestamp(1, Timestamp.valueOf(leaseEnd));
+                            statement.setLong(2, email.getId());
+                            statement.addBatch();
+                            email.setStatus(OutboxEmail.STATUS_SENDING);
+                            email.setAttempts(email.getAttempts() + 1);
+                            email.setNextAttemptAt(leaseEnd);
+                        }
+                        statement.executeBatch();
+                    }
+                }
+                connection.commit();
+                return claimed;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Abandonne les emails dont la réservation a expiré alors qu'ils ont
+     * épuisé leurs essais : chaque essai s'est terminé sans résultat (arrêt
+     * ou blocage pendant l'envoi), l'email ne sera plus réservé.
+     *
+     * @return nombre d'emails abandonnés
+     */
+    public int buryExhausted(int maxAttempts, String error) throws SQLException {
+        String sql = """
+            UPDATE EmailOutbox SET status = 'DEAD', lastError = ?
+            WHERE status = 'SENDING' AND nextAttemptAt <= ? AND attempts >= ?
+            """;
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, truncate(error));
+            statement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setInt(3, maxAttempts);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Marque un email comme envoyé. La pièce jointe, devenue inutile, est effacée.
+     */
+    public void markSent(long id, int attempts) throws SQLException {
+        String sql = """
+            UPDATE EmailOutbox
+            SET status = 'SENT', attempts = ?, sentAt = ?, lastError = NULL, attachment = NULL
+            WHERE id = ?
+            """;
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, attempts);
+            statement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setLong(3, id);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Reprogramme un email après un échec temporaire.
+     */
+    public void markRetry(long id, int attempts, LocalDateTime nextAttemptAt, String error) throws SQLException {
+        String sql = """
+            UPDATE EmailOutbox
+            SET status = 'PENDING', attempts = ?, nextAttemptAt = ?, lastError = ?
+            WHERE id = ?
+            """;
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, attempts);
+            statement.setTimestamp(2, Timestamp.valueOf(nextAttemptAt));
+            statement.setString(3, truncate(error));
+            statement.setLong(4, id);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Abandonne un email (lettre morte) : il reste en table pour examen.
+     */
+    public void markDead(long id, int attempts, String error) throws SQLException {
+        String sql = "UPDATE EmailOutbox SET status = 'DEAD', attempts = ?, lastError = ? WHERE id = ?";
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, attempts);
+            statement.setString(2, truncate(error));
+            statement.setLong(3, id);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Remet en file un email abandonné, pour un nouvel essai immédiat.
+     *
+     * @return true si l'email était bien abandonné
+     */
+    public boolean requeueDead(long id) throws SQLException {
+        String sql = """
+            UPDATE EmailOutbox SET status = 'PENDING', attempts = 0, nextAttemptAt = ?
+            WHERE id = ? AND status = 'DEAD'
+            """;
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setLong(2, id);
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Supprime les emails envoyés avant une date.
+     *
+     * @return nombre d'emails supprimés
+     */
+    public int deleteSentBefore(LocalDateTime before) throws SQLException {
+        String sql = "DELETE FROM EmailOutbox WHERE status = 'SENT' AND sentAt < ?";
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setTimestamp(1, Timestamp.valueOf(before));
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @return nombre d'emails par statut (statuts présents uniquement)
+     */
+    public Map<String, Integer> countByStatus() throws SQLException {
+        String sql = "SELECT status, COUNT(*) FROM EmailOutbox GROUP BY status ORDER BY status";
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                counts.put(resultSet.getString(1), resultSet.getInt(2));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Emails abandonnés, du plus récent au plus ancien.
+     */
+    public List<OutboxEmail> findDead(int limit) throws SQLException {
+        String sql = "SELECT * FROM EmailOutbox WHERE status = 'DEAD' ORDER BY id DESC LIMIT ?";
+        List<OutboxEmail> emails = new ArrayList<>();
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    emails.add(mapRow(resultSet));
+                }
+            }
+        }
+        return emails;
+    }
+
+    private OutboxEmail mapRow(ResultSet resultSet) throws SQLException {
+        OutboxEmail email = new OutboxEmail();
+        email.setId(resultSet.getLong("id"));
+        email.setRecipient(resultSet.getString("recipient"));
+        email.setSubject(resultSet.getString("subject"));
+        email.setHtmlBody(resultSet.getString("htmlBody"));
+        email.setAttachment(resultSet.getBytes("attachment"));
+        email.setAttachmentName(resultSet.getString("attachmentName"));
+        email.setAttachmentType(resultSet.getString("attachmentType"));
+        email.setStatus(resultSet.getString("status"));
+        email.setAttempts(resultSet.getInt("attempts"));
+        email.setNextAttemptAt(toLocalDateTime(resultSet.getTimestamp("nextAttemptAt")));
+        email.setLastError(resultSet.getString("lastError"));
+        email.setCreatedAt(toLocalDateTime(resultSet.getTimestamp("createdAt")));
+        email.setSentAt(toLocalDateTime(resultSet.getTimestamp("sentAt")));
+        return email;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
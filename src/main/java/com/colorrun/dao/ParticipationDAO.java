@@ -1,13 +1,18 @@
 package com.colorrun.dao;
 
 import com.colorrun.business.Course;
+import com.colorrun.business.OutboxEmail;
 import com.colorrun.business.Participation;
 import com.colorrun.business.User;
 import com.colorrun.config.DatabaseConfig;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import javax.sql.DataSource;
 
 /**
@@ -17,17 +22,28 @@ import javax.sql.DataSource;
  * utilisateurs aux courses. Fournit également des méthodes utilitaires comme le
  * comptage des participants par course.
  * </p>
+ * <p>
+ * Les lectures se font en deux temps : les lignes de participation sont lues
+ * avec des {@link User}/{@link Course} réduits à leur identifiant, puis les
+ * graphes complets sont chargés en une requête par table ({@code id = ANY(?)}).
+ * Un même utilisateur ou une même course n'est ainsi chargé qu'une fois par
+ * appel, quelle que soit la taille du résultat. Les méthodes {@code *Summaries}
+ * s'arrêtent à la première étape pour les appelants qui n'ont besoin que des
+ * identifiants et du statut.
+ * </p>
  */
 public class ParticipationDAO {
     
     private DataSource dataSource;
     private CourseDAO courseDAO;
     private UserDAO userDAO;
+    private EmailOutboxDAO outboxDAO;
     
     public ParticipationDAO() {
         this.dataSource = DatabaseConfig.getDataSource();
         this.courseDAO = new CourseDAO();
         this.userDAO = new UserDAO();
+        this.outboxDAO = new EmailOutboxDAO();
     }
     
     public void save(Participation participation) throws SQLException {
@@ -48,6 +64,182 @@ public class ParticipationDAO {
         }
     }
     
+    /**
+     * Enregistre une participation si la course a encore des places, en une
+     * seule transaction.
+     * <p>
+     * La ligne de la course est verrouillée ({@code SELECT ... FOR UPDATE})
+     * avant la lecture du compteur {@code currentParticipants} : deux
+     * inscriptions concurrentes à la même course, y compris depuis une autre
+     * instance de l'application, sont donc sérialisées et ne peuvent pas
+     * dépasser {@code maxParticipants}. Le compteur est incrémenté dans la même
+     * transaction. Une participation annulée est réactivée plutôt que
+     * dupliquée ; l'index unique sur (utilisateurId, courseId) empêche la
+     * double inscription.
+     * </p>
+     *
+     * @param participation participation à enregistrer (utilisateur et course renseignés)
+     * @throws SQLException "Course not found", "Course is already full",
+     *                      "User is already registered for this course" ou erreur d'accès
+     */
+    public void saveIfSeatAvailable(Participation participation) throws SQLException {
+        saveIfSeatAvailable(participation, null);
+    }
+    
+    /**
+     * Comme {@link #saveIfSeatAvailable(Participation)}, en mettant en file
+     * l'email de confirmation dans la même transaction : il n'existe que si
+     * l'inscription est validée.
+     *
+     * @param confirmation compose l'email à partir de la participation
+     *                     enregistrée (identifiant renseigné) ; peut être null
+     *                     ou renvoyer null
+     * @return true si un email a été mis en file
+     */
+    public boolean saveIfSeatAvailable(Participation participation,
+                                       Function<Participation, OutboxEmail> confirmation) throws SQLException {
+        int userId = participation.getUser().getId();
+        int courseId = participation.getCourse().getId();
+        
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int maxParticipants;
+                int currentParticipants;
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT maxParticipants, currentParticipants FROM Course WHERE id = ? FOR UPDATE")) {
+                    stmt.setInt(1, courseId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new SQLException("Course not found");
+                        }
+                        maxParticipants = rs.getInt(1);
+                        currentParticipants = rs.getInt(2);
+                    }
+                }
+                
+                int existingId = 0;
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT id, statut FROM Participation WHERE utilisateurId = ? AND courseId = ?")) {
+                    stmt.setInt(1, userId);
+                    stmt.setInt(2, courseId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            if (!isCanceled(rs.getString(2))) {
+                                throw new SQLException("User is already registered for this course");
+                            }
+                            existingId = rs.getInt(1);
+                        }
+                    }
+                }
+                
+                if (currentParticipants >= maxParticipants) {
+                    throw new SQLException("Course is already full");
+                }
+                
+                if (existingId > 0) {
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "UPDATE Participation SET date = ?, statut = ? WHERE id = ?")) {
+                        stmt.setTimestamp(1, Timestamp.valueOf(participation.getDate()));
+                        stmt.setString(2, participation.getStatus());
+                        stmt.setInt(3, existingId);
+                        stmt.executeUpdate();
+                    }
+                    participation.setId(existingId);
+                } else {
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "INSERT INTO Participation (utilisateurId, courseId, date, statut) VALUES (?, ?, ?, ?)",
+                            Statement.RETURN_GENERATED_KEYS)) {
+                        stmt.setInt(1, userId);
+                        stmt.setInt(2, courseId);
+                        stmt.setTimestamp(3, Timestamp.valueOf(participation.getDate()));
+                        stmt.setString(4, participation.getStatus());
+                        stmt.executeUpdate();
+                        try (ResultSet keys = stmt.getGeneratedKeys()) {
+                            if (keys.next()) {
+                                participation.setId(keys.getInt(1));
+                            }
+                        }
+                    }
+                }
+                
+                adjustParticipantCount(conn, courseId, 1);
+                OutboxEmail email = confirmation != null ? confirmation.apply(participation) : null;
+                if (email != null) {
+                    outboxDAO.enqueue(conn, email);
+                }
+                conn.commit();
+                return email != null;
+            } catch (SQLIntegrityConstraintViolationException e) {
+                conn.rollback();
+                throw new SQLException("User is already registered for this course", e);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Annule la participation active d'un utilisateur à une course et libère
+     * sa place, en une seule transaction.
+     *
+     * @param status statut d'annulation à enregistrer
+     * @return true si une participation active a été annulée, false si elle
+     *         n'existe pas ou était déjà annulée
+     */
+    public boolean cancelByUserAndCourse(int userId, int courseId, String status) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int updated;
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE Participation SET statut = ? WHERE utilisateurId = ? AND courseId = ? "
+                                + "AND statut NOT IN ('CANCELED', 'CANCELLED')")) {
+                    stmt.setString(1, status);
+                    stmt.setInt(2, userId);
+                    stmt.setInt(3, courseId);
+                    updated = stmt.executeUpdate();
+                }
+                if (updated > 0) {
+                    adjustParticipantCount(conn, courseId, -updated);
+                }
+                conn.commit();
+                return updated > 0;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Lit le compteur d'inscrits actifs d'une course (0 si elle n'existe pas).
+     */
+    public int findParticipantCount(int courseId) throws SQLException {
+        String sql = "SELECT currentParticipants FROM Course WHERE id = ?";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, courseId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+    
+    private void adjustParticipantCount(Connection conn, int courseId, int delta) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE Course SET currentParticipants = GREATEST(currentParticipants + ?, 0) WHERE id = ?")) {
+            stmt.setInt(1, delta);
+            stmt.setInt(2, courseId);
+            stmt.executeUpdate();
+        }
+    }
+    
+    private static boolean isCanceled(String status) {
+        return "CANCELED".equals(status) || "CANCELLED".equals(status);
+    }
+    
     public Optional<Participation> findById(int id) throws SQLException {
         String sql = "SELECT * FROM Participation WHERE id = ?";
         try (Connection conn = dataSource.getConnection();
@@ -55,7 +247,7 @@ public class ParticipationDAO {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapRow(rs));
+                    return Optional.of(hydrate(mapRow(rs)));
                 }
             }
         }
@@ -70,19 +262,58 @@ public class ParticipationDAO {
             stmt.setInt(2, courseId);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapRow(rs));
+                    return Optional.of(hydrate(mapRow(rs)));
                 }
             }
         }
         return Optional.empty();
     }
     
+    /**
+     * Indique si une participation active (non annulée) existe pour ce couple utilisateur/course,
+     * sans charger l'utilisateur ni la course.
+     */
+    public boolean existsByUserAndCourse(int userId, int courseId) throws SQLException {
+        String sql = "SELECT 1 FROM Participation WHERE utilisateurId = ? AND courseId = ? AND statut NOT IN ('CANCELED', 'CANCELLED') LIMIT 1";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            stmt.setInt(2, courseId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
     public List<Participation> findByUser(int userId) throws SQLException {
+        return hydrate(findSummariesByUser(userId));
+    }
+    
+    public List<Participation> findByCourse(int courseId) throws SQLException {
+        return hydrate(findSummariesByCourse(courseId));
+    }
+    
+    /**
+     * Participations d'un utilisateur en mode projection : identifiants,
+     * date et statut seulement ({@link User} et {@link Course} ne portent que leur id).
+     */
+    public List<Participation> findSummariesByUser(int userId) throws SQLException {
+        return findSummaries("SELECT * FROM Participation WHERE utilisateurId = ?", userId);
+    }
+    
+    /**
+     * Participations d'une course en mode projection : identifiants,
+     * date et statut seulement ({@link User} et {@link Course} ne portent que leur id).
+     */
+    public List<Participation> findSummariesByCourse(int courseId) throws SQLException {
+        return findSummaries("SELECT * FROM Participation WHERE courseId = ?", courseId);
+    }
+    
+    private List<Participation> findSummaries(String sql, int key) throws SQLException {
         List<Participation> participations = new ArrayList<>();
-        String sql = "SELECT * FROM Participation WHERE utilisateurId = ?";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, userId);
+            stmt.setInt(1, key);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     participations.add(mapRow(rs));
@@ -92,23 +323,27 @@ public class ParticipationDAO {
         return participations;
     }
     
-    public List<Participation> findByCourse(int courseId) throws SQLException {
-        List<Participation> participations = new ArrayList<>();
-        String sql = "SELECT * FROM Participation WHERE courseId = ?";
+    /**
+     * Identifiants des courses auxquelles un utilisateur est inscrit (hors annulations),
+     * en une seule requête sur {@code utilisateurId}.
+     */
+    public Set<Integer> findCourseIdsByUser(int userId) throws SQLException {
+        Set<Integer> courseIds = new HashSet<>();
+        String sql = "SELECT courseId FROM Participation WHERE utilisateurId = ? AND statut NOT IN ('CANCELED', 'CANCELLED')";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, courseId);
+            stmt.setInt(1, userId);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    participations.add(mapRow(rs));
+                    courseIds.add(rs.getInt(1));
                 }
             }
         }
-        return participations;
+        return courseIds;
     }
     
     public int countByCourse(int courseId) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Participation WHERE courseId = ?";
+        String sql = "SELECT COUNT(*) FROM Participation WHERE courseId = ? AND statut NOT IN ('CANCELED', 'CANCELLED')";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, courseId);
@@ -134,25 +369,55 @@ public class ParticipationDAO {
         }
     }
     
+    /**
+     * Supprime une participation ; si elle était active, sa place est
+     * libérée dans la même transaction.
+     */
     public void delete(int id) throws SQLException {
-        String sql = "DELETE FROM Participation WHERE id = ?";
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int courseId = 0;
+                boolean active = false;
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT courseId, statut FROM Participation WHERE id = ? FOR UPDATE")) {
+                    stmt.setInt(1, id);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            courseId = rs.getInt(1);
+                            active = !isCanceled(rs.getString(2));
+                        }
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM Participation WHERE id = ?")) {
+                    stmt.setInt(1, id);
+                    stmt.executeUpdate();
+                }
+                if (active) {
+                    adjustParticipantCount(conn, courseId, -1);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
         }
     }
     
+    /**
+     * Lit une ligne de participation. L'utilisateur et la course ne portent
+     * que leur identifiant ; {@link #hydrate(List)} les complète.
+     */
     private Participation mapRow(ResultSet rs) throws SQLException {
         Participation participation = new Participation();
         participation.setId(rs.getInt("id"));
         
-        int userId = rs.getInt("utilisateurId");
-        User user = userDAO.findById(userId).orElse(new User());
+        User user = new User();
+        user.setId(rs.getInt("utilisateurId"));
         participation.setUser(user);
         
-        int courseId = rs.getInt("courseId");
-        Course course = courseDAO.findById(courseId).orElse(new Course());
+        Course course = new Course();
+        course.setId(rs.getInt("courseId"));
         participation.setCourse(course);
         
         participation.setDate(rs.getTimestamp("date").toLocalDateTime());
@@ -160,4 +425,38 @@ public class ParticipationDAO {
         
         return participation;
     }
+    
+    private Participation hydrate(Participation participation) throws SQLException {
+        hydrate(List.of(participation));
+        return participation;
+    }
+    
+    /**
+     * Remplace les utilisateurs et courses réduits à leur identifiant par les
+     * objets complets, chargés en une requête par table. Les instances sont
+     * partagées entre les participations d'un même appel.
+     */
+    private List<Participation> hydrate(List<Participation> participations) throws SQLException {
+        if (participations.isEmpty()) {
+            return participations;
+        }
+        
+        Set<Integer> userIds = new HashSet<>();
+        Set<Integer> courseIds = new HashSet<>();
+        for (Participation participation : participations) {
+            userIds.add(participation.getUser().getId());
+            courseIds.add(participation.getCourse().getId());
+        }
+        
+        Map<Integer, User> users = userDAO.findByIds(userIds);
+        Map<Integer, Course> courses = courseDAO.findByIds(courseIds);
+        
+        for (Participation participation : participations) {
+            User user = users.get(participation.getUser().getId());
+            participation.setUser(user != null ? user : new User());
+            Course course = courses.get(participation.getCourse().getId());
+            participation.setCourse(course != null ? course : new Course());
+        }
+        return participations;
+    }
 }
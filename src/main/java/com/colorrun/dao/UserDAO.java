@@ -2,11 +2,14 @@ package com.colorrun.dao;
 
 import com.colorrun.business.User;
 import com.colorrun.config.DatabaseConfig;
-import com.colorrun.util.PasswordUtil;
+import com.colorrun.security.PasswordHasher;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -42,7 +45,7 @@ import java.util.Optional;
  * 
  * @see User Pour le modèle de données utilisateur
  * @see DatabaseConfig Pour la configuration de la base de données
- * @see PasswordUtil Pour le hachage sécurisé des mots de passe
+ * @see com.colorrun.util.PasswordUtil Pour le hachage sécurisé des mots de passe
  */
 public class UserDAO {
     
@@ -79,7 +82,7 @@ public class UserDAO {
             stmt.setString(1, user.getFirstName());
             stmt.setString(2, user.getLastName());
             stmt.setString(3, user.getEmail());
-            stmt.setString(4, PasswordUtil.hashPassword(user.getPasswordHash())); // Hachage sécurisé
+            stmt.setString(4, PasswordHasher.getInstance().hash(user.getPasswordHash())); // Hachage sécurisé
             stmt.setString(5, user.getRole());
             stmt.setBoolean(6, user.isEnabled());
             
@@ -133,6 +136,41 @@ public class UserDAO {
         return Optional.empty();
     }
     
+    /**
+     * Recherche en une seule requête tous les utilisateurs dont l'identifiant
+     * figure dans la collection fournie.
+     * 
+     * Utilisée pour hydrater des listes (participations, messages...) sans
+     * émettre une requête par ligne.
+     * 
+     * @param ids Les identifiants recherchés (les doublons sont ignorés)
+     * @return Les utilisateurs trouvés, indexés par identifiant
+     * @throws SQLException Si erreur lors de l'accès à la base de données
+     */
+    public Map<Integer, User> findByIds(Collection<Integer> ids) throws SQLException {
+        Map<Integer, User> users = new HashMap<>();
+        if (ids.isEmpty()) {
+            return users;
+        }
+        
+        String sql = "SELECT * FROM Utilisateur WHERE id = ANY(?)";
+        
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setArray(1, conn.createArrayOf("INTEGER", ids.toArray()));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    User user = mapResultSetToUser(rs);
+                    users.put(user.getId(), user);
+                }
+            }
+        }
+        
+        return users;
+    }
+    
     /**
      * Recherche un utilisateur par son adresse email.
      * 
@@ -275,7 +313,7 @@ public class UserDAO {
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, PasswordUtil.hashPassword(newPassword));
+            stmt.setString(1, PasswordHasher.getInstance().hash(newPassword));
             stmt.setInt(2, userId);
             
             int affectedRows = stmt.executeUpdate();
@@ -285,6 +323,30 @@ public class UserDAO {
         }
     }
     
+    /**
+     * Remplace un hash de mot de passe par un hash déjà calculé, seulement
+     * s'il n'a pas changé depuis sa lecture (recalcul au nouveau coût BCrypt
+     * concurrent d'un changement de mot de passe).
+     * 
+     * @param userId L'identifiant de l'utilisateur
+     * @param expectedHash Le hash lu avant le recalcul
+     * @param newHash Le hash recalculé
+     * @return true si le hash a été remplacé
+     * @throws SQLException Si erreur lors de la mise à jour
+     */
+    public boolean replacePasswordHash(int userId, String expectedHash, String newHash) throws SQLException {
+        String sql = "UPDATE Utilisateur SET hashMotDePasse = ? WHERE id = ? AND hashMotDePasse = ?";
+        
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, newHash);
+            stmt.setInt(2, userId);
+            stmt.setString(3, expectedHash);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
     /**
      * Change le rôle d'un utilisateur.
      * 
@@ -328,14 +390,28 @@ public class UserDAO {
      * userDAO.setEnabled(123, false); // Désactive le compte
      */
     public void setEnabled(int userId, boolean enabled) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            setEnabled(conn, userId, enabled);
+        }
+    }
+
+    /**
+     * Active ou désactive un compte utilisateur dans la transaction de
+     * l'appelant (activation par jeton de vérification).
+     *
+     * @param conn La connexion de la transaction en cours
+     * @param userId L'identifiant de l'utilisateur
+     * @param enabled true pour activer, false pour désactiver
+     * @throws SQLException Si erreur lors de la mise à jour ou si l'utilisateur n'existe pas
+     */
+    public void setEnabled(Connection conn, int userId, boolean enabled) throws SQLException {
         String sql = "UPDATE Utilisateur SET enabled = ? WHERE id = ?";
-        
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+
             stmt.setBoolean(1, enabled);
             stmt.setInt(2, userId);
-            
+
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
                 throw new SQLException("Aucun utilisateur trouvé avec l'ID : " + userId);
@@ -358,14 +434,32 @@ public class UserDAO {
     public void delete(int id) throws SQLException {
         String sql = "DELETE FROM Utilisateur WHERE id = ?";
         
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, id);
-            
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Aucun utilisateur trouvé avec l'ID : " + id);
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Les participations sont supprimées en cascade : libérer leurs places
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE Course c SET currentParticipants = GREATEST(currentParticipants - ("
+                                + "SELECT COUNT(*) FROM Participation p WHERE p.courseId = c.id "
+                                + "AND p.utilisateurId = ? AND p.statut NOT IN ('CANCELED', 'CANCELLED')), 0) "
+                                + "WHERE c.id IN (SELECT courseId FROM Participation WHERE utilisateurId = ?)")) {
+                    stmt.setInt(1, id);
+                    stmt.setInt(2, id);
+                    stmt.executeUpdate();
+                }
+                
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, id);
+                    
+                    int affectedRows = stmt.executeUpdate();
+                    if (affectedRows == 0) {
+                        throw new SQLException("Aucun utilisateur trouvé avec l'ID : " + id);
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
             }
         }
     }
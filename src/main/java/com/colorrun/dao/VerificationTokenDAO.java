@@ -0,0 +1,114 @@
+package com.colorrun.dao;
+
+import com.colorrun.config.DatabaseConfig;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+
+/**
+ * DAO pour la table VerificationToken : jetons de vérification d'email en
+ * attente, un par utilisateur.
+ * <p>
+ * Les jetons ne sont connus que par leur empreinte (colonne tokenHash) ;
+ * l'empreinte est calculée par l'appelant. Un jeton est consommé par sa
+ * suppression ({@link #consume}) : une seule validation aboutit, même
+ * si le lien est ouvert deux fois en même temps.
+ * </p>
+ *
+ * @author Équipe Color Run
+ * @version 1.0
+ * @since 1.0
+ */
+public class VerificationTokenDAO {
+
+    public VerificationTokenDAO() {
+        // DatabaseConfig est statique, pas besoin d'instance
+    }
+
+    /**
+     * Remplace le jeton en attente d'un utilisateur, dans la transaction de
+     * l'appelant.
+     */
+    public void replace(Connection connection, int userId, String tokenHash, LocalDateTime expiryDate)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM VerificationToken WHERE user_id = ?")) {
+            statement.setInt(1, userId);
+            statement.executeUpdate();
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO VerificationToken (user_id, tokenHash, expiry_date) VALUES (?, ?, ?)")) {
+            statement.setInt(1, userId);
+            statement.setString(2, tokenHash);
+            statement.setTimestamp(3, Timestamp.valueOf(expiryDate));
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @return l'utilisateur du jeton s'il n'a pas expiré, 0 sinon
+     */
+    public int findUserId(String tokenHash, LocalDateTime now) throws SQLException {
+        String sql = "SELECT user_id FROM VerificationToken WHERE tokenHash = ? AND expiry_date > ?";
+
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, tokenHash);
+            statement.setTimestamp(2, Timestamp.valueOf(now));
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Supprime un jeton non expiré, dans la transaction de l'appelant.
+     *
+     * @return true si le jeton existait et n'avait pas expiré
+     */
+    public boolean consume(Connection connection, String tokenHash, LocalDateTime now) throws SQLException {
+        String sql = "DELETE FROM VerificationToken WHERE tokenHash = ? AND expiry_date > ?";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, tokenHash);
+            statement.setTimestamp(2, Timestamp.valueOf(now));
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Supprime une tranche de jetons expirés, les plus anciens d'abord
+     * (parcours de l'index sur expiry_date, sans balayage de la table).
+     *
+     * @param limit taille maximale de la tranche
+     * @return nombre de jetons supprimés ; inférieur à la limite quand il n'en reste plus
+     */
+    public int deleteExpired(LocalDateTime now, int limit) throws SQLException {
+        String sql = """
+            DELETE FROM VerificationToken
+            WHERE id IN (SELECT id FROM VerificationToken
+                         WHERE expiry_date <= ?
+                         ORDER BY expiry_date
+                         LIMIT ?)
+            """;
+
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setTimestamp(1, Timestamp.valueOf(now));
+            statement.setInt(2, limit);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @return nombre de jetons en attente (expirés compris, tant qu'ils ne sont pas purgés)
+     */
+    public int count() throws SQLException {
+        try (Connection connection = DatabaseConfig.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM VerificationToken")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+}
@@ -11,9 +11,21 @@ import java.io.IOException;
 /**
  * Filtre d'authentification qui ajoute automatiquement 
  * les informations de token sur toutes les requêtes
+ *
+ * <p>Les ressources statiques (feuilles de style, images, scripts...) ne
+ * dépendent pas de l'utilisateur : elles traversent le filtre sans lecture de
+ * session ni attributs de token, et gardent le type de contenu que leur
+ * donne le conteneur.</p>
  */
 public class AuthenticationFilter implements Filter {
     
+    private static final String[] STATIC_PREFIXES = { "/css/", "/images/", "/js/" };
+    
+    private static final String[] STATIC_EXTENSIONS = {
+        ".css", ".js", ".map", ".png", ".jpg", ".jpeg", ".gif", ".svg", ".webp", ".ico",
+        ".woff", ".woff2", ".ttf"
+    };
+    
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
         Logger.info("AuthenticationFilter", "Filtre d'authentification initialisé");
@@ -24,7 +36,11 @@ public class AuthenticationFilter implements Filter {
             throws IOException, ServletException {
         
         HttpServletRequest httpRequest = (HttpServletRequest) request;
-        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        
+        if (isStaticResource(httpRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
         
         // Configurer l'encodage UTF-8 pour toutes les requêtes
         request.setCharacterEncoding("UTF-8");
@@ -32,12 +48,31 @@ public class AuthenticationFilter implements Filter {
         response.setCharacterEncoding("UTF-8");
         
         // Ajouter les informations token à chaque requête
-        TokenManager.addTokenToRequest(httpRequest);
+        TokenManager.addTokenToRequest(httpRequest, (HttpServletResponse) response);
         
         // Continuer la chaîne de filtres
         chain.doFilter(request, response);
     }
     
+    /**
+     * Chemin dans l'application sous un répertoire statique ou avec une extension statique
+     */
+    static boolean isStaticResource(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length();
+        for (String prefix : STATIC_PREFIXES) {
+            if (uri.startsWith(prefix, start)) {
+                return true;
+            }
+        }
+        for (String extension : STATIC_EXTENSIONS) {
+            if (uri.regionMatches(true, uri.length() - extension.length(), extension, 0, extension.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     @Override
     public void destroy() {
         Logger.info("AuthenticationFilter", "Filtre d'authentification détruit");
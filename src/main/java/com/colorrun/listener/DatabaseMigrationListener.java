@@ -0,0 +1,63 @@
+package com.colorrun.listener;
+
+import com.colorrun.config.DatabaseConfig;
+import com.colorrun.config.SchemaMigrator;
+import com.colorrun.dao.DossardNumberAllocator;
+import com.colorrun.security.PasswordHasher;
+import com.colorrun.service.impl.CourseReminderScheduler;
+import com.colorrun.service.impl.DiscussionFeedHub;
+import com.colorrun.service.impl.EmailOutboxDispatcher;
+import com.colorrun.service.impl.VerificationTokenStore;
+import com.colorrun.util.Logger;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Applique les migrations de schéma au démarrage de l'application,
+ * avant que les servlets ne reçoivent de requêtes, puis démarre l'envoi
+ * des emails en file, les rappels de course, la purge des jetons de
+ * vérification expirés et la diffusion des discussions.
+ *
+ * <p>À l'arrêt, ces tâches sont arrêtées dans l'ordre inverse de leur
+ * démarrage, puis les pools qui en dépendent (numéros de dossard, hachage
+ * des mots de passe) et enfin le pool de connexions et l'écriture des
+ * logs : aucune tâche ne doit plus utiliser la base quand elle est fermée.</p>
+ *
+ * <p>Une migration en échec fait échouer le démarrage du contexte : sans
+ * elle, les DAO liraient des colonnes absentes.</p>
+ */
+@WebListener
+public class DatabaseMigrationListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        Logger.step("DatabaseMigrationListener", "Migration du schéma");
+        int applied = SchemaMigrator.migrate();
+        Logger.info("DatabaseMigrationListener", applied + " migration(s) appliquée(s)");
+        Logger.stepSuccess("DatabaseMigrationListener", "Schéma à jour");
+        EmailOutboxDispatcher.getInstance().start();
+        CourseReminderScheduler.getInstance().start();
+        VerificationTokenStore.getInstance().start();
+        DiscussionFeedHub.getInstance().start();
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        Logger.info("DatabaseMigrationListener", "Arrêt des tâches de fond");
+        DiscussionFeedHub.getInstance().close();
+        VerificationTokenStore.getInstance().close();
+        CourseReminderScheduler.getInstance().close();
+        EmailOutboxDispatcher.getInstance().close();
+        DossardNumberAllocator.getInstance().close();
+        PasswordHasher.getInstance().close();
+
+        if (DatabaseConfig.getPool() != null) {
+            Logger.info("DatabaseMigrationListener", "Pool de connexions: " + DatabaseConfig.getPool().getStatsSummary());
+        }
+        DatabaseConfig.shutdown();
+        Logger.info("DatabaseMigrationListener", Logger.getStatsSummary());
+        Logger.shutdown();
+    }
+}
@@ -39,5 +39,6 @@ public class ThymeleafInitializer implements ServletContextListener {
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
         Logger.info("ThymeleafInitializer", "🔄 Arrêt application Thymeleaf");
+        Logger.info("ThymeleafInitializer", ThymeleafConfig.getStatsSummary());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,430 @@
+package com.colorrun.search;
+
+import com.colorrun.business.Course;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index inversé en mémoire pour la recherche plein texte sur les courses.
+ *
+ * <p>Les champs nom, ville, cause et description sont normalisés (minuscules,
+ * accents supprimés) puis découpés en termes. Chaque terme pointe vers les
+ * courses qui le contiennent, avec un poids dépendant du champ :</p>
+ * <ul>
+ *   <li>nom : 4</li>
+ *   <li>ville : 3</li>
+ *   <li>cause : 2</li>
+ *   <li>description : 1</li>
+ * </ul>
+ *
+ * <p><strong>Correspondances :</strong> chaque terme de la requête doit être
+ * trouvé (ET logique), soit exactement, soit comme préfixe d'un terme indexé,
+ * soit à une faute de frappe près (distance d'édition 1, 2 à partir de
+ * 8 caractères ; jamais pour les nombres). Le score d'une course est la somme, pour chaque terme de la
+ * requête, du meilleur poids trouvé pondéré par le type de correspondance.</p>
+ *
+ * <p>L'index est mis à jour incrémentalement par {@link #index(Course)} et
+ * {@link #remove(int)}. Les lectures sont concurrentes, les écritures exclusives.</p>
+ */
+public class CourseSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private static final int NAME_WEIGHT = 4;
+    private static final int CITY_WEIGHT = 3;
+    private static final int CAUSE_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final double EXACT_FACTOR = 1.0;
+    private static final double PREFIX_FACTOR = 0.75;
+    private static final double FUZZY_FACTOR = 0.5;
+
+    /** Longueur minimale d'un terme de requête pour la recherche approchée */
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private static final CourseSearchIndex INSTANCE = new CourseSearchIndex();
+
+    /** terme → (id course → poids). Trié pour les recherches par préfixe. */
+    private final NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+
+    /** id course → document indexé (course et termes, pour la désindexation) */
+    private final Map<Integer, Document> documents = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean built;
+
+    /** Incrémenté à chaque modification, construit ou non, pour détecter les reconstructions périmées */
+    private final AtomicLong modifications = new AtomicLong();
+
+    /**
+     * @return l'index partagé par les services de courses
+     */
+    public static CourseSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Indique si l'index a été construit depuis la dernière invalidation.
+     */
+    public boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * Valeur à relever avant de lire le catalogue passé à {@link #rebuild(Collection, long)}.
+     */
+    public long getModificationStamp() {
+        return modifications.get();
+    }
+
+    /**
+     * Reconstruit entièrement l'index à partir d'un catalogue de courses.
+     *
+     * <p>Si une course a été modifiée depuis {@code stamp} (relevé avant la
+     * lecture du catalogue), l'index reconstruit sert la recherche en cours
+     * mais reste marqué non construit : la recherche suivante le reconstruira
+     * à partir d'un catalogue à jour.</p>
+     *
+     * @param courses catalogue complet
+     * @param stamp   valeur de {@link #getModificationStamp()} avant la lecture du catalogue
+     */
+    public void rebuild(Collection<Course> courses, long stamp) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            for (Course course : courses) {
+                addDocument(course);
+            }
+            built = modifications.get() == stamp;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vide l'index ; il sera reconstruit à la prochaine recherche.
+     * Utilisé lorsque des courses disparaissent sans que leurs identifiants
+     * soient connus (suppression en cascade).
+     */
+    public void invalidate() {
+        modifications.incrementAndGet();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            built = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexe (ou réindexe) une course. Sans effet tant que l'index n'est pas
+     * construit : la course sera prise en compte par la construction initiale.
+     */
+    public void index(Course course) {
+        modifications.incrementAndGet();
+        if (!built) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(course.getId());
+            addDocument(course);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire une course de l'index.
+     */
+    public void remove(int courseId) {
+        modifications.incrementAndGet();
+        if (!built) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(courseId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recherche les courses correspondant à tous les termes de la requête.
+     *
+     * @param query texte saisi par l'utilisateur
+     * @param limit nombre maximal de résultats (0 ou moins : pas de limite)
+     * @return les courses trouvées, de la plus pertinente à la moins pertinente
+     *         (à score égal, par date croissante)
+     */
+    public List<Course> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            // Termes du dictionnaire correspondant à chaque terme de la requête,
+            // traités du plus sélectif au moins sélectif
+            List<List<TermMatch>> expanded = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                List<TermMatch> matches = expand(term);
+                if (matches.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                expanded.add(matches);
+            }
+            expanded.sort(Comparator.comparingInt(CourseSearchIndex::estimatedHits));
+
+            // Le terme le plus sélectif fournit les candidats...
+            Map<Integer, Double> scores = new HashMap<>();
+            for (TermMatch match : expanded.get(0)) {
+                for (Map.Entry<Integer, Integer> hit : match.posting.entrySet()) {
+                    scores.merge(hit.getKey(), hit.getValue() * match.factor, Math::max);
+                }
+            }
+
+            // ...que les termes suivants filtrent par accès direct aux listes
+            for (int i = 1; i < expanded.size() && !scores.isEmpty(); i++) {
+                List<TermMatch> matches = expanded.get(i);
+                Iterator<Map.Entry<Integer, Double>> it = scores.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Integer, Double> candidate = it.next();
+                    double best = 0;
+                    for (TermMatch match : matches) {
+                        Integer weight = match.posting.get(candidate.getKey());
+                        if (weight != null) {
+                            best = Math.max(best, weight * match.factor);
+                        }
+                    }
+                    if (best == 0) {
+                        it.remove();
+                    } else {
+                        candidate.setValue(candidate.getValue() + best);
+                    }
+                }
+            }
+            if (scores.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            Comparator<Map.Entry<Integer, Double>> byRelevance = (a, b) -> {
+                int byScore = Double.compare(b.getValue(), a.getValue());
+                if (byScore != 0) {
+                    return byScore;
+                }
+                Course ca = documents.get(a.getKey()).course;
+                Course cb = documents.get(b.getKey()).course;
+                if (ca.getDate() != null && cb.getDate() != null) {
+                    return ca.getDate().compareTo(cb.getDate());
+                }
+                return Integer.compare(ca.getId(), cb.getId());
+            };
+
+            List<Map.Entry<Integer, Double>> ranked;
+            if (limit > 0 && limit < scores.size()) {
+                // Sélection des k meilleurs sans trier tout le résultat
+                PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(limit + 1, byRelevance.reversed());
+                for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                    top.offer(entry);
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+                ranked = new ArrayList<>(top);
+            } else {
+                ranked = new ArrayList<>(scores.entrySet());
+            }
+            ranked.sort(byRelevance);
+
+            List<Course> results = new ArrayList<>(ranked.size());
+            for (Map.Entry<Integer, Double> entry : ranked) {
+                results.add(documents.get(entry.getKey()).course);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Termes du dictionnaire correspondant à un terme de requête : exact,
+     * puis par préfixe, puis approché, chacun avec son facteur de pondération.
+     */
+    private List<TermMatch> expand(String term) {
+        List<TermMatch> matches = new ArrayList<>();
+
+        // Exacte et préfixe : plage [term, term + MAX_VALUE) du dictionnaire trié
+        for (Map.Entry<String, Map<Integer, Integer>> entry
+                : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+            double factor = entry.getKey().length() == term.length() ? EXACT_FACTOR : PREFIX_FACTOR;
+            matches.add(new TermMatch(entry.getValue(), factor));
+        }
+
+        // Pas de recherche approchée sur les nombres (années, distances...)
+        if (term.length() >= MIN_FUZZY_LENGTH && !term.chars().allMatch(Character::isDigit)) {
+            int maxDistance = term.length() >= 8 ? 2 : 1;
+            // Les fautes sur la première lettre sont rares : on restreint le parcours
+            String first = term.substring(0, 1);
+            for (Map.Entry<String, Map<Integer, Integer>> entry
+                    : postings.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                String candidate = entry.getKey();
+                if (candidate.startsWith(term)) {
+                    continue;
+                }
+                if (Math.abs(candidate.length() - term.length()) <= maxDistance
+                        && withinDistance(term, candidate, maxDistance)) {
+                    matches.add(new TermMatch(entry.getValue(), FUZZY_FACTOR));
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static int estimatedHits(List<TermMatch> matches) {
+        int hits = 0;
+        for (TermMatch match : matches) {
+            hits += match.posting.size();
+        }
+        return hits;
+    }
+
+    private void addDocument(Course course) {
+        Map<String, Integer> weights = new HashMap<>();
+        addField(weights, course.getName(), NAME_WEIGHT);
+        addField(weights, course.getCity(), CITY_WEIGHT);
+        addField(weights, course.getCause(), CAUSE_WEIGHT);
+        addField(weights, course.getDescription(), DESCRIPTION_WEIGHT);
+
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                    .put(course.getId(), entry.getValue());
+        }
+        documents.put(course.getId(), new Document(course, weights.keySet()));
+    }
+
+    private void removeDocument(int courseId) {
+        Document document = documents.remove(courseId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            Map<Integer, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(courseId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addField(Map<String, Integer> weights, String text, int weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Math::max);
+        }
+    }
+
+    /**
+     * Normalise un texte (minuscules, sans accents) et le découpe en termes.
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String term : SEPARATORS.split(folded)) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Distance de Levenshtein bornée : vrai si {@code a} et {@code b} sont à
+     * au plus {@code max} modifications. Interrompt le calcul dès que la
+     * borne est dépassée sur une ligne entière.
+     */
+    static boolean withinDistance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()] <= max;
+    }
+
+    /**
+     * Terme du dictionnaire retenu pour un terme de requête.
+     */
+    private static final class TermMatch {
+        final Map<Integer, Integer> posting;
+        final double factor;
+
+        TermMatch(Map<Integer, Integer> posting, double factor) {
+            this.posting = posting;
+            this.factor = factor;
+        }
+    }
+
+    /**
+     * Course indexée et termes associés.
+     */
+    private static final class Document {
+        final Course course;
+        final Collection<String> terms;
+
+        Document(Course course, Collection<String> terms) {
+            this.course = course;
+            this.terms = terms;
+        }
+    }
+}
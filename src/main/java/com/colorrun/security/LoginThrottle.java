@@ -0,0 +1,203 @@
+package com.colorrun.security;
+
+import com.colorrun.util.Logger;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limitation des tentatives de connexion, par compte et par adresse IP.
+ *
+ * <p>Les échecs sont comptés par fenêtre fixe : un compte (ou une adresse)
+ * qui atteint le maximum d'échecs de sa fenêtre est refusé jusqu'à la fin de
+ * celle-ci, <em>avant</em> tout calcul BCrypt. Chaque tentative est réservée
+ * dans la fenêtre avant la vérification du mot de passe, si bien que les
+ * tentatives en cours comptent déjà contre la limite. Une connexion réussie
+ * remet à zéro le compteur du compte, pas les échecs de l'adresse.</p>
+ *
+ * <p>Le nombre de clés suivies est borné : au-delà, les fenêtres échues sont
+ * purgées, et si cela ne suffit pas les nouvelles clés ne sont plus suivies
+ * (le pool de {@link PasswordHasher} reste la limite de dernier recours).</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.login.maxAccountFailures</code> : échecs par compte et par fenêtre (défaut : 5)</li>
+ *   <li><code>colorrun.login.maxAddressFailures</code> : échecs par adresse IP et par fenêtre (défaut : 30)</li>
+ *   <li><code>colorrun.login.windowMinutes</code> : durée d'une fenêtre (défaut : 15)</li>
+ *   <li><code>colorrun.login.maxTrackedKeys</code> : comptes et adresses suivis au plus (défaut : 100000)</li>
+ * </ul>
+ */
+public final class LoginThrottle {
+
+    private static final LoginThrottle INSTANCE = new LoginThrottle(
+            Integer.getInteger("colorrun.login.maxAccountFailures", 5),
+            Integer.getInteger("colorrun.login.maxAddressFailures", 30),
+            Long.getLong("colorrun.login.windowMinutes", 15L),
+            Integer.getInteger("colorrun.login.maxTrackedKeys", 100_000));
+
+    /** Échecs d'un compte ou d'une adresse depuis le début de sa fenêtre */
+    private static final class Window {
+        final long startMillis;
+        int failures;
+
+        Window(long startMillis) {
+            this.startMillis = startMillis;
+        }
+    }
+
+    private final int maxAccountFailures;
+    private final int maxAddressFailures;
+    private final long windowMillis;
+    private final int maxTrackedKeys;
+
+    private final Map<String, Window> accounts = new ConcurrentHashMap<>();
+    private final Map<String, Window> addresses = new ConcurrentHashMap<>();
+
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder untracked = new LongAdder();
+
+    LoginThrottle(int maxAccountFailures, int maxAddressFailures, long windowMinutes, int maxTrackedKeys) {
+        this.maxAccountFailures = Math.max(1, maxAccountFailures);
+        this.maxAddressFailures = Math.max(1, maxAddressFailures);
+        this.windowMillis = TimeUnit.MINUTES.toMillis(Math.max(1L, windowMinutes));
+        this.maxTrackedKeys = Math.max(1, maxTrackedKeys);
+    }
+
+    /**
+     * @return l'instance partagée par les servlets de connexion
+     */
+    public static LoginThrottle getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Réserve une tentative de connexion, avant le calcul BCrypt.
+     *
+     * <p>La vérification de la limite et la réservation se font en une seule
+     * opération atomique par clé : des requêtes simultanées pour un même
+     * compte ne peuvent pas toutes passer la vérification avant que la
+     * première échoue. La tentative réservée compte comme un échec jusqu'à
+     * ce que {@link #recordSuccess} ou {@link #release} la rende.</p>
+     *
+     * @param email email saisi
+     * @param address adresse IP du client
+     * @return 0 si la tentative est réservée, sinon le nombre de secondes avant la prochaine
+     */
+    public long tryAcquire(String email, String address) {
+        long now = System.currentTimeMillis();
+        String account = accountKey(email);
+        long wait = reserve(accounts, account, maxAccountFailures, now);
+        if (wait <= 0) {
+            wait = reserve(addresses, address, maxAddressFailures, now);
+            if (wait > 0) {
+                unreserve(accounts, account);
+            }
+        }
+        if (wait <= 0) {
+            return 0;
+        }
+        throttled.increment();
+        return Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(wait + 999));
+    }
+
+    /**
+     * Compte une tentative dans la fenêtre de {@code key}, sauf si la limite
+     * est déjà atteinte.
+     *
+     * @return 0 si la tentative est comptée, sinon l'attente en millisecondes
+     */
+    private long reserve(Map<String, Window> windows, String key, int maxFailures, long now) {
+        if (key == null) {
+            return 0;
+        }
+        if (windows.size() >= maxTrackedKeys && !windows.containsKey(key)) {
+            purge(windows, now);
+            if (windows.size() >= maxTrackedKeys) {
+                untracked.increment();
+                return 0;
+            }
+        }
+        long[] wait = new long[1];
+        windows.compute(key, (k, window) -> {
+            if (window == null || window.startMillis + windowMillis <= now) {
+                window = new Window(now);
+            }
+            synchronized (window) {
+                if (window.failures >= maxFailures) {
+                    wait[0] = window.startMillis + windowMillis - now;
+                } else {
+                    window.failures++;
+                }
+            }
+            return window;
+        });
+        return wait[0];
+    }
+
+    private static void unreserve(Map<String, Window> windows, String key) {
+        if (key == null) {
+            return;
+        }
+        windows.computeIfPresent(key, (k, window) -> {
+            synchronized (window) {
+                if (window.failures > 0) {
+                    window.failures--;
+                }
+            }
+            return window;
+        });
+    }
+
+    /**
+     * Compte un échec de connexion (identifiants incorrects, compte inconnu
+     * ou désactivé). La tentative réservée par {@link #tryAcquire} reste
+     * comptée dans les fenêtres du compte et de l'adresse.
+     */
+    public void recordFailure() {
+        failures.increment();
+    }
+
+    /**
+     * Remet à zéro les échecs du compte après une connexion réussie et rend
+     * la tentative réservée sur l'adresse.
+     */
+    public void recordSuccess(String email, String address) {
+        String key = accountKey(email);
+        if (key != null) {
+            accounts.remove(key);
+        }
+        unreserve(addresses, address);
+    }
+
+    /**
+     * Rend une tentative réservée qui n'a pas abouti à une vérification du
+     * mot de passe (pool de hachage saturé, erreur technique).
+     */
+    public void release(String email, String address) {
+        unreserve(accounts, accountKey(email));
+        unreserve(addresses, address);
+    }
+
+    private void purge(Map<String, Window> windows, long now) {
+        int before = windows.size();
+        windows.values().removeIf(window -> window.startMillis + windowMillis <= now);
+        Logger.debug("LoginThrottle", () -> "Purge des tentatives : " + (before - windows.size()) + " fenêtre(s) échue(s)");
+    }
+
+    private static String accountKey(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public String getStatsSummary() {
+        return "LoginThrottle{échecs=" + failures.sum() +
+                ", refusés=" + throttled.sum() +
+                ", comptesSuivis=" + accounts.size() +
+                ", adressesSuivies=" + addresses.size() +
+                ", nonSuivis=" + untracked.sum() +
+                '}';
+    }
+}
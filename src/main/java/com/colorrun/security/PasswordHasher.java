@@ -0,0 +1,201 @@
+package com.colorrun.security;
+
+import com.colorrun.util.Logger;
+import com.colorrun.util.PasswordUtil;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Calculs BCrypt (hachage et vérification) sur un pool de threads dédié.
+ *
+ * <p>Un calcul BCrypt coûte des centaines de millisecondes de processeur :
+ * fait sur les threads de Tomcat, un afflux de connexions les occupe tous et
+ * bloque aussi les pages qui n'ont rien à voir avec l'authentification. Ici,
+ * au plus {@code threads} calculs tournent en même temps ; les suivants
+ * attendent dans une file bornée. File pleine ou attente trop longue, la
+ * demande est refusée par une {@link RejectedExecutionException}, que
+ * l'appelant traduit en « service surchargé » plutôt que de laisser les
+ * requêtes s'accumuler.</p>
+ *
+ * <p>Les méthodes synchrones ({@link #hash}, {@link #check}) bloquent le
+ * thread appelant jusqu'au résultat : file pleine, le refus est immédiat ;
+ * sinon l'attente dure au plus <code>timeoutMillis</code>. Dans le pire cas,
+ * autant de threads de Tomcat que de calculs admis (threads + file) sont
+ * donc occupés pendant ce délai ; la taille de la file est à régler en
+ * conséquence.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.password.threads</code> : calculs simultanés (défaut : nombre de processeurs)</li>
+ *   <li><code>colorrun.password.queueSize</code> : calculs en attente au-delà desquels les demandes
+ *       sont refusées (défaut : 64)</li>
+ *   <li><code>colorrun.password.timeoutMillis</code> : attente maximale d'un résultat (défaut : 5000)</li>
+ * </ul>
+ */
+public final class PasswordHasher {
+
+    private static final PasswordHasher INSTANCE = new PasswordHasher(
+            Integer.getInteger("colorrun.password.threads", Runtime.getRuntime().availableProcessors()),
+            Integer.getInteger("colorrun.password.queueSize", 64),
+            Long.getLong("colorrun.password.timeoutMillis", 5000L));
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder background = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private final LongAccumulator peakQueue = new LongAccumulator(Math::max, 0);
+
+    PasswordHasher(int threads, int queueSize, long timeoutMillis) {
+        int poolSize = Math.max(1, threads);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), r -> {
+                    Thread t = new Thread(r, "password-hasher-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.timeoutMillis = Math.max(1L, timeoutMillis);
+    }
+
+    /**
+     * @return l'instance partagée par les services
+     */
+    public static PasswordHasher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Hache un mot de passe ({@link PasswordUtil#hashPassword}).
+     *
+     * @throws RejectedExecutionException si le pool est saturé
+     */
+    public String hash(String plainTextPassword) {
+        hashes.increment();
+        return await(submit(() -> PasswordUtil.hashPassword(plainTextPassword)));
+    }
+
+    /**
+     * Vérifie un mot de passe ({@link PasswordUtil#checkPassword}).
+     *
+     * @throws RejectedExecutionException si le pool est saturé
+     */
+    public boolean check(String plainTextPassword, String hashedPassword) {
+        checks.increment();
+        return await(submit(() -> PasswordUtil.checkPassword(plainTextPassword, hashedPassword)));
+    }
+
+    /**
+     * Hache un mot de passe en arrière-plan, sans attendre le résultat.
+     *
+     * @param onHashed reçoit le hash, sur un thread du pool
+     * @return false si le pool est saturé : rien n'est calculé
+     */
+    public boolean hashInBackground(String plainTextPassword, Consumer<String> onHashed) {
+        try {
+            submit(() -> {
+                onHashed.accept(PasswordUtil.hashPassword(plainTextPassword));
+                return null;
+            });
+            background.increment();
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                waitNanos.add(start - queuedAt);
+                try {
+                    return task.call();
+                } finally {
+                    runNanos.add(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new RejectedExecutionException("File de calcul des mots de passe pleine ("
+                    + executor.getQueue().size() + " en attente)", e);
+        }
+        peakQueue.accumulate(executor.getQueue().size());
+        return future;
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Retire le calcul s'il n'a pas commencé ; commencé, il se termine sans effet
+            future.cancel(false);
+            timeouts.increment();
+            throw new RejectedExecutionException("Mot de passe non vérifié en " + timeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente du calcul de mot de passe interrompue", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Calcul de mot de passe en échec", e.getCause());
+        }
+    }
+
+    /**
+     * @return calculs en attente d'un thread
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Arrête le pool après les calculs en cours.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Logger.info("PasswordHasher", "Pool de hachage arrêté - " + getStatsSummary());
+    }
+
+    public String getStatsSummary() {
+        long completed = executor.getCompletedTaskCount();
+        return "PasswordHasher{coût=" + PasswordUtil.getRounds() +
+                ", threads=" + executor.getMaximumPoolSize() +
+                ", actifs=" + executor.getActiveCount() +
+                ", file=" + executor.getQueue().size() +
+                ", filePic=" + peakQueue.get() +
+                ", hachages=" + hashes.sum() +
+                ", vérifications=" + checks.sum() +
+                ", arrièrePlan=" + background.sum() +
+                ", refusés=" + rejected.sum() +
+                ", délaisDépassés=" + timeouts.sum() +
+                ", attenteMoy=" + (completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitNanos.sum() / completed)) + "ms" +
+                ", calculMoy=" + (completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(runNanos.sum() / completed)) + "ms" +
+                '}';
+    }
+}
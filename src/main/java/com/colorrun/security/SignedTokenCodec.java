@@ -0,0 +1,184 @@
+package com.colorrun.security;
+
+import com.colorrun.util.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Sérialisation d'un {@link UserToken} en valeur de cookie signée.
+ *
+ * <p>Format : {@code v1.<contenu>.<signature>}, en Base64 URL sans
+ * remplissage. Le contenu est binaire (identifiant du token, utilisateur,
+ * rôle, noms, email, dates de création et de dernière activité) ; la
+ * signature est un HMAC-SHA256 du préfixe de version et du contenu. Une
+ * valeur altérée, tronquée ou d'une autre version est rejetée sans être
+ * lue.</p>
+ *
+ * <p>La clé doit être la même sur toutes les instances. La clé précédente
+ * reste acceptée en vérification pendant une rotation : les cookies
+ * qu'elle a signés sont réémis avec la nouvelle clé à la prochaine
+ * activité.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.auth.secret</code> : clé de signature, au moins 32 octets ;
+ *       absente, une clé aléatoire est tirée et les cookies ne valent que sur cette instance</li>
+ *   <li><code>colorrun.auth.previousSecret</code> : ancienne clé, acceptée en vérification seulement</li>
+ * </ul>
+ */
+final class SignedTokenCodec {
+
+    private static final String VERSION = "v1";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /** Au-delà, la valeur ne peut pas venir de ce codec */
+    private static final int MAX_ENCODED_LENGTH = 2048;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final SecretKeySpec previousKey;
+
+    /** Mac n'est pas partageable entre threads */
+    private final ThreadLocal<Mac> mac;
+    private final ThreadLocal<Mac> previousMac;
+
+    SignedTokenCodec(byte[] secret, byte[] previousSecret) {
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.previousKey = previousSecret != null ? new SecretKeySpec(previousSecret, ALGORITHM) : null;
+        this.mac = ThreadLocal.withInitial(() -> newMac(key));
+        this.previousMac = ThreadLocal.withInitial(() -> previousKey != null ? newMac(previousKey) : null);
+    }
+
+    /**
+     * Codec configuré par les propriétés système.
+     */
+    static SignedTokenCodec fromSystemProperties() {
+        String secret = System.getProperty("colorrun.auth.secret");
+        String previous = System.getProperty("colorrun.auth.previousSecret");
+        byte[] key;
+        if (secret == null || secret.isEmpty()) {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            Logger.warn("TokenManager", "colorrun.auth.secret absent : clé aléatoire, "
+                    + "les cookies de session ne seront valides que sur cette instance");
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+            if (key.length < 32) {
+                Logger.warn("TokenManager", "colorrun.auth.secret fait moins de 32 octets");
+            }
+        }
+        return new SignedTokenCodec(key,
+                previous == null || previous.isEmpty() ? null : previous.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 indisponible", e);
+        }
+    }
+
+    /**
+     * @return la valeur de cookie signée du token
+     */
+    String encode(UserToken token) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            UUID id = UUID.fromString(token.getTokenId());
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+            out.writeInt(token.getUserId());
+            out.writeUTF(nullToEmpty(token.getRole()));
+            out.writeUTF(nullToEmpty(token.getFirstName()));
+            out.writeUTF(nullToEmpty(token.getLastName()));
+            out.writeUTF(nullToEmpty(token.getEmail()));
+            out.writeLong(toEpochMilli(token.getCreatedAt()));
+            out.writeLong(toEpochMilli(token.getLastActivity()));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        String payload = ENCODER.encodeToString(bytes.toByteArray());
+        String signed = VERSION + '.' + payload;
+        return signed + '.' + ENCODER.encodeToString(sign(mac.get(), signed));
+    }
+
+    /**
+     * @return le token, ou null si la valeur est mal formée, d'une autre
+     *         version ou mal signée (l'expiration n'est pas vérifiée ici)
+     */
+    UserToken decode(String value) {
+        if (value == null || value.length() > MAX_ENCODED_LENGTH || !value.startsWith(VERSION + '.')) {
+            return null;
+        }
+        int dot = value.lastIndexOf('.');
+        if (dot <= VERSION.length()) {
+            return null;
+        }
+        String signed = value.substring(0, dot);
+        byte[] signature;
+        byte[] payload;
+        try {
+            signature = DECODER.decode(value.substring(dot + 1));
+            payload = DECODER.decode(signed.substring(VERSION.length() + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(signature, sign(mac.get(), signed))) {
+            Mac previous = previousMac.get();
+            if (previous == null || !MessageDigest.isEqual(signature, sign(previous, signed))) {
+                return null;
+            }
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            String tokenId = new UUID(in.readLong(), in.readLong()).toString();
+            int userId = in.readInt();
+            String role = in.readUTF();
+            String firstName = in.readUTF();
+            String lastName = in.readUTF();
+            String email = in.readUTF();
+            LocalDateTime createdAt = fromEpochMilli(in.readLong());
+            LocalDateTime lastActivity = fromEpochMilli(in.readLong());
+            return new UserToken(tokenId, userId, firstName, lastName, email, role, createdAt, lastActivity);
+        } catch (IOException e) {
+            // Signature valide mais contenu illisible : ne devrait pas arriver
+            return null;
+        }
+    }
+
+    private static byte[] sign(Mac mac, String signed) {
+        return mac.doFinal(signed.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime fromEpochMilli(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+}
@@ -3,23 +3,73 @@ package com.colorrun.security;
 import com.colorrun.business.User;
 import com.colorrun.util.Logger;
 
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Gestionnaire centralisé des tokens utilisateur
  * Gère la création, validation et destruction des tokens
+ *
+ * <p>Le token d'une requête est résolu une seule fois (session, expiration,
+ * activité) puis mémorisé sur la requête : les vérifications suivantes
+ * (filtre, servlet, isAdmin, isOrganizer...) le relisent directement.</p>
+ *
+ * <p><strong>Mode sans état :</strong> le token n'est plus gardé en session
+ * mais porté par un cookie signé ({@link SignedTokenCodec}), relu et vérifié
+ * à chaque requête. Toute instance partageant la clé reconnaît l'utilisateur,
+ * sans affinité de session ni réplication. Le cookie est réémis quand
+ * l'activité est enregistrée (expiration glissante) ; la déconnexion
+ * l'efface et inscrit le token dans une liste de révocation
+ * ({@link TokenRevocationList}). Connexion et déconnexion passent alors par
+ * {@link #createToken(User, HttpServletRequest, HttpServletResponse)} et
+ * {@link #destroyToken(HttpServletRequest, HttpServletResponse)}.</p>
+ *
+ * <p>Un cookie n'est plus accepté 24h après la connexion, même réémis
+ * entre-temps : l'expiration glissante ne prolonge pas cette durée de vie,
+ * et une révocation la couvre donc entièrement. La liste de révocation est
+ * en revanche propre à chaque instance : après une déconnexion, une copie
+ * du cookie présentée à une autre instance y reste acceptée jusqu'à la fin
+ * de cette durée de vie. Sans affinité de session, une déconnexion ne
+ * garantit donc pas qu'un cookie volé cesse aussitôt de servir.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.auth.stateless</code> : token dans un cookie signé plutôt qu'en session
+ *       (défaut : false) ; voir {@link SignedTokenCodec} pour la clé</li>
+ * </ul>
  */
 public class TokenManager {
     
     private static final String TOKEN_SESSION_KEY = "USER_TOKEN";
     
+    /** Attribut de requête portant le token déjà résolu, ou NO_TOKEN */
+    private static final String REQUEST_TOKEN_KEY = TokenManager.class.getName() + ".token";
+    private static final Object NO_TOKEN = new Object();
+    
+    /** Attribut de requête signalant un cookie à réémettre (activité enregistrée) */
+    private static final String REQUEST_REFRESH_KEY = TokenManager.class.getName() + ".refresh";
+    
+    private static final boolean STATELESS = Boolean.getBoolean("colorrun.auth.stateless");
+    private static final String TOKEN_COOKIE = "COLORRUN_AUTH";
+    private static final int TOKEN_COOKIE_MAX_AGE = (int) TimeUnit.HOURS.toSeconds(24);
+    
+    private static final SignedTokenCodec CODEC = STATELESS ? SignedTokenCodec.fromSystemProperties() : null;
+    private static final TokenRevocationList REVOKED = new TokenRevocationList();
+    
+    private static final LongAdder cookiesIssued = new LongAdder();
+    private static final LongAdder cookiesRejected = new LongAdder();
+    private static final LongAdder revokedRejected = new LongAdder();
+    
     /**
      * Crée un nouveau token pour l'utilisateur et le stocke en session
      */
     public static UserToken createToken(User user, HttpSession session) {
-        Logger.step("TokenManager", "Création token pour " + user.getEmail());
+        Logger.step("TokenManager", () -> "Création token pour " + user.getEmail());
         
         UserToken token = new UserToken(user);
         session.setAttribute(TOKEN_SESSION_KEY, token);
@@ -31,9 +81,54 @@ public class TokenManager {
     }
     
     /**
-     * Récupère le token depuis la session
+     * Crée un nouveau token pour l'utilisateur : en session, ou dans un
+     * cookie signé en mode sans état
+     */
+    public static UserToken createToken(User user, HttpServletRequest request, HttpServletResponse response) {
+        if (!STATELESS) {
+            return createToken(user, request.getSession());
+        }
+        
+        Logger.step("TokenManager", () -> "Création token pour " + user.getEmail());
+        UserToken token = new UserToken(user);
+        writeCookie(request, response, token);
+        request.setAttribute(REQUEST_TOKEN_KEY, token);
+        Logger.success("TokenManager", "Token créé: " + token.getTokenId().substring(0, 8) + 
+                       " pour " + token.getFullName() + " (" + token.getRole() + ") - cookie signé");
+        return token;
+    }
+    
+    /**
+     * Récupère le token de la requête, résolu depuis la session au premier appel
      */
     public static UserToken getToken(HttpServletRequest request) {
+        Object resolved = request.getAttribute(REQUEST_TOKEN_KEY);
+        if (resolved instanceof UserToken && ((UserToken) resolved).isValid()) {
+            return (UserToken) resolved;
+        }
+        if (resolved == NO_TOKEN && (STATELESS || !hasSessionToken(request))) {
+            return null;
+        }
+        
+        // Premier appel pour cette requête, ou connexion/déconnexion depuis
+        UserToken token = resolveToken(request);
+        request.setAttribute(REQUEST_TOKEN_KEY, token != null ? token : NO_TOKEN);
+        return token;
+    }
+    
+    private static boolean hasSessionToken(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null && session.getAttribute(TOKEN_SESSION_KEY) != null;
+    }
+    
+    /**
+     * Lit le token en session, vérifie son expiration et enregistre l'activité
+     */
+    private static UserToken resolveToken(HttpServletRequest request) {
+        if (STATELESS) {
+            return resolveCookieToken(request);
+        }
+        
         HttpSession session = request.getSession(false);
         if (session == null) {
             return null;
@@ -51,12 +146,96 @@ public class TokenManager {
             
             // Mettre à jour l'activité
             token.updateActivity();
-            Logger.debug("TokenManager", "Token valide pour " + token.getEmail() + " (" + token.getRole() + ")");
+            Logger.debug("TokenManager", () -> "Token valide pour " + token.getEmail() + " (" + token.getRole() + ")");
+        }
+        
+        return token;
+    }
+    
+    /**
+     * Lit et vérifie le cookie signé, puis enregistre l'activité
+     */
+    private static UserToken resolveCookieToken(HttpServletRequest request) {
+        String value = readCookie(request);
+        if (value == null) {
+            return null;
         }
         
+        UserToken token = verifyCookie(value, CODEC, REVOKED);
+        if (token != null && token.updateActivity()) {
+            // Expiration glissante : le cookie doit porter la nouvelle activité
+            request.setAttribute(REQUEST_REFRESH_KEY, Boolean.TRUE);
+        }
         return token;
     }
     
+    /**
+     * Vérifie une valeur de cookie : signature, révocation, expiration par
+     * inactivité et durée de vie depuis la connexion
+     *
+     * @return le token, ou null s'il doit être refusé
+     */
+    static UserToken verifyCookie(String value, SignedTokenCodec codec, TokenRevocationList revoked) {
+        UserToken token = codec.decode(value);
+        if (token == null) {
+            cookiesRejected.increment();
+            Logger.warn("TokenManager", "Cookie de session rejeté (signature invalide ou format inconnu)");
+            return null;
+        }
+        if (revoked.isRevoked(token.getTokenId())) {
+            revokedRejected.increment();
+            Logger.warn("TokenManager", "Token révoqué présenté pour " + token.getEmail());
+            return null;
+        }
+        if (token.isExpired() || System.currentTimeMillis() >= cookieDeadline(token)) {
+            Logger.debug("TokenManager", () -> "Token expiré pour " + token.getEmail());
+            return null;
+        }
+        return token;
+    }
+    
+    /**
+     * @return l'instant (System.currentTimeMillis) à partir duquel le cookie
+     *         du token n'est plus accepté, réémis ou non
+     */
+    static long cookieDeadline(UserToken token) {
+        return token.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                + TimeUnit.SECONDS.toMillis(TOKEN_COOKIE_MAX_AGE);
+    }
+    
+    private static String readCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (TOKEN_COOKIE.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Émet le cookie du token ; sans token, l'efface chez le client
+     */
+    private static void writeCookie(HttpServletRequest request, HttpServletResponse response, UserToken token) {
+        // En-tête écrit à la main pour SameSite, inconnu de javax.servlet.http.Cookie
+        String path = request.getContextPath().isEmpty() ? "/" : request.getContextPath();
+        StringBuilder header = new StringBuilder(512)
+                .append(TOKEN_COOKIE).append('=').append(token != null ? CODEC.encode(token) : "")
+                .append("; Path=").append(path)
+                .append("; Max-Age=").append(token != null ? TOKEN_COOKIE_MAX_AGE : 0)
+                .append("; HttpOnly; SameSite=Lax");
+        if (request.isSecure()) {
+            header.append("; Secure");
+        }
+        response.addHeader("Set-Cookie", header.toString());
+        if (token != null) {
+            cookiesIssued.increment();
+        }
+    }
+    
     /**
      * Vérifie si l'utilisateur est authentifié
      */
@@ -78,7 +257,7 @@ public class TokenManager {
         UserToken token = getToken(request);
         boolean isAdmin = token != null && token.isAdmin();
         
-        Logger.debug("TokenManager", "Vérification admin: " + isAdmin);
+        Logger.debug("TokenManager", () -> "Vérification admin: " + isAdmin);
         return isAdmin;
     }
     
@@ -89,7 +268,7 @@ public class TokenManager {
         UserToken token = getToken(request);
         boolean isOrganizer = token != null && token.isOrganizer();
         
-        Logger.debug("TokenManager", "Vérification organisateur: " + isOrganizer);
+        Logger.debug("TokenManager", () -> "Vérification organisateur: " + isOrganizer);
         return isOrganizer;
     }
     
@@ -100,7 +279,7 @@ public class TokenManager {
         UserToken token = getToken(request);
         boolean isUser = token != null && token.isUser();
         
-        Logger.debug("TokenManager", "Vérification utilisateur: " + isUser);
+        Logger.debug("TokenManager", () -> "Vérification utilisateur: " + isUser);
         return isUser;
     }
     
@@ -111,13 +290,61 @@ public class TokenManager {
         UserToken token = (UserToken) session.getAttribute(TOKEN_SESSION_KEY);
         
         if (token != null) {
-            Logger.step("TokenManager", "Destruction token pour " + token.getEmail());
+            Logger.step("TokenManager", () -> "Destruction token pour " + token.getEmail());
             token.invalidate();
             session.removeAttribute(TOKEN_SESSION_KEY);
             Logger.success("TokenManager", "Token détruit avec succès");
         }
     }
     
+    /**
+     * Détruit le token de la requête (déconnexion) : en session, ou en
+     * révoquant et effaçant le cookie signé en mode sans état
+     */
+    public static void destroyToken(HttpServletRequest request, HttpServletResponse response) {
+        if (STATELESS) {
+            UserToken token = getToken(request);
+            if (token != null) {
+                Logger.step("TokenManager", () -> "Révocation token pour " + token.getEmail());
+                REVOKED.revoke(token.getTokenId(), cookieDeadline(token));
+                token.invalidate();
+            }
+            if (token != null || readCookie(request) != null) {
+                writeCookie(request, response, null);
+            }
+        }
+        
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            destroyToken(session);
+        }
+    }
+    
+    /**
+     * Ajoute les informations du token aux attributs de la requête et, en
+     * mode sans état, réémet le cookie si l'activité a été enregistrée
+     */
+    public static void addTokenToRequest(HttpServletRequest request, HttpServletResponse response) {
+        addTokenToRequest(request);
+        
+        if (request.getAttribute(REQUEST_REFRESH_KEY) != null) {
+            request.removeAttribute(REQUEST_REFRESH_KEY);
+            UserToken token = getToken(request);
+            if (token != null && !response.isCommitted()) {
+                writeCookie(request, response, token);
+            }
+        }
+    }
+    
+    /**
+     * Utilisateur connecté, reconstitué depuis le token (identifiant, noms,
+     * email, rôle), ou null
+     */
+    public static User getCurrentUser(HttpServletRequest request) {
+        UserToken token = getToken(request);
+        return token != null && token.isAuthenticated() ? token.toUser() : null;
+    }
+    
     /**
      * Ajoute les informations du token aux attributs de la requête
      * Pour utilisation dans les JSP/vues
@@ -136,7 +363,7 @@ public class TokenManager {
             request.setAttribute("userRole", token.getRole()); // Rôle technique (USER, ORGANIZER, ADMIN)
             request.setAttribute("userRoleDescription", token.getRoleDescription()); // Description française
             
-            Logger.debug("TokenManager", "Informations token ajoutées à la requête pour " + token.getEmail());
+            Logger.debug("TokenManager", () -> "Informations token ajoutées à la requête pour " + token.getEmail());
         } else {
             request.setAttribute("userToken", null);
             request.setAttribute("isAuthenticated", false);
@@ -193,4 +420,13 @@ public class TokenManager {
         }
         return true;
     }
-} 
\ No newline at end of file
+    
+    public static String getStatsSummary() {
+        return "TokenManager{mode=" + (STATELESS ? "cookie" : "session") +
+                ", cookiesEmis=" + cookiesIssued.sum() +
+                ", cookiesRejetes=" + cookiesRejected.sum() +
+                ", revoquesRejetes=" + revokedRejected.sum() +
+                ", revocations=" + REVOKED.size() +
+                '}';
+    }
+}
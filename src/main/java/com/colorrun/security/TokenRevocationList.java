@@ -0,0 +1,47 @@
+package com.colorrun.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tokens révoqués (déconnexion) en mode sans état.
+ *
+ * <p>Un cookie signé reste valide jusqu'à la fin de sa durée de vie,
+ * comptée depuis la connexion : la déconnexion l'efface chez le client, et
+ * son identifiant est gardé ici jusqu'à cette date, pour refuser une copie
+ * qui serait rejouée. Les entrées échues sont purgées au fil des révocations ;
+ * la liste ne contient donc que les déconnexions des dernières 24h.</p>
+ *
+ * <p>La liste est propre à l'instance : une copie du cookie rejouée sur
+ * une autre instance n'y est refusée qu'à la fin de sa durée de vie.</p>
+ */
+final class TokenRevocationList {
+
+    /** Une purge toutes les N révocations */
+    private static final int PURGE_EVERY = 256;
+
+    /** Identifiant du token → instant (System.currentTimeMillis) après lequel l'entrée est inutile */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final AtomicInteger sincePurge = new AtomicInteger();
+
+    void revoke(String tokenId, long keepUntilMillis) {
+        revoked.put(tokenId, keepUntilMillis);
+        if (sincePurge.incrementAndGet() >= PURGE_EVERY) {
+            sincePurge.set(0);
+            purge(System.currentTimeMillis());
+        }
+    }
+
+    boolean isRevoked(String tokenId) {
+        return revoked.containsKey(tokenId);
+    }
+
+    void purge(long nowMillis) {
+        revoked.values().removeIf(keepUntil -> keepUntil < nowMillis);
+    }
+
+    int size() {
+        return revoked.size();
+    }
+}
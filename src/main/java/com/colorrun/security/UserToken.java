@@ -1,15 +1,34 @@
 package com.colorrun.security;
 
 import com.colorrun.business.User;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Token de session utilisateur contenant toutes les informations nécessaires
  * pour l'authentification et l'autorisation
+ *
+ * <p>L'expiration se mesure sur l'horloge monotone ({@link System#nanoTime()}),
+ * insensible aux changements d'heure système et sans allocation. L'activité
+ * n'est enregistrée qu'une fois par intervalle : les requêtes rapprochées
+ * d'une même session ne réécrivent pas le token.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.auth.activityIntervalSeconds</code> : intervalle minimal entre deux
+ *       enregistrements d'activité (défaut : 30)</li>
+ * </ul>
  */
 public class UserToken {
     
+    /** Inactivité au-delà de laquelle le token expire */
+    private static final long EXPIRY_NANOS = TimeUnit.HOURS.toNanos(24);
+    
+    private static final long ACTIVITY_INTERVAL_NANOS =
+            TimeUnit.SECONDS.toNanos(Math.max(0L, Long.getLong("colorrun.auth.activityIntervalSeconds", 30L)));
+    
     private String tokenId;
     private int userId;
     private String firstName;
@@ -17,8 +36,9 @@ public class UserToken {
     private String email;
     private String role; // USER, ORGANIZER, ADMIN
     private LocalDateTime createdAt;
-    private LocalDateTime lastActivity;
-    private boolean isValid;
+    private volatile LocalDateTime lastActivity;
+    private volatile long lastActivityNanos;
+    private volatile boolean isValid;
     
     /**
      * Constructeur pour créer un token à partir d'un utilisateur
@@ -31,7 +51,27 @@ public class UserToken {
         this.email = user.getEmail();
         this.role = user.getRole();
         this.createdAt = LocalDateTime.now();
-        this.lastActivity = LocalDateTime.now();
+        this.lastActivity = this.createdAt;
+        this.lastActivityNanos = System.nanoTime();
+        this.isValid = true;
+    }
+    
+    /**
+     * Constructeur d'un token relu depuis un cookie signé
+     */
+    UserToken(String tokenId, int userId, String firstName, String lastName, String email, String role,
+              LocalDateTime createdAt, LocalDateTime lastActivity) {
+        this.tokenId = tokenId;
+        this.userId = userId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.role = role;
+        this.createdAt = createdAt;
+        this.lastActivity = lastActivity;
+        // Ramener la dernière activité, datée par une autre instance, sur l'horloge monotone locale
+        long idleMillis = Math.max(0L, Duration.between(lastActivity, LocalDateTime.now()).toMillis());
+        this.lastActivityNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleMillis);
         this.isValid = true;
     }
     
@@ -64,17 +104,25 @@ public class UserToken {
     }
     
     /**
-     * Vérifie si le token a expiré (24h)
+     * Vérifie si le token a expiré (24h sans activité)
      */
     public boolean isExpired() {
-        return lastActivity.isBefore(LocalDateTime.now().minusHours(24));
+        return System.nanoTime() - lastActivityNanos > EXPIRY_NANOS;
     }
     
     /**
-     * Met à jour l'activité du token
+     * Met à jour l'activité du token, au plus une fois par intervalle
+     *
+     * @return true si l'activité a été enregistrée
      */
-    public void updateActivity() {
+    public boolean updateActivity() {
+        long now = System.nanoTime();
+        if (now - lastActivityNanos < ACTIVITY_INTERVAL_NANOS) {
+            return false;
+        }
+        this.lastActivityNanos = now;
         this.lastActivity = LocalDateTime.now();
+        return true;
     }
     
     /**
@@ -84,6 +132,19 @@ public class UserToken {
         this.isValid = false;
     }
     
+    /**
+     * Utilisateur porté par le token : identifiant, noms, email et rôle
+     */
+    public User toUser() {
+        User user = new User();
+        user.setId(userId);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmail(email);
+        user.setRole(role);
+        return user;
+    }
+    
     /**
      * Retourne le nom complet de l'utilisateur
      */
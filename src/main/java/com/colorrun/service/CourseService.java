@@ -1,6 +1,7 @@
 package com.colorrun.service;
 
 import com.colorrun.business.Course;
+import com.colorrun.business.CoursePage;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -278,19 +279,91 @@ public interface CourseService {
     
     List<Course> findFiltered(String date, String city, String distance, String sort) throws SQLException;
     
+    /**
+     * Récupère une page de courses filtrées, paginée par curseur.
+     * 
+     * Le tri suit la même clé que {@link #findFiltered} ("date", "distance",
+     * "city" ou "name"), départagée par l'identifiant. La taille de page est
+     * bornée entre 1 et {@link #MAX_PAGE_SIZE} ; une valeur nulle ou négative
+     * applique {@link #DEFAULT_PAGE_SIZE}.
+     * 
+     * @param date      date exacte recherchée (format « YYYY-MM-DD »), ou null
+     * @param city      partie du nom de la ville, ou null
+     * @param distance  distance exacte en kilomètres, ou null
+     * @param sort      clé de tri
+     * @param cursor    curseur de la page précédente ({@link CoursePage#getNextCursor()}), ou null
+     * @param pageSize  nombre de courses souhaité
+     * @return La page de courses
+     * @throws IllegalArgumentException Si le curseur est invalide
+     * @throws SQLException En cas d'erreur lors de la récupération
+     */
+    CoursePage findFilteredPage(String date, String city, String distance, String sort,
+                                String cursor, int pageSize) throws SQLException;
+    
+    /** Taille de page appliquée par défaut par {@link #findFilteredPage} */
+    int DEFAULT_PAGE_SIZE = 24;
+    
+    /** Taille de page maximale acceptée par {@link #findFilteredPage} */
+    int MAX_PAGE_SIZE = 100;
+    
     void update(Course course) throws SQLException;
     
     void delete(int id) throws SQLException;
     
     /**
-     * Recherche des courses par texte libre (nom, description, lieu).
+     * Recherche des courses par texte libre (nom, description, lieu, cause).
+     * 
+     * La recherche ignore la casse et les accents, accepte les préfixes et
+     * les fautes de frappe légères. Tous les mots saisis doivent correspondre.
      * 
      * @param searchTerm Le terme de recherche
-     * @return Liste des courses correspondantes
+     * @return Liste des courses correspondantes, de la plus pertinente à la moins pertinente
      * @throws SQLException En cas d'erreur lors de la recherche
      */
     List<Course> searchCourses(String searchTerm) throws SQLException;
     
+    /**
+     * Recherche en texte libre restreinte par les filtres de
+     * {@link #findFilteredPage} (mêmes règles : date exacte, partie du nom de
+     * la ville sans tenir compte de la casse, distance exacte).
+     * 
+     * Les résultats ne sont pas paginés : ils viennent de l'index en mémoire
+     * et restent classés par pertinence.
+     * 
+     * @param searchTerm Le terme de recherche
+     * @param date       date exacte recherchée (format « YYYY-MM-DD »), ou null
+     * @param city       partie du nom de la ville, ou null
+     * @param distance   distance exacte en kilomètres, ou null
+     * @return Liste des courses correspondantes, de la plus pertinente à la moins pertinente
+     * @throws SQLException En cas d'erreur lors de la recherche
+     */
+    List<Course> searchCourses(String searchTerm, String date, String city, String distance) throws SQLException;
+    
+    /**
+     * Page de résultats d'une recherche en texte libre, restreinte par les
+     * filtres de {@link #searchCourses(String, String, String, String)}.
+     * 
+     * Avec une clé de tri ("date", "distance", "city" ou "name"), les
+     * résultats sont triés comme par {@link #findFilteredPage} ; sans clé,
+     * ils restent classés par pertinence. La taille de page suit les mêmes
+     * bornes que {@link #findFilteredPage}. Le curseur repère un rang dans
+     * les résultats : une course ajoutée ou retirée entre deux pages peut
+     * décaler la suite d'un rang.
+     * 
+     * @param searchTerm Le terme de recherche
+     * @param date       date exacte recherchée (format « YYYY-MM-DD »), ou null
+     * @param city       partie du nom de la ville, ou null
+     * @param distance   distance exacte en kilomètres, ou null
+     * @param sort       clé de tri, ou null pour l'ordre de pertinence
+     * @param cursor     curseur de la page précédente ({@link CoursePage#getNextCursor()}), ou null
+     * @param pageSize   nombre de courses souhaité
+     * @return La page de courses
+     * @throws IllegalArgumentException Si le curseur est invalide ou ne correspond pas au tri
+     * @throws SQLException En cas d'erreur lors de la recherche
+     */
+    CoursePage searchCoursesPage(String searchTerm, String date, String city, String distance, String sort,
+                                 String cursor, int pageSize) throws SQLException;
+    
     /**
      * Récupère toutes les villes où des courses ont lieu.
      * 
@@ -57,14 +57,6 @@ public interface DossardService {
      */
     List<Dossard> trouverParCourse(int courseId) throws Exception;
     
-    /**
-     * Génère un numéro de dossard unique pour une course
-     * @param courseId L'ID de la course
-     * @return Le numéro de dossard généré
-     * @throws Exception si erreur lors de la génération
-     */
-    String genererNumeroDossard(int courseId) throws Exception;
-    
     /**
      * Sauvegarde un dossard en base de données
      * @param dossard Le dossard à sauvegarder
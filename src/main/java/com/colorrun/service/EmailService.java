@@ -3,6 +3,10 @@ package com.colorrun.service;
 import com.colorrun.business.User;
 import com.colorrun.business.Course;
 import com.colorrun.business.Dossard;
+import com.colorrun.business.OutboxEmail;
+
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Service pour la gestion des envois d'emails dans l'application Color Run.
@@ -11,6 +15,9 @@ import com.colorrun.business.Dossard;
  * incluant les confirmations d'inscription, les notifications de course
  * et l'envoi des dossards.
  * 
+ * Les méthodes send* mettent l'email en file ; il est envoyé en tâche de
+ * fond, sans que l'appelant attende le serveur SMTP.
+ * 
  * @author Équipe Color Run
  * @version 1.0
  * @since 1.0
@@ -26,6 +33,16 @@ public interface EmailService {
      */
     void sendVerificationEmail(User user, String verificationToken) throws Exception;
     
+    /**
+     * Prépare l'email de vérification sans le mettre en file, pour que
+     * l'appelant l'enregistre dans sa propre transaction.
+     * 
+     * @param user L'utilisateur qui vient de s'inscrire
+     * @param verificationToken Le token de vérification à inclure dans l'email
+     * @return l'email à mettre en file, ou null si le service email n'est pas configuré
+     */
+    OutboxEmail composeVerificationEmail(User user, String verificationToken);
+    
     /**
      * Envoie un email de bienvenue après vérification du compte.
      * 
@@ -55,7 +72,8 @@ public interface EmailService {
     void sendCourseRegistrationConfirmation(User user, Course course) throws Exception;
     
     /**
-     * Envoie un rappel de course (1-2 jours avant l'événement).
+     * Envoie un rappel de course quelques jours avant l'événement
+     * (voir CourseReminderScheduler pour l'envoi planifié).
      * 
      * @param user Le participant
      * @param course La course qui approche
@@ -63,6 +81,32 @@ public interface EmailService {
      */
     void sendCourseReminder(User user, Course course) throws Exception;
     
+    /**
+     * Prépare le rappel de course d'un participant sans le mettre en file,
+     * par exemple pour un envoi groupé avec {@link #sendBulk}.
+     * 
+     * @param user Le participant
+     * @param course La course qui approche
+     * @return l'email à mettre en file, ou null si le service email n'est pas configuré
+     */
+    OutboxEmail composeCourseReminder(User user, Course course);
+    
+    /**
+     * Met en file un email personnalisé par destinataire, pour un envoi
+     * groupé étalé dans le temps : le i-ème email ne part pas avant
+     * {@code i / maxPerSecond} secondes (à l'intervalle d'interrogation de
+     * la file près). Les destinataires sont lus au fil
+     * du flux et enregistrés par lots, sans être tous chargés en mémoire.
+     * 
+     * @param recipients Les destinataires ; le flux est consommé mais pas fermé
+     * @param composer Construit l'email d'un destinataire (null : destinataire ignoré)
+     * @param maxPerSecond Débit maximal d'envoi ; 0 ou moins pour ne pas limiter
+     * @return nombre d'emails mis en file
+     * @throws Exception si erreur lors de la mise en file
+     */
+    <T> int sendBulk(Stream<T> recipients, Function<? super T, OutboxEmail> composer,
+                     double maxPerSecond) throws Exception;
+    
     /**
      * Envoie un email de réinitialisation de mot de passe.
      * 
@@ -82,6 +126,17 @@ public interface EmailService {
      */
     void sendCustomEmail(String recipient, String subject, String content) throws Exception;
     
+    /**
+     * Prépare un email personnalisé sans le mettre en file, pour l'enregistrer
+     * dans la transaction d'une modification métier.
+     * 
+     * @param recipient L'email du destinataire
+     * @param subject Le sujet de l'email
+     * @param content Le contenu HTML de l'email
+     * @return l'email à mettre en file, ou null si le service email n'est pas configuré
+     */
+    OutboxEmail composeCustomEmail(String recipient, String subject, String content);
+    
     /**
      * Teste la configuration email en envoyant un email de test.
      * 
@@ -28,6 +28,19 @@ public interface PDFDossardService {
      */
     byte[] generateDossardPDF(User user, Course course, Participation participation, byte[] qrCodeBytes) throws Exception;
     
+    /**
+     * Génère un PDF de dossard complet, le QR code de la participation
+     * étant encodé et dessiné directement dans la page (sans image PNG
+     * intermédiaire).
+     * 
+     * @param user Le participant
+     * @param course La course
+     * @param participation La participation
+     * @return Les bytes du PDF généré
+     * @throws Exception si erreur lors de la génération
+     */
+    byte[] generateDossardPDF(User user, Course course, Participation participation) throws Exception;
+    
     /**
      * Génère le nom de fichier pour le dossard PDF.
      * 
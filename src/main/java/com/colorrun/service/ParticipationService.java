@@ -1,10 +1,13 @@
 package com.colorrun.service;
 
 import com.colorrun.business.Course;
+import com.colorrun.business.OutboxEmail;
 import com.colorrun.business.Participation;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Service pour la gestion des inscriptions (participations) des utilisateurs
@@ -37,6 +40,16 @@ public interface ParticipationService {
     
     boolean isUserRegistered(int userId, int courseId) throws SQLException;
     
+    /**
+     * Retourne en une seule requête les identifiants des courses auxquelles
+     * l'utilisateur est inscrit. À préférer à {@link #isUserRegistered(int, int)}
+     * appelé en boucle sur une liste de courses.
+     *
+     * @param userId identifiant de l'utilisateur
+     * @return identifiants des courses de l'utilisateur (ensemble vide si aucune)
+     */
+    Set<Integer> getRegisteredCourseIds(int userId) throws SQLException;
+    
     void cancelParticipation(int userId, int courseId) throws SQLException;
     
     List<Course> getUserCourses(int userId) throws SQLException;
@@ -44,6 +57,17 @@ public interface ParticipationService {
     // Méthodes de compatibilité avec les servlets existants
     int register(int userId, int courseId) throws SQLException;
     
+    /**
+     * Inscrit un utilisateur et met en file l'email de confirmation dans la
+     * même transaction : pas d'email sans inscription, pas d'inscription
+     * validée sans son email.
+     *
+     * @param confirmation compose l'email à partir de la participation
+     *                     enregistrée ; peut renvoyer null (pas d'email)
+     * @return identifiant de la participation
+     */
+    int register(int userId, int courseId, Function<Participation, OutboxEmail> confirmation) throws SQLException;
+    
     Optional<Participation> findById(int id) throws SQLException;
     
     List<Participation> findByUser(int userId) throws SQLException;
@@ -23,6 +23,18 @@ public interface VerificationTokenService {
      */
     String generateVerificationToken(User user) throws Exception;
     
+    /**
+     * Génère un token de vérification et met en file l'email de
+     * vérification dans la même transaction : le token n'est enregistré
+     * que si l'email l'est aussi, et inversement. L'email est envoyé en
+     * tâche de fond.
+     * 
+     * @param user L'utilisateur pour lequel générer le token
+     * @return Le token de vérification généré
+     * @throws Exception si erreur lors de l'enregistrement du token ou de l'email
+     */
+    String issueVerificationToken(User user) throws Exception;
+    
     /**
      * Valide un token de vérification et active le compte utilisateur.
      * 
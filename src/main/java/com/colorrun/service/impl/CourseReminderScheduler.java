@@ -0,0 +1,260 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.business.Course;
+import com.colorrun.business.OutboxEmail;
+import com.colorrun.business.User;
+import com.colorrun.config.DatabaseConfig;
+import com.colorrun.config.EmailConfig;
+import com.colorrun.dao.CourseDAO;
+import com.colorrun.dao.CourseReminderDAO;
+import com.colorrun.dao.EmailOutboxDAO;
+import com.colorrun.service.EmailService;
+import com.colorrun.util.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Envoi planifié des rappels de course.
+ *
+ * <p>À intervalle régulier, les courses qui ont lieu dans
+ * {@code daysBefore} jours sont sélectionnées et leurs inscrits parcourus
+ * par tranches ({@link CourseReminderDAO#findPendingRecipients}) : seule une
+ * tranche est en mémoire à la fois, quel que soit le nombre d'inscrits. Pour
+ * chaque tranche, les rappels personnalisés sont mis en file
+ * ({@link EmailOutboxDAO#enqueueAll}) et enregistrés dans CourseReminder
+ * dans une même transaction.</p>
+ *
+ * <p><strong>Idempotent :</strong> un participant déjà rappelé n'est plus
+ * sélectionné ; une exécution interrompue est reprise par la suivante, et
+ * relancer l'envoi ne double aucun email. Les rappels sont étalés dans le
+ * temps au débit {@code maxPerSecond} par leur date d'envoi dans la file.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.reminder.daysBefore</code> : jours avant la course (défaut : 2)</li>
+ *   <li><code>colorrun.reminder.intervalMinutes</code> : intervalle entre deux passages (défaut : 60)</li>
+ *   <li><code>colorrun.reminder.batchSize</code> : inscrits lus et mis en file par transaction (défaut : 500)</li>
+ *   <li><code>colorrun.reminder.maxPerSecond</code> : débit d'envoi des rappels, 0 pour ne pas limiter (défaut : 20)</li>
+ * </ul>
+ */
+public final class CourseReminderScheduler {
+
+    private static final CourseReminderScheduler INSTANCE = new CourseReminderScheduler(
+            Integer.getInteger("colorrun.reminder.daysBefore", 2),
+            Long.getLong("colorrun.reminder.intervalMinutes", 60L),
+            Integer.getInteger("colorrun.reminder.batchSize", 500),
+            Double.parseDouble(System.getProperty("colorrun.reminder.maxPerSecond", "20")));
+
+    private final CourseDAO courseDAO = new CourseDAO();
+    private final CourseReminderDAO reminderDAO = new CourseReminderDAO();
+    private final EmailOutboxDAO outboxDAO = new EmailOutboxDAO();
+    private final EmailService emailService = new EmailServiceImpl();
+
+    private final int daysBefore;
+    private final long intervalMinutes;
+    private final int batchSize;
+    private final long intervalNanos;
+
+    private ScheduledExecutorService executor;
+
+    /** Un seul passage à la fois (planifié ou lancé à la main) */
+    private final Object runLock = new Object();
+
+    /** Date d'envoi du prochain rappel mis en file, pour respecter le débit d'un passage à l'autre */
+    private LocalDateTime nextSlot = LocalDateTime.MIN;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder courses = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    CourseReminderScheduler(int daysBefore, long intervalMinutes, int batchSize, double maxPerSecond) {
+        this.daysBefore = Math.max(0, daysBefore);
+        this.intervalMinutes = Math.max(1L, intervalMinutes);
+        this.batchSize = Math.max(1, batchSize);
+        this.intervalNanos = maxPerSecond > 0 ? (long) (1_000_000_000L / maxPerSecond) : 0L;
+    }
+
+    /**
+     * @return l'instance planifiée au démarrage de l'application
+     */
+    public static CourseReminderScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Démarre les passages périodiques, le premier une minute après le
+     * démarrage. Sans effet s'ils sont déjà démarrés.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "course-reminders");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::runSafely, 60, intervalMinutes * 60, TimeUnit.SECONDS);
+        Logger.info("CourseReminderScheduler", "Rappels planifiés " + daysBefore
+                + " jour(s) avant chaque course, toutes les " + intervalMinutes + " min");
+    }
+
+    private void runSafely() {
+        try {
+            run(LocalDate.now());
+        } catch (SQLException | RuntimeException e) {
+            // Ne jamais laisser une exception arrêter l'exécution périodique
+            Logger.error("CourseReminderScheduler", "Passage des rappels interrompu", e);
+        }
+    }
+
+    /**
+     * Met en file les rappels manquants des courses qui ont lieu
+     * {@code daysBefore} jours après une date.
+     *
+     * @param today date de référence
+     * @return nombre de rappels mis en file par ce passage
+     */
+    public int run(LocalDate today) throws SQLException {
+        synchronized (runLock) {
+            return runLocked(today);
+        }
+    }
+
+    private int runLocked(LocalDate today) throws SQLException {
+        if (!EmailConfig.getInstance().isConfigured()) {
+            return 0;
+        }
+        runs.increment();
+        LocalDateTime from = today.plusDays(daysBefore).atStartOfDay();
+        LocalDateTime now = LocalDateTime.now();
+        if (nextSlot.isBefore(now)) {
+            nextSlot = now;
+        }
+        int total = 0;
+        for (Course course : courseDAO.findStartingBetween(from, from.plusDays(1))) {
+            int count = remind(course);
+            if (count > 0) {
+                courses.increment();
+                Logger.email("CourseReminderScheduler", count + " rappel(s) mis en file pour " + course.getName());
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Met en file les rappels manquants d'une course, tranche par tranche.
+     */
+    private int remind(Course course) throws SQLException {
+        List<OutboxEmail> emails = new ArrayList<>(batchSize);
+        int count = 0;
+        int afterUserId = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            List<User> users = reminderDAO.findPendingRecipients(course.getId(), daysBefore, afterUserId, batchSize);
+            if (users.isEmpty()) {
+                return count;
+            }
+            for (User user : users) {
+                OutboxEmail email = emailService.composeCourseReminder(user, course);
+                if (email != null) {
+                    email.setNextAttemptAt(nextSlot.plusNanos(intervalNanos * emails.size()));
+                    emails.add(email);
+                }
+            }
+            if (!enqueue(course.getId(), users, emails)) {
+                return count;
+            }
+            nextSlot = nextSlot.plusNanos(intervalNanos * emails.size());
+            count += users.size();
+            queued.add(users.size());
+            emails.clear();
+            afterUserId = users.get(users.size() - 1).getId();
+            EmailOutboxDispatcher.getInstance().wakeUp();
+        }
+        return count;
+    }
+
+    /**
+     * Met en file une tranche et l'enregistre comme rappelée, en une transaction.
+     *
+     * @return false si une autre exécution a rappelé une partie de la tranche entre-temps
+     */
+    private boolean enqueue(int courseId, List<User> users, List<OutboxEmail> emails) throws SQLException {
+        try (Connection connection = DatabaseConfig.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                reminderDAO.markQueued(connection, courseId, daysBefore, users);
+                outboxDAO.enqueueAll(connection, emails);
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                if (!isDuplicate(e)) {
+                    throw e;
+                }
+                conflicts.increment();
+                Logger.warn("CourseReminderScheduler", "Rappels de la course " + courseId
+                        + " déjà en cours d'envoi par une autre exécution, tranche ignorée");
+                return false;
+            } catch (RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Violation de clé primaire, directe ou remontée par un lot d'insertions.
+     */
+    private static boolean isDuplicate(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            if (current.getSQLState() != null && current.getSQLState().startsWith("23")) {
+                return true;
+            }
+            if (current.getCause() instanceof SQLException
+                    && isDuplicate((SQLException) current.getCause())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Arrête les passages périodiques ; un passage en cours se termine
+     * à la fin de sa tranche, les suivantes seront reprises au prochain démarrage.
+     */
+    public synchronized void close() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        Logger.info("CourseReminderScheduler", "Rappels arrêtés - " + getStatsSummary());
+    }
+
+    public String getStatsSummary() {
+        return "CourseReminderScheduler{passages=" + runs.sum() +
+                ", courses=" + courses.sum() +
+                ", rappels=" + queued.sum() +
+                ", conflits=" + conflicts.sum() +
+                ", joursAvant=" + daysBefore +
+                '}';
+    }
+}
@@ -1,15 +1,27 @@
 package com.colorrun.service.impl;
 
 import com.colorrun.business.Course;
+import com.colorrun.business.CoursePage;
+import com.colorrun.cache.CourseCatalogCache;
+import com.colorrun.cache.CourseSeatCounter;
+import com.colorrun.cache.RenderedFileCache;
 import com.colorrun.dao.CourseDAO;
+import com.colorrun.dao.DossardNumberAllocator;
 import com.colorrun.dao.ParticipationDAO;
+import com.colorrun.search.CourseSearchIndex;
 import com.colorrun.service.CourseService;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
 import java.util.List;
 import java.util.Optional;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 
 /**
  * Implémentation concrète de {@link com.colorrun.service.CourseService}.
@@ -18,15 +30,76 @@ import java.util.ArrayList;
  * minimale (à compléter). Les méthodes marquées TODO devront être enrichies
  * pour respecter toutes les règles décrites dans l'interface.
  * </p>
+ * <p>
+ * Les lectures du catalogue complet (liste, recherche, villes, distances,
+ * comptage) passent par {@link CourseCatalogCache} ; toute écriture
+ * l'invalide. La recherche plein texte s'appuie sur {@link CourseSearchIndex},
+ * construit depuis le catalogue puis tenu à jour course par course.
+ * </p>
+ * <p>
+ * Les places disponibles se lisent dans {@link CourseSeatCounter} (nombre
+ * d'inscrits) et dans le catalogue en cache (capacité), sans requête
+ * {@code COUNT(*)} sur les participations. Les inscriptions n'invalident ni
+ * le catalogue ni l'index de recherche : leurs courses ne sont jamais
+ * renvoyées telles quelles, mais copiées avec le nombre d'inscrits du
+ * compteur ({@link #withSeats(List)}).
+ * </p>
  */
 public class CourseServiceImpl implements CourseService {
     
     private CourseDAO courseDAO;
     private ParticipationDAO participationDAO;
+    private CourseCatalogCache catalogCache;
+    private CourseSearchIndex searchIndex;
+    private CourseSeatCounter seatCounter;
+    private RenderedFileCache renderCache;
     
     public CourseServiceImpl() {
         this.courseDAO = new CourseDAO();
         this.participationDAO = new ParticipationDAO();
+        this.catalogCache = CourseCatalogCache.getInstance();
+        this.searchIndex = CourseSearchIndex.getInstance();
+        this.seatCounter = CourseSeatCounter.getInstance();
+        this.renderCache = RenderedFileCache.getInstance();
+    }
+    
+    /**
+     * Instantané courant du catalogue, chargé depuis la base si nécessaire.
+     */
+    private CourseCatalogCache.Snapshot catalog() throws SQLException {
+        return catalogCache.get(courseDAO::findAll);
+    }
+    
+    /**
+     * Course lue dans le catalogue s'il est en cache, sinon par clé primaire.
+     */
+    private Optional<Course> lookup(int courseId) throws SQLException {
+        CourseCatalogCache.Snapshot snapshot = catalogCache.peek();
+        if (snapshot != null) {
+            return Optional.ofNullable(snapshot.getById(courseId));
+        }
+        return courseDAO.findById(courseId);
+    }
+    
+    /**
+     * Nombre d'inscrits actifs, lu dans le compteur en mémoire.
+     */
+    private int participantCount(int courseId) throws SQLException {
+        return seatCounter.get(courseId, participationDAO::findParticipantCount);
+    }
+    
+    /**
+     * Copies des courses du catalogue ou de l'index, avec le nombre
+     * d'inscrits courant lu dans le compteur en mémoire.
+     */
+    private List<Course> withSeats(List<Course> courses) throws SQLException {
+        List<Course> result = new ArrayList<>(courses.size());
+        for (Course course : courses) {
+            Course copy = new Course(course);
+            copy.setCurrentParticipants(participantCount(course.getId()));
+            result.add(copy);
+        }
+        return result;
     }
     
     // Méthodes principales requises par l'interface
@@ -46,7 +119,12 @@ public class CourseServiceImpl implements CourseService {
     @Override
     public void createCourse(Course course) throws SQLException {
         course.setCurrentParticipants(0);
-        courseDAO.save(course);
+        try {
+            courseDAO.save(course);
+            searchIndex.index(course);
+        } finally {
+            catalogCache.invalidate();
+        }
     }
     
     @Override
@@ -60,27 +138,39 @@ public class CourseServiceImpl implements CourseService {
     
     @Override
     public List<Course> getAllCourses() throws SQLException {
-        return courseDAO.findAll();
+        return withSeats(catalog().getCourses());
     }
     
     public void updateCourse(Course course) throws SQLException {
-        courseDAO.update(course);
+        try {
+            courseDAO.update(course);
+            searchIndex.index(course);
+        } finally {
+            renderCache.invalidateCourse(course.getId());
+            catalogCache.invalidate();
+        }
     }
     
     public void deleteCourse(int id) throws SQLException {
-        courseDAO.delete(id);
+        try {
+            courseDAO.delete(id);
+            searchIndex.remove(id);
+            seatCounter.evict(id);
+            DossardNumberAllocator.getInstance().forget(id);
+        } finally {
+            renderCache.invalidateCourse(id);
+            catalogCache.invalidate();
+        }
     }
     
     @Override
     public boolean hasAvailableSpots(int courseId) {
         try {
-            Optional<Course> courseOpt = courseDAO.findById(courseId);
+            Optional<Course> courseOpt = lookup(courseId);
             if (!courseOpt.isPresent()) {
                 return false;
             }
-            Course course = courseOpt.get();
-            int currentParticipants = participationDAO.countByCourse(courseId);
-            return currentParticipants < course.getMaxParticipants();
+            return participantCount(courseId) < courseOpt.get().getMaxParticipants();
         } catch (SQLException e) {
             return false;
         }
@@ -125,7 +215,15 @@ public class CourseServiceImpl implements CourseService {
     
     @Override
     public double getFillPercentage(int courseId) {
-        return 0.0; // TODO: implémenter
+        try {
+            Optional<Course> courseOpt = lookup(courseId);
+            if (!courseOpt.isPresent() || courseOpt.get().getMaxParticipants() <= 0) {
+                return 0.0;
+            }
+            return Math.min(100.0, participantCount(courseId) * 100.0 / courseOpt.get().getMaxParticipants());
+        } catch (SQLException e) {
+            return 0.0;
+        }
     }
     
     @Override
@@ -136,7 +234,7 @@ public class CourseServiceImpl implements CourseService {
     @Override
     public List<Course> findCoursesByName(String name) {
         try {
-            return courseDAO.findAll(); // TODO: implémenter recherche par nom
+            return getAllCourses(); // TODO: implémenter recherche par nom
         } catch (SQLException e) {
             return new ArrayList<>();
         }
@@ -145,7 +243,7 @@ public class CourseServiceImpl implements CourseService {
     @Override
     public List<Course> getCoursesByOrganizer(int organizerId) {
         try {
-            return courseDAO.findAll(); // TODO: implémenter recherche par organisateur
+            return getAllCourses(); // TODO: implémenter recherche par organisateur
         } catch (SQLException e) {
             return new ArrayList<>();
         }
@@ -154,7 +252,7 @@ public class CourseServiceImpl implements CourseService {
     @Override
     public List<Course> findCoursesByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         try {
-            return courseDAO.findAll(); // TODO: implémenter recherche par période
+            return getAllCourses(); // TODO: implémenter recherche par période
         } catch (SQLException e) {
             return new ArrayList<>();
         }
@@ -163,13 +261,11 @@ public class CourseServiceImpl implements CourseService {
     @Override
     public int getAvailableSpots(int courseId) {
         try {
-            Optional<Course> courseOpt = courseDAO.findById(courseId);
+            Optional<Course> courseOpt = lookup(courseId);
             if (!courseOpt.isPresent()) {
                 return 0;
             }
-            Course course = courseOpt.get();
-            int currentParticipants = participationDAO.countByCourse(courseId);
-            return Math.max(0, course.getMaxParticipants() - currentParticipants);
+            return Math.max(0, courseOpt.get().getMaxParticipants() - participantCount(courseId));
         } catch (SQLException e) {
             return 0;
         }
@@ -178,7 +274,7 @@ public class CourseServiceImpl implements CourseService {
     @Override
     public List<Course> getUpcomingCourses(int limit) {
         try {
-            return courseDAO.findAll(); // TODO: implémenter recherche de courses à venir
+            return getAllCourses(); // TODO: implémenter recherche de courses à venir
         } catch (SQLException e) {
             return new ArrayList<>();
         }
@@ -187,7 +283,7 @@ public class CourseServiceImpl implements CourseService {
     @Override
     public List<Course> getOpenCourses() {
         try {
-            return courseDAO.findAll(); // TODO: implémenter recherche de courses ouvertes
+            return getAllCourses(); // TODO: implémenter recherche de courses ouvertes
         } catch (SQLException e) {
             return new ArrayList<>();
         }
@@ -197,10 +293,10 @@ public class CourseServiceImpl implements CourseService {
     public boolean deleteCourse(int courseId, boolean hardDelete) {
         try {
             if (hardDelete) {
-                courseDAO.delete(courseId);
+                deleteCourse(courseId);
             } else {
                 // TODO: implémenter soft delete
-                courseDAO.delete(courseId);
+                deleteCourse(courseId);
             }
             return true;
         } catch (SQLException e) {
@@ -217,7 +313,7 @@ public class CourseServiceImpl implements CourseService {
     @Override
     public List<Course> findCoursesByLocation(String location) {
         try {
-            return courseDAO.findAll(); // TODO: implémenter recherche par lieu
+            return getAllCourses(); // TODO: implémenter recherche par lieu
         } catch (SQLException e) {
             return new ArrayList<>();
         }
@@ -226,7 +322,7 @@ public class CourseServiceImpl implements CourseService {
     @Override
     public long getTotalCourseCount() {
         try {
-            return courseDAO.findAll().size(); // TODO: optimiser avec une requête count
+            return catalog().size();
         } catch (SQLException e) {
             return 0;
         }
@@ -241,60 +337,166 @@ public class CourseServiceImpl implements CourseService {
         return getFilteredCourses(date, city, distance, sort);
     }
     
+    @Override
+    public CoursePage findFilteredPage(String date, String city, String distance, String sort,
+                                       String cursor, int pageSize) throws SQLException {
+        int size = pageSize <= 0 ? DEFAULT_PAGE_SIZE : Math.min(pageSize, MAX_PAGE_SIZE);
+        return courseDAO.findFilteredPage(date, city, distance, sort, cursor, size);
+    }
+    
     @Override
     public List<Course> searchCourses(String searchTerm) throws SQLException {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             return new ArrayList<>();
         }
         
-        // Pour l'instant, recherche simple dans le nom et la description
-        List<Course> allCourses = courseDAO.findAll();
-        List<Course> results = new ArrayList<>();
-        String lowerSearchTerm = searchTerm.toLowerCase();
-        
-        for (Course course : allCourses) {
-            if ((course.getName() != null && course.getName().toLowerCase().contains(lowerSearchTerm)) ||
-                (course.getDescription() != null && course.getDescription().toLowerCase().contains(lowerSearchTerm)) ||
-                (course.getCity() != null && course.getCity().toLowerCase().contains(lowerSearchTerm))) {
-                results.add(course);
-            }
+        if (!searchIndex.isBuilt()) {
+            long stamp = searchIndex.getModificationStamp();
+            searchIndex.rebuild(catalog().getCourses(), stamp);
         }
-        
-        return results;
+        return withSeats(searchIndex.search(searchTerm, 0));
     }
     
     @Override
-    public List<String> getAllCities() throws SQLException {
-        List<Course> allCourses = courseDAO.findAll();
-        List<String> cities = new ArrayList<>();
-        
-        for (Course course : allCourses) {
-            if (course.getCity() != null && !course.getCity().trim().isEmpty()) {
-                String city = course.getCity().trim();
-                if (!cities.contains(city)) {
-                    cities.add(city);
-                }
+    public List<Course> searchCourses(String searchTerm, String date, String city, String distance) throws SQLException {
+        LocalDate day = null;
+        if (date != null && !date.isEmpty()) {
+            try {
+                day = LocalDate.parse(date);
+            } catch (DateTimeParseException e) {
+                // Date invalide ignorée, comme par findFilteredPage
+            }
+        }
+        String cityPart = city == null || city.isEmpty() ? null : city.toLowerCase(Locale.ROOT);
+        Double km = null;
+        if (distance != null && !distance.isEmpty()) {
+            try {
+                km = Double.parseDouble(distance);
+            } catch (NumberFormatException e) {
+                // Distance invalide ignorée
             }
         }
         
-        return cities;
+        List<Course> matches = new ArrayList<>();
+        for (Course course : searchCourses(searchTerm)) {
+            if (day != null && (course.getDate() == null || !day.equals(course.getDate().toLocalDate()))) {
+                continue;
+            }
+            if (cityPart != null && (course.getCity() == null
+                    || !course.getCity().toLowerCase(Locale.ROOT).contains(cityPart))) {
+                continue;
+            }
+            if (km != null && !km.equals(course.getDistance())) {
+                continue;
+            }
+            matches.add(course);
+        }
+        return matches;
     }
     
     @Override
-    public List<Double> getAllDistances() throws SQLException {
-        List<Course> allCourses = courseDAO.findAll();
-        List<Double> distances = new ArrayList<>();
+    public CoursePage searchCoursesPage(String searchTerm, String date, String city, String distance, String sort,
+                                        String cursor, int pageSize) throws SQLException {
+        int size = pageSize <= 0 ? DEFAULT_PAGE_SIZE : Math.min(pageSize, MAX_PAGE_SIZE);
+        String sortKey = searchSortKey(sort);
+        int from = cursor == null || cursor.isEmpty() ? 0 : decodeSearchCursor(cursor, sortKey);
         
-        for (Course course : allCourses) {
-            if (course.getDistance() > 0) {
-                double distance = course.getDistance();
-                if (!distances.contains(distance)) {
-                    distances.add(distance);
-                }
+        List<Course> matches = searchCourses(searchTerm, date, city, distance);
+        Comparator<Course> order = searchOrder(sortKey);
+        if (order != null) {
+            matches.sort(order);
+        }
+        if (from >= matches.size()) {
+            return new CoursePage(new ArrayList<>(), null, size);
+        }
+        int to = Math.min(from + size, matches.size());
+        String nextCursor = to < matches.size() ? encodeSearchCursor(sortKey, to) : null;
+        return new CoursePage(new ArrayList<>(matches.subList(from, to)), nextCursor, size);
+    }
+    
+    /**
+     * @return la clé de tri des résultats de recherche, "relevance" à défaut
+     */
+    private static String searchSortKey(String sort) {
+        if (sort == null) {
+            return "relevance";
+        }
+        switch (sort) {
+            case "date":
+            case "distance":
+            case "city":
+            case "name":
+                return sort;
+            default:
+                return "relevance";
+        }
+    }
+    
+    /**
+     * @return l'ordre (clé de tri, identifiant) de {@code sortKey}, ou null
+     *         pour garder l'ordre de pertinence
+     */
+    private static Comparator<Course> searchOrder(String sortKey) {
+        Comparator<Course> order;
+        switch (sortKey) {
+            case "date":
+                order = Comparator.comparing(Course::getDate, Comparator.nullsLast(Comparator.naturalOrder()));
+                break;
+            case "distance":
+                order = Comparator.comparing(Course::getDistance, Comparator.nullsLast(Comparator.naturalOrder()));
+                break;
+            case "city":
+                order = Comparator.comparing(Course::getCity, Comparator.nullsLast(Comparator.naturalOrder()));
+                break;
+            case "name":
+                order = Comparator.comparing(Course::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+                break;
+            default:
+                return null;
+        }
+        return order.thenComparingInt(Course::getId);
+    }
+    
+    /**
+     * Encode le rang de la première course de la page suivante : "search|tri|rang" en Base64 URL.
+     */
+    private static String encodeSearchCursor(String sortKey, int offset) {
+        String raw = "search|" + sortKey + "|" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static int decodeSearchCursor(String cursor, String sortKey) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide", e);
+        }
+        if (parts.length != 3 || !"search".equals(parts[0])) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+        if (!parts[1].equals(sortKey)) {
+            throw new IllegalArgumentException("Le curseur ne correspond pas au tri demandé");
+        }
+        try {
+            int offset = Integer.parseInt(parts[2]);
+            if (offset < 0) {
+                throw new IllegalArgumentException("Curseur de pagination invalide");
             }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide", e);
         }
-        
-        return distances;
+    }
+    
+    @Override
+    public List<String> getAllCities() throws SQLException {
+        return catalog().getCities();
+    }
+    
+    @Override
+    public List<Double> getAllDistances() throws SQLException {
+        return catalog().getDistances();
     }
     
     @Override
@@ -0,0 +1,650 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.business.Discussion;
+import com.colorrun.util.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Diffusion en direct des messages de discussion, par course, en Server-Sent
+ * Events.
+ *
+ * <p>Chaque page de course ouvre un flux ({@code /discussion/stream}) tenu par
+ * une requête asynchrone : une connexion inactive n'occupe aucun thread de
+ * Tomcat. Les messages créés ou supprimés par {@link DiscussionServiceImpl}
+ * sont encodés une seule fois puis mis dans la file de chaque abonné de la
+ * course ; quelques threads d'écriture vident ces files. Un client trop lent,
+ * dont la file dépasse {@code maxPendingBytes}, est déconnecté : son
+ * navigateur se reconnecte et rattrape les événements manqués.</p>
+ *
+ * <p>Les écritures sont bloquantes (pas de {@code WriteListener} en
+ * Servlet 3.0) : un client qui ne lit plus bloque le thread qui lui écrit
+ * jusqu'au délai d'écriture du connecteur. Une écriture en cours depuis plus
+ * de {@code writeTimeoutMillis} est donc abandonnée par une surveillance
+ * périodique : l'abonné ne reçoit plus rien et sera fermé au retour de
+ * l'écriture, et un thread d'écriture supplémentaire remplace celui qui est
+ * bloqué (au plus {@code maxBlockedWriters}), si bien que les autres courses
+ * continuent d'être servies.</p>
+ *
+ * <p>Les derniers événements de chaque course sont gardés en mémoire
+ * ({@code historySize}) : un client qui se reconnecte avec son dernier
+ * identifiant reçu (en-tête {@code Last-Event-ID}) les reçoit à nouveau. Si
+ * l'identifiant est trop ancien, ou vient d'un autre démarrage de
+ * l'application, le client reçoit un événement {@code reset} et recharge la
+ * discussion. Les abonnés sont propres à ce serveur : derrière plusieurs
+ * instances, un message n'est poussé qu'aux pages servies par la même.</p>
+ *
+ * <p>Un commentaire vide est envoyé toutes les {@code heartbeatSeconds} pour
+ * garder les connexions ouvertes à travers les proxys et détecter les
+ * clients partis.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.discussion.historySize</code> : événements gardés par course (défaut : 50)</li>
+ *   <li><code>colorrun.discussion.maxSubscribers</code> : flux ouverts au plus (défaut : 10000)</li>
+ *   <li><code>colorrun.discussion.maxPendingBytes</code> : octets en attente par client avant
+ *       déconnexion (défaut : 65536)</li>
+ *   <li><code>colorrun.discussion.writerThreads</code> : threads d'écriture (défaut : 2)</li>
+ *   <li><code>colorrun.discussion.heartbeatSeconds</code> : intervalle entre deux battements (défaut : 20)</li>
+ *   <li><code>colorrun.discussion.streamTimeoutMinutes</code> : durée d'un flux avant reconnexion
+ *       du client (défaut : 30)</li>
+ *   <li><code>colorrun.discussion.writeTimeoutMillis</code> : durée d'une écriture au-delà de
+ *       laquelle l'abonné est abandonné (défaut : 10000)</li>
+ *   <li><code>colorrun.discussion.maxBlockedWriters</code> : threads d'écriture ajoutés au plus pour
+ *       remplacer des threads bloqués (défaut : 32)</li>
+ * </ul>
+ */
+public final class DiscussionFeedHub {
+
+    private static final DiscussionFeedHub INSTANCE = new DiscussionFeedHub(
+            Integer.getInteger("colorrun.discussion.historySize", 50),
+            Integer.getInteger("colorrun.discussion.maxSubscribers", 10_000),
+            Integer.getInteger("colorrun.discussion.maxPendingBytes", 64 * 1024),
+            Integer.getInteger("colorrun.discussion.writerThreads", 2),
+            Long.getLong("colorrun.discussion.heartbeatSeconds", 20L),
+            Long.getLong("colorrun.discussion.streamTimeoutMinutes", 30L),
+            Long.getLong("colorrun.discussion.writeTimeoutMillis", 10_000L),
+            Integer.getInteger("colorrun.discussion.maxBlockedWriters", 32));
+
+    /** Délai de reconnexion indiqué aux navigateurs */
+    private static final byte[] PREAMBLE = "retry: 3000\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /** Même rendu que la liste des messages de info-course.jsp */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("d/M/yyyy H:m");
+
+    /** Événement encodé, tel qu'envoyé à chaque abonné */
+    private static final class Event {
+        final long sequence;
+        final byte[] frame;
+
+        Event(long sequence, byte[] frame) {
+            this.sequence = sequence;
+            this.frame = frame;
+        }
+    }
+
+    /** Abonnés et derniers événements d'une course ; protégé par this */
+    private static final class Channel {
+        final ArrayDeque<Event> history = new ArrayDeque<>();
+        final Set<Subscriber> subscribers = new HashSet<>();
+        /** Plus grand numéro d'événement sorti de l'historique */
+        long evictedUpTo;
+    }
+
+    private final int historySize;
+    private final int maxSubscribers;
+    private final int maxPendingBytes;
+    private final long heartbeatSeconds;
+    private final long streamTimeoutMillis;
+    private final long writeTimeoutNanos;
+    private final int writerThreads;
+    private final int maxBlockedWriters;
+
+    /** Préfixe des identifiants d'événements, propre à ce démarrage */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Integer, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ThreadPoolExecutor writers;
+    /** Abonnés dont une écriture est en cours */
+    private final Set<Subscriber> writing = ConcurrentHashMap.newKeySet();
+    /** Threads d'écriture bloqués, remplacés dans le pool ; protégé par writers */
+    private int blockedWriters;
+
+    private ScheduledExecutorService heartbeat;
+    private volatile boolean closed;
+
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder slowClients = new LongAdder();
+    private final LongAdder writeErrors = new LongAdder();
+    private final LongAdder blockedWrites = new LongAdder();
+    private final LongAccumulator peakSubscribers = new LongAccumulator(Math::max, 0);
+
+    DiscussionFeedHub(int historySize, int maxSubscribers, int maxPendingBytes, int writerThreads,
+                      long heartbeatSeconds, long streamTimeoutMinutes, long writeTimeoutMillis,
+                      int maxBlockedWriters) {
+        this.historySize = Math.max(1, historySize);
+        this.maxSubscribers = Math.max(1, maxSubscribers);
+        this.maxPendingBytes = Math.max(1024, maxPendingBytes);
+        this.heartbeatSeconds = Math.max(1L, heartbeatSeconds);
+        this.streamTimeoutMillis = TimeUnit.MINUTES.toMillis(Math.max(1L, streamTimeoutMinutes));
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(100L, writeTimeoutMillis));
+        this.writerThreads = Math.max(1, writerThreads);
+        this.maxBlockedWriters = Math.max(0, maxBlockedWriters);
+        AtomicInteger count = new AtomicInteger();
+        // File non bornée : chaque abonné y a au plus une tâche
+        this.writers = new ThreadPoolExecutor(this.writerThreads, this.writerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "discussion-feed-writer-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * @return l'instance partagée par les services et la servlet de flux
+     */
+    public static DiscussionFeedHub getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Identifiant du dernier événement publié. Pris avant de lire les messages
+     * d'une page, il permet au flux de cette page de reprendre sans rien
+     * manquer.
+     */
+    public String cursor() {
+        return epoch + "-" + sequence.get();
+    }
+
+    /**
+     * @return true si le nombre maximal de flux ouverts est atteint
+     */
+    public boolean isFull() {
+        if (subscriberCount.get() < maxSubscribers && !closed) {
+            return false;
+        }
+        refused.increment();
+        return true;
+    }
+
+    /**
+     * @return durée d'un flux, à donner à {@link AsyncContext#setTimeout}
+     */
+    public long getStreamTimeoutMillis() {
+        return streamTimeoutMillis;
+    }
+
+    /**
+     * Abonne une requête asynchrone aux messages d'une course. Les en-têtes de
+     * la réponse doivent déjà être positionnés.
+     *
+     * @param lastEventId dernier événement reçu par le client, ou null pour ne recevoir que les suivants
+     */
+    public void subscribe(AsyncContext context, int courseId, String lastEventId) throws IOException {
+        Subscriber subscriber = new Subscriber(context, courseId);
+        context.addListener(subscriber);
+        connections.increment();
+        peakSubscribers.accumulate(subscriberCount.incrementAndGet());
+        subscriber.offer(PREAMBLE);
+
+        long since = parseSequence(lastEventId);
+        Channel channel = channels.computeIfAbsent(courseId, id -> new Channel());
+        synchronized (channel) {
+            if (since == -1 || (since >= 0 && (since > sequence.get() || since < channel.evictedUpTo))) {
+                // Événements manquants : le client doit recharger la discussion
+                resets.increment();
+                subscriber.offer(frame(sequence.get(), "reset", "{}"));
+            } else if (since >= 0) {
+                for (Event event : channel.history) {
+                    if (event.sequence > since) {
+                        subscriber.offer(event.frame);
+                        replayed.increment();
+                    }
+                }
+            }
+            if (!subscriber.isClosed()) {
+                channel.subscribers.add(subscriber);
+            }
+        }
+    }
+
+    /**
+     * @return numéro de l'événement, -2 sans identifiant, -1 pour un identifiant
+     *         d'un autre démarrage ou illisible
+     */
+    private long parseSequence(String lastEventId) {
+        if (lastEventId == null || lastEventId.isEmpty()) {
+            return -2;
+        }
+        int dash = lastEventId.indexOf('-');
+        if (dash < 0 || !lastEventId.regionMatches(0, epoch, 0, dash) || dash != epoch.length()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Pousse un nouveau message aux pages de sa course.
+     */
+    public void publishCreated(Discussion discussion) {
+        StringBuilder data = new StringBuilder(128 + discussion.getContenu().length());
+        data.append("{\"id\":").append(discussion.getId())
+            .append(",\"courseId\":").append(discussion.getCourseId())
+            .append(",\"authorId\":").append(discussion.getExpediteurId())
+            .append(",\"author\":");
+        appendJsonString(data, discussion.getExpediteur() != null
+                ? discussion.getExpediteur().getFirstName() + " " + discussion.getExpediteur().getLastName()
+                : "Utilisateur inconnu");
+        data.append(",\"date\":");
+        appendJsonString(data, discussion.getDate().format(DATE_FORMAT));
+        data.append(",\"content\":");
+        appendJsonString(data, discussion.getContenu());
+        data.append('}');
+        publish(discussion.getCourseId(), "message", data.toString());
+    }
+
+    /**
+     * Retire un message des pages de sa course.
+     */
+    public void publishDeleted(int courseId, int discussionId) {
+        publish(courseId, "delete", "{\"id\":" + discussionId + ",\"courseId\":" + courseId + "}");
+    }
+
+    private void publish(int courseId, String name, String data) {
+        Channel channel = channels.computeIfAbsent(courseId, id -> new Channel());
+        synchronized (channel) {
+            // Numéroté sous le verrou : les événements d'une course restent dans l'ordre
+            long number = sequence.incrementAndGet();
+            Event event = new Event(number, frame(number, name, data));
+            channel.history.addLast(event);
+            if (channel.history.size() > historySize) {
+                channel.evictedUpTo = channel.history.removeFirst().sequence;
+            }
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.offer(event.frame);
+            }
+        }
+        published.increment();
+    }
+
+    private byte[] frame(long number, String name, String data) {
+        return ("id: " + epoch + "-" + number + "\nevent: " + name + "\ndata: " + data + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Démarre les battements de cœur. Sans effet s'ils sont déjà démarrés.
+     */
+    public synchronized void start() {
+        if (heartbeat != null) {
+            return;
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "discussion-feed-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeatSafely, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long checkMillis = Math.max(50L, TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos) / 4);
+        heartbeat.scheduleWithFixedDelay(this::checkWritesSafely, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        Logger.info("DiscussionFeedHub", "Flux de discussion actifs, battement toutes les " + heartbeatSeconds + " s");
+    }
+
+    private void heartbeatSafely() {
+        try {
+            for (Channel channel : channels.values()) {
+                synchronized (channel) {
+                    for (Subscriber subscriber : channel.subscribers) {
+                        subscriber.offer(HEARTBEAT);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Ne jamais laisser une exception arrêter l'exécution périodique
+            Logger.error("DiscussionFeedHub", "Battement des flux interrompu", e);
+        }
+    }
+
+    private void checkWritesSafely() {
+        try {
+            long now = System.nanoTime();
+            for (Subscriber subscriber : writing) {
+                subscriber.abandonIfBlocked(now);
+            }
+        } catch (RuntimeException e) {
+            Logger.error("DiscussionFeedHub", "Surveillance des écritures interrompue", e);
+        }
+    }
+
+    /**
+     * Ajoute un thread d'écriture pour remplacer un thread bloqué.
+     *
+     * @return false si le nombre maximal de remplacements est atteint
+     */
+    private boolean replaceBlockedWriter() {
+        synchronized (writers) {
+            if (blockedWriters >= maxBlockedWriters) {
+                return false;
+            }
+            blockedWriters++;
+            writers.setMaximumPoolSize(writerThreads + blockedWriters);
+            writers.setCorePoolSize(writerThreads + blockedWriters);
+            return true;
+        }
+    }
+
+    /**
+     * Retire le thread ajouté par {@link #replaceBlockedWriter()} une fois
+     * l'écriture bloquée terminée.
+     */
+    private void releaseBlockedWriter() {
+        synchronized (writers) {
+            if (blockedWriters == 0) {
+                return;
+            }
+            blockedWriters--;
+            writers.setCorePoolSize(writerThreads + blockedWriters);
+            writers.setMaximumPoolSize(writerThreads + blockedWriters);
+        }
+    }
+
+    /**
+     * Ferme tous les flux et arrête les threads d'écriture.
+     */
+    public void close() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = heartbeat;
+            heartbeat = null;
+            closed = true;
+        }
+        if (current != null) {
+            current.shutdownNow();
+        }
+        List<Subscriber> open = new ArrayList<>();
+        for (Channel channel : channels.values()) {
+            synchronized (channel) {
+                open.addAll(channel.subscribers);
+            }
+        }
+        for (Subscriber subscriber : open) {
+            subscriber.close();
+        }
+        writers.shutdown();
+        try {
+            writers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Logger.info("DiscussionFeedHub", "Flux de discussion fermés - " + getStatsSummary());
+    }
+
+    public String getStatsSummary() {
+        return "DiscussionFeedHub{abonnés=" + subscriberCount.get() + "/" + maxSubscribers +
+                ", abonnésPic=" + peakSubscribers.get() +
+                ", connexions=" + connections.sum() +
+                ", refusés=" + refused.sum() +
+                ", courses=" + channels.size() +
+                ", événements=" + published.sum() +
+                ", rattrapés=" + replayed.sum() +
+                ", réinitialisations=" + resets.sum() +
+                ", clientsLents=" + slowClients.sum() +
+                ", erreursÉcriture=" + writeErrors.sum() +
+                ", écrituresBloquées=" + blockedWrites.sum() +
+                '}';
+    }
+
+    /**
+     * Flux d'un client : file des trames à écrire, vidée par un thread
+     * d'écriture. Les écritures d'un même abonné ne se chevauchent jamais.
+     */
+    private final class Subscriber implements AsyncListener {
+        private final AsyncContext context;
+        private final int courseId;
+
+        /** Protégés par this */
+        private final ArrayDeque<byte[]> pending = new ArrayDeque<>();
+        private int pendingBytes;
+        private boolean scheduled;
+        private boolean overflowed;
+        private boolean closed;
+        /** Écriture abandonnée par la surveillance */
+        private boolean abandoned;
+        /** Le thread bloqué dans l'écriture a été remplacé dans le pool */
+        private boolean replaced;
+        /** Début de l'écriture en cours, valable tant que l'abonné est dans writing */
+        private volatile long writeStartNanos;
+
+        Subscriber(AsyncContext context, int courseId) {
+            this.context = context;
+            this.courseId = courseId;
+        }
+
+        /**
+         * Met une trame en file sans jamais bloquer : appelé sous le verrou de
+         * la course.
+         */
+        void offer(byte[] frame) {
+            synchronized (this) {
+                if (closed || overflowed || abandoned) {
+                    return;
+                }
+                if (pendingBytes + frame.length > maxPendingBytes) {
+                    // Fermé par le thread d'écriture, hors du verrou de la course
+                    overflowed = true;
+                    pending.clear();
+                    pendingBytes = 0;
+                } else {
+                    pending.addLast(frame);
+                    pendingBytes += frame.length;
+                }
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            try {
+                writers.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Arrêt en cours : close() termine la requête
+                synchronized (this) {
+                    scheduled = false;
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                List<byte[]> batch;
+                boolean slow;
+                synchronized (this) {
+                    slow = overflowed;
+                    if (closed || abandoned || (!slow && pending.isEmpty())) {
+                        scheduled = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(pending);
+                    pending.clear();
+                    pendingBytes = 0;
+                }
+                if (slow) {
+                    slowClients.increment();
+                    Logger.debug("DiscussionFeedHub", () -> "Client trop lent déconnecté (course " + courseId + ")");
+                    close();
+                    return;
+                }
+                boolean failed = false;
+                writeStartNanos = System.nanoTime();
+                writing.add(this);
+                try {
+                    ServletOutputStream out = context.getResponse().getOutputStream();
+                    for (byte[] frame : batch) {
+                        out.write(frame);
+                    }
+                    out.flush();
+                } catch (IOException | RuntimeException e) {
+                    // Client parti ou requête déjà terminée
+                    writeErrors.increment();
+                    failed = true;
+                } finally {
+                    writing.remove(this);
+                }
+                boolean wasReplaced;
+                synchronized (this) {
+                    wasReplaced = replaced;
+                    replaced = false;
+                    failed |= abandoned;
+                }
+                if (wasReplaced) {
+                    releaseBlockedWriter();
+                }
+                if (failed) {
+                    close();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Abandonne l'abonné si son écriture dure depuis plus de
+         * {@code writeTimeoutMillis}. Appelé par la surveillance, jamais par le
+         * thread qui écrit : la requête n'est pas touchée ici, elle est fermée
+         * par ce thread au retour de l'écriture ou par l'expiration du flux.
+         */
+        void abandonIfBlocked(long now) {
+            synchronized (this) {
+                if (abandoned || closed || now - writeStartNanos < writeTimeoutNanos || !writing.contains(this)) {
+                    return;
+                }
+                abandoned = true;
+                pending.clear();
+                pendingBytes = 0;
+            }
+            blockedWrites.increment();
+            Channel channel = channels.get(courseId);
+            if (channel != null) {
+                synchronized (channel) {
+                    channel.subscribers.remove(this);
+                }
+            }
+            boolean added = replaceBlockedWriter();
+            boolean kept = false;
+            synchronized (this) {
+                if (added && writing.contains(this)) {
+                    replaced = true;
+                    kept = true;
+                }
+            }
+            if (added && !kept) {
+                // Écriture terminée entre-temps : le remplacement est inutile
+                releaseBlockedWriter();
+            }
+            Logger.warn("DiscussionFeedHub", "Écriture bloquée depuis plus de "
+                    + TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos) + " ms, abonné abandonné (course " + courseId
+                    + (added ? "" : ", aucun thread de remplacement disponible") + ")");
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+                pendingBytes = 0;
+            }
+            Channel channel = channels.get(courseId);
+            if (channel != null) {
+                synchronized (channel) {
+                    channel.subscribers.remove(this);
+                }
+            }
+            subscriberCount.decrementAndGet();
+            try {
+                context.complete();
+            } catch (IllegalStateException e) {
+                // Déjà terminée par le conteneur
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Le navigateur se reconnecte avec son dernier identifiant
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Pas de nouveau cycle asynchrone sur un flux
+        }
+    }
+}
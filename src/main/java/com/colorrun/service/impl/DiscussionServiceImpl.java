@@ -2,6 +2,7 @@ package com.colorrun.service.impl;
 
 import com.colorrun.business.Discussion;
 import com.colorrun.dao.DiscussionDAO;
+import com.colorrun.dao.UserDAO;
 import com.colorrun.service.DiscussionService;
 import com.colorrun.util.Logger;
 import java.sql.SQLException;
@@ -12,9 +13,12 @@ import java.util.Optional;
 public class DiscussionServiceImpl implements DiscussionService {
     
     private DiscussionDAO discussionDAO;
+    private UserDAO userDAO;
+    private final DiscussionFeedHub feedHub = DiscussionFeedHub.getInstance();
     
     public DiscussionServiceImpl() {
         this.discussionDAO = new DiscussionDAO();
+        this.userDAO = new UserDAO();
     }
     
     @Override
@@ -25,9 +29,9 @@ public class DiscussionServiceImpl implements DiscussionService {
             throw new IllegalArgumentException("Le contenu du message ne peut pas être vide");
         }
         
+        Discussion discussion = new Discussion(courseId, content.trim(), userId);
+        discussion.setDate(LocalDateTime.now());
         try {
-            Discussion discussion = new Discussion(courseId, content.trim(), userId);
-            discussion.setDate(LocalDateTime.now());
             discussionDAO.save(discussion);
             
             Logger.info("DiscussionService", "Message créé avec succès pour la course " + courseId);
@@ -35,15 +39,30 @@ public class DiscussionServiceImpl implements DiscussionService {
             Logger.error("DiscussionService", "Erreur lors de la création du message: " + e.getMessage());
             throw new RuntimeException("Impossible de créer le message", e);
         }
+        publishCreated(discussion);
+    }
+    
+    /**
+     * Pousse le message aux pages ouvertes de la course. Le message est déjà
+     * enregistré : un échec ici ne fait que priver les pages ouvertes du nom
+     * de l'auteur.
+     */
+    private void publishCreated(Discussion discussion) {
+        try {
+            userDAO.findById(discussion.getExpediteurId()).ifPresent(discussion::setExpediteur);
+        } catch (SQLException e) {
+            Logger.warn("DiscussionService", "Auteur du message " + discussion.getId() + " introuvable: " + e.getMessage());
+        }
+        feedHub.publishCreated(discussion);
     }
     
     @Override
     public List<Discussion> findByCourse(int courseId) {
-        Logger.debug("DiscussionService", "Récupération des messages pour la course " + courseId);
+        Logger.debug("DiscussionService", () -> "Récupération des messages pour la course " + courseId);
         
         try {
             List<Discussion> discussions = discussionDAO.findByCourse(courseId);
-            Logger.debug("DiscussionService", discussions.size() + " message(s) trouvé(s) pour la course " + courseId);
+            Logger.debug("DiscussionService", () -> discussions.size() + " message(s) trouvé(s) pour la course " + courseId);
             return discussions;
         } catch (SQLException e) {
             Logger.error("DiscussionService", "Erreur lors de la récupération des messages: " + e.getMessage());
@@ -53,7 +72,7 @@ public class DiscussionServiceImpl implements DiscussionService {
     
     @Override
     public Optional<Discussion> findById(int id) {
-        Logger.debug("DiscussionService", "Recherche du message avec ID " + id);
+        Logger.debug("DiscussionService", () -> "Recherche du message avec ID " + id);
         
         try {
             return discussionDAO.findById(id);
@@ -68,7 +87,10 @@ public class DiscussionServiceImpl implements DiscussionService {
         Logger.info("DiscussionService", "Suppression du message " + id);
         
         try {
-            discussionDAO.delete(id);
+            int courseId = discussionDAO.delete(id);
+            if (courseId > 0) {
+                feedHub.publishDeleted(courseId, id);
+            }
             Logger.info("DiscussionService", "Message " + id + " supprimé avec succès");
         } catch (SQLException e) {
             Logger.error("DiscussionService", "Erreur lors de la suppression du message " + id + ": " + e.getMessage());
@@ -95,11 +117,11 @@ public class DiscussionServiceImpl implements DiscussionService {
     
     @Override
     public int countByCourse(int courseId) {
-        Logger.debug("DiscussionService", "Comptage des messages pour la course " + courseId);
+        Logger.debug("DiscussionService", () -> "Comptage des messages pour la course " + courseId);
         
         try {
             int count = discussionDAO.countByCourse(courseId);
-            Logger.debug("DiscussionService", count + " message(s) dans la course " + courseId);
+            Logger.debug("DiscussionService", () -> count + " message(s) dans la course " + courseId);
             return count;
         } catch (SQLException e) {
             Logger.error("DiscussionService", "Erreur lors du comptage des messages: " + e.getMessage());
@@ -109,11 +131,11 @@ public class DiscussionServiceImpl implements DiscussionService {
     
     @Override
     public List<Discussion> findByUser(int userId) {
-        Logger.debug("DiscussionService", "Récupération des messages de l'utilisateur " + userId);
+        Logger.debug("DiscussionService", () -> "Récupération des messages de l'utilisateur " + userId);
         
         try {
             List<Discussion> discussions = discussionDAO.findByUser(userId);
-            Logger.debug("DiscussionService", discussions.size() + " message(s) trouvé(s) pour l'utilisateur " + userId);
+            Logger.debug("DiscussionService", () -> discussions.size() + " message(s) trouvé(s) pour l'utilisateur " + userId);
             return discussions;
         } catch (SQLException e) {
             Logger.error("DiscussionService", "Erreur lors de la récupération des messages de l'utilisateur: " + e.getMessage());
@@ -0,0 +1,384 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.business.Course;
+import com.colorrun.business.Dossard;
+import com.colorrun.business.User;
+import com.colorrun.dao.CourseDAO;
+import com.colorrun.dao.DossardDAO;
+import com.colorrun.dao.UserDAO;
+import com.colorrun.util.Logger;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Génération en masse des dossards d'une course, dans un seul fichier.
+ *
+ * <p>Les dossards sont lus par tranches ({@link DossardDAO#findByCourseAfter}),
+ * leurs pages PDF rendues en parallèle sur un pool de threads partagé, puis
+ * écrites dans l'ordre des numéros au fil de l'eau : soit dans un PDF unique
+ * de plusieurs pages, soit dans un ZIP contenant un PDF par dossard. Le nombre
+ * de pages en cours de rendu est borné ({@link #WINDOW}) et le PDF fusionné
+ * est tenu dans un fichier temporaire : la mémoire utilisée ne dépend pas
+ * du nombre d'inscrits.</p>
+ *
+ * <p>Les inscrits sans dossard en reçoivent un au démarrage. L'avancement
+ * (pages rendues, échecs, débit) est consultable pendant l'exécution et
+ * journalisé toutes les {@link #LOG_EVERY} pages.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.dossard.bulk.threads</code> : threads de rendu partagés par tous les exports
+ *       (défaut : nombre de processeurs)</li>
+ * </ul>
+ */
+public class DossardBulkJob {
+
+    /**
+     * Format du fichier produit.
+     */
+    public enum Format {
+        /** Un PDF unique, une page par dossard */
+        PDF,
+        /** Une archive ZIP, un PDF par dossard */
+        ZIP
+    }
+
+    private static final int THREADS = Integer.getInteger("colorrun.dossard.bulk.threads",
+            Runtime.getRuntime().availableProcessors());
+
+    /** Pages rendues ou en attente d'écriture, au plus */
+    private static final int WINDOW = THREADS * 4;
+
+    /** Dossards lus par requête */
+    private static final int CHUNK_SIZE = 200;
+
+    private static final int LOG_EVERY = 500;
+
+    /**
+     * Pool de rendu, créé au premier export.
+     */
+    private static final class Workers {
+        private static final AtomicInteger COUNTER = new AtomicInteger();
+        static final ExecutorService POOL = Executors.newFixedThreadPool(Math.max(1, THREADS), runnable -> {
+            Thread thread = new Thread(runnable, "dossard-bulk-" + COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final int courseId;
+    private final Format format;
+    private final DossardServiceImpl dossardService;
+    private final DossardDAO dossardDAO;
+    private final CourseDAO courseDAO;
+    private final UserDAO userDAO;
+
+    private volatile int total;
+    private final AtomicInteger rendered = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong startNanos = new AtomicLong();
+    private volatile long endNanos;
+
+    public DossardBulkJob(int courseId, Format format) {
+        this.courseId = courseId;
+        this.format = format;
+        this.dossardService = new DossardServiceImpl();
+        this.dossardDAO = new DossardDAO();
+        this.courseDAO = new CourseDAO();
+        this.userDAO = new UserDAO();
+    }
+
+    /**
+     * Écrit le fichier dans un chemin ; le fichier n'apparaît qu'une fois
+     * complet (écriture dans un fichier temporaire puis renommage).
+     */
+    public void writeTo(Path target) throws Exception {
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "dossards-", ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Génère tous les dossards de la course et les écrit dans {@code out},
+     * qui n'est pas fermé.
+     *
+     * @throws Exception si la course n'existe pas ou si l'écriture échoue ;
+     *                   un dossard dont le rendu échoue est compté et ignoré
+     */
+    public void writeTo(OutputStream out) throws Exception {
+        if (!startNanos.compareAndSet(0, System.nanoTime())) {
+            throw new IllegalStateException("Export déjà lancé");
+        }
+
+        Course course = courseDAO.findById(courseId)
+                .orElseThrow(() -> new Exception("Course non trouvée : " + courseId));
+
+        int assigned = dossardService.attribuerDossardsManquants(courseId);
+        total = dossardDAO.countByCourse(courseId);
+        Logger.step("DossardBulkJob", "Export " + format + " de " + total + " dossard(s) pour la course "
+                + courseId + " (" + assigned + " attribué(s), " + THREADS + " thread(s))");
+
+        Deque<Pending> inFlight = new ArrayDeque<>();
+        try (PageSink sink = format == Format.ZIP ? new ZipSink(out) : new PdfSink(out)) {
+            int afterNumber = 0;
+            List<Dossard> chunk;
+            while (!(chunk = dossardDAO.findByCourseAfter(courseId, afterNumber, CHUNK_SIZE)).isEmpty()) {
+                afterNumber = chunk.get(chunk.size() - 1).getNumber();
+                Map<Integer, User> participants = userDAO.findByIds(participantIds(chunk));
+
+                for (Dossard dossard : chunk) {
+                    User participant = dossard.getParticipantId() != null
+                            ? participants.get(dossard.getParticipantId()) : null;
+                    if (participant == null) {
+                        // Dossard réservé sans participant
+                        skipped.incrementAndGet();
+                        continue;
+                    }
+                    if (inFlight.size() >= WINDOW) {
+                        write(inFlight.poll(), sink);
+                    }
+                    Future<byte[]> page = Workers.POOL.submit(
+                            () -> dossardService.genererPdfDossard(dossard, course, participant));
+                    inFlight.add(new Pending(dossard, page));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll(), sink);
+            }
+            sink.finish();
+        } finally {
+            for (Pending pending : inFlight) {
+                pending.page.cancel(true);
+            }
+            endNanos = System.nanoTime();
+        }
+
+        Logger.success("DossardBulkJob", "Export terminé : " + getSummary());
+    }
+
+    private void write(Pending pending, PageSink sink) throws IOException, InterruptedException {
+        byte[] pdf;
+        try {
+            pdf = pending.page.get();
+        } catch (ExecutionException e) {
+            failed.incrementAndGet();
+            Logger.error("DossardBulkJob", "Dossard " + pending.dossard.getNumber() + " non généré: " + e.getCause().getMessage());
+            return;
+        }
+        sink.add(pending.dossard, pdf);
+        int done = rendered.incrementAndGet();
+        if (done % LOG_EVERY == 0) {
+            Logger.info("DossardBulkJob", "Course " + courseId + " : " + getSummary());
+        }
+    }
+
+    private static Set<Integer> participantIds(List<Dossard> dossards) {
+        Set<Integer> ids = new HashSet<>();
+        for (Dossard dossard : dossards) {
+            if (dossard.getParticipantId() != null) {
+                ids.add(dossard.getParticipantId());
+            }
+        }
+        return ids;
+    }
+
+    public int getCourseId() {
+        return courseId;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /** @return nombre de dossards de la course, connu une fois l'export démarré */
+    public int getTotal() {
+        return total;
+    }
+
+    public int getRendered() {
+        return rendered.get();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public boolean isFinished() {
+        return endNanos != 0;
+    }
+
+    /** @return durée écoulée depuis le démarrage, en millisecondes */
+    public long getElapsedMillis() {
+        long start = startNanos.get();
+        if (start == 0) {
+            return 0;
+        }
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - start) / 1_000_000L;
+    }
+
+    /** @return pages écrites par seconde depuis le démarrage */
+    public double getPagesPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0.0 : rendered.get() * 1000.0 / elapsed;
+    }
+
+    /** @return avancement en pourcentage (0-100) */
+    public double getProgressPercentage() {
+        int expected = total - skipped.get();
+        if (expected <= 0) {
+            return isFinished() ? 100.0 : 0.0;
+        }
+        return Math.min(100.0, (rendered.get() + failed.get()) * 100.0 / expected);
+    }
+
+    public String getSummary() {
+        return rendered.get() + "/" + total + " page(s), " +
+                failed.get() + " échec(s), " +
+                skipped.get() + " ignoré(s), " +
+                String.format("%.1f", getPagesPerSecond()) + " pages/s, " +
+                getElapsedMillis() + " ms";
+    }
+
+    /**
+     * Dossard dont la page est en cours de rendu.
+     */
+    private static final class Pending {
+        final Dossard dossard;
+        final Future<byte[]> page;
+
+        Pending(Dossard dossard, Future<byte[]> page) {
+            this.dossard = dossard;
+            this.page = page;
+        }
+    }
+
+    /**
+     * Destination des pages rendues, appelée dans l'ordre des numéros
+     * depuis un seul thread.
+     */
+    private interface PageSink extends AutoCloseable {
+        void add(Dossard dossard, byte[] pdf) throws IOException;
+
+        void finish() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Un PDF par dossard dans une archive ZIP, écrit entrée par entrée.
+     */
+    private static final class ZipSink implements PageSink {
+        private final ZipOutputStream zip;
+
+        ZipSink(OutputStream out) {
+            this.zip = new ZipOutputStream(new NonClosingOutputStream(out));
+            // Les flux PDF sont déjà compressés
+            this.zip.setLevel(Deflater.BEST_SPEED);
+        }
+
+        @Override
+        public void add(Dossard dossard, byte[] pdf) throws IOException {
+            zip.putNextEntry(new ZipEntry("dossard_" + dossard.getNumber() + ".pdf"));
+            zip.write(pdf);
+            zip.closeEntry();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            zip.finish();
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+
+    /**
+     * PDF fusionné. Les pages sont copiées dans un document adossé à un
+     * fichier temporaire, puis chaque source est fermée aussitôt.
+     */
+    private static final class PdfSink implements PageSink {
+        private final OutputStream out;
+        private final PDDocument merged;
+        private final PDFMergerUtility merger = new PDFMergerUtility();
+
+        PdfSink(OutputStream out) {
+            this.out = out;
+            this.merged = new PDDocument(MemoryUsageSetting.setupTempFileOnly());
+        }
+
+        @Override
+        public void add(Dossard dossard, byte[] pdf) throws IOException {
+            try (PDDocument page = PDDocument.load(pdf, "", null, null, DossardPageTemplate.scratchMemory())) {
+                merger.appendDocument(merged, page);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            merged.save(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            merged.close();
+        }
+    }
+
+    /**
+     * Laisse ouvert le flux sous-jacent (réponse HTTP, fichier géré par l'appelant).
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
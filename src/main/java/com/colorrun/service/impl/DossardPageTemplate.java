@@ -0,0 +1,171 @@
+package com.colorrun.service.impl;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.util.Matrix;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Modèle de page de dossard compilé une seule fois.
+ *
+ * <p>La partie fixe de la page (titres, libellés, consignes, filets) est
+ * dessinée à la compilation, encodée en opérateurs PDF puis compressée :
+ * chaque page générée reçoit ce flux tel quel, sans réencodage du texte ni
+ * nouvelle compression. Les polices sont liées une fois pour toutes à des
+ * noms de ressource fixes ; il ne reste à l'appelant qu'à tamponner les
+ * champs variables (nom, numéro, course, QR code) dans un second flux.</p>
+ *
+ * <p>Les documents d'une page sont ouverts avec une mémoire de travail
+ * bornée ({@link #scratchMemory()}) : le réglage par défaut de PDFBox réserve
+ * à lui seul environ 400 Ko par document, bien plus que le dossard lui-même.</p>
+ *
+ * <p>Immuable : un même modèle sert à tous les threads de rendu.</p>
+ *
+ * <pre>
+ * try (PDDocument document = DossardPageTemplate.newDocument()) {
+ *     PDPage page = TEMPLATE.addPage(document);
+ *     try (PDPageContentStream content = TEMPLATE.openFields(document, page)) {
+ *         content.beginText();
+ *         DossardPageTemplate.showTextAt(content, font, 12, 50, 540, email);
+ *         content.endText();
+ *     }
+ * }
+ * </pre>
+ */
+final class DossardPageTemplate {
+
+    /** Mémoire de travail d'un document ; au-delà, PDFBox utilise un fichier temporaire */
+    private static final long SCRATCH_MEMORY_BYTES = 1024 * 1024;
+
+    /**
+     * Dessine la partie fixe de la page.
+     */
+    @FunctionalInterface
+    interface Painter {
+        void paint(PDPageContentStream content) throws IOException;
+    }
+
+    private final PDRectangle mediaBox;
+    private final Map<COSName, PDFont> fonts;
+    private final byte[] staticContent;
+
+    private DossardPageTemplate(PDRectangle mediaBox, Map<COSName, PDFont> fonts, byte[] staticContent) {
+        this.mediaBox = mediaBox;
+        this.fonts = fonts;
+        this.staticContent = staticContent;
+    }
+
+    /**
+     * Compile un modèle.
+     *
+     * @param mediaBox format de la page
+     * @param painter  dessin de la partie fixe
+     * @param fonts    polices utilisées par la partie fixe et par les champs variables
+     */
+    static DossardPageTemplate compile(PDRectangle mediaBox, Painter painter, PDFont... fonts) {
+        Map<COSName, PDFont> bound = new LinkedHashMap<>();
+        for (PDFont font : fonts) {
+            bound.put(COSName.getPDFName("F" + (bound.size() + 1)), font);
+        }
+
+        try (PDDocument scratch = newDocument()) {
+            PDPage page = new PDPage(mediaBox);
+            page.setResources(resources(bound));
+            scratch.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(
+                    scratch, page, PDPageContentStream.AppendMode.OVERWRITE, false)) {
+                painter.paint(content);
+            }
+            if (page.getResources().getXObjectNames().iterator().hasNext()) {
+                throw new IllegalArgumentException("La partie fixe d'un modèle ne peut pas contenir d'image");
+            }
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (InputStream in = page.getContents();
+                 OutputStream out = new DeflaterOutputStream(compressed, new Deflater(Deflater.BEST_COMPRESSION))) {
+                in.transferTo(out);
+            }
+            return new DossardPageTemplate(mediaBox, Collections.unmodifiableMap(bound), compressed.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Modèle de dossard invalide", e);
+        }
+    }
+
+    /**
+     * @return réglage mémoire pour ouvrir ou créer un document d'une page
+     */
+    static MemoryUsageSetting scratchMemory() {
+        return MemoryUsageSetting.setupMixed(SCRATCH_MEMORY_BYTES);
+    }
+
+    /**
+     * @return un document vide, à remplir avec {@link #addPage(PDDocument)}
+     */
+    static PDDocument newDocument() {
+        return new PDDocument(scratchMemory());
+    }
+
+    /**
+     * Ajoute au document une page portant la partie fixe du modèle.
+     */
+    PDPage addPage(PDDocument document) throws IOException {
+        PDPage page = new PDPage(mediaBox);
+        page.setResources(resources(fonts));
+
+        PDStream stream = new PDStream(document);
+        COSStream cos = stream.getCOSObject();
+        try (OutputStream out = cos.createRawOutputStream()) {
+            out.write(staticContent);
+        }
+        cos.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+        page.setContents(stream);
+
+        document.addPage(page);
+        return page;
+    }
+
+    /**
+     * Ouvre le flux des champs variables, dessiné par-dessus la partie fixe.
+     * Les polices du modèle y sont déjà déclarées.
+     */
+    PDPageContentStream openFields(PDDocument document, PDPage page) throws IOException {
+        return new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true);
+    }
+
+    /**
+     * Écrit une ligne de texte à une position absolue, dans un bloc
+     * {@code beginText()}/{@code endText()} ouvert par l'appelant.
+     */
+    static void showTextAt(PDPageContentStream content, PDFont font, float size,
+                           float x, float y, String text) throws IOException {
+        content.setFont(font, size);
+        content.setTextMatrix(Matrix.getTranslateInstance(x, y));
+        content.showText(text);
+    }
+
+    private static PDResources resources(Map<COSName, PDFont> fonts) {
+        PDResources resources = new PDResources();
+        for (Map.Entry<COSName, PDFont> font : fonts.entrySet()) {
+            resources.put(font.getKey(), font.getValue());
+        }
+        return resources;
+    }
+}
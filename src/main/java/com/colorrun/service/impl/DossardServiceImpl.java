@@ -5,32 +5,29 @@ import com.colorrun.business.Dossard;
 import com.colorrun.business.Course;
 import com.colorrun.business.User;
 import com.colorrun.business.Participation;
+import com.colorrun.cache.RenderedFileCache;
 import com.colorrun.dao.DossardDAO;
+import com.colorrun.dao.DossardNumberAllocator;
 import com.colorrun.dao.CourseDAO;
 import com.colorrun.dao.UserDAO;
 import com.colorrun.dao.ParticipationDAO;
+import com.colorrun.util.Logger;
 
 // QR Code generation
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.EncodeHintType;
-import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.WriterException;
 import com.google.zxing.common.BitMatrix;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 
 // PDF generation
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.sql.SQLException;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.time.format.DateTimeFormatter;
 
@@ -38,9 +35,9 @@ import java.time.format.DateTimeFormatter;
  * Implémentation du service DossardService.
  * 
  * Cette classe gère la génération complète des dossards incluant :
- * - Attribution automatique des numéros
- * - Génération des QR codes
- * - Création des PDFs personnalisés
+ * - Attribution automatique des numéros ({@link DossardNumberAllocator})
+ * - Génération des QR codes ({@link QRCodeRenderer}, sans passer par ImageIO)
+ * - Création des PDFs personnalisés, sur un modèle de page compilé une fois
  * - Persistance en base de données
  * 
  * @author Équipe Color Run
@@ -52,16 +49,28 @@ public class DossardServiceImpl implements DossardService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy à HH:mm");
     private static final int QR_CODE_SIZE = 200;
     
+    /**
+     * Partie fixe du dossard, compilée une fois pour toutes les pages
+     * (voir {@link DossardPageTemplate}).
+     */
+    private static final DossardPageTemplate TEMPLATE = DossardPageTemplate.compile(
+            PDRectangle.LETTER, DossardServiceImpl::drawStaticContent,
+            PDType1Font.HELVETICA, PDType1Font.HELVETICA_BOLD, PDType1Font.HELVETICA_OBLIQUE);
+    
     private final DossardDAO dossardDAO;
     private final CourseDAO courseDAO;
     private final UserDAO userDAO;
     private final ParticipationDAO participationDAO;
+    private final DossardNumberAllocator numberAllocator;
+    private final RenderedFileCache renderCache;
     
     public DossardServiceImpl() {
         this.dossardDAO = new DossardDAO();
         this.courseDAO = new CourseDAO();
         this.userDAO = new UserDAO();
         this.participationDAO = new ParticipationDAO();
+        this.numberAllocator = DossardNumberAllocator.getInstance();
+        this.renderCache = RenderedFileCache.getInstance();
     }
     
     @Override
@@ -82,193 +91,192 @@ public class DossardServiceImpl implements DossardService {
         }
         
         // Créer le nouveau dossard
-        int nextNumber = dossardDAO.findNextAvailableNumber(participation.getCourse().getId());
+        int courseId = participation.getCourse().getId();
+        int nextNumber = numberAllocator.next(courseId);
         
-        Dossard dossard = new Dossard(nextNumber, participation.getCourse().getId(), participation.getUser().getId());
+        Dossard dossard = new Dossard(nextNumber, courseId, participation.getUser().getId());
         dossard.setStatus("ASSIGNED");
         
         // Sauvegarder en base
-        dossard = dossardDAO.save(dossard);
+        try {
+            dossard = dossardDAO.save(dossard);
+        } catch (SQLException e) {
+            // Un numéro déjà enregistré ne doit pas être redistribué
+            if (!DossardDAO.isDuplicateNumber(e)) {
+                numberAllocator.rollback(courseId, nextNumber);
+            }
+            // Dossard créé entre-temps par une requête concurrente pour le même participant
+            Dossard concurrent = dossardDAO.findByParticipantAndCourse(participation.getUser().getId(), courseId);
+            if (concurrent != null) {
+                return concurrent;
+            }
+            throw e;
+        }
         
         return dossard;
     }
     
+    /**
+     * Attribue un dossard à chaque inscrit de la course qui n'en a pas encore.
+     *
+     * @return le nombre de dossards créés
+     */
+    public int attribuerDossardsManquants(int courseId) throws SQLException {
+        int created = 0;
+        for (int participantId : dossardDAO.findParticipantsWithoutDossard(courseId)) {
+            int number = numberAllocator.next(courseId);
+            Dossard dossard = new Dossard(number, courseId, participantId);
+            dossard.setStatus("ASSIGNED");
+            try {
+                dossardDAO.save(dossard);
+                created++;
+            } catch (SQLException e) {
+                // Dossard attribué entre-temps par une autre requête ; un
+                // numéro déjà enregistré ne doit pas être redistribué
+                if (!DossardDAO.isDuplicateNumber(e)) {
+                    numberAllocator.rollback(courseId, number);
+                }
+                if (dossardDAO.findByParticipantAndCourse(participantId, courseId) == null) {
+                    throw e;
+                }
+            }
+        }
+        return created;
+    }
+    
     @Override
     public byte[] genererQrCode(Dossard dossard) throws Exception {
-        // Données du QR code : format JSON simple
-        String qrData = String.format("{\"dossard\":%d,\"course\":%d,\"participant\":%d}", 
-                                     dossard.getNumber(), dossard.getCourseId(), dossard.getParticipantId());
-        
-        // Configuration du QR code
-        Map<EncodeHintType, Object> hints = new HashMap<>();
-        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-        
-        // Générer la matrice
-        MultiFormatWriter writer = new MultiFormatWriter();
-        BitMatrix bitMatrix = writer.encode(qrData, BarcodeFormat.QR_CODE, QR_CODE_SIZE, QR_CODE_SIZE, hints);
-        
-        // Convertir en image
-        BufferedImage qrImage = MatrixToImageWriter.toBufferedImage(bitMatrix);
-        
-        // Convertir en bytes
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(qrImage, "PNG", baos);
-        
-        return baos.toByteArray();
+        return QRCodeRenderer.toPng(QRCodeRenderer.encode(qrData(dossard), QR_CODE_SIZE));
+    }
+    
+    /**
+     * Données du QR code : format JSON simple.
+     */
+    private static String qrData(Dossard dossard) {
+        return "{\"dossard\":" + dossard.getNumber()
+                + ",\"course\":" + dossard.getCourseId()
+                + ",\"participant\":" + dossard.getParticipantId() + "}";
     }
     
     @Override
     public byte[] genererPdfDossard(Dossard dossard) throws Exception {
         // Récupérer les informations associées
         Optional<Course> courseOpt = courseDAO.findById(dossard.getCourseId());
-        Optional<User> participantOpt = userDAO.findById(dossard.getParticipantId());
+        Optional<User> participantOpt = dossard.getParticipantId() != null
+                ? userDAO.findById(dossard.getParticipantId()) : Optional.empty();
         
         if (!courseOpt.isPresent() || !participantOpt.isPresent()) {
             throw new Exception("Données manquantes pour générer le dossard");
         }
         
-        Course course = courseOpt.get();
-        User participant = participantOpt.get();
+        return genererPdfDossard(dossard, courseOpt.get(), participantOpt.get());
+    }
+    
+    /**
+     * Génère le PDF d'un dossard à partir de la course et du participant
+     * déjà chargés (génération en masse, sans requête par dossard).
+     * Le PDF est conservé dans {@link RenderedFileCache}.
+     * Sans état partagé : peut être appelé depuis plusieurs threads.
+     */
+    public byte[] genererPdfDossard(Dossard dossard, Course course, User participant) throws Exception {
+        String key = RenderedFileCache.key("dossard-bib-pdf-v3",
+                dossard.getNumber(), dossard.getCourseId(), dossard.getParticipantId(),
+                participant.getFullName(), participant.getEmail(),
+                course.getName(), course.getDate(), course.getCity(), course.getDistance());
+        byte[] cached = renderCache.getBytes(course.getId(), participant.getId(), key, "pdf");
+        if (cached != null) {
+            return cached;
+        }
+        byte[] pdf = renderPdfDossard(dossard, course, participant);
+        renderCache.put(course.getId(), participant.getId(), key, "pdf", pdf);
+        return pdf;
+    }
+    
+    /**
+     * Dessine la partie commune à tous les dossards : titres, instructions,
+     * contact et libellés.
+     */
+    private static void drawStaticContent(PDPageContentStream contentStream) throws IOException {
+        contentStream.beginText();
         
-        // Générer le QR code
-        byte[] qrCodeBytes = genererQrCode(dossard);
+        // Titre principal
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA_BOLD, 24, 50, 750, "COLOR RUN - DOSSARD");
         
-        // Créer le PDF
-        PDDocument document = new PDDocument();
-        PDPage page = new PDPage();
-        document.addPage(page);
+        // Libellés des blocs
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA_BOLD, 16, 50, 580, "PARTICIPANT");
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA_BOLD, 16, 50, 480, "COURSE");
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA_BOLD, 14, 50, 340, "INSTRUCTIONS");
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA_BOLD, 12, 380, 160, "QR CODE");
         
-        try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
-            
-            // Titre principal
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 24);
-            contentStream.newLineAtOffset(50, 750);
-            contentStream.showText("COLOR RUN - DOSSARD");
-            contentStream.endText();
-            
-            // Numéro de dossard (très visible)
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 72);
-            contentStream.newLineAtOffset(250, 650);
-            contentStream.showText(String.valueOf(dossard.getNumber()));
-            contentStream.endText();
-            
-            // Informations du participant
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 16);
-            contentStream.newLineAtOffset(50, 580);
-            contentStream.showText("PARTICIPANT");
-            contentStream.endText();
-            
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA, 14);
-            contentStream.newLineAtOffset(50, 560);
-            contentStream.showText(participant.getFullName());
-            contentStream.endText();
-            
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA, 12);
-            contentStream.newLineAtOffset(50, 540);
-            contentStream.showText(participant.getEmail());
-            contentStream.endText();
-            
-            // Informations de la course
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 16);
-            contentStream.newLineAtOffset(50, 480);
-            contentStream.showText("COURSE");
-            contentStream.endText();
-            
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA, 14);
-            contentStream.newLineAtOffset(50, 460);
-            contentStream.showText(course.getName());
-            contentStream.endText();
-            
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA, 12);
-            contentStream.newLineAtOffset(50, 440);
-            contentStream.showText("Date: " + course.getDate().format(DATE_FORMATTER));
-            contentStream.endText();
-            
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA, 12);
-            contentStream.newLineAtOffset(50, 420);
-            contentStream.showText("Lieu: " + course.getCity());
-            contentStream.endText();
-            
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA, 12);
-            contentStream.newLineAtOffset(50, 400);
-            contentStream.showText("Distance: " + course.getDistance() + " km");
-            contentStream.endText();
-            
-            // Instructions
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 14);
-            contentStream.newLineAtOffset(50, 340);
-            contentStream.showText("INSTRUCTIONS");
-            contentStream.endText();
-            
-            String[] instructions = {
-                "• Portez ce dossard bien visible sur le torse",
-                "• Arrivez 30 minutes avant le départ",
-                "• Portez des vêtements blancs",
-                "• Gardez votre dossard pendant toute la course",
-                "• Présentez le QR code aux contrôles"
-            };
-            
-            int yPosition = 320;
-            for (String instruction : instructions) {
-                contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA, 10);
-                contentStream.newLineAtOffset(50, yPosition);
-                contentStream.showText(instruction);
-                contentStream.endText();
-                yPosition -= 15;
-            }
-            
-            // Contact
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA, 10);
-            contentStream.newLineAtOffset(50, 200);
-            contentStream.showText("Contact: contact@colorrun.com | www.colorrun.com");
-            contentStream.endText();
-            
-            // Note de découpe
-            contentStream.beginText();
-            contentStream.setFont(PDType1Font.HELVETICA_OBLIQUE, 8);
-            contentStream.newLineAtOffset(50, 50);
-            contentStream.showText("Découpez le long des pointillés et fixez sur votre torse");
-            contentStream.endText();
+        // Instructions
+        String[] instructions = {
+            "• Portez ce dossard bien visible sur le torse",
+            "• Arrivez 30 minutes avant le départ",
+            "• Portez des vêtements blancs",
+            "• Gardez votre dossard pendant toute la course",
+            "• Présentez le QR code aux contrôles"
+        };
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA, 10, 50, 320, instructions[0]);
+        for (int i = 1; i < instructions.length; i++) {
+            contentStream.newLineAtOffset(0, -15);
+            contentStream.showText(instructions[i]);
         }
         
-        // Ajouter le QR code comme image
+        // Contact
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA, 10, 50, 200,
+                "Contact: contact@colorrun.com | www.colorrun.com");
+        
+        // Note de découpe
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA_OBLIQUE, 8, 50, 50,
+                "Découpez le long des pointillés et fixez sur votre torse");
+        
+        contentStream.endText();
+    }
+    
+    private byte[] renderPdfDossard(Dossard dossard, Course course, User participant) throws Exception {
+        // Matrice du QR code, dessinée directement dans la page
+        BitMatrix qrModules = null;
         try {
-            BufferedImage qrImage = ImageIO.read(new java.io.ByteArrayInputStream(qrCodeBytes));
-            PDImageXObject pdImage = PDImageXObject.createFromByteArray(document, qrCodeBytes, "qr-code");
+            qrModules = QRCodeRenderer.encode(qrData(dossard));
+        } catch (WriterException e) {
+            Logger.warn("DossardService", "Erreur ajout QR code au PDF : " + e.getMessage());
+        }
+        
+        try (PDDocument document = DossardPageTemplate.newDocument()) {
+            PDPage page = TEMPLATE.addPage(document);
             
-            try (PDPageContentStream contentStream = new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true)) {
-                contentStream.drawImage(pdImage, 350, 180, 150, 150);
-                
-                // Label QR code
+            try (PDPageContentStream contentStream = TEMPLATE.openFields(document, page)) {
                 contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA_BOLD, 12);
-                contentStream.newLineAtOffset(380, 160);
-                contentStream.showText("QR CODE");
+                
+                // Numéro de dossard (très visible)
+                DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA_BOLD, 72, 250, 650,
+                        String.valueOf(dossard.getNumber()));
+                
+                // Informations du participant
+                DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA, 14, 50, 560, participant.getFullName());
+                DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA, 12, 50, 540, participant.getEmail());
+                
+                // Informations de la course
+                DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA, 14, 50, 460, course.getName());
+                DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA, 12, 50, 440,
+                        "Date: " + course.getDate().format(DATE_FORMATTER));
+                contentStream.newLineAtOffset(0, -20);
+                contentStream.showText("Lieu: " + course.getCity());
+                contentStream.newLineAtOffset(0, -20);
+                contentStream.showText("Distance: " + course.getDistance() + " km");
+                
                 contentStream.endText();
+                
+                if (qrModules != null) {
+                    QRCodeRenderer.draw(document, contentStream, qrModules, 350, 180, 150);
+                }
             }
-        } catch (Exception e) {
-            System.err.println("Erreur ajout QR code au PDF : " + e.getMessage());
+            
+            // Sauvegarder en bytes
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(8192);
+            document.save(baos);
+            return baos.toByteArray();
         }
-        
-        // Sauvegarder en bytes
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        document.save(baos);
-        document.close();
-        
-        return baos.toByteArray();
     }
     
     @Override
@@ -299,12 +307,6 @@ public class DossardServiceImpl implements DossardService {
         return dossardDAO.findByCourse(courseId);
     }
     
-    @Override
-    public String genererNumeroDossard(int courseId) throws Exception {
-        int nextNumber = dossardDAO.findNextAvailableNumber(courseId);
-        return String.valueOf(nextNumber);
-    }
-    
     @Override
     public Dossard sauvegarder(Dossard dossard) throws Exception {
         if (dossard.getId() == 0) {
@@ -326,6 +328,7 @@ public class DossardServiceImpl implements DossardService {
         Dossard existingDossard = trouverParParticipation(participationId);
         if (existingDossard != null) {
             dossardDAO.delete(existingDossard.getId());
+            numberAllocator.release(existingDossard.getCourseId(), existingDossard.getNumber());
         }
         
         // Générer un nouveau dossard
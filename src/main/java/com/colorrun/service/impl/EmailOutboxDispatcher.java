@@ -0,0 +1,371 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.business.OutboxEmail;
+import com.colorrun.config.EmailConfig;
+import com.colorrun.dao.EmailOutboxDAO;
+import com.colorrun.util.Logger;
+
+import javax.mail.MessagingException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Envoi en tâche de fond des emails de la file persistante (table EmailOutbox).
+ *
+ * <p>Les services mettent leurs emails en file, si possible dans la
+ * transaction de la modification métier, puis appellent {@link #wakeUp()} :
+ * une requête ne dépend donc jamais de la disponibilité du serveur SMTP.
+ * Un thread unique réserve les emails dus par lots et les envoie ; il
+ * interroge aussi la table à intervalle régulier, ce qui reprend les emails
+ * laissés par un redémarrage.</p>
+ *
+ * <p>Un lot est réparti sur les connexions SMTP conservées par
+ * {@link SmtpMailer} ({@code colorrun.email.smtp.poolSize} envois
+ * simultanés) : chaque connexion enchaîne plusieurs messages sans
+ * nouvelle poignée de main TCP/TLS.</p>
+ *
+ * <p><strong>Échecs :</strong> un échec temporaire (serveur injoignable,
+ * réponse 4xx) reprogramme l'email avec un délai exponentiel, plafonné à une
+ * heure ; un échec définitif (adresse invalide, réponse 5xx) ou l'épuisement
+ * des essais l'abandonne en statut DEAD, où il reste consultable. Un email
+ * réservé dont l'envoi n'a pas abouti (arrêt brutal) redevient dû à
+ * l'expiration de sa réservation : l'envoi est garanti au moins une fois.
+ * Chaque réservation compte un essai ; un email dont les réservations
+ * expirent toujours (message qui bloque ou arrête l'envoi) est abandonné
+ * une fois ses essais épuisés.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.email.outbox.batchSize</code> : emails réservés par lot (défaut : 20)</li>
+ *   <li><code>colorrun.email.outbox.pollMillis</code> : intervalle d'interrogation de la table (défaut : 2000)</li>
+ *   <li><code>colorrun.email.outbox.maxAttempts</code> : essais avant abandon (défaut : 8)</li>
+ *   <li><code>colorrun.email.outbox.backoffSeconds</code> : délai avant le premier nouvel essai,
+ *       doublé à chaque échec (défaut : 30)</li>
+ *   <li><code>colorrun.email.outbox.retentionDays</code> : conservation des emails envoyés (défaut : 7)</li>
+ * </ul>
+ */
+public final class EmailOutboxDispatcher {
+
+    private static final EmailOutboxDispatcher INSTANCE = new EmailOutboxDispatcher(
+            new EmailOutboxDAO(),
+            Integer.getInteger("colorrun.email.outbox.batchSize", 20),
+            Long.getLong("colorrun.email.outbox.pollMillis", 2000L),
+            Integer.getInteger("colorrun.email.outbox.maxAttempts", 8),
+            Long.getLong("colorrun.email.outbox.backoffSeconds", 30L),
+            Integer.getInteger("colorrun.email.outbox.retentionDays", 7));
+
+    /** Durée de réservation d'un email en cours d'envoi */
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    /** Délai maximal entre deux essais */
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    /** Intervalle de purge des emails envoyés */
+    private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+
+    private final EmailOutboxDAO outboxDAO;
+    private final int batchSize;
+    private final long pollMillis;
+    private final int maxAttempts;
+    private final long backoffSeconds;
+    private final int retentionDays;
+
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private volatile ScheduledExecutorService executor;
+    private volatile ExecutorService senders;
+    private volatile SmtpMailer mailer;
+    private long nextPurge;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    EmailOutboxDispatcher(EmailOutboxDAO outboxDAO, int batchSize, long pollMillis,
+                          int maxAttempts, long backoffSeconds, int retentionDays) {
+        this.outboxDAO = outboxDAO;
+        this.batchSize = Math.max(1, batchSize);
+        this.pollMillis = Math.max(100L, pollMillis);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffSeconds = Math.max(1L, backoffSeconds);
+        this.retentionDays = Math.max(1, retentionDays);
+    }
+
+    /**
+     * @return l'instance partagée par les services d'email
+     */
+    public static EmailOutboxDispatcher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Démarre le thread d'envoi. Sans effet s'il tourne déjà.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "email-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+        if (SmtpMailer.POOL_SIZE > 1) {
+            senders = Executors.newFixedThreadPool(SmtpMailer.POOL_SIZE, r -> {
+                Thread t = new Thread(r, "email-outbox-sender");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        executor.scheduleWithFixedDelay(this::poll, 0, pollMillis, TimeUnit.MILLISECONDS);
+        Logger.info("EmailOutboxDispatcher", "Envoi des emails en file démarré (lot de " + batchSize
+                + ", interrogation toutes les " + pollMillis + " ms)");
+    }
+
+    /**
+     * Signale qu'un email vient d'être mis en file, pour un envoi sans
+     * attendre la prochaine interrogation. Les appels rapprochés sont
+     * regroupés en un seul passage. Sans effet si le thread n'est pas démarré.
+     */
+    public void wakeUp() {
+        ScheduledExecutorService current = executor;
+        if (current != null && wakeUpPending.compareAndSet(false, true)) {
+            try {
+                current.execute(this::poll);
+            } catch (RuntimeException e) {
+                // Arrêt en cours : la prochaine exécution reprendra la file
+                wakeUpPending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Envoie, dans le thread appelant, tous les emails dus jusqu'à ce que
+     * la file soit vide.
+     *
+     * @return nombre d'emails traités (envoyés, reprogrammés ou abandonnés)
+     */
+    public int drain() {
+        int processed = 0;
+        int claimed;
+        do {
+            claimed = dispatchBatch();
+            processed += claimed;
+        } while (claimed == batchSize);
+        return processed;
+    }
+
+    private void poll() {
+        wakeUpPending.set(false);
+        try {
+            drain();
+            purgeIfDue();
+        } catch (RuntimeException e) {
+            // Ne jamais laisser une exception arrêter l'exécution périodique
+            Logger.error("EmailOutboxDispatcher", "Erreur du thread d'envoi", e);
+        }
+    }
+
+    /**
+     * Réserve et envoie un lot.
+     *
+     * @return nombre d'emails réservés
+     */
+    private int dispatchBatch() {
+        if (!EmailConfig.getInstance().isConfigured()) {
+            return 0;
+        }
+        List<OutboxEmail> claimed;
+        try {
+            int buried = outboxDAO.buryExhausted(maxAttempts,
+                    "Réservation expirée après " + maxAttempts + " essai(s) sans résultat");
+            if (buried > 0) {
+                dead.add(buried);
+                Logger.error("EmailOutboxDispatcher", buried + " email(s) abandonné(s) : essais épuisés sans résultat");
+            }
+            claimed = outboxDAO.claimDue(batchSize, LEASE, maxAttempts);
+        } catch (SQLException e) {
+            Logger.warn("EmailOutboxDispatcher", "File d'emails inaccessible: " + e.getMessage());
+            return 0;
+        }
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        batches.increment();
+
+        SmtpMailer smtp = mailer();
+        ExecutorService pool = senders;
+        if (pool == null || claimed.size() == 1) {
+            for (OutboxEmail email : claimed) {
+                dispatch(smtp, email);
+            }
+            return claimed.size();
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>(claimed.size());
+        for (OutboxEmail email : claimed) {
+            tasks.add(() -> {
+                dispatch(smtp, email);
+                return null;
+            });
+        }
+        try {
+            pool.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            // Arrêt : les emails non traités seront repris à l'expiration de leur réservation
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // Pool arrêté pendant l'arrêt de l'application
+            for (OutboxEmail email : claimed) {
+                dispatch(smtp, email);
+            }
+        }
+        return claimed.size();
+    }
+
+    private void dispatch(SmtpMailer smtp, OutboxEmail email) {
+        // Essai déjà compté par la réservation
+        int attempts = email.getAttempts();
+        try {
+            smtp.send(email);
+            outboxDAO.markSent(email.getId(), attempts);
+            sent.increment();
+            Logger.email("EmailOutboxDispatcher", "Email #" + email.getId() + " envoyé à " + email.getRecipient());
+        } catch (MessagingException e) {
+            failed(email, attempts, e, SmtpMailer.isPermanent(e));
+        } catch (SQLException e) {
+            // L'email est parti mais son statut n'a pas été enregistré :
+            // il sera renvoyé à l'expiration de sa réservation
+            Logger.warn("EmailOutboxDispatcher", "Statut de l'email #" + email.getId()
+                    + " non enregistré: " + e.getMessage());
+        }
+    }
+
+    private void failed(OutboxEmail email, int attempts, MessagingException e, boolean permanent) {
+        String error = describe(e);
+        try {
+            if (permanent || attempts >= maxAttempts) {
+                outboxDAO.markDead(email.getId(), attempts, error);
+                dead.increment();
+                Logger.error("EmailOutboxDispatcher", "Email #" + email.getId() + " à " + email.getRecipient()
+                        + " abandonné après " + attempts + " essai(s): " + error);
+            } else {
+                LocalDateTime next = LocalDateTime.now().plus(backoff(attempts));
+                outboxDAO.markRetry(email.getId(), attempts, next, error);
+                retried.increment();
+                Logger.warn("EmailOutboxDispatcher", "Email #" + email.getId() + " non envoyé (essai "
+                        + attempts + "/" + maxAttempts + "), nouvel essai à " + next + ": " + error);
+            }
+        } catch (SQLException sqlException) {
+            Logger.warn("EmailOutboxDispatcher", "Statut de l'email #" + email.getId()
+                    + " non enregistré: " + sqlException.getMessage());
+        }
+    }
+
+    /**
+     * Délai avant le nouvel essai : {@code backoffSeconds * 2^(essais-1)},
+     * plafonné, avec jusqu'à 10 % d'aléa pour étaler les reprises.
+     */
+    Duration backoff(int attempts) {
+        long seconds = backoffSeconds << Math.min(attempts - 1, 20);
+        seconds = Math.min(seconds, MAX_BACKOFF.getSeconds());
+        long jitter = ThreadLocalRandom.current().nextLong(seconds / 10 + 1);
+        return Duration.ofSeconds(seconds + jitter);
+    }
+
+    private void purgeIfDue() {
+        long now = System.nanoTime();
+        if (nextPurge != 0 && now - nextPurge < 0) {
+            return;
+        }
+        nextPurge = now + PURGE_INTERVAL.toNanos();
+        try {
+            int purged = outboxDAO.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays));
+            if (purged > 0) {
+                Logger.info("EmailOutboxDispatcher", purged + " email(s) envoyé(s) purgé(s) de la file");
+            }
+        } catch (SQLException e) {
+            Logger.warn("EmailOutboxDispatcher", "Purge de la file impossible: " + e.getMessage());
+        }
+    }
+
+    private synchronized SmtpMailer mailer() {
+        SmtpMailer current = mailer;
+        if (current == null) {
+            current = new SmtpMailer(EmailConfig.getInstance());
+            mailer = current;
+        }
+        return current;
+    }
+
+    private static String describe(MessagingException e) {
+        StringBuilder message = new StringBuilder(String.valueOf(e.getMessage()).trim());
+        Exception next = e.getNextException();
+        if (next != null && next.getMessage() != null) {
+            message.append(" / ").append(next.getMessage().trim());
+        }
+        return message.toString();
+    }
+
+    /**
+     * Arrête le thread d'envoi en laissant finir le lot en cours. Les emails
+     * restants seront envoyés au prochain démarrage.
+     */
+    public synchronized void close() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        executor = null;
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(30, TimeUnit.SECONDS)) {
+                current.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            current.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        ExecutorService pool = senders;
+        senders = null;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+        SmtpMailer smtp = mailer;
+        mailer = null;
+        if (smtp != null) {
+            smtp.close();
+        }
+        Logger.info("EmailOutboxDispatcher", "Envoi des emails en file arrêté - " + getStatsSummary());
+    }
+
+    public String getStatsSummary() {
+        StringBuilder summary = new StringBuilder("EmailOutboxDispatcher{envoyés=").append(sent.sum())
+                .append(", reprogrammés=").append(retried.sum())
+                .append(", abandonnés=").append(dead.sum())
+                .append(", lots=").append(batches.sum());
+        try {
+            Map<String, Integer> counts = outboxDAO.countByStatus();
+            summary.append(", file=").append(counts);
+        } catch (SQLException e) {
+            summary.append(", file=indisponible");
+        }
+        SmtpMailer smtp = mailer;
+        if (smtp != null) {
+            summary.append(", ").append(smtp.getStatsSummary());
+        }
+        return summary.append('}').toString();
+    }
+}
@@ -0,0 +1,165 @@
+package com.colorrun.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Corps d'email HTML compilé une seule fois.
+ *
+ * <p>Le modèle est lu depuis le classpath ({@code /email/<nom>.html}) et
+ * découpé au chargement en segments de texte fixe et en emplacements
+ * {@code ${variable}}. Chaque variable est résolue à la compilation vers sa
+ * position dans la liste déclarée par l'appelant : le rendu ne fait
+ * qu'enchaîner les segments et les valeurs, sans analyse ni recherche par
+ * nom. Une variable du modèle non déclarée (ou l'inverse) fait échouer le
+ * chargement, donc le démarrage, plutôt que l'envoi.</p>
+ *
+ * <p>Les valeurs sont échappées en HTML ; une valeur sans caractère spécial
+ * est reprise telle quelle. Segments et valeurs sont assemblés par
+ * {@link String#join}, qui calcule la taille exacte et ne copie qu'une fois,
+ * comme une concaténation compilée par javac : seuls la chaîne finale et un
+ * tableau de références sont alloués.</p>
+ *
+ * <p>Immuable : un même modèle sert à tous les threads.</p>
+ *
+ * <pre>
+ * static final EmailTemplate WELCOME = EmailTemplate.load("welcome", "firstName");
+ * String html = WELCOME.render(user.getFirstName());
+ * </pre>
+ */
+final class EmailTemplate {
+
+    private final String name;
+    private final String[] variables;
+
+    /** Texte fixe ; segments[i] précède la valeur slots[i], le dernier termine le modèle */
+    private final String[] segments;
+    private final int[] slots;
+
+    private EmailTemplate(String name, String source, String[] variables) {
+        this.name = name;
+        this.variables = variables.clone();
+
+        List<String> parsedSegments = new ArrayList<>();
+        List<Integer> parsedSlots = new ArrayList<>();
+        boolean[] used = new boolean[variables.length];
+        int position = 0;
+        int start;
+        while ((start = source.indexOf("${", position)) >= 0) {
+            int end = source.indexOf('}', start + 2);
+            if (end < 0) {
+                throw new IllegalStateException("Modèle " + name + " : emplacement non fermé à la position " + start);
+            }
+            int slot = indexOf(source.substring(start + 2, end));
+            used[slot] = true;
+            parsedSegments.add(source.substring(position, start));
+            parsedSlots.add(slot);
+            position = end + 1;
+        }
+        parsedSegments.add(source.substring(position));
+
+        for (int i = 0; i < used.length; i++) {
+            if (!used[i]) {
+                throw new IllegalStateException("Modèle " + name + " : variable " + variables[i] + " inutilisée");
+            }
+        }
+
+        this.segments = parsedSegments.toArray(new String[0]);
+        this.slots = parsedSlots.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int indexOf(String variable) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(variable)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Modèle " + name + " : variable ${" + variable + "} non déclarée "
+                + Arrays.toString(variables));
+    }
+
+    /**
+     * Charge et compile le modèle {@code /email/<name>.html}.
+     *
+     * @param variables variables du modèle, dans l'ordre des valeurs passées à {@link #render}
+     * @throws IllegalStateException si le modèle est introuvable ou ne correspond pas aux variables
+     */
+    static EmailTemplate load(String name, String... variables) {
+        String path = "/email/" + name + ".html";
+        try (InputStream in = EmailTemplate.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("Modèle d'email introuvable : " + path);
+            }
+            return new EmailTemplate(name, new String(in.readAllBytes(), StandardCharsets.UTF_8), variables);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du modèle d'email " + path + " impossible", e);
+        }
+    }
+
+    /**
+     * Rend le modèle.
+     *
+     * @param values valeurs des variables, dans l'ordre de leur déclaration ; null rendu vide
+     */
+    String render(Object... values) {
+        if (values.length != variables.length) {
+            throw new IllegalArgumentException("Modèle " + name + " : " + variables.length
+                    + " valeur(s) attendue(s), " + values.length + " reçue(s)");
+        }
+
+        String[] parts = new String[segments.length + slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            parts[2 * i] = segments[i];
+            Object value = values[slots[i]];
+            parts[2 * i + 1] = value == null ? "" : escape(value.toString());
+        }
+        parts[parts.length - 1] = segments[slots.length];
+        return String.join("", parts);
+    }
+
+    /**
+     * @return la valeur elle-même si elle ne contient aucun caractère spécial
+     */
+    private static String escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (entity(value.charAt(i)) != null) {
+                return escapeFrom(value, i);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Recopie la valeur par plages entières à partir du premier caractère
+     * spécial ; seuls les caractères spéciaux sont remplacés.
+     */
+    private static String escapeFrom(String value, int first) {
+        StringBuilder out = new StringBuilder(value.length() + 16);
+        out.append(value, 0, first);
+        int copied = first;
+        for (int i = first; i < value.length(); i++) {
+            String entity = entity(value.charAt(i));
+            if (entity != null) {
+                out.append(value, copied, i).append(entity);
+                copied = i + 1;
+            }
+        }
+        return out.append(value, copied, value.length()).toString();
+    }
+
+    private static String entity(char c) {
+        return switch (c) {
+            case '&' -> "&amp;";
+            case '<' -> "&lt;";
+            case '>' -> "&gt;";
+            case '"' -> "&quot;";
+            case '\'' -> "&#39;";
+            default -> null;
+        };
+    }
+}
@@ -1,11 +1,14 @@
 package com.colorrun.service.impl;
 
 import com.colorrun.service.PDFDossardService;
+import com.colorrun.service.QRCodeService;
 import com.colorrun.business.User;
 import com.colorrun.business.Course;
 import com.colorrun.business.Participation;
 import com.colorrun.util.Logger;
 
+import com.google.zxing.common.BitMatrix;
+
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -13,9 +16,6 @@ import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.time.format.DateTimeFormatter;
@@ -24,7 +24,9 @@ import java.time.format.DateTimeFormatter;
  * Implémentation du service PDFDossardService utilisant PDFBox.
  * 
  * Cette classe génère des PDF de dossards avec QR codes intégrés
- * pour les participants aux courses Color Run.
+ * pour les participants aux courses Color Run. La mise en page fixe est
+ * compilée une fois ({@link DossardPageTemplate}) ; chaque dossard n'y
+ * ajoute que ses champs variables.
  * 
  * @author Équipe Color Run
  * @version 1.0
@@ -36,136 +38,86 @@ public class PDFDossardServiceImpl implements PDFDossardService {
     private static final float PAGE_WIDTH = PDRectangle.A4.getWidth();
     private static final float PAGE_HEIGHT = PDRectangle.A4.getHeight();
     private static final float MARGIN = 50;
+    private static final float TOP = PAGE_HEIGHT - MARGIN;
+    private static final float QR_SIZE = 150;
+    /** QR code centré sous son titre */
+    private static final float QR_X = (PAGE_WIDTH - QR_SIZE) / 2;
+    private static final float QR_Y = TOP - 370 - QR_SIZE;
+    
+    /**
+     * Partie fixe de la page, compilée au chargement de la classe ;
+     * seuls les champs de {@link #drawDossardFields} sont dessinés à chaque dossard.
+     */
+    private static final DossardPageTemplate TEMPLATE = DossardPageTemplate.compile(
+            PDRectangle.A4, PDFDossardServiceImpl::drawStaticContent,
+            PDType1Font.HELVETICA, PDType1Font.HELVETICA_BOLD, PDType1Font.HELVETICA_OBLIQUE);
+    
+    private final QRCodeService qrCodeService;
+    
+    public PDFDossardServiceImpl() {
+        this.qrCodeService = new QRCodeServiceImpl();
+    }
     
     @Override
     public byte[] generateDossardPDF(User user, Course course, Participation participation, byte[] qrCodeBytes) throws Exception {
-        Logger.step("PDFDossardService", "🔄 Génération PDF dossard pour " + user.getEmail());
+        Logger.step("PDFDossardService", () -> "🔄 Génération PDF dossard pour " + user.getEmail());
         
-        PDDocument document = new PDDocument();
-        
-        try {
-            PDPage page = new PDPage(PDRectangle.A4);
-            document.addPage(page);
+        try (PDDocument document = DossardPageTemplate.newDocument()) {
+            PDPage page = TEMPLATE.addPage(document);
             
             // Convertir le QR code en image PDFBox
-            BufferedImage qrImage = ImageIO.read(new ByteArrayInputStream(qrCodeBytes));
             PDImageXObject qrImagePDF = PDImageXObject.createFromByteArray(document, qrCodeBytes, "QR Code");
             
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-            
-            try {
-                // Dessiner le contenu du dossard
-                drawDossardContent(contentStream, user, course, participation, qrImagePDF);
-            } finally {
-                contentStream.close();
+            try (PDPageContentStream contentStream = TEMPLATE.openFields(document, page)) {
+                drawDossardFields(contentStream, user, course, participation);
+                contentStream.drawImage(qrImagePDF, QR_X, QR_Y, QR_SIZE, QR_SIZE);
             }
             
-            // Convertir en bytes
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            document.save(outputStream);
-            
-            byte[] pdfBytes = outputStream.toByteArray();
-            Logger.success("PDFDossardService", "✅ PDF généré avec succès (" + pdfBytes.length + " bytes)");
-            
-            return pdfBytes;
-            
-        } finally {
-            document.close();
+            return save(document);
         }
     }
     
-    /**
-     * Dessine le contenu du dossard sur la page PDF.
-     */
-    private void drawDossardContent(PDPageContentStream contentStream, User user, Course course, 
-                                   Participation participation, PDImageXObject qrImage) throws IOException {
-        
-        float y = PAGE_HEIGHT - MARGIN;
-        
-        // Titre principal
-        contentStream.beginText();
-        contentStream.setFont(PDType1Font.HELVETICA_BOLD, 24);
-        contentStream.newLineAtOffset(MARGIN, y);
-        contentStream.showText("DOSSARD COLOR RUN");
-        contentStream.endText();
-        y -= 60;
-        
-        // Informations de la course - Titre
-        contentStream.beginText();
-        contentStream.setFont(PDType1Font.HELVETICA_BOLD, 18);
-        contentStream.newLineAtOffset(MARGIN, y);
-        contentStream.showText(course.getName());
-        contentStream.endText();
-        y -= 40;
-        
-        // Informations de la course - Détails
-        contentStream.beginText();
-        contentStream.setFont(PDType1Font.HELVETICA, 12);
-        contentStream.newLineAtOffset(MARGIN, y);
-        
-        String courseInfo = String.format("Lieu: %s", course.getCity());
-        contentStream.showText(courseInfo);
-        contentStream.newLineAtOffset(0, -20);
-        
-        String dateInfo = String.format("Date: %s", course.getDate().format(DATE_FORMATTER));
-        contentStream.showText(dateInfo);
-        contentStream.newLineAtOffset(0, -20);
-        
-        String distanceInfo = String.format("Distance: %.1f km", course.getDistance());
-        contentStream.showText(distanceInfo);
-        contentStream.endText();
-        y -= 80;
-        
-        // Séparateur
-        contentStream.moveTo(MARGIN, y);
-        contentStream.lineTo(PAGE_WIDTH - MARGIN, y);
-        contentStream.stroke();
-        y -= 40;
-        
-        // Informations du participant
-        contentStream.beginText();
-        contentStream.setFont(PDType1Font.HELVETICA_BOLD, 16);
-        contentStream.newLineAtOffset(MARGIN, y);
-        contentStream.showText("PARTICIPANT");
-        contentStream.endText();
-        y -= 30;
+    @Override
+    public byte[] generateDossardPDF(User user, Course course, Participation participation) throws Exception {
+        Logger.step("PDFDossardService", () -> "🔄 Génération PDF dossard pour " + user.getEmail());
         
-        contentStream.beginText();
-        contentStream.setFont(PDType1Font.HELVETICA, 12);
-        contentStream.newLineAtOffset(MARGIN, y);
+        BitMatrix qrModules = QRCodeRenderer.encode(
+                qrCodeService.generateQRData(user, course, participation.getId()));
         
-        String participantName = String.format("Nom: %s %s", user.getFirstName(), user.getLastName());
-        contentStream.showText(participantName);
-        contentStream.newLineAtOffset(0, -20);
-        
-        String participantEmail = String.format("Email: %s", user.getEmail());
-        contentStream.showText(participantEmail);
-        contentStream.newLineAtOffset(0, -20);
+        try (PDDocument document = DossardPageTemplate.newDocument()) {
+            PDPage page = TEMPLATE.addPage(document);
+            
+            try (PDPageContentStream contentStream = TEMPLATE.openFields(document, page)) {
+                drawDossardFields(contentStream, user, course, participation);
+                QRCodeRenderer.draw(document, contentStream, qrModules, QR_X, QR_Y, QR_SIZE);
+            }
+            
+            return save(document);
+        }
+    }
+    
+    private byte[] save(PDDocument document) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(8192);
+        document.save(outputStream);
         
-        String participationId = String.format("ID Participation: %d", participation.getId());
-        contentStream.showText(participationId);
-        contentStream.endText();
-        y -= 80;
+        byte[] pdfBytes = outputStream.toByteArray();
+        Logger.success("PDFDossardService", "✅ PDF généré avec succès (" + pdfBytes.length + " bytes)");
         
-        // QR Code
+        return pdfBytes;
+    }
+    
+    /**
+     * Dessine la partie commune à tous les dossards : titres, séparateur,
+     * instructions et pied de page.
+     */
+    private static void drawStaticContent(PDPageContentStream contentStream) throws IOException {
         contentStream.beginText();
-        contentStream.setFont(PDType1Font.HELVETICA_BOLD, 16);
-        contentStream.newLineAtOffset(MARGIN, y);
-        contentStream.showText("QR CODE DE PARTICIPATION");
-        contentStream.endText();
-        y -= 40;
-        
-        // Dessiner le QR code (centré)
-        float qrSize = 150;
-        float qrX = (PAGE_WIDTH - qrSize) / 2;
-        contentStream.drawImage(qrImage, qrX, y - qrSize, qrSize, qrSize);
-        y -= qrSize + 30;
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA_BOLD, 24, MARGIN, TOP, "DOSSARD COLOR RUN");
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA_BOLD, 16, MARGIN, TOP - 220, "PARTICIPANT");
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA_BOLD, 16, MARGIN, TOP - 330, "QR CODE DE PARTICIPATION");
         
         // Instructions
-        contentStream.beginText();
-        contentStream.setFont(PDType1Font.HELVETICA, 10);
-        contentStream.newLineAtOffset(MARGIN, y);
-        contentStream.showText("INSTRUCTIONS:");
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA, 10, MARGIN, TOP - 370 - QR_SIZE - 30, "INSTRUCTIONS:");
         contentStream.newLineAtOffset(0, -15);
         contentStream.showText("• Présentez ce dossard le jour de la course");
         contentStream.newLineAtOffset(0, -15);
@@ -174,13 +126,41 @@ public class PDFDossardServiceImpl implements PDFDossardService {
         contentStream.showText("• Arrivez 30 minutes avant le départ");
         contentStream.newLineAtOffset(0, -15);
         contentStream.showText("• N'oubliez pas vos vêtements blancs !");
-        contentStream.endText();
         
         // Footer
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA_OBLIQUE, 8, MARGIN, 30, "Color Run - Généré automatiquement");
+        contentStream.endText();
+        
+        // Séparateur
+        contentStream.moveTo(MARGIN, TOP - 180);
+        contentStream.lineTo(PAGE_WIDTH - MARGIN, TOP - 180);
+        contentStream.stroke();
+    }
+    
+    /**
+     * Dessine les champs texte propres au participant sur la page du modèle ;
+     * le QR code est ajouté par l'appelant en ({@link #QR_X}, {@link #QR_Y}).
+     */
+    private void drawDossardFields(PDPageContentStream contentStream, User user, Course course,
+                                   Participation participation) throws IOException {
         contentStream.beginText();
-        contentStream.setFont(PDType1Font.HELVETICA_OBLIQUE, 8);
-        contentStream.newLineAtOffset(MARGIN, 30);
-        contentStream.showText("Color Run - Généré automatiquement");
+        
+        // Informations de la course
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA_BOLD, 18, MARGIN, TOP - 60, course.getName());
+        DossardPageTemplate.showTextAt(contentStream, PDType1Font.HELVETICA, 12, MARGIN, TOP - 100, "Lieu: " + course.getCity());
+        contentStream.newLineAtOffset(0, -20);
+        contentStream.showText("Date: " + course.getDate().format(DATE_FORMATTER));
+        contentStream.newLineAtOffset(0, -20);
+        contentStream.showText(String.format("Distance: %.1f km", course.getDistance()));
+        
+        // Informations du participant
+        contentStream.newLineAtOffset(0, -110);
+        contentStream.showText("Nom: " + user.getFirstName() + " " + user.getLastName());
+        contentStream.newLineAtOffset(0, -20);
+        contentStream.showText("Email: " + user.getEmail());
+        contentStream.newLineAtOffset(0, -20);
+        contentStream.showText("ID Participation: " + participation.getId());
+        
         contentStream.endText();
     }
     
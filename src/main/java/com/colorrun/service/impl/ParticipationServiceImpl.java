@@ -1,9 +1,10 @@
 package com.colorrun.service.impl;
 
 import com.colorrun.business.Course;
+import com.colorrun.business.OutboxEmail;
 import com.colorrun.business.Participation;
 import com.colorrun.business.User;
-import com.colorrun.dao.CourseDAO;
+import com.colorrun.cache.CourseSeatCounter;
 import com.colorrun.dao.ParticipationDAO;
 import com.colorrun.dao.UserDAO;
 import com.colorrun.service.ParticipationService;
@@ -13,6 +14,9 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -37,41 +41,37 @@ public class ParticipationServiceImpl implements ParticipationService {
     
     private ParticipationDAO participationDAO;
     private UserDAO userDAO;
-    private CourseDAO courseDAO;
+    private CourseSeatCounter seatCounter;
     
     public ParticipationServiceImpl() {
         this.participationDAO = new ParticipationDAO();
         this.userDAO = new UserDAO();
-        this.courseDAO = new CourseDAO();
+        this.seatCounter = CourseSeatCounter.getInstance();
     }
     
     @Override
     public void registerParticipation(int userId, int courseId) throws SQLException {
+        doRegister(userId, courseId, null);
+    }
+    
+    /**
+     * Inscription atomique : les demandes concurrentes pour une même course
+     * attendent leur tour sur un verrou en mémoire avant d'emprunter une
+     * connexion, puis la vérification des places, l'insertion et la mise à
+     * jour du compteur se font dans une seule transaction qui verrouille la
+     * ligne de la course. L'email de confirmation, s'il y en a un, est mis en
+     * file dans cette même transaction.
+     */
+    private Participation doRegister(int userId, int courseId,
+                                     Function<Participation, OutboxEmail> confirmation) throws SQLException {
         // Vérifier si l'utilisateur existe
         Optional<User> userOpt = userDAO.findById(userId);
         if (!userOpt.isPresent()) {
             throw new SQLException("User not found");
         }
         
-        // Vérifier si la course existe
-        Optional<Course> courseOpt = courseDAO.findById(courseId);
-        if (!courseOpt.isPresent()) {
-            throw new SQLException("Course not found");
-        }
-        
-        Course course = courseOpt.get();
-        
-        // Vérifier si la course est complète
-        int currentParticipants = participationDAO.countByCourse(courseId);
-        if (currentParticipants >= course.getMaxParticipants()) {
-            throw new SQLException("Course is already full");
-        }
-        
-        // Vérifier si l'utilisateur est déjà inscrit
-        Optional<Participation> existingParticipation = participationDAO.findByUserAndCourse(userId, courseId);
-        if (existingParticipation.isPresent()) {
-            throw new SQLException("User is already registered for this course");
-        }
+        Course course = new Course();
+        course.setId(courseId);
         
         // Créer une nouvelle participation
         Participation participation = new Participation();
@@ -80,8 +80,20 @@ public class ParticipationServiceImpl implements ParticipationService {
         participation.setDate(LocalDateTime.now());
         participation.setStatus("REGISTERED");
         
-        // Enregistrer la participation
-        participationDAO.save(participation);
+        // Vérifier les places et enregistrer, une inscription à la fois par course
+        boolean emailQueued;
+        ReentrantLock lock = seatCounter.lockFor(courseId);
+        lock.lock();
+        try {
+            emailQueued = participationDAO.saveIfSeatAvailable(participation, confirmation);
+            seatCounter.increment(courseId);
+        } finally {
+            lock.unlock();
+        }
+        if (emailQueued) {
+            EmailOutboxDispatcher.getInstance().wakeUp();
+        }
+        return participation;
     }
     
     @Override
@@ -96,21 +108,27 @@ public class ParticipationServiceImpl implements ParticipationService {
     
     @Override
     public boolean isUserRegistered(int userId, int courseId) throws SQLException {
-        return participationDAO.findByUserAndCourse(userId, courseId).isPresent();
+        return participationDAO.existsByUserAndCourse(userId, courseId);
+    }
+    
+    @Override
+    public Set<Integer> getRegisteredCourseIds(int userId) throws SQLException {
+        return participationDAO.findCourseIdsByUser(userId);
     }
     
     @Override
     public void cancelParticipation(int userId, int courseId) throws SQLException {
-        Optional<Participation> participationOpt = participationDAO.findByUserAndCourse(userId, courseId);
-        
-        if (!participationOpt.isPresent()) {
-            throw new SQLException("Participation not found");
+        ReentrantLock lock = seatCounter.lockFor(courseId);
+        lock.lock();
+        try {
+            if (participationDAO.cancelByUserAndCourse(userId, courseId, "CANCELED")) {
+                seatCounter.decrement(courseId);
+            } else if (!participationDAO.findByUserAndCourse(userId, courseId).isPresent()) {
+                throw new SQLException("Participation not found");
+            }
+        } finally {
+            lock.unlock();
         }
-        
-        Participation participation = participationOpt.get();
-        participation.setStatus("CANCELED");
-        
-        participationDAO.update(participation);
     }
     
     @Override
@@ -125,9 +143,12 @@ public class ParticipationServiceImpl implements ParticipationService {
     
     @Override
     public int register(int userId, int courseId) throws SQLException {
-        registerParticipation(userId, courseId);
-        Optional<Participation> participation = participationDAO.findByUserAndCourse(userId, courseId);
-        return participation.isPresent() ? participation.get().getId() : 0;
+        return doRegister(userId, courseId, null).getId();
+    }
+    
+    @Override
+    public int register(int userId, int courseId, Function<Participation, OutboxEmail> confirmation) throws SQLException {
+        return doRegister(userId, courseId, confirmation).getId();
     }
     
     @Override
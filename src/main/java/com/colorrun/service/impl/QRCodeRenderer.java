@@ -0,0 +1,308 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.util.Logger;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodage des QR codes sans passer par {@code BufferedImage} ni ImageIO.
+ *
+ * <p>La matrice ZXing est écrite directement :</p>
+ * <ul>
+ *   <li>en PNG noir et blanc 1 bit ({@link #toPng}) pour les téléchargements et les emails ;</li>
+ *   <li>dans un PDF ({@link #draw}), soit en image 1 bit compressée (mode {@code image}),
+ *       soit en tracé vectoriel, un rectangle par suite de modules noirs (mode {@code vector}).</li>
+ * </ul>
+ * <p>Dans un PDF, la matrice est encodée à un pixel par module et mise à
+ * l'échelle par le lecteur : l'image ne pèse que quelques centaines d'octets.
+ * Les tampons de compression sont réutilisés d'un appel à l'autre.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.qr.pdfMode</code> : <code>image</code> (défaut) ou <code>vector</code></li>
+ * </ul>
+ */
+final class QRCodeRenderer {
+
+    /**
+     * Rendu d'un QR code dans un PDF.
+     */
+    enum PdfMode {
+        /** Image 1 bit, un pixel par module */
+        IMAGE,
+        /** Rectangles pleins, sans image */
+        VECTOR
+    }
+
+    private static final PdfMode PDF_MODE = pdfMode(System.getProperty("colorrun.qr.pdfMode"));
+
+    /** Sans état : partagé par tous les threads */
+    private static final QRCodeWriter WRITER = new QRCodeWriter();
+
+    private static final Map<EncodeHintType, Object> HINTS = new EnumMap<>(EncodeHintType.class);
+    static {
+        HINTS.put(EncodeHintType.CHARACTER_SET, StandardCharsets.UTF_8.name());
+    }
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+
+    /** Tampons inutilisés ; au-delà de la capacité, les tampons rendus sont libérés */
+    private static final BlockingQueue<Buffers> POOL =
+            new ArrayBlockingQueue<>(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+
+    private QRCodeRenderer() {
+        // Classe utilitaire - ne doit pas être instanciée
+    }
+
+    /**
+     * Lit le mode de rendu PDF ; une valeur inconnue est signalée et remplacée
+     * par le mode par défaut, plutôt que d'empêcher le chargement de la classe.
+     */
+    static PdfMode pdfMode(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return PdfMode.IMAGE;
+        }
+        try {
+            return PdfMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Logger.warn("QRCodeRenderer", "colorrun.qr.pdfMode inconnu: '" + value
+                    + "' (attendu : image ou vector), mode image utilisé");
+            return PdfMode.IMAGE;
+        }
+    }
+
+    /**
+     * Encode des données en matrice de modules, zone de silence comprise
+     * (un bit par module), destinée à {@link #draw}.
+     */
+    static BitMatrix encode(String data) throws WriterException {
+        return WRITER.encode(data, BarcodeFormat.QR_CODE, 0, 0, HINTS);
+    }
+
+    /**
+     * Encode des données en matrice de pixels carrée, centrée, destinée à {@link #toPng}.
+     */
+    static BitMatrix encode(String data, int size) throws WriterException {
+        return WRITER.encode(data, BarcodeFormat.QR_CODE, size, size, HINTS);
+    }
+
+    /**
+     * Écrit une matrice en PNG niveaux de gris 1 bit, un pixel par bit
+     * (bit à 1 = pixel noir).
+     */
+    static byte[] toPng(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        Buffers buffers = acquire();
+        try {
+            // Chaque ligne PNG est précédée de son type de filtre (0 : aucun)
+            int raw = pack(matrix, buffers, true);
+            int compressed = buffers.deflate(raw);
+
+            byte[] png = new byte[PNG_SIGNATURE.length + (12 + 13) + (12 + compressed) + 12];
+            System.arraycopy(PNG_SIGNATURE, 0, png, 0, PNG_SIGNATURE.length);
+            int pos = PNG_SIGNATURE.length;
+
+            byte[] header = buffers.header;
+            putInt(header, 0, width);
+            putInt(header, 4, height);
+            header[8] = 1;  // bits par pixel
+            header[9] = 0;  // niveaux de gris
+            header[10] = 0; // deflate
+            header[11] = 0; // filtrage adaptatif
+            header[12] = 0; // non entrelacé
+            pos = chunk(png, pos, IHDR, header, 13, buffers);
+            pos = chunk(png, pos, IDAT, buffers.compressed, compressed, buffers);
+            chunk(png, pos, IEND, header, 0, buffers);
+            return png;
+        } finally {
+            release(buffers);
+        }
+    }
+
+    /**
+     * Dessine une matrice de modules dans un carré du PDF, selon le mode
+     * configuré.
+     *
+     * @param x    abscisse du coin inférieur gauche
+     * @param y    ordonnée du coin inférieur gauche
+     * @param size côté du carré, zone de silence comprise
+     */
+    static void draw(PDDocument document, PDPageContentStream content, BitMatrix modules,
+                     float x, float y, float size) throws IOException {
+        if (PDF_MODE == PdfMode.VECTOR) {
+            drawPath(content, modules, x, y, size);
+        } else {
+            content.drawImage(toImage(document, modules), x, y, size, size);
+        }
+    }
+
+    /**
+     * Image 1 bit (DeviceGray), un pixel par module, compressée en Flate.
+     */
+    static PDImageXObject toImage(PDDocument document, BitMatrix modules) throws IOException {
+        Buffers buffers = acquire();
+        try {
+            int compressed = buffers.deflate(pack(modules, buffers, false));
+            return new PDImageXObject(document,
+                    new ByteArrayInputStream(buffers.compressed, 0, compressed), COSName.FLATE_DECODE,
+                    modules.getWidth(), modules.getHeight(), 1, PDDeviceGray.INSTANCE);
+        } finally {
+            release(buffers);
+        }
+    }
+
+    /**
+     * Tracé vectoriel : les modules noirs consécutifs d'une ligne forment
+     * un seul rectangle, et l'ensemble est rempli en une fois.
+     */
+    static void drawPath(PDPageContentStream content, BitMatrix modules,
+                         float x, float y, float size) throws IOException {
+        int width = modules.getWidth();
+        int height = modules.getHeight();
+        float module = size / Math.max(width, height);
+
+        content.saveGraphicsState();
+        content.setNonStrokingColor(0f);
+        for (int row = 0; row < height; row++) {
+            float top = y + (height - row - 1) * module;
+            int col = 0;
+            while (col < width) {
+                if (!modules.get(col, row)) {
+                    col++;
+                    continue;
+                }
+                int start = col;
+                while (col < width && modules.get(col, row)) {
+                    col++;
+                }
+                content.addRect(x + start * module, top, (col - start) * module, module);
+            }
+        }
+        content.fill();
+        content.restoreGraphicsState();
+    }
+
+    /**
+     * Range la matrice dans {@code buffers.raw}, ligne par ligne, huit
+     * pixels par octet, bit à 0 pour un module noir (en niveaux de gris,
+     * 0 est le noir).
+     *
+     * @return nombre d'octets écrits
+     */
+    private static int pack(BitMatrix matrix, Buffers buffers, boolean filterByte) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int rowBytes = (width + 7) / 8;
+        int stride = rowBytes + (filterByte ? 1 : 0);
+        byte[] raw = buffers.raw(stride * height);
+
+        int pos = 0;
+        for (int row = 0; row < height; row++) {
+            if (filterByte) {
+                raw[pos++] = 0;
+            }
+            int rowStart = pos;
+            Arrays.fill(raw, rowStart, rowStart + rowBytes, (byte) 0xFF);
+            for (int col = 0; col < width; col++) {
+                if (matrix.get(col, row)) {
+                    raw[rowStart + (col >> 3)] &= (byte) ~(0x80 >>> (col & 7));
+                }
+            }
+            pos += rowBytes;
+        }
+        return pos;
+    }
+
+    private static int chunk(byte[] png, int pos, byte[] type, byte[] data, int length, Buffers buffers) {
+        putInt(png, pos, length);
+        System.arraycopy(type, 0, png, pos + 4, 4);
+        System.arraycopy(data, 0, png, pos + 8, length);
+
+        CRC32 crc = buffers.crc;
+        crc.reset();
+        crc.update(png, pos + 4, 4 + length);
+        putInt(png, pos + 8 + length, (int) crc.getValue());
+        return pos + 12 + length;
+    }
+
+    private static void putInt(byte[] target, int pos, int value) {
+        target[pos] = (byte) (value >>> 24);
+        target[pos + 1] = (byte) (value >>> 16);
+        target[pos + 2] = (byte) (value >>> 8);
+        target[pos + 3] = (byte) value;
+    }
+
+    private static Buffers acquire() {
+        Buffers buffers = POOL.poll();
+        return buffers != null ? buffers : new Buffers();
+    }
+
+    private static void release(Buffers buffers) {
+        if (!POOL.offer(buffers)) {
+            buffers.deflater.end();
+        }
+    }
+
+    /**
+     * Tampons d'un encodage, réutilisés via {@link #POOL}.
+     */
+    private static final class Buffers {
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        final CRC32 crc = new CRC32();
+        final byte[] header = new byte[13];
+        byte[] raw = new byte[8 * 1024];
+        byte[] compressed = new byte[4 * 1024];
+
+        byte[] raw(int length) {
+            if (raw.length < length) {
+                raw = new byte[length];
+            }
+            return raw;
+        }
+
+        /**
+         * Compresse {@code raw[0..length)} (format zlib) dans {@code compressed}.
+         *
+         * @return taille compressée
+         */
+        int deflate(int length) {
+            deflater.reset();
+            deflater.setInput(raw, 0, length);
+            deflater.finish();
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                size += deflater.deflate(compressed, size, compressed.length - size);
+            }
+            return size;
+        }
+    }
+}
@@ -6,14 +6,8 @@ import com.colorrun.business.Course;
 import com.colorrun.business.Participation;
 import com.colorrun.util.Logger;
 
-import com.google.zxing.BarcodeFormat;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Base64;
@@ -23,6 +17,7 @@ import java.util.Base64;
  * 
  * Cette classe génère des QR codes contenant les informations
  * nécessaires pour identifier un participant à une course.
+ * Les PNG sont écrits directement depuis la matrice ({@link QRCodeRenderer}).
  * 
  * @author Équipe Color Run
  * @version 1.0
@@ -31,13 +26,12 @@ import java.util.Base64;
 public class QRCodeServiceImpl implements QRCodeService {
     
     private static final int QR_CODE_WIDTH = 300;
-    private static final int QR_CODE_HEIGHT = 300;
     private static final String QR_DATA_SEPARATOR = "|";
     private static final String QR_TIMESTAMP_FORMAT = "yyyyMMddHHmmss";
     
     @Override
     public byte[] generateQRCode(Participation participation) throws Exception {
-        Logger.step("QRCodeService", "🔄 Génération QR code pour participation " + participation.getId());
+        Logger.step("QRCodeService", () -> "🔄 Génération QR code pour participation " + participation.getId());
         
         String qrData = generateQRData(
             participation.getUser(), 
@@ -45,7 +39,7 @@ public class QRCodeServiceImpl implements QRCodeService {
             participation.getId()
         );
         
-        Logger.debug("QRCodeService", "Données QR: " + qrData);
+        Logger.debug("QRCodeService", () -> "Données QR: " + qrData);
         
         return generateQRCode(qrData);
     }
@@ -53,18 +47,12 @@ public class QRCodeServiceImpl implements QRCodeService {
     @Override
     public byte[] generateQRCode(String data) throws Exception {
         try {
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(data, BarcodeFormat.QR_CODE, QR_CODE_WIDTH, QR_CODE_HEIGHT);
-            
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
-            
-            byte[] qrCodeBytes = outputStream.toByteArray();
+            byte[] qrCodeBytes = QRCodeRenderer.toPng(QRCodeRenderer.encode(data, QR_CODE_WIDTH));
             Logger.success("QRCodeService", "✅ QR code généré avec succès (" + qrCodeBytes.length + " bytes)");
             
             return qrCodeBytes;
             
-        } catch (WriterException | IOException e) {
+        } catch (WriterException e) {
             Logger.error("QRCodeService", "❌ Erreur génération QR code: " + e.getMessage());
             throw new Exception("Erreur lors de la génération du QR code", e);
         }
@@ -93,7 +81,7 @@ public class QRCodeServiceImpl implements QRCodeService {
         try {
             // Décoder le Base64
             String decodedData = new String(Base64.getDecoder().decode(qrData));
-            Logger.debug("QRCodeService", "Données décodées: " + decodedData);
+            Logger.debug("QRCodeService", () -> "Données décodées: " + decodedData);
             
             String[] parts = decodedData.split("\\" + QR_DATA_SEPARATOR);
             
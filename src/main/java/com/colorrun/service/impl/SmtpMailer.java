@@ -0,0 +1,290 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.business.OutboxEmail;
+import com.colorrun.config.EmailConfig;
+import com.sun.mail.smtp.SMTPAddressFailedException;
+import com.sun.mail.smtp.SMTPSendFailedException;
+
+import javax.activation.DataHandler;
+import javax.mail.Address;
+import javax.mail.Authenticator;
+import javax.mail.BodyPart;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Multipart;
+import javax.mail.PasswordAuthentication;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMessage;
+import javax.mail.internet.MimeMultipart;
+import javax.mail.util.ByteArrayDataSource;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Envoi SMTP d'un email de la file, sur une session JavaMail unique
+ * construite à partir d'{@link EmailConfig}.
+ *
+ * <p>Seul le dispatcher de la file (et le test de configuration) parle au
+ * serveur SMTP : aucun thread de requête n'attend une réponse SMTP.</p>
+ *
+ * <p><strong>Connexions réutilisées :</strong> une connexion ouverte
+ * (TCP, STARTTLS et authentification compris) envoie plusieurs messages à
+ * la suite puis est rendue à un pool borné. Elle est refermée après
+ * un nombre maximal de messages ou une période d'inactivité, et remplacée
+ * par une nouvelle. Un refus de destinataire ou de message laisse la
+ * connexion utilisable ; toute autre erreur la referme. Si une connexion
+ * réutilisée a été coupée par le serveur, le message est renvoyé une fois
+ * sur une connexion neuve.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.email.smtp.poolSize</code> : connexions conservées, et envois simultanés (défaut : 2)</li>
+ *   <li><code>colorrun.email.smtp.maxMessagesPerConnection</code> : messages par connexion (défaut : 100)</li>
+ *   <li><code>colorrun.email.smtp.idleSeconds</code> : inactivité au-delà de laquelle une connexion
+ *       conservée est refermée (défaut : 60)</li>
+ * </ul>
+ */
+final class SmtpMailer implements AutoCloseable {
+
+    static final int POOL_SIZE = Math.max(1, Integer.getInteger("colorrun.email.smtp.poolSize", 2));
+
+    private static final int MAX_MESSAGES_PER_CONNECTION =
+            Math.max(1, Integer.getInteger("colorrun.email.smtp.maxMessagesPerConnection", 100));
+
+    private static final long IDLE_NANOS =
+            TimeUnit.SECONDS.toNanos(Math.max(1, Long.getLong("colorrun.email.smtp.idleSeconds", 60L)));
+
+    /**
+     * Connexion SMTP ouverte et son usage.
+     */
+    private static final class PooledTransport {
+        final Transport transport;
+        int messages;
+        long lastUsed = System.nanoTime();
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        /**
+         * Pas de NOOP de vérification : une connexion coupée malgré tout est
+         * détectée à l'envoi et remplacée.
+         */
+        boolean isStale() {
+            return messages >= MAX_MESSAGES_PER_CONNECTION || System.nanoTime() - lastUsed > IDLE_NANOS;
+        }
+    }
+
+    private final EmailConfig emailConfig;
+    private final Session session;
+
+    /** Connexions libres ; au-delà de la capacité, les connexions rendues sont fermées */
+    private final BlockingQueue<PooledTransport> idle = new ArrayBlockingQueue<>(POOL_SIZE);
+    private volatile boolean closed;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    SmtpMailer(EmailConfig emailConfig) {
+        this.emailConfig = emailConfig;
+        this.session = Session.getInstance(emailConfig.getProperties(), new Authenticator() {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return new PasswordAuthentication(emailConfig.getUsername(), emailConfig.getPassword());
+            }
+        });
+    }
+
+    /**
+     * Envoie un email, avec sa pièce jointe éventuelle, sur une connexion
+     * du pool.
+     *
+     * @throws MessagingException si le serveur refuse le message ou est injoignable ;
+     *                            voir {@link #isPermanent(MessagingException)}
+     */
+    void send(OutboxEmail email) throws MessagingException {
+        MimeMessage message = toMessage(email);
+        message.saveChanges();
+
+        PooledTransport connection = borrow();
+        boolean reused = connection.messages > 0;
+        try {
+            deliver(connection, message);
+        } catch (MessagingException e) {
+            if (isServerReply(e)) {
+                // Refus du serveur : la connexion reste utilisable
+                release(connection);
+                throw e;
+            }
+            discard(connection);
+            if (!reused) {
+                throw e;
+            }
+            // Connexion coupée par le serveur entre deux messages : nouvel essai immédiat
+            reconnects.increment();
+            connection = connect();
+            try {
+                deliver(connection, message);
+            } catch (MessagingException retryFailure) {
+                if (isServerReply(retryFailure)) {
+                    release(connection);
+                } else {
+                    discard(connection);
+                }
+                throw retryFailure;
+            }
+        }
+        release(connection);
+    }
+
+    private void deliver(PooledTransport connection, MimeMessage message) throws MessagingException {
+        connection.messages++;
+        connection.lastUsed = System.nanoTime();
+        connection.transport.sendMessage(message, message.getAllRecipients());
+        sent.increment();
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        PooledTransport connection;
+        while ((connection = idle.poll()) != null) {
+            if (!connection.isStale()) {
+                return connection;
+            }
+            discard(connection);
+        }
+        return connect();
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Transport transport = session.getTransport("smtp");
+        transport.connect(emailConfig.getSmtpHost(), emailConfig.getSmtpPort(),
+                emailConfig.getUsername(), emailConfig.getPassword());
+        opened.increment();
+        return new PooledTransport(transport);
+    }
+
+    private void release(PooledTransport connection) {
+        connection.lastUsed = System.nanoTime();
+        if (closed || connection.messages >= MAX_MESSAGES_PER_CONNECTION || !idle.offer(connection)) {
+            discard(connection);
+        }
+    }
+
+    private static void discard(PooledTransport connection) {
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            // Connexion déjà perdue : rien à libérer
+        }
+    }
+
+    /**
+     * Ferme les connexions conservées. Les envois en cours ferment la leur en
+     * la rendant.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        PooledTransport connection;
+        while ((connection = idle.poll()) != null) {
+            discard(connection);
+        }
+    }
+
+    MimeMessage toMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        try {
+            message.setFrom(new InternetAddress(emailConfig.getFromEmail(), emailConfig.getFromName(), "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new MessagingException("Encodage de l'expéditeur impossible", e);
+        }
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(email.getRecipient()));
+        message.setSubject(email.getSubject(), "UTF-8");
+
+        if (!email.hasAttachment()) {
+            message.setContent(email.getHtmlBody(), "text/html; charset=utf-8");
+            return message;
+        }
+
+        Multipart multipart = new MimeMultipart();
+
+        BodyPart htmlPart = new MimeBodyPart();
+        htmlPart.setContent(email.getHtmlBody(), "text/html; charset=utf-8");
+        multipart.addBodyPart(htmlPart);
+
+        BodyPart attachmentPart = new MimeBodyPart();
+        attachmentPart.setDataHandler(new DataHandler(
+                new ByteArrayDataSource(email.getAttachment(), email.getAttachmentType())));
+        attachmentPart.setFileName(email.getAttachmentName());
+        multipart.addBodyPart(attachmentPart);
+
+        message.setContent(multipart);
+        return message;
+    }
+
+    /**
+     * Distingue les échecs définitifs, qu'un nouvel essai ne corrigera pas
+     * (adresse invalide, destinataire refusé, réponse SMTP 5xx), des échecs
+     * temporaires (serveur injoignable, réponse 4xx).
+     */
+    static boolean isPermanent(MessagingException e) {
+        if (e instanceof AddressException) {
+            return true;
+        }
+        int code = replyCode(e);
+        if (code >= 500 && code < 600) {
+            return true;
+        }
+        if (code < 0 && e instanceof SendFailedException) {
+            Address[] invalid = ((SendFailedException) e).getInvalidAddresses();
+            return invalid != null && invalid.length > 0;
+        }
+        return false;
+    }
+
+    /**
+     * @return true si l'échec est une réponse 4xx/5xx du serveur, la
+     *         connexion restant alors utilisable
+     */
+    private static boolean isServerReply(MessagingException e) {
+        return replyCode(e) >= 400;
+    }
+
+    /**
+     * Code de la réponse SMTP à l'origine de l'échec ; -1 si aucune réponse
+     * n'a été reçue (connexion coupée, délai dépassé).
+     */
+    private static int replyCode(MessagingException e) {
+        // Destinataire refusé : la cause porte le code de la réponse
+        for (Exception cause = e; cause != null;
+             cause = cause instanceof MessagingException ? ((MessagingException) cause).getNextException() : null) {
+            if (cause instanceof SMTPAddressFailedException) {
+                return ((SMTPAddressFailedException) cause).getReturnCode();
+            }
+            if (cause instanceof SMTPSendFailedException) {
+                return ((SMTPSendFailedException) cause).getReturnCode();
+            }
+        }
+        return -1;
+    }
+
+    String getStatsSummary() {
+        long messages = sent.sum();
+        long connections = opened.sum();
+        return "SmtpMailer{envoyés=" + messages +
+                ", connexions=" + connections +
+                ", messages/connexion=" + (connections == 0 ? 0 : messages / connections) +
+                ", reconnexions=" + reconnects.sum() +
+                ", libres=" + idle.size() +
+                '}';
+    }
+}
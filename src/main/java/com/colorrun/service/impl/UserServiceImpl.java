@@ -1,10 +1,16 @@
 package com.colorrun.service.impl;
 
 import com.colorrun.business.User;
+import com.colorrun.cache.CourseCatalogCache;
+import com.colorrun.cache.CourseSeatCounter;
+import com.colorrun.cache.RenderedFileCache;
+import com.colorrun.search.CourseSearchIndex;
 import com.colorrun.dao.UserDAO;
+import com.colorrun.security.PasswordHasher;
 import com.colorrun.service.UserService;
 import com.colorrun.util.PasswordUtil;
 import com.colorrun.config.EmailConfig;
+import com.colorrun.util.Logger;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -36,7 +42,8 @@ import javax.mail.MessagingException;
  * <p><strong>Règles métier appliquées :</strong></p>
  * <ul>
  *   <li>Unicité des adresses email</li>
- *   <li>Hachage sécurisé des mots de passe avec BCrypt</li>
+ *   <li>Hachage sécurisé des mots de passe avec BCrypt, sur le pool de {@link PasswordHasher}</li>
+ *   <li>Hash recalculé à la connexion quand le coût BCrypt configuré change</li>
  *   <li>Attribution automatique du rôle PARTICIPANT aux nouveaux inscrits</li>
  *   <li>Validation de la robustesse des mots de passe</li>
  * </ul>
@@ -130,11 +137,16 @@ public class UserServiceImpl implements UserService {
             throw new IllegalArgumentException("Compte désactivé. Contactez l'administrateur.");
         }
         
-        // Vérification du mot de passe
-        if (!PasswordUtil.checkPassword(password, user.getPasswordHash())) {
+        // Vérification du mot de passe, sur le pool de hachage
+        if (!PasswordHasher.getInstance().check(password, user.getPasswordHash())) {
             throw new IllegalArgumentException("Identifiants incorrects");
         }
         
+        // Hash d'un autre coût que celui configuré : recalculé en arrière-plan
+        if (PasswordUtil.needsRehash(user.getPasswordHash())) {
+            rehash(user, password);
+        }
+        
         return user;
     }
     
@@ -197,6 +209,8 @@ public class UserServiceImpl implements UserService {
         
         // Mise à jour via le DAO
         userDAO.update(user);
+        // Les dossards déjà générés portent l'ancien nom/email
+        RenderedFileCache.getInstance().invalidateUser(user.getId());
         return user;
     }
 
@@ -225,7 +239,7 @@ public class UserServiceImpl implements UserService {
         User user = userOpt.get();
         
         // Vérification de l'ancien mot de passe
-        if (!PasswordUtil.checkPassword(oldPassword, user.getPasswordHash())) {
+        if (!PasswordHasher.getInstance().check(oldPassword, user.getPasswordHash())) {
             return false; // Ancien mot de passe incorrect
         }
         
@@ -295,6 +309,11 @@ public class UserServiceImpl implements UserService {
     @Override
     public void delete(int userId) throws SQLException {
         userDAO.delete(userId);
+        // Les courses créées et les participations sont supprimées en cascade
+        CourseCatalogCache.getInstance().invalidate();
+        CourseSeatCounter.getInstance().clear();
+        RenderedFileCache.getInstance().invalidateUser(userId);
+        CourseSearchIndex.getInstance().invalidate();
     }
     
     /**
@@ -425,6 +444,28 @@ public class UserServiceImpl implements UserService {
         }
     }
     
+    /**
+     * Recalcule le hash d'un utilisateur au coût configuré, en arrière-plan :
+     * la connexion n'attend pas. Pool saturé ou hash changé entre-temps, le
+     * recalcul est abandonné et refait à la connexion suivante.
+     */
+    private void rehash(User user, String password) {
+        String previousHash = user.getPasswordHash();
+        boolean queued = PasswordHasher.getInstance().hashInBackground(password, newHash -> {
+            try {
+                if (userDAO.replacePasswordHash(user.getId(), previousHash, newHash)) {
+                    Logger.info("UserServiceImpl", "Hash du mot de passe recalculé au coût "
+                            + PasswordUtil.getRounds() + " pour l'utilisateur " + user.getId());
+                }
+            } catch (SQLException e) {
+                Logger.error("UserServiceImpl", "Recalcul du hash impossible pour l'utilisateur " + user.getId(), e);
+            }
+        });
+        if (!queued) {
+            Logger.debug("UserServiceImpl", () -> "Recalcul du hash reporté, pool saturé (utilisateur " + user.getId() + ")");
+        }
+    }
+    
     /**
      * Valide la robustesse d'un mot de passe.
      * 
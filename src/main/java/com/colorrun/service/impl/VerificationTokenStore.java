@@ -0,0 +1,315 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.dao.VerificationTokenDAO;
+import com.colorrun.util.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Jetons de vérification d'email : émission, validation et purge.
+ *
+ * <p>Un jeton est une valeur aléatoire de 256 bits envoyée dans le lien de
+ * vérification ; la base n'en garde que l'empreinte SHA-256
+ * ({@link VerificationTokenDAO}). Les jetons émis récemment sont aussi gardés
+ * en mémoire (empreinte → utilisateur et expiration), dans la limite de
+ * {@code cacheSize} : la validation d'un jeton connu ne relit pas la base
+ * avant de le consommer, et un jeton expiré est refusé sans requête. La
+ * base reste l'autorité : un jeton n'est validé que si sa suppression
+ * aboutit, ce qui refuse aussi un jeton remplacé entre-temps.</p>
+ *
+ * <p>Les jetons expirés sont purgés en tâche de fond, par tranches de
+ * {@code sweepBatchSize} lignes dans l'ordre d'expiration : une purge ne
+ * verrouille jamais la table entière.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.verification.expiryHours</code> : durée de validité d'un jeton (défaut : 24)</li>
+ *   <li><code>colorrun.verification.cacheSize</code> : jetons gardés en mémoire au plus (défaut : 10000)</li>
+ *   <li><code>colorrun.verification.sweepMinutes</code> : intervalle entre deux purges (défaut : 10)</li>
+ *   <li><code>colorrun.verification.sweepBatchSize</code> : jetons supprimés par requête de purge (défaut : 500)</li>
+ * </ul>
+ */
+public final class VerificationTokenStore {
+
+    private static final VerificationTokenStore INSTANCE = new VerificationTokenStore(
+            new VerificationTokenDAO(),
+            Long.getLong("colorrun.verification.expiryHours", 24L),
+            Integer.getInteger("colorrun.verification.cacheSize", 10_000),
+            Long.getLong("colorrun.verification.sweepMinutes", 10L),
+            Integer.getInteger("colorrun.verification.sweepBatchSize", 500));
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    /** Jeton en attente, tel que gardé en mémoire */
+    private static final class Pending {
+        final int userId;
+        final LocalDateTime expiryDate;
+
+        Pending(int userId, LocalDateTime expiryDate) {
+            this.userId = userId;
+            this.expiryDate = expiryDate;
+        }
+    }
+
+    private final VerificationTokenDAO tokenDAO;
+    private final long expiryHours;
+    private final int cacheSize;
+    private final long sweepMinutes;
+    private final int sweepBatchSize;
+
+    /** Empreinte → jeton, du plus ancien au plus récent ; protégé par this */
+    private final LinkedHashMap<String, Pending> pending;
+    /** Utilisateur → empreinte de son jeton en mémoire ; protégé par this */
+    private final Map<Integer, String> hashByUser = new HashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder validated = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    VerificationTokenStore(VerificationTokenDAO tokenDAO, long expiryHours, int cacheSize,
+                           long sweepMinutes, int sweepBatchSize) {
+        this.tokenDAO = tokenDAO;
+        this.expiryHours = Math.max(1L, expiryHours);
+        this.cacheSize = Math.max(0, cacheSize);
+        this.sweepMinutes = Math.max(1L, sweepMinutes);
+        this.sweepBatchSize = Math.max(1, sweepBatchSize);
+        this.pending = new LinkedHashMap<>(Math.min(this.cacheSize, 1024) * 4 / 3 + 1) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Pending> eldest) {
+                if (size() <= VerificationTokenStore.this.cacheSize) {
+                    return false;
+                }
+                // Le jeton reste en base : sa validation passera par une lecture
+                hashByUser.remove(eldest.getValue().userId, eldest.getKey());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return l'instance partagée par les services
+     */
+    public static VerificationTokenStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Émet un jeton pour un utilisateur, à la place de son jeton précédent,
+     * dans la transaction de l'appelant.
+     *
+     * @return le jeton, à envoyer dans le lien de vérification
+     */
+    public String issue(Connection connection, int userId) throws SQLException {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = ENCODER.encodeToString(bytes);
+        String hash = hash(token);
+        LocalDateTime expiryDate = LocalDateTime.now().plusHours(expiryHours);
+
+        tokenDAO.replace(connection, userId, hash, expiryDate);
+        // Mis en mémoire avant la validation de la transaction : annulée, le
+        // jeton ne sera pas trouvé en base et sera refusé
+        remember(hash, new Pending(userId, expiryDate));
+        issued.increment();
+        return token;
+    }
+
+    /**
+     * Consomme un jeton, dans la transaction de l'appelant.
+     *
+     * @return l'utilisateur du jeton, ou 0 si le jeton est inconnu, expiré ou déjà utilisé
+     */
+    public int consume(Connection connection, String token) throws SQLException {
+        String hash = hash(token);
+        LocalDateTime now = LocalDateTime.now();
+
+        Pending cached = forget(hash);
+        int userId;
+        if (cached != null) {
+            cacheHits.increment();
+            userId = cached.expiryDate.isAfter(now) ? cached.userId : 0;
+        } else {
+            cacheMisses.increment();
+            userId = tokenDAO.findUserId(hash, now);
+        }
+
+        if (userId == 0 || !tokenDAO.consume(connection, hash, now)) {
+            rejected.increment();
+            return 0;
+        }
+        validated.increment();
+        return userId;
+    }
+
+    /**
+     * @return true si le jeton existe et n'a pas expiré
+     */
+    public boolean isValid(String token) throws SQLException {
+        String hash = hash(token);
+        LocalDateTime now = LocalDateTime.now();
+        Pending cached;
+        synchronized (this) {
+            cached = pending.get(hash);
+        }
+        if (cached != null) {
+            cacheHits.increment();
+            return cached.expiryDate.isAfter(now);
+        }
+        cacheMisses.increment();
+        return tokenDAO.findUserId(hash, now) > 0;
+    }
+
+    private synchronized void remember(String hash, Pending token) {
+        if (cacheSize == 0) {
+            return;
+        }
+        String previous = hashByUser.put(token.userId, hash);
+        if (previous != null) {
+            pending.remove(previous);
+        }
+        pending.put(hash, token);
+    }
+
+    private synchronized Pending forget(String hash) {
+        Pending token = pending.remove(hash);
+        if (token != null) {
+            hashByUser.remove(token.userId, hash);
+        }
+        return token;
+    }
+
+    /**
+     * Supprime les jetons expirés, tranche par tranche, en base et en mémoire.
+     *
+     * @return nombre de jetons supprimés en base
+     */
+    public int sweep() throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (this) {
+            pending.values().removeIf(token -> {
+                if (token.expiryDate.isAfter(now)) {
+                    return false;
+                }
+                hashByUser.remove(token.userId);
+                return true;
+            });
+        }
+
+        int total = 0;
+        int deleted;
+        do {
+            deleted = tokenDAO.deleteExpired(now, sweepBatchSize);
+            total += deleted;
+            expired.add(deleted);
+        } while (deleted == sweepBatchSize && !Thread.currentThread().isInterrupted());
+
+        if (total > 0) {
+            Logger.info("VerificationTokenStore", total + " jeton(s) de vérification expiré(s) supprimé(s)");
+        }
+        return total;
+    }
+
+    /**
+     * Démarre les purges périodiques. Sans effet si elles sont déjà démarrées.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "verification-token-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::sweepSafely, sweepMinutes, sweepMinutes, TimeUnit.MINUTES);
+        Logger.info("VerificationTokenStore", "Purge des jetons expirés toutes les " + sweepMinutes + " min");
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (SQLException | RuntimeException e) {
+            // Ne jamais laisser une exception arrêter l'exécution périodique
+            Logger.error("VerificationTokenStore", "Purge des jetons interrompue", e);
+        }
+    }
+
+    /**
+     * Arrête les purges périodiques.
+     */
+    public void close() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = executor;
+            executor = null;
+        }
+        if (current == null) {
+            return;
+        }
+        current.shutdownNow();
+        try {
+            current.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Logger.info("VerificationTokenStore", "Purge des jetons arrêtée - " + getStatsSummary());
+    }
+
+    /**
+     * Empreinte SHA-256 d'un jeton, en hexadécimal (colonne tokenHash).
+     */
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    /**
+     * @return la durée de validité d'un jeton, en heures
+     */
+    public long getExpiryHours() {
+        return expiryHours;
+    }
+
+    public String getStatsSummary() {
+        int cached;
+        synchronized (this) {
+            cached = pending.size();
+        }
+        return "VerificationTokenStore{émis=" + issued.sum() +
+                ", validés=" + validated.sum() +
+                ", refusés=" + rejected.sum() +
+                ", expirés=" + expired.sum() +
+                ", enMémoire=" + cached + "/" + cacheSize +
+                ", succèsCache=" + cacheHits.sum() +
+                ", échecsCache=" + cacheMisses.sum() +
+                '}';
+    }
+}
@@ -2,10 +2,21 @@ package com.colorrun.servlet;
 
 import com.colorrun.business.OrganizerRequest;
 import com.colorrun.business.User;
+import com.colorrun.cache.CourseCatalogCache;
+import com.colorrun.cache.CourseSeatCounter;
+import com.colorrun.cache.RenderedFileCache;
+import com.colorrun.config.DatabaseConfig;
+import com.colorrun.config.ThymeleafConfig;
 import com.colorrun.service.OrganizerRequestService;
 import com.colorrun.service.UserService;
+import com.colorrun.service.impl.CourseReminderScheduler;
+import com.colorrun.service.impl.DiscussionFeedHub;
+import com.colorrun.service.impl.EmailOutboxDispatcher;
 import com.colorrun.service.impl.OrganizerRequestServiceImpl;
 import com.colorrun.service.impl.UserServiceImpl;
+import com.colorrun.service.impl.VerificationTokenStore;
+import com.colorrun.security.LoginThrottle;
+import com.colorrun.security.PasswordHasher;
 import com.colorrun.security.TokenManager;
 import com.colorrun.security.UserToken;
 import com.colorrun.util.Logger;
@@ -212,6 +223,22 @@ public class AdminServlet extends HttpServlet {
         request.setAttribute("organizers", organizers);
         request.setAttribute("admins", admins);
         
+        // Métriques techniques
+        request.setAttribute("dbPool", DatabaseConfig.getPool() != null
+                ? DatabaseConfig.getPool().getStatsSummary() : "Pool désactivé");
+        request.setAttribute("courseCatalogCache", CourseCatalogCache.getInstance().getStatsSummary());
+        request.setAttribute("courseSeatCounter", CourseSeatCounter.getInstance().getStatsSummary());
+        request.setAttribute("renderedFileCache", RenderedFileCache.getInstance().getStatsSummary());
+        request.setAttribute("emailOutbox", EmailOutboxDispatcher.getInstance().getStatsSummary());
+        request.setAttribute("courseReminders", CourseReminderScheduler.getInstance().getStatsSummary());
+        request.setAttribute("verificationTokens", VerificationTokenStore.getInstance().getStatsSummary());
+        request.setAttribute("discussionFeed", DiscussionFeedHub.getInstance().getStatsSummary());
+        request.setAttribute("thymeleafCache", ThymeleafConfig.getStatsSummary());
+        request.setAttribute("logging", Logger.getStatsSummary());
+        request.setAttribute("authTokens", TokenManager.getStatsSummary());
+        request.setAttribute("passwordHashing", PasswordHasher.getInstance().getStatsSummary());
+        request.setAttribute("loginThrottle", LoginThrottle.getInstance().getStatsSummary());
+        
         request.getRequestDispatcher("/WEB-INF/views/admin/statistics.html").forward(request, response);
     }
     
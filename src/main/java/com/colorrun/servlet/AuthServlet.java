@@ -5,9 +5,11 @@ import javax.servlet.http.*;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import com.colorrun.service.UserService;
 import com.colorrun.service.impl.UserServiceImpl;
 import com.colorrun.business.User;
+import com.colorrun.security.LoginThrottle;
 import com.colorrun.security.TokenManager;
 import com.colorrun.security.UserToken;
 import com.colorrun.util.Logger;
@@ -66,7 +68,13 @@ public class AuthServlet extends HttpServlet {
      *   <li>Configuration de l'encodage UTF-8</li>
      *   <li>Récupération des paramètres email et password</li>
      *   <li>Validation de la présence des paramètres</li>
-     *   <li>Tentative d'authentification via UserService</li>
+     *   <li>Réservation d'une tentative ; refus (429) si le compte ou l'adresse
+     *       a trop d'échecs récents ({@link LoginThrottle})</li>
+     *   <li>Tentative d'authentification via UserService ; refus (503) immédiat
+     *       si la file du pool de hachage est pleine. Sinon le thread de Tomcat
+     *       attend le résultat du calcul, au plus
+     *       <code>colorrun.password.timeoutMillis</code> (5 s par défaut),
+     *       puis répond 503</li>
      *   <li>Création de session si succès, sinon affichage d'erreur</li>
      *   <li>Redirection appropriée</li>
      * </ol>
@@ -102,22 +110,33 @@ public class AuthServlet extends HttpServlet {
             return;
         }
         
+        // Trop d'échecs récents pour ce compte ou cette adresse : refus avant tout calcul BCrypt.
+        // Sinon la tentative est réservée, et comptée comme un échec tant qu'elle n'est pas rendue.
+        LoginThrottle throttle = LoginThrottle.getInstance();
+        String address = req.getRemoteAddr();
+        long retryAfter = throttle.tryAcquire(email, address);
+        if (retryAfter > 0) {
+            Logger.warn("AuthServlet", "Connexion limitée pour " + email.trim() + " depuis " + address);
+            resp.setStatus(429);
+            resp.setHeader("Retry-After", String.valueOf(retryAfter));
+            req.setAttribute("error", "Trop de tentatives de connexion. Réessayez dans "
+                    + ((retryAfter + 59) / 60) + " minute(s).");
+            req.getRequestDispatcher("/WEB-INF/views/acceuil-2.jsp").forward(req, resp);
+            return;
+        }
+        
+        boolean settled = false;
         try {
             // Tentative d'authentification via le service utilisateur
             User user = userService.authenticate(email.trim(), password);
+            throttle.recordSuccess(email, address);
+            settled = true;
             
-            // Authentification réussie - création du token utilisateur
-            HttpSession session = req.getSession();
-            
-            // Créer et stocker le token utilisateur
-            UserToken token = TokenManager.createToken(user, session);
+            // Authentification réussie - création du token utilisateur (session ou cookie signé)
+            UserToken token = TokenManager.createToken(user, req, resp);
             Logger.info("AuthServlet", "Token créé pour " + user.getFirstName() + " " + user.getLastName() + 
                        " - Rôle: " + token.getRoleDescription());
-            
-            // Garder l'objet user pour compatibilité (temporaire)
-            session.setAttribute("user", user);
-            session.setAttribute("userId", user.getId());
-            session.setAttribute("userRole", user.getRole());
+            HttpSession session = req.getSession();
             
             // Détermination de la page de redirection selon le rôle utilisateur
             String redirectUrl = determineRedirectUrl(user.getRole());
@@ -128,7 +147,23 @@ public class AuthServlet extends HttpServlet {
             // Redirection vers la page appropriée
             resp.sendRedirect(req.getContextPath() + redirectUrl);
             
+        } catch (RejectedExecutionException e) {
+            // Pool de hachage saturé : la tentative n'est pas comptée comme un échec
+            throttle.release(email, address);
+            Logger.warn("AuthServlet", "Connexion refusée, vérification des mots de passe saturée : " + e.getMessage());
+            resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            resp.setHeader("Retry-After", "5");
+            req.setAttribute("error", "Le service de connexion est très sollicité, réessayez dans quelques instants.");
+            req.getRequestDispatcher("/WEB-INF/views/acceuil-2.jsp").forward(req, resp);
+            
         } catch (Exception e) {
+            // Après une authentification réussie, la tentative a déjà été rendue
+            if (!settled && e instanceof IllegalArgumentException) {
+                throttle.recordFailure();
+            } else if (!settled) {
+                throttle.release(email, address);
+            }
+            
             // Authentification échouée - affichage d'un message d'erreur sécurisé
             // On ne précise pas si c'est l'email ou le mot de passe qui est incorrect
             // pour des raisons de sécurité
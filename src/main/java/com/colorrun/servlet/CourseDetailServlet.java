@@ -9,6 +9,7 @@ import com.colorrun.service.CourseService;
 import com.colorrun.service.DiscussionService;
 import com.colorrun.service.ParticipationService;
 import com.colorrun.service.impl.CourseServiceImpl;
+import com.colorrun.service.impl.DiscussionFeedHub;
 import com.colorrun.service.impl.DiscussionServiceImpl;
 import com.colorrun.service.impl.ParticipationServiceImpl;
 import com.colorrun.business.User;
@@ -61,9 +62,12 @@ public class CourseDetailServlet extends HttpServlet {
                 isCreator = currentToken.getUserId() == course.getUserCreateId();
             }
             
+            // Position du flux prise avant la lecture : le flux de la page reprendra à partir d'ici
+            String feedCursor = DiscussionFeedHub.getInstance().cursor();
+            
             // Récupérer les messages de discussion de la course (triés par date ASC - plus anciens en haut)
             List<Discussion> discussions = discussionService.findByCourse(id);
-            Logger.debug("CourseDetailServlet", "Récupération de " + discussions.size() + " messages pour la course " + id);
+            Logger.debug("CourseDetailServlet", () -> "Récupération de " + discussions.size() + " messages pour la course " + id);
             
             // Si c'est une requête AJAX pour actualiser les messages
             String ajaxParam = req.getParameter("ajax");
@@ -115,6 +119,7 @@ public class CourseDetailServlet extends HttpServlet {
             req.setAttribute("isRegistered", isRegistered);
             req.setAttribute("isAuthenticated", isAuthenticated);
             req.setAttribute("isCreator", isCreator);
+            req.setAttribute("discussionFeedCursor", feedCursor);
             // Afficher la popup de participation si l'utilisateur est authentifié et pas encore inscrit
             req.setAttribute("showParticipationPopup", isAuthenticated && !isRegistered);
             
@@ -145,7 +150,7 @@ public class CourseDetailServlet extends HttpServlet {
         String courseIdParam = req.getParameter("courseId");
         String content = req.getParameter("content");
         
-        Logger.debug("CourseDetailServlet", "Tentative d'envoi de message - courseId: " + courseIdParam + ", content: " + (content != null ? content.length() + " chars" : "null"));
+        Logger.debug("CourseDetailServlet", () -> "Tentative d'envoi de message - courseId: " + courseIdParam + ", content: " + (content != null ? content.length() + " chars" : "null"));
         
         if (courseIdParam == null || courseIdParam.isEmpty()) {
             Logger.error("CourseDetailServlet", "Course ID manquant");
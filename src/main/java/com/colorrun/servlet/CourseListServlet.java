@@ -1,6 +1,7 @@
 package com.colorrun.servlet;
 
 import com.colorrun.business.Course;
+import com.colorrun.business.CoursePage;
 import com.colorrun.business.User;
 import com.colorrun.security.TokenManager;
 import com.colorrun.service.CourseService;
@@ -18,19 +19,29 @@ import java.io.IOException;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Servlet d'affichage de la liste des courses accessibles via <code>/courses</code>.
  * <p>
  * Responsabilités :
  * <ul>
- *   <li>Récupérer toutes les {@link com.colorrun.business.Course} via le {@link com.colorrun.service.CourseService}</li>
+ *   <li>Récupérer une page de {@link com.colorrun.business.Course} via le {@link com.colorrun.service.CourseService}</li>
  *   <li>Vérifier, si l'utilisateur est connecté, les participations existantes</li>
  *   <li>Transférer la requête vers le JSP <code>/WEB-INF/views/courses/simple-list.jsp</code></li>
  *   <li>Gérer les messages flash et l'encodage UTF-8</li>
  * </ul>
  * Les requêtes POST sont simplement redirigées vers {@link #doGet(HttpServletRequest, HttpServletResponse)}.
  * </p>
+ * <p>
+ * Paramètres de pagination : <code>after</code> (curseur renvoyé par la page
+ * précédente) et <code>size</code> (taille de page, bornée par
+ * {@link CourseService#MAX_PAGE_SIZE}). Les filtres <code>date</code>,
+ * <code>city</code>, <code>distance</code> et <code>sort</code> sont appliqués côté base.
+ * Avec un terme de recherche <code>q</code>, les courses viennent de
+ * {@link CourseService#searchCoursesPage} : classées par pertinence, ou
+ * selon <code>sort</code> s'il est fourni, et paginées de la même façon.
+ * </p>
  */
 @WebServlet(name = "CourseListServlet", urlPatterns = {"/courses"})
 public class CourseListServlet extends HttpServlet {
@@ -66,47 +77,65 @@ public class CourseListServlet extends HttpServlet {
             String userName = (String) request.getAttribute("userName");
             String userRole = (String) request.getAttribute("userRole");
             Boolean isAuthenticated = (Boolean) request.getAttribute("isAuthenticated");
-            User user = (User) request.getSession().getAttribute("user");
+            User user = TokenManager.getCurrentUser(request);
             
-            Logger.debug("CourseListServlet", 
+            Logger.debug("CourseListServlet", () ->
                 "Utilisateur: " + (isAuthenticated ? userName + " (" + userRole + ")" : "Non connecté"));
             
-            // Récupérer toutes les courses
+            // Récupérer la page de courses demandée
             Logger.step("CourseListServlet", "🔄 Récupération courses depuis BDD");
-            List<Course> courses = courseService.getAllCourses();
+            String date = request.getParameter("date");
+            String city = request.getParameter("city");
+            String distance = request.getParameter("distance");
+            String sort = request.getParameter("sort");
+            String searchTerm = request.getParameter("q");
+            int pageSize = parsePageSize(request.getParameter("size"));
+            boolean search = searchTerm != null && !searchTerm.trim().isEmpty();
+            CoursePage page;
+            try {
+                page = search
+                        ? courseService.searchCoursesPage(searchTerm, date, city, distance, sort,
+                                request.getParameter("after"), pageSize)
+                        : courseService.findFilteredPage(date, city, distance, sort,
+                                request.getParameter("after"), pageSize);
+            } catch (IllegalArgumentException e) {
+                Logger.warn("CourseListServlet", "Curseur ignoré: " + e.getMessage());
+                page = search
+                        ? courseService.searchCoursesPage(searchTerm, date, city, distance, sort, null, pageSize)
+                        : courseService.findFilteredPage(date, city, distance, sort, null, pageSize);
+            }
+            List<Course> courses = page.getCourses();
             
             if (courses != null) {
                 Logger.success("CourseListServlet", 
                     "✅ " + courses.size() + " course(s) récupérée(s)");
                 
                 // Log détaillé des courses
-                for (Course course : courses) {
-                    Logger.debug("CourseListServlet", 
-                        "Course: " + course.getName() + " - " + course.getCity() + 
-                        " (" + course.getDistance() + "km)");
+                if (Logger.isDebugEnabled()) {
+                    for (Course course : courses) {
+                        Logger.debug("CourseListServlet", 
+                            "Course: " + course.getName() + " - " + course.getCity() + 
+                            " (" + course.getDistance() + "km)");
+                    }
                 }
             } else {
                 Logger.warn("CourseListServlet", "⚠️ Aucune course trouvée");
                 courses = List.of(); // Liste vide pour éviter les erreurs
             }
 
-            // Vérifier les participations de l'utilisateur si connecté
+            // Vérifier les participations de l'utilisateur si connecté (une seule requête)
             Map<Integer, Boolean> userParticipations = new HashMap<>();
             if (isAuthenticated && user != null) {
                 Logger.step("CourseListServlet", "🔄 Vérification participations utilisateur");
+                Set<Integer> registeredCourseIds = Set.of();
+                try {
+                    registeredCourseIds = participationService.getRegisteredCourseIds(user.getId());
+                } catch (Exception e) {
+                    Logger.warn("CourseListServlet", 
+                        "Erreur vérification participations: " + e.getMessage());
+                }
                 for (Course course : courses) {
-                    try {
-                        boolean isRegistered = participationService.isUserRegistered(user.getId(), course.getId());
-                        userParticipations.put(course.getId(), isRegistered);
-                        if (isRegistered) {
-                            Logger.debug("CourseListServlet", 
-                                "Utilisateur déjà inscrit à: " + course.getName());
-                        }
-                    } catch (Exception e) {
-                        Logger.warn("CourseListServlet", 
-                            "Erreur vérification participation pour course " + course.getId() + ": " + e.getMessage());
-                        userParticipations.put(course.getId(), false);
-                    }
+                    userParticipations.put(course.getId(), registeredCourseIds.contains(course.getId()));
                 }
                 Logger.step("CourseListServlet", "✅ Participations vérifiées");
             }
@@ -114,6 +143,8 @@ public class CourseListServlet extends HttpServlet {
             // Ajouter les courses et participations à la requête pour le JSP
             request.setAttribute("courses", courses);
             request.setAttribute("userParticipations", userParticipations);
+            request.setAttribute("nextCursor", page.getNextCursor());
+            request.setAttribute("pageSize", page.getPageSize());
             
             // Messages flash (si présents) - les garder en session pour le JSP
             String success = (String) request.getSession().getAttribute("success");
@@ -145,6 +176,20 @@ public class CourseListServlet extends HttpServlet {
         }
     }
     
+    /**
+     * Lit le paramètre <code>size</code> ; 0 (taille par défaut) s'il est absent ou invalide.
+     */
+    private int parsePageSize(String size) {
+        if (size == null || size.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(size);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+    
     /**
      * Redirige toute requête POST vers {@link #doGet(HttpServletRequest, HttpServletResponse)}.
      */
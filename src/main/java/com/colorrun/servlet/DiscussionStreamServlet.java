@@ -0,0 +1,80 @@
+package com.colorrun.servlet;
+
+import javax.servlet.*;
+import javax.servlet.http.*;
+import java.io.IOException;
+import java.sql.SQLException;
+import com.colorrun.service.CourseService;
+import com.colorrun.service.impl.CourseServiceImpl;
+import com.colorrun.service.impl.DiscussionFeedHub;
+import com.colorrun.util.Logger;
+
+/**
+ * Flux Server-Sent Events des messages de discussion d'une course
+ * (<code>GET /discussion/stream?courseId=…</code>).
+ * <p>
+ * La requête passe en mode asynchrone et est confiée à
+ * {@link DiscussionFeedHub} : le thread de Tomcat est rendu aussitôt, la
+ * connexion reste ouverte jusqu'au départ du client ou à l'expiration du
+ * flux. Le dernier événement reçu est lu dans l'en-tête
+ * <code>Last-Event-ID</code> (reconnexion automatique du navigateur) ou, à la
+ * première connexion, dans le paramètre <code>lastEventId</code> rendu avec
+ * la page.
+ * </p>
+ * Réponses d'erreur : 400 (course invalide), 404 (course inconnue) ou 503
+ * (trop de flux ouverts).
+ */
+public class DiscussionStreamServlet extends HttpServlet {
+
+    private final CourseService courseService;
+    private final DiscussionFeedHub feedHub;
+
+    public DiscussionStreamServlet() {
+        this.courseService = new CourseServiceImpl();
+        this.feedHub = DiscussionFeedHub.getInstance();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        int courseId;
+        try {
+            courseId = Integer.parseInt(req.getParameter("courseId"));
+        } catch (NumberFormatException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid course ID");
+            return;
+        }
+
+        try {
+            if (!courseService.findById(courseId).isPresent()) {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Course not found");
+                return;
+            }
+        } catch (SQLException e) {
+            Logger.error("DiscussionStreamServlet", "Erreur lors de la recherche de la course " + courseId + ": " + e.getMessage());
+            resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+            return;
+        }
+
+        if (feedHub.isFull()) {
+            Logger.debug("DiscussionStreamServlet", () -> "Flux refusé pour la course " + courseId + " : " + feedHub.getStatsSummary());
+            resp.setHeader("Retry-After", "30");
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many open streams");
+            return;
+        }
+
+        String lastEventId = req.getHeader("Last-Event-ID");
+        if (lastEventId == null) {
+            lastEventId = req.getParameter("lastEventId");
+        }
+
+        resp.setContentType("text/event-stream");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        // Pas de mise en tampon par un proxy nginx
+        resp.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext context = req.startAsync();
+        context.setTimeout(feedHub.getStreamTimeoutMillis());
+        feedHub.subscribe(context, courseId, lastEventId);
+    }
+}
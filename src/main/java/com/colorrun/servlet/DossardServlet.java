@@ -4,12 +4,14 @@ import com.colorrun.business.User;
 import com.colorrun.business.Course;
 import com.colorrun.business.Participation;
 import com.colorrun.business.Dossard;
+import com.colorrun.cache.RenderedFileCache;
 import com.colorrun.service.ParticipationService;
 import com.colorrun.service.CourseService;
 import com.colorrun.service.QRCodeService;
 import com.colorrun.service.PDFDossardService;
 import com.colorrun.service.impl.ParticipationServiceImpl;
 import com.colorrun.service.impl.CourseServiceImpl;
+import com.colorrun.service.impl.DossardBulkJob;
 import com.colorrun.service.impl.QRCodeServiceImpl;
 import com.colorrun.service.impl.PDFDossardServiceImpl;
 import com.colorrun.security.TokenManager;
@@ -21,6 +23,8 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.NoSuchFileException;
 import java.util.Optional;
 
 /**
@@ -30,6 +34,7 @@ import java.util.Optional;
  * - L'envoi de dossards par email avec QR codes
  * - Le téléchargement direct de dossards
  * - La génération de QR codes pour les participations
+ * - L'export de tous les dossards d'une course (action=bulk)
  * 
  * @author Équipe Color Run
  * @version 1.0
@@ -37,15 +42,24 @@ import java.util.Optional;
  */
 public class DossardServlet extends HttpServlet {
     
+    /** Attributs de requête du sendfile de Tomcat (voir son DefaultServlet) */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
     private final ParticipationService participationService;
     private final CourseService courseService;
     private final QRCodeService qrCodeService;
     private final PDFDossardService pdfDossardService;
+    private final RenderedFileCache renderCache;
+    
     public DossardServlet() {
         this.participationService = new ParticipationServiceImpl();
         this.courseService = new CourseServiceImpl();
         this.qrCodeService = new QRCodeServiceImpl();
         this.pdfDossardService = new PDFDossardServiceImpl();
+        this.renderCache = RenderedFileCache.getInstance();
     }
     
     @Override
@@ -75,7 +89,13 @@ public class DossardServlet extends HttpServlet {
             int courseId = Integer.parseInt(courseIdParam);
             int userId = token.getUserId();
             
-            Logger.debug("DossardServlet", "Course: " + courseId + ", User: " + userId + ", Action: " + action);
+            Logger.debug("DossardServlet", () -> "Course: " + courseId + ", User: " + userId + ", Action: " + action);
+            
+            // Export de tous les dossards de la course (organisateur ou admin)
+            if ("bulk".equals(action)) {
+                handleBulkDownload(request, response, token, courseId);
+                return;
+            }
             
             // Vérifier que l'utilisateur est inscrit à cette course
             if (!participationService.isUserRegistered(userId, courseId)) {
@@ -110,7 +130,7 @@ public class DossardServlet extends HttpServlet {
             participation.setId(generateParticipationId(userId, courseId));
             
             // Toujours générer et télécharger le PDF (plus besoin d'action)
-            handlePDFDownload(response, participation, user, course);
+            handlePDFDownload(request, response, participation, user, course);
             
         } catch (NumberFormatException e) {
             Logger.error("DossardServlet", "❌ Course ID invalide: " + courseIdParam);
@@ -125,24 +145,34 @@ public class DossardServlet extends HttpServlet {
     /**
      * Gère le téléchargement du PDF de dossard avec QR code intégré.
      */
-    private void handlePDFDownload(HttpServletResponse response, Participation participation, 
+    private void handlePDFDownload(HttpServletRequest request, HttpServletResponse response, Participation participation, 
                                   User user, Course course) throws Exception {
         
         Logger.step("DossardServlet", "📄 Génération PDF dossard avec QR code");
         
         try {
-            // Générer le QR code
-            byte[] qrCodeBytes = qrCodeService.generateQRCode(participation);
-            
-            // Générer le PDF avec QR code intégré
-            byte[] pdfBytes = pdfDossardService.generateDossardPDF(user, course, participation, qrCodeBytes);
-            
             // Générer le nom de fichier
             String fileName = pdfDossardService.generateDossardFileName(course.getName(), participation.getId());
             
-            // Configurer la réponse pour le téléchargement
             response.setContentType("application/pdf");
             response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
+            
+            // Rendu déjà en cache : envoi direct du fichier
+            String key = RenderedFileCache.key("dossard-pdf-v3",
+                    user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(),
+                    course.getId(), course.getName(), course.getDate(), course.getCity(), course.getDistance(),
+                    participation.getId());
+            RenderedFileCache.Cached cached = renderCache.get(course.getId(), user.getId(), key, "pdf");
+            if (cached != null && sendCached(request, response, cached)) {
+                Logger.success("DossardServlet", "✅ PDF dossard servi depuis le cache: " + fileName);
+                return;
+            }
+            
+            // Générer le PDF, QR code dessiné directement dans la page
+            byte[] pdfBytes = pdfDossardService.generateDossardPDF(user, course, participation);
+            renderCache.put(course.getId(), user.getId(), key, "pdf", pdfBytes);
+            
+            // Configurer la réponse pour le téléchargement
             response.setContentLength(pdfBytes.length);
             
             // Écrire le PDF dans la réponse
@@ -160,6 +190,44 @@ public class DossardServlet extends HttpServlet {
         }
     }
     
+    /**
+     * Export en masse : tous les dossards de la course dans un PDF unique
+     * (format=pdf, par défaut) ou un ZIP (format=zip), écrits au fil de la
+     * génération. Réservé à l'organisateur de la course et aux administrateurs.
+     */
+    private void handleBulkDownload(HttpServletRequest request, HttpServletResponse response,
+                                    UserToken token, int courseId) throws Exception {
+        
+        Optional<Course> courseOpt = courseService.findById(courseId);
+        if (!courseOpt.isPresent()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Course non trouvée");
+            return;
+        }
+        
+        Course course = courseOpt.get();
+        if (!token.isAdmin() && course.getUserCreateId() != token.getUserId()) {
+            Logger.warn("DossardServlet", "❌ Export refusé pour l'utilisateur " + token.getUserId());
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Réservé à l'organisateur de la course");
+            return;
+        }
+        
+        DossardBulkJob.Format format = "zip".equalsIgnoreCase(request.getParameter("format"))
+                ? DossardBulkJob.Format.ZIP : DossardBulkJob.Format.PDF;
+        String baseName = "dossards_" + course.getName().replaceAll("[^a-zA-Z0-9]+", "_").toLowerCase();
+        
+        Logger.step("DossardServlet", () -> "📦 Export " + format + " des dossards de la course " + courseId);
+        
+        response.setContentType(format == DossardBulkJob.Format.ZIP ? "application/zip" : "application/pdf");
+        response.setHeader("Content-Disposition", "attachment; filename="
+                + baseName + (format == DossardBulkJob.Format.ZIP ? ".zip" : ".pdf"));
+        
+        DossardBulkJob job = new DossardBulkJob(courseId, format);
+        job.writeTo(response.getOutputStream());
+        response.getOutputStream().flush();
+        
+        Logger.success("DossardServlet", "✅ Export terminé: " + job.getSummary());
+    }
+    
     /**
      * Fallback : téléchargement simple du QR code en cas d'erreur PDF.
      */
@@ -167,7 +235,7 @@ public class DossardServlet extends HttpServlet {
         
         Logger.step("DossardServlet", "💾 Fallback: Téléchargement QR code simple");
         
-        byte[] qrCodeBytes = qrCodeService.generateQRCode(participation);
+        byte[] qrCodeBytes = qrCode(participation);
         
         response.setContentType("image/png");
         response.setHeader("Content-Disposition", 
@@ -182,6 +250,64 @@ public class DossardServlet extends HttpServlet {
     
 
     
+    /**
+     * QR code PNG d'une participation, lu dans le cache de rendu si possible.
+     * La clé ignore l'horodatage encodé dans le QR code : le premier rendu
+     * est conservé.
+     */
+    private byte[] qrCode(Participation participation) throws Exception {
+        User user = participation.getUser();
+        Course course = participation.getCourse();
+        String key = RenderedFileCache.key("qr-png-v1",
+                participation.getId(), user.getId(), user.getEmail(), course.getId(), course.getName());
+        
+        byte[] qrCodeBytes = renderCache.getBytes(course.getId(), user.getId(), key, "png");
+        if (qrCodeBytes == null) {
+            qrCodeBytes = qrCodeService.generateQRCode(participation);
+            renderCache.put(course.getId(), user.getId(), key, "png", qrCodeBytes);
+        }
+        return qrCodeBytes;
+    }
+    
+    /**
+     * Envoie un fichier du cache dans la réponse, sans le charger en mémoire.
+     * <p>
+     * Si le connecteur Tomcat le permet (NIO/APR avec <code>useSendfile</code>),
+     * l'envoi lui est délégué via les attributs <code>org.apache.tomcat.sendfile.*</code> :
+     * le noyau copie le fichier vers la socket, sans passer par la JVM. Sinon,
+     * le fichier est recopié vers le flux de la réponse par un petit tampon.
+     * Un fichier évincé entre cette vérification et l'envoi par Tomcat
+     * interrompt la réponse ; le client n'a qu'à relancer le téléchargement.
+     * </p>
+     *
+     * @return false si le fichier a disparu entre-temps (rien n'a été envoyé)
+     */
+    private boolean sendCached(HttpServletRequest request, HttpServletResponse response,
+                               RenderedFileCache.Cached cached) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            String path;
+            try {
+                path = cached.getPath().toRealPath().toString();
+            } catch (NoSuchFileException e) {
+                return false;
+            }
+            response.setContentLengthLong(cached.getSize());
+            request.setAttribute(SENDFILE_FILENAME, path);
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, cached.getSize());
+            return true;
+        }
+        
+        response.setContentLengthLong(cached.getSize());
+        try {
+            RenderedFileCache.transferTo(cached, Channels.newChannel(response.getOutputStream()));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        response.getOutputStream().flush();
+        return true;
+    }
+    
     /**
      * Génère un ID de participation temporaire basé sur userId et courseId.
      * En production, ceci devrait récupérer le vrai ID depuis la base de données.
@@ -31,14 +31,13 @@ public class LogoutServlet extends HttpServlet {
         
         Logger.separator("DÉCONNEXION UTILISATEUR");
         
-        // Invalider la session et détruire le token
+        // Détruire le token utilisateur (session, ou cookie signé révoqué)
+        Logger.info("LogoutServlet", "Déconnexion de l'utilisateur");
+        TokenManager.destroyToken(req, resp);
+        
+        // Invalider la session
         HttpSession session = req.getSession(false);
         if (session != null) {
-            Logger.info("LogoutServlet", "Déconnexion de l'utilisateur");
-            
-            // Détruire le token utilisateur
-            TokenManager.destroyToken(session);
-            
             session.invalidate();
             Logger.success("LogoutServlet", "Session et token invalidés avec succès");
         }
@@ -17,7 +17,6 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.sql.SQLException;
@@ -47,13 +46,12 @@ public class MessageServlet extends HttpServlet {
         resp.setContentType("text/html; charset=UTF-8");
         
         // Vérification de la connexion
-        HttpSession session = req.getSession(false);
-        if (session == null || session.getAttribute("user") == null) {
+        User user = TokenManager.getCurrentUser(req);
+        if (user == null) {
             resp.sendRedirect(req.getContextPath() + "/login");
             return;
         }
         
-        User user = (User) session.getAttribute("user");
         String action = req.getParameter("action");
         
         try {
@@ -96,13 +94,12 @@ public class MessageServlet extends HttpServlet {
         resp.setContentType("text/html; charset=UTF-8");
         
         // Vérification de la connexion
-        HttpSession session = req.getSession(false);
-        if (session == null || session.getAttribute("user") == null) {
+        User user = TokenManager.getCurrentUser(req);
+        if (user == null) {
             resp.sendRedirect(req.getContextPath() + "/login");
             return;
         }
         
-        User user = (User) session.getAttribute("user");
         String action = req.getParameter("action");
         
         try {
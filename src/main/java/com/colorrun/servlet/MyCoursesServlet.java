@@ -45,8 +45,8 @@ public class MyCoursesServlet extends HttpServlet {
         
         Logger.step("MyCoursesServlet", "🔄 Accès page mes courses");
         
-        // Récupérer l'utilisateur depuis la session
-        User user = (User) request.getSession().getAttribute("user");
+        // Récupérer l'utilisateur depuis le token
+        User user = TokenManager.getCurrentUser(request);
         if (user == null) {
             Logger.warn("MyCoursesServlet", "Utilisateur non authentifié");
             response.sendRedirect(request.getContextPath() + "/login");
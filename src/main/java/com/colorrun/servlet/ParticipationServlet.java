@@ -15,13 +15,12 @@ import com.colorrun.service.CourseService;
 import com.colorrun.service.MessageService;
 import com.colorrun.service.impl.CourseServiceImpl;
 import com.colorrun.service.impl.MessageServiceImpl;
-import com.colorrun.service.QRCodeService;
-import com.colorrun.service.impl.QRCodeServiceImpl;
 import com.colorrun.security.TokenManager;
 import com.colorrun.security.UserToken;
 import com.colorrun.business.User;
 import com.colorrun.business.Course;
 import com.colorrun.business.Dossard;
+import com.colorrun.business.OutboxEmail;
 import com.colorrun.business.Participation;
 import com.colorrun.business.Message;
 
@@ -32,7 +31,6 @@ public class ParticipationServlet extends HttpServlet {
     private final EmailService emailService;
     private final CourseService courseService;
     private final MessageService messageService;
-    private final QRCodeService qrCodeService;
     
     public ParticipationServlet() {
         this.participationService = new ParticipationServiceImpl();
@@ -40,7 +38,6 @@ public class ParticipationServlet extends HttpServlet {
         this.emailService = new EmailServiceImpl();
         this.courseService = new CourseServiceImpl();
         this.messageService = new MessageServiceImpl();
-        this.qrCodeService = new QRCodeServiceImpl();
     }
     
     @Override
@@ -61,7 +58,7 @@ public class ParticipationServlet extends HttpServlet {
             }
             
             Course course = courseOpt.get();
-            User user = (User) req.getSession().getAttribute("user");
+            User user = TokenManager.getCurrentUser(req);
             
             // Si l'utilisateur n'est pas connecté, rediriger vers la page de détails
             if (user == null) {
@@ -106,12 +103,7 @@ public class ParticipationServlet extends HttpServlet {
         }
         
         // Créer un objet User à partir du token
-        User user = new User();
-        user.setId(token.getUserId());
-        user.setFirstName(token.getFirstName());
-        user.setLastName(token.getLastName());
-        user.setEmail(token.getEmail());
-        user.setRole(token.getRole());
+        User user = token.toUser();
         
         String courseIdParam = req.getParameter("courseId");
         if (courseIdParam == null || courseIdParam.isEmpty()) {
@@ -122,44 +114,22 @@ public class ParticipationServlet extends HttpServlet {
         try {
             int courseId = Integer.parseInt(courseIdParam);
             
-            // Inscrire l'utilisateur à la course
-            int participationId = participationService.register(user.getId(), courseId);
-            
-            // Récupérer les informations de la course pour l'email et le QR code
+            // Récupérer les informations de la course pour l'email
             Optional<Course> courseOpt = courseService.findById(courseId);
             if (!courseOpt.isPresent()) {
                 throw new Exception("Course non trouvée : " + courseId);
             }
             Course course = courseOpt.get();
             
-            // Créer un objet Participation pour le QR code
-            Participation participation = new Participation();
-            participation.setId(participationId);
-            participation.setUser(user);
-            participation.setCourse(course);
+            // Inscrire l'utilisateur ; l'email de confirmation est mis en file dans la même transaction
+            participationService.register(user.getId(), courseId,
+                    participation -> composeParticipationConfirmation(user, course, participation));
             
-            try {
-                // Générer le QR code
-                byte[] qrCodeBytes = qrCodeService.generateQRCode(participation);
-                
-                // Envoyer l'email avec QR code
-                sendParticipationConfirmationWithQR(user, course, participation, qrCodeBytes);
-                
-                // Rediriger avec message de succès
-                HttpSession session = req.getSession();
-                session.setAttribute("success", 
-                    "Inscription réussie ! Votre QR code de participation a été envoyé par email à " + user.getEmail());
-                resp.sendRedirect(req.getContextPath() + "/courses");
-                
-            } catch (Exception emailError) {
-                // Si l'envoi d'email échoue, on affiche un message et redirige vers "mes courses"
-                System.err.println("Erreur envoi email QR code : " + emailError.getMessage());
-                
-                HttpSession session = req.getSession();
-                session.setAttribute("info", 
-                    "Inscription réussie ! Vous pouvez récupérer votre QR code dans la section 'Mes Courses'.");
-                resp.sendRedirect(req.getContextPath() + "/courses");
-            }
+            // Rediriger avec message de succès
+            HttpSession session = req.getSession();
+            session.setAttribute("success", 
+                "Inscription réussie ! Votre QR code de participation a été envoyé par email à " + user.getEmail());
+            resp.sendRedirect(req.getContextPath() + "/courses");
             
         } catch (NumberFormatException e) {
             resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid course ID");
@@ -174,7 +144,7 @@ public class ParticipationServlet extends HttpServlet {
         System.out.println("  TENTATIVE DE DÉSINSCRIPTION");
         System.out.println("═══════════════════════════════════════════════════════════════");
         
-        User user = (User) req.getSession().getAttribute("user");
+        User user = TokenManager.getCurrentUser(req);
         if (user == null) {
             System.out.println("❌ Utilisateur non connecté");
             resp.sendError(HttpServletResponse.SC_UNAUTHORIZED, "You must be logged in to cancel a registration");
@@ -239,13 +209,16 @@ public class ParticipationServlet extends HttpServlet {
     }
     
     /**
-     * Envoie l'email de confirmation d'inscription avec QR code.
+     * Compose l'email de confirmation d'inscription, à mettre en file avec
+     * l'inscription.
+     *
+     * @return l'email, ou null si le service email n'est pas configuré
      */
-    private void sendParticipationConfirmationWithQR(User user, Course course, Participation participation, byte[] qrCodeBytes) throws Exception {
+    private OutboxEmail composeParticipationConfirmation(User user, Course course, Participation participation) {
         String subject = "Confirmation d'inscription - " + course.getName() + " (QR Code inclus)";
         String content = buildParticipationEmailContent(user, course, participation);
         
-        emailService.sendCustomEmail(user.getEmail(), subject, content);
+        return emailService.composeCustomEmail(user.getEmail(), subject, content);
     }
     
     /**
@@ -1,6 +1,7 @@
 package com.colorrun.servlet;
 
 import com.colorrun.business.User;
+import com.colorrun.security.TokenManager;
 import com.colorrun.service.UserService;
 import com.colorrun.service.impl.UserServiceImpl;
 
@@ -9,7 +10,6 @@ import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.sql.SQLException;
 
@@ -38,11 +38,12 @@ public class ProfileServlet extends HttpServlet {
      */
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        HttpSession session = req.getSession(false);
-        if (session == null || session.getAttribute("user") == null) {
+        User user = loadCurrentUser(req);
+        if (user == null) {
             resp.sendRedirect(req.getContextPath() + "/login");
             return;
         }
+        req.setAttribute("user", user);
         req.getRequestDispatcher("/WEB-INF/views/profile.jsp").forward(req, resp);
     }
 
@@ -51,13 +52,13 @@ public class ProfileServlet extends HttpServlet {
      */
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        HttpSession session = req.getSession(false);
-        if (session == null || session.getAttribute("user") == null) {
+        User user = loadCurrentUser(req);
+        if (user == null) {
             resp.sendRedirect(req.getContextPath() + "/login");
             return;
         }
+        req.setAttribute("user", user);
 
-        User user = (User) session.getAttribute("user");
         String firstName = req.getParameter("firstName");
         String lastName = req.getParameter("lastName");
         String currentPassword = req.getParameter("currentPassword");
@@ -82,11 +83,25 @@ public class ProfileServlet extends HttpServlet {
                     return;
                 }
             }
-            session.setAttribute("user", user);
             req.setAttribute("success", "Profil mis à jour avec succès.");
         } catch (SQLException | IllegalArgumentException e) {
             req.setAttribute("error", e.getMessage());
         }
         req.getRequestDispatcher("/WEB-INF/views/profile.jsp").forward(req, resp);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Utilisateur connecté, relu en base d'après son token, ou null.
+     */
+    private User loadCurrentUser(HttpServletRequest req) throws ServletException {
+        User current = TokenManager.getCurrentUser(req);
+        if (current == null) {
+            return null;
+        }
+        try {
+            return userService.findById(current.getId()).orElse(null);
+        } catch (SQLException e) {
+            throw new ServletException("Lecture du profil impossible", e);
+        }
+    }
+}
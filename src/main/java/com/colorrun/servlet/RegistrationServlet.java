@@ -6,8 +6,6 @@ import java.io.IOException;
 import java.util.UUID;
 import com.colorrun.service.UserService;
 import com.colorrun.service.impl.UserServiceImpl;
-import com.colorrun.service.EmailService;
-import com.colorrun.service.impl.EmailServiceImpl;
 import com.colorrun.service.VerificationTokenService;
 import com.colorrun.service.impl.VerificationTokenServiceImpl;
 import com.colorrun.util.Logger;
@@ -50,9 +48,6 @@ public class RegistrationServlet extends HttpServlet {
     /** Service de gestion des utilisateurs pour les opérations d'inscription */
     private final UserService userService;
     
-    /** Service d'envoi d'emails pour les notifications */
-    private final EmailService emailService;
-    
     /** Service de gestion des tokens de vérification */
     private final VerificationTokenService verificationTokenService;
     
@@ -62,7 +57,6 @@ public class RegistrationServlet extends HttpServlet {
      */
     public RegistrationServlet() {
         this.userService = new UserServiceImpl();
-        this.emailService = new EmailServiceImpl();
         this.verificationTokenService = new VerificationTokenServiceImpl();
     }
     
@@ -178,16 +172,13 @@ public class RegistrationServlet extends HttpServlet {
             Logger.stepSuccess("RegistrationServlet", "Enregistrement en base de données");
             
             try {
-                // Génération et envoi du token de vérification par email
+                // Génération du token et mise en file de l'email de vérification,
+                // dans une même transaction ; l'envoi SMTP se fait en tâche de fond
                 Logger.step("RegistrationServlet", "Génération du token de vérification");
-                String verificationToken = verificationTokenService.generateVerificationToken(user);
+                String verificationToken = verificationTokenService.issueVerificationToken(user);
                 Logger.stepSuccess("RegistrationServlet", "Génération du token de vérification");
                 Logger.debug("RegistrationServlet", "Token généré: " + verificationToken.substring(0, 8) + "...");
-                
-                Logger.step("RegistrationServlet", "Envoi de l'email de vérification");
-                emailService.sendVerificationEmail(user, verificationToken);
-                Logger.stepSuccess("RegistrationServlet", "Envoi de l'email de vérification");
-                Logger.email("RegistrationServlet", "Email de vérification envoyé avec succès", user.getEmail());
+                Logger.email("RegistrationServlet", "Email de vérification mis en file", user.getEmail());
                 
                 // Inscription réussie - redirection avec message de vérification
                 HttpSession session = req.getSession();
@@ -0,0 +1,98 @@
+package com.colorrun.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * File circulaire bornée et sans verrou : plusieurs threads y déposent,
+ * un seul thread (l'écrivain des logs) y lit.
+ *
+ * <p>Chaque case porte un numéro de séquence qui indique si elle est libre
+ * pour le prochain dépôt ou prête pour la lecture : un dépôt réserve sa
+ * case par un compare-and-set sur la position d'écriture, puis publie
+ * l'élément en avançant la séquence de la case. Une file pleine refuse le
+ * dépôt au lieu d'attendre ; c'est à l'appelant de choisir entre perdre le
+ * message et patienter.</p>
+ */
+final class LogRingBuffer<E> {
+
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Position de lecture ; seul le thread lecteur la modifie */
+    private volatile long head;
+
+    /**
+     * @param capacity capacité, arrondie à la puissance de 2 supérieure
+     */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.items = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Dépose un élément.
+     *
+     * @return false si la file est pleine
+     */
+    boolean offer(E item) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long gap = sequences.get(index) - position;
+            if (gap == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items[index] = item;
+                    // Publication : l'élément est visible du lecteur qui lit cette séquence
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (gap < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Retire le plus ancien élément ; réservé au thread lecteur.
+     *
+     * @return null si la file est vide
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E item = (E) items[index];
+        items[index] = null;
+        // La case redevient libre pour le dépôt qui fera le tour suivant
+        sequences.set(index, position + items.length);
+        head = position + 1;
+        return item;
+    }
+
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return items.length;
+    }
+}
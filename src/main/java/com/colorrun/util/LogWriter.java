@@ -0,0 +1,425 @@
+package com.colorrun.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Écriture des logs de {@link Logger} en tâche de fond.
+ *
+ * <p>Le thread appelant ne fait que déposer une entrée (horodatage, niveau,
+ * composant, message) dans une {@link LogRingBuffer} ; le formatage, la
+ * console et le fichier sont l'affaire d'un thread écrivain unique, qui
+ * vide la file par lots et n'écrit sur la console qu'une fois par lot.</p>
+ *
+ * <p><strong>Fichiers :</strong> une ligne JSON par entrée dans
+ * {@code colorrun.json} ; au-delà de la taille maximale, le fichier devient
+ * {@code colorrun.1.json}, le précédent {@code colorrun.2.json}, et ainsi de
+ * suite jusqu'au nombre de fichiers conservés.</p>
+ *
+ * <p><strong>Surcharge :</strong> si la file est pleine, les entrées sont
+ * perdues (et comptées, un avertissement en donne le nombre) sauf les
+ * erreurs, pour lesquelles l'appelant patiente jusqu'à une seconde. En mode
+ * {@code block}, toutes les entrées patientent ainsi.</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.log.async</code> : écriture en tâche de fond ; false pour écrire
+ *       sur le thread appelant (défaut : true)</li>
+ *   <li><code>colorrun.log.bufferSize</code> : entrées en attente d'écriture (défaut : 8192)</li>
+ *   <li><code>colorrun.log.overflow</code> : <code>drop</code> ou <code>block</code> quand la file
+ *       est pleine (défaut : drop)</li>
+ *   <li><code>colorrun.log.console</code> : écriture colorée sur la sortie standard (défaut : true)</li>
+ *   <li><code>colorrun.log.dir</code> : répertoire des fichiers JSON (défaut : logs de Tomcat
+ *       si <code>catalina.base</code> est défini, sinon pas de fichier)</li>
+ *   <li><code>colorrun.log.maxFileMb</code> : taille d'un fichier avant rotation (défaut : 10)</li>
+ *   <li><code>colorrun.log.maxFiles</code> : fichiers anciens conservés (défaut : 5)</li>
+ * </ul>
+ */
+final class LogWriter {
+
+    /**
+     * Entrée de log, capturée sur le thread appelant et formatée par l'écrivain.
+     */
+    static final class Entry {
+        final long time = System.currentTimeMillis();
+        final String thread = Thread.currentThread().getName();
+        final String level;
+        final String color;
+        final String component;
+        final String message;
+        final Throwable error;
+
+        Entry(String level, String color, String component, String message, Throwable error) {
+            this.level = level;
+            this.color = color;
+            this.component = component;
+            this.message = message;
+            this.error = error;
+        }
+    }
+
+    /** Niveau des entrées de séparation ({@link Logger#separator}) */
+    static final String SECTION = "SECTION";
+
+    private static final String RESET = "\u001B[0m";
+    private static final String BOLD = "\u001B[1m";
+    private static final String CYAN = "\u001B[36m";
+    private static final String YELLOW = "\u001B[33m";
+    private static final String RULE = "═══════════════════════════════════════════════════════════════";
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    /** Entrées écrites avant de vider les sorties */
+    private static final int MAX_BATCH = 4096;
+
+    private static final LogWriter INSTANCE = new LogWriter();
+
+    private final boolean async = Boolean.parseBoolean(System.getProperty("colorrun.log.async", "true"));
+    private final boolean blockOnFull = "block".equalsIgnoreCase(System.getProperty("colorrun.log.overflow", "drop"));
+    private final boolean console = Boolean.parseBoolean(System.getProperty("colorrun.log.console", "true"));
+    private final long maxFileBytes = Math.max(1L, Long.getLong("colorrun.log.maxFileMb", 10L)) * 1024 * 1024;
+    private final int maxFiles = Math.max(0, Integer.getInteger("colorrun.log.maxFiles", 5));
+
+    private final LogRingBuffer<Entry> buffer =
+            new LogRingBuffer<>(Math.max(16, Integer.getInteger("colorrun.log.bufferSize", 8192)));
+
+    /** Sortie standard au démarrage ; le lot en cours y est écrit d'un bloc */
+    private final PrintStream out = System.out;
+    private final StringBuilder consoleBatch = new StringBuilder(16 * 1024);
+    private final StringBuilder line = new StringBuilder(512);
+
+    private final Path directory;
+    private OutputStream file;
+    private long fileBytes;
+    private boolean fileDisabled;
+
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+    private volatile boolean finished;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private long droppedReported;
+
+    private LogWriter() {
+        String dir = System.getProperty("colorrun.log.dir");
+        if (dir == null && System.getProperty("catalina.base") != null) {
+            dir = Paths.get(System.getProperty("catalina.base"), "logs").toString();
+        }
+        this.directory = dir != null ? Paths.get(dir) : null;
+
+        if (async) {
+            writer = new Thread(this::drainLoop, "colorrun-log-writer");
+            writer.setDaemon(true);
+            writer.start();
+            shutdownHook = new Thread(this::close, "colorrun-log-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        } else {
+            writer = null;
+            shutdownHook = null;
+            finished = true;
+        }
+    }
+
+    static LogWriter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Dépose une entrée ; ne bloque que si la file est pleine et que
+     * l'entrée ne peut être perdue.
+     */
+    void publish(Entry entry) {
+        if (finished) {
+            // Écriture directe : mode synchrone, ou entrée émise après l'arrêt
+            synchronized (this) {
+                write(entry);
+                flush();
+            }
+            written.increment();
+            return;
+        }
+        if (buffer.offer(entry)) {
+            signal();
+            return;
+        }
+        if (!blockOnFull && !"ERROR".equals(entry.level)) {
+            dropped.increment();
+            return;
+        }
+
+        waits.increment();
+        long deadline = System.nanoTime() + MAX_WAIT_NANOS;
+        while (!buffer.offer(entry)) {
+            signal();
+            if (closed || System.nanoTime() > deadline) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(100_000L);
+        }
+        signal();
+    }
+
+    private void signal() {
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            synchronized (this) {
+                Entry entry;
+                int batch = 0;
+                while (batch < MAX_BATCH && (entry = buffer.poll()) != null) {
+                    write(entry);
+                    batch++;
+                }
+                written.add(batch);
+                reportDropped();
+                flush();
+                if (batch == MAX_BATCH) {
+                    continue;
+                }
+                if (closed && buffer.isEmpty()) {
+                    finished = true;
+                    closeFile();
+                    return;
+                }
+            }
+            writerParked = true;
+            if (buffer.isEmpty() && !closed) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            writerParked = false;
+        }
+    }
+
+    /**
+     * Signale, par une entrée ordinaire, les entrées perdues depuis le
+     * dernier signalement.
+     */
+    private void reportDropped() {
+        long total = dropped.sum();
+        if (total > droppedReported) {
+            write(new Entry("WARN", YELLOW, "Logger",
+                    (total - droppedReported) + " entrée(s) de log perdue(s), file pleine", null));
+            droppedReported = total;
+        }
+    }
+
+    private void write(Entry entry) {
+        if (console) {
+            appendConsole(entry);
+        }
+        if (directory != null) {
+            writeJson(entry);
+        }
+    }
+
+    private void appendConsole(Entry entry) {
+        if (SECTION.equals(entry.level)) {
+            consoleBatch.append('\n')
+                    .append(BOLD).append(CYAN).append(RULE).append(RESET).append('\n')
+                    .append(BOLD).append(CYAN).append("  ").append(entry.message).append(RESET).append('\n')
+                    .append(BOLD).append(CYAN).append(RULE).append(RESET).append("\n\n");
+            return;
+        }
+        String timestamp = TIMESTAMP_FORMAT.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.time), ZONE));
+        appendConsoleLine(entry, timestamp, entry.error == null ? entry.message
+                : entry.message + " | Exception: " + entry.error.getClass().getSimpleName() + ": " + entry.error.getMessage());
+        if (entry.error != null && entry.error.getCause() != null) {
+            appendConsoleLine(entry, timestamp, "Cause: " + entry.error.getCause().getMessage());
+        }
+    }
+
+    private void appendConsoleLine(Entry entry, String timestamp, String message) {
+        consoleBatch.append(entry.color).append('[').append(timestamp).append(']').append(RESET).append(' ')
+                .append(BOLD).append(entry.color).append('[').append(entry.level).append(']').append(RESET).append(' ')
+                .append(entry.color).append(entry.component).append(RESET).append(' ')
+                .append(message).append(System.lineSeparator());
+    }
+
+    private void writeJson(Entry entry) {
+        line.setLength(0);
+        line.append("{\"ts\":\"").append(Instant.ofEpochMilli(entry.time)).append('"');
+        line.append(",\"level\":");
+        appendJsonString(line, entry.level);
+        line.append(",\"component\":");
+        appendJsonString(line, entry.component);
+        line.append(",\"thread\":");
+        appendJsonString(line, entry.thread);
+        line.append(",\"message\":");
+        appendJsonString(line, entry.message);
+        if (entry.error != null) {
+            line.append(",\"exception\":");
+            appendJsonString(line, entry.error.getClass().getName() + ": " + entry.error.getMessage());
+            if (entry.error.getCause() != null) {
+                line.append(",\"cause\":");
+                appendJsonString(line, String.valueOf(entry.error.getCause()));
+            }
+        }
+        line.append("}\n");
+
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            prepareFile(bytes.length);
+            file.write(bytes);
+            fileBytes += bytes.length;
+        } catch (IOException e) {
+            // Fichier inutilisable : la console reste la seule sortie
+            System.err.println("[Logger] Écriture des logs dans " + directory + " impossible, fichier désactivé : " + e);
+            closeFile();
+            fileDisabled = true;
+        }
+    }
+
+    /**
+     * Ouvre le fichier courant si besoin ; s'il ne peut recevoir {@code length}
+     * octets de plus, le décale d'abord avec les anciens.
+     */
+    private void prepareFile(int length) throws IOException {
+        if (fileDisabled) {
+            throw new IOException("fichier désactivé");
+        }
+        Path current = directory.resolve("colorrun.json");
+        if (file == null) {
+            Files.createDirectories(directory);
+            fileBytes = Files.exists(current) ? Files.size(current) : 0L;
+        }
+        if (fileBytes > 0 && fileBytes + length > maxFileBytes) {
+            closeFile();
+            Files.deleteIfExists(directory.resolve("colorrun." + maxFiles + ".json"));
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                Path older = directory.resolve("colorrun." + i + ".json");
+                if (Files.exists(older)) {
+                    Files.move(older, directory.resolve("colorrun." + (i + 1) + ".json"),
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            if (maxFiles > 0) {
+                Files.move(current, directory.resolve("colorrun.1.json"), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.delete(current);
+            }
+            fileBytes = 0L;
+        }
+        if (file == null) {
+            file = new BufferedOutputStream(Files.newOutputStream(current,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        }
+    }
+
+    private void flush() {
+        if (consoleBatch.length() > 0) {
+            out.print(consoleBatch);
+            out.flush();
+            consoleBatch.setLength(0);
+            if (consoleBatch.capacity() > 1024 * 1024) {
+                consoleBatch.trimToSize();
+            }
+        }
+        if (file != null) {
+            try {
+                file.flush();
+            } catch (IOException e) {
+                System.err.println("[Logger] Écriture des logs dans " + directory + " impossible, fichier désactivé : " + e);
+                closeFile();
+                fileDisabled = true;
+            }
+        }
+    }
+
+    private void closeFile() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // Rien de plus à faire : le fichier est abandonné
+            }
+            file = null;
+        }
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Écrit les entrées en attente puis arrête l'écrivain ; les entrées
+     * suivantes sont écrites directement par le thread appelant.
+     */
+    void close() {
+        if (writer == null || closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // Arrêt de la JVM déjà en cours
+            }
+        }
+    }
+
+    String getStatsSummary() {
+        return "LogWriter{écrites=" + written.sum() +
+                ", perdues=" + dropped.sum() +
+                ", attentes=" + waits.sum() +
+                ", enFile=" + buffer.size() + "/" + buffer.capacity() +
+                ", fichier=" + (directory == null || fileDisabled ? "aucun" : directory.resolve("colorrun.json")) +
+                '}';
+    }
+}
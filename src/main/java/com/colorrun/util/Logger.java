@@ -1,18 +1,25 @@
 package com.colorrun.util;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.function.Supplier;
 
 /**
  * Utilitaire de logging pour Color Run.
  * Améliore les logs console avec timestamps et codes couleur.
+ *
+ * <p>Les appels ne font que vérifier le niveau et déposer l'entrée : le
+ * formatage et l'écriture (console colorée, fichiers JSON) se font en tâche
+ * de fond, voir {@link LogWriter} pour les sorties et leurs propriétés.
+ * Pour un message coûteux à construire, les variantes à {@link Supplier}
+ * ne le construisent que si le niveau est actif :</p>
+ *
+ * <pre>
+ * Logger.debug("TokenManager", () -> "Token valide pour " + token.getEmail());
+ * </pre>
  */
 public class Logger {
     
     // Niveau de log configurable (ERROR = 0, WARN = 1, INFO = 2, DEBUG = 3)
-    private static int LOG_LEVEL = Integer.parseInt(System.getProperty("log.level", "1")); // Par défaut WARN
-    
-    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static volatile int LOG_LEVEL = Integer.parseInt(System.getProperty("log.level", "1")); // Par défaut WARN
     
     // Codes couleur ANSI pour terminal
     private static final String RESET = "\u001B[0m";
@@ -49,6 +56,15 @@ public class Logger {
         }
     }
     
+    /**
+     * Log d'information (bleu), message construit seulement si le niveau est actif
+     */
+    public static void info(String component, Supplier<String> message) {
+        if (LOG_LEVEL >= INFO_LEVEL) {
+        log("INFO", BLUE, component, message.get());
+        }
+    }
+    
     /**
      * Log de succès (vert)
      */
@@ -81,10 +97,7 @@ public class Logger {
      */
     public static void error(String component, String message, Exception e) {
         if (LOG_LEVEL >= ERROR_LEVEL) {
-        log("ERROR", RED, component, message + " | Exception: " + e.getClass().getSimpleName() + ": " + e.getMessage());
-        if (e.getCause() != null) {
-            log("ERROR", RED, component, "Cause: " + e.getCause().getMessage());
-            }
+        LogWriter.getInstance().publish(new LogWriter.Entry("ERROR", RED, component, message, e));
         }
     }
     
@@ -97,6 +110,15 @@ public class Logger {
         }
     }
     
+    /**
+     * Log de debug (purple), message construit seulement si le niveau est actif
+     */
+    public static void debug(String component, Supplier<String> message) {
+        if (LOG_LEVEL >= DEBUG_LEVEL) {
+        log("DEBUG", PURPLE, component, message.get());
+        }
+    }
+    
     /**
      * Log d'email (cyan)
      */
@@ -125,18 +147,10 @@ public class Logger {
     }
     
     /**
-     * Log formaté avec couleur
+     * Log formaté avec couleur, écrit en tâche de fond
      */
     private static void log(String level, String color, String component, String message) {
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-        String formattedMessage = String.format(
-            "%s[%s]%s %s%s[%s]%s %s%s%s %s", 
-            color, timestamp, RESET,
-            BOLD, color, level, RESET,
-            color, component, RESET,
-            message
-        );
-        System.out.println(formattedMessage);
+        LogWriter.getInstance().publish(new LogWriter.Entry(level, color, component, message, null));
     }
     
     /**
@@ -144,11 +158,7 @@ public class Logger {
      */
     public static void separator(String title) {
         if (LOG_LEVEL >= DEBUG_LEVEL) {
-        System.out.println();
-        System.out.println(BOLD + CYAN + "═══════════════════════════════════════════════════════════════" + RESET);
-        System.out.println(BOLD + CYAN + "  " + title + RESET);
-        System.out.println(BOLD + CYAN + "═══════════════════════════════════════════════════════════════" + RESET);
-        System.out.println();
+        log(LogWriter.SECTION, CYAN, "Logger", title);
         }
     }
     
@@ -161,6 +171,15 @@ public class Logger {
         }
     }
     
+    /**
+     * Log de démarrage d'une étape, message construit seulement si le niveau est actif
+     */
+    public static void step(String component, Supplier<String> step) {
+        if (LOG_LEVEL >= DEBUG_LEVEL) {
+        log("STEP", BOLD + GREEN, component, "🔄 " + step.get());
+        }
+    }
+    
     /**
      * Log de fin d'étape avec succès
      */
@@ -232,4 +251,27 @@ public class Logger {
     public static void setDebugMode() {
         setLogLevel(DEBUG_LEVEL);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Vérifie si les logs de debug sont affichés, pour éviter de préparer
+     * des données qui ne serviraient qu'au log
+     */
+    public static boolean isDebugEnabled() {
+        return LOG_LEVEL >= DEBUG_LEVEL;
+    }
+    
+    /**
+     * Écrit les logs en attente et arrête l'écriture en tâche de fond ; les
+     * logs suivants sont écrits directement. Appelé à l'arrêt de l'application.
+     */
+    public static void shutdown() {
+        LogWriter.getInstance().close();
+    }
+    
+    /**
+     * Résumé de l'écriture des logs (écrits, perdus, en attente)
+     */
+    public static String getStatsSummary() {
+        return LogWriter.getInstance().getStatsSummary();
+    }
+}
@@ -13,6 +13,16 @@ import org.mindrot.jbcrypt.BCrypt;
  * un salt et permet d'ajuster la complexité de calcul pour résister aux
  * attaques par force brute même avec l'augmentation de la puissance de calcul.
  * 
+ * Les méthodes de cette classe calculent sur le thread appelant ; les
+ * servlets et services passent par {@link com.colorrun.security.PasswordHasher},
+ * qui borne le nombre de calculs simultanés.
+ * 
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.password.bcryptRounds</code> : coût BCrypt des nouveaux hashs, de 4 à 30
+ *       (défaut : 12) ; les hashs d'un autre coût sont recalculés à la connexion suivante</li>
+ * </ul>
+ * 
  * @author Équipe Color Run
  * @version 1.0
  * @since 1.0
@@ -24,7 +34,8 @@ public class PasswordUtil {
      * Une valeur plus élevée augmente la sécurité mais ralentit les calculs.
      * La valeur 12 est un bon compromis entre sécurité et performance en 2024.
      */
-    private static final int BCRYPT_ROUNDS = 12;
+    private static final int BCRYPT_ROUNDS =
+            Math.max(4, Math.min(30, Integer.getInteger("colorrun.password.bcryptRounds", 12)));
 
     /**
      * Constructeur privé pour empêcher l'instanciation.
@@ -114,6 +125,50 @@ public class PasswordUtil {
         }
     }
 
+    /**
+     * @return le coût BCrypt des nouveaux hashs
+     */
+    public static int getRounds() {
+        return BCRYPT_ROUNDS;
+    }
+
+    /**
+     * Lit le coût d'un hash BCrypt ({@code $2a$12$...}).
+     * 
+     * @param hashedPassword Le hash à lire
+     * @return le coût, ou -1 si ce n'est pas un hash BCrypt
+     */
+    public static int getRounds(String hashedPassword) {
+        if (hashedPassword == null || hashedPassword.length() < 7
+                || hashedPassword.charAt(0) != '$' || hashedPassword.charAt(1) != '2') {
+            return -1;
+        }
+        // $2$12$... ou $2a$12$...
+        int start = hashedPassword.charAt(2) == '$' ? 3 : 4;
+        if (hashedPassword.length() < start + 3 || hashedPassword.charAt(start + 2) != '$') {
+            return -1;
+        }
+        char tens = hashedPassword.charAt(start);
+        char units = hashedPassword.charAt(start + 1);
+        if (!Character.isDigit(tens) || !Character.isDigit(units)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (units - '0');
+    }
+
+    /**
+     * Indique si un hash a été calculé avec un autre coût que celui
+     * configuré et doit être recalculé (à la prochaine connexion, quand le
+     * mot de passe en clair est connu).
+     * 
+     * @param hashedPassword Le hash stocké
+     * @return true si le coût du hash diffère du coût configuré
+     */
+    public static boolean needsRehash(String hashedPassword) {
+        int rounds = getRounds(hashedPassword);
+        return rounds > 0 && rounds != BCRYPT_ROUNDS;
+    }
+
     /**
      * Génère un mot de passe temporaire aléatoire.
      * 
@@ -0,0 +1,38 @@
+package com.colorrun.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ensemble fixe de verrous répartis par clé (« lock striping »).
+ *
+ * Deux clés égales obtiennent toujours le même verrou ; deux clés
+ * différentes partagent rarement le leur. Permet de sérialiser les
+ * opérations par entité (course, utilisateur...) sans allouer un verrou
+ * par entité.
+ */
+public final class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes nombre de verrous, arrondi à la puissance de deux supérieure
+     */
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return le verrou associé à la clé
+     */
+    public ReentrantLock get(int key) {
+        // Mélange des bits pour répartir les identifiants séquentiels
+        int h = key * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+}
@@ -3,7 +3,6 @@ package com.colorrun.util;
 import com.colorrun.config.ThymeleafConfig;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.WebContext;
-import org.thymeleaf.web.servlet.JavaxServletWebApplication;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -30,7 +29,7 @@ public class ThymeleafUtil {
                             HttpServletResponse response,
                             Map<String, Object> variables) throws ServletException, IOException {
         
-        Logger.step("ThymeleafUtil", "Rendu template: " + templateName);
+        Logger.step("ThymeleafUtil", () -> "Rendu template: " + templateName);
         
         try {
             // Récupérer le moteur Thymeleaf
@@ -42,30 +41,26 @@ public class ThymeleafUtil {
             }
             
             // Créer le contexte web
-            JavaxServletWebApplication application = JavaxServletWebApplication.buildApplication(
-                request.getServletContext()
-            );
-            WebContext context = new WebContext(application.buildExchange(request, response));
+            WebContext context = new WebContext(ThymeleafConfig.getApplication().buildExchange(request, response));
             
             // Ajouter les variables du système de token (automatiques)
             addTokenVariables(context, request);
             
-            // Ajouter les variables personnalisées
+            // Ajouter les variables personnalisées (sans les journaliser : leur
+            // toString() coûterait à chaque rendu, même avec le debug désactivé)
             if (variables != null) {
-                for (Map.Entry<String, Object> entry : variables.entrySet()) {
-                    context.setVariable(entry.getKey(), entry.getValue());
-                    Logger.debug("ThymeleafUtil", "Variable: " + entry.getKey() + " = " + entry.getValue());
-                }
+                context.setVariables(variables);
             }
             
             // Configurer la réponse
             response.setContentType("text/html; charset=UTF-8");
             response.setCharacterEncoding("UTF-8");
             
-            // Rendre le template
+            // Rendre le template directement dans la réponse : le HTML part vers
+            // le client au fil du rendu, par blocs du tampon de la réponse
             templateEngine.process(templateName, context, response.getWriter());
             
-            Logger.success("ThymeleafUtil", "✅ Template " + templateName + " rendu");
+            Logger.stepSuccess("ThymeleafUtil", "Template " + templateName + " rendu");
             
         } catch (Exception e) {
             Logger.error("ThymeleafUtil", "❌ Erreur rendu template " + templateName, e);
@@ -96,8 +91,6 @@ public class ThymeleafUtil {
         context.setVariable("isOrganizer", isOrganizer != null ? isOrganizer : false);
         context.setVariable("isUser", isUser != null ? isUser : false);
         context.setVariable("userToken", userToken);
-        
-        Logger.debug("ThymeleafUtil", "Variables token ajoutées au contexte Thymeleaf");
     }
     
     /**
@@ -0,0 +1,26 @@
+-- Index secondaires sur les prédicats utilisés par les DAO.
+-- Chaque instruction est idempotente (IF NOT EXISTS).
+
+-- ParticipationDAO.findByUserAndCourse / existsByUserAndCourse / findCourseIdsByUser
+CREATE INDEX IF NOT EXISTS idx_participation_user_course ON Participation(utilisateurId, courseId);
+
+-- ParticipationDAO.findByCourse / countByCourse (filtrage par statut)
+CREATE INDEX IF NOT EXISTS idx_participation_course_statut ON Participation(courseId, statut);
+
+-- MessageDAO.findByRecipient / countUnread / markAllAsRead
+CREATE INDEX IF NOT EXISTS idx_message_destinataire_lu ON Message(destinataireId, lu);
+
+-- MessageDAO.findBySender (ORDER BY date DESC)
+CREATE INDEX IF NOT EXISTS idx_message_expediteur_date ON Message(expediteurId, date);
+
+-- DiscussionDAO.findByCourse (ORDER BY date ASC)
+CREATE INDEX IF NOT EXISTS idx_discussion_course_date ON Discussion(course_id, date);
+
+-- VerificationTokenServiceImpl : recherche par jeton
+CREATE INDEX IF NOT EXISTS idx_verificationtoken_token ON VerificationToken(token);
+
+-- CourseDAO.findAll / findFiltered / findFilteredPage (tri par date)
+CREATE INDEX IF NOT EXISTS idx_course_date ON Course(date, id);
+
+-- CourseDAO.findByCreator (ORDER BY date DESC)
+CREATE INDEX IF NOT EXISTS idx_course_createur ON Course(UserCreateId, date);
@@ -0,0 +1,22 @@
+-- Un utilisateur ne peut être inscrit qu'une fois à une course.
+-- Remplace l'index non unique de V1 sur les mêmes colonnes.
+-- Rejouable : le nettoyage est sans effet une fois les doublons supprimés.
+
+-- Doublons existants : on garde l'inscription active la plus ancienne,
+-- ou à défaut l'inscription annulée la plus ancienne.
+DELETE FROM Participation p
+WHERE EXISTS (
+    SELECT 1 FROM Participation q
+    WHERE q.utilisateurId = p.utilisateurId
+      AND q.courseId = p.courseId
+      AND q.id <> p.id
+      AND (CASE WHEN q.statut IN ('CANCELED', 'CANCELLED') THEN 1 ELSE 0 END
+             < CASE WHEN p.statut IN ('CANCELED', 'CANCELLED') THEN 1 ELSE 0 END
+           OR (CASE WHEN q.statut IN ('CANCELED', 'CANCELLED') THEN 1 ELSE 0 END
+                 = CASE WHEN p.statut IN ('CANCELED', 'CANCELLED') THEN 1 ELSE 0 END
+               AND q.id < p.id))
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_participation_user_course ON Participation(utilisateurId, courseId);
+
+DROP INDEX IF EXISTS idx_participation_user_course;
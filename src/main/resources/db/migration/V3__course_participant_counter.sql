@@ -0,0 +1,9 @@
+-- Compteur d'inscrits maintenu par les inscriptions et annulations,
+-- pour lire les places disponibles sans COUNT(*) sur Participation.
+
+ALTER TABLE Course ADD COLUMN IF NOT EXISTS currentParticipants INT DEFAULT 0 NOT NULL;
+
+UPDATE Course c SET currentParticipants = (
+    SELECT COUNT(*) FROM Participation p
+    WHERE p.courseId = c.id AND p.statut NOT IN ('CANCELED', 'CANCELLED')
+);
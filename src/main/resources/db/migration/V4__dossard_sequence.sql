@@ -0,0 +1,28 @@
+-- Table des dossards (la définition de DossardDAO utilisait une syntaxe MySQL
+-- refusée par H2) et compteur persistant des numéros réservés par course.
+
+CREATE TABLE IF NOT EXISTS Dossard (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    number INT NOT NULL,
+    courseId INT NOT NULL,
+    participantId INT,
+    status VARCHAR(50) NOT NULL DEFAULT 'RESERVED',
+    raceTime BIGINT,
+    finishPosition INT,
+    collected BOOLEAN DEFAULT FALSE,
+    qrCodeData CLOB,
+    pdfPath CLOB,
+    createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (courseId) REFERENCES Course(id) ON DELETE CASCADE,
+    FOREIGN KEY (participantId) REFERENCES Utilisateur(id) ON DELETE SET NULL,
+    CONSTRAINT unique_course_number UNIQUE (courseId, number),
+    CONSTRAINT unique_participant_course UNIQUE (participantId, courseId)
+);
+
+-- Plus grand numéro de dossard réservé par course (pas forcément attribué)
+CREATE TABLE IF NOT EXISTS DossardSequence (
+    courseId INT PRIMARY KEY,
+    highWater INT NOT NULL,
+    FOREIGN KEY (courseId) REFERENCES Course(id) ON DELETE CASCADE
+);
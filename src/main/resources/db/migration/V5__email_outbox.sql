@@ -0,0 +1,22 @@
+-- File d'attente persistante des emails : écrite avec la modification
+-- métier, vidée en tâche de fond par EmailOutboxDispatcher.
+
+CREATE TABLE IF NOT EXISTS EmailOutbox (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    htmlBody CLOB NOT NULL,
+    attachment BLOB,
+    attachmentName VARCHAR(255),
+    attachmentType VARCHAR(100),
+    -- PENDING, SENDING (réservé par un dispatcher), SENT, DEAD
+    status VARCHAR(20) DEFAULT 'PENDING' NOT NULL,
+    attempts INT DEFAULT 0 NOT NULL,
+    -- Prochain envoi (PENDING) ou fin de réservation (SENDING)
+    nextAttemptAt TIMESTAMP NOT NULL,
+    lastError VARCHAR(1000),
+    createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    sentAt TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_status_due ON EmailOutbox(status, nextAttemptAt);
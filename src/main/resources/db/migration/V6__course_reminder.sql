@@ -0,0 +1,16 @@
+-- Rappels de course déjà mis en file, un par participant et par échéance :
+-- rend l'envoi des rappels idempotent (CourseReminderScheduler).
+
+CREATE TABLE IF NOT EXISTS CourseReminder (
+    courseId INT NOT NULL,
+    utilisateurId INT NOT NULL,
+    -- Nombre de jours avant la course auquel le rappel a été envoyé
+    daysBefore INT NOT NULL,
+    queuedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    PRIMARY KEY (courseId, utilisateurId, daysBefore),
+    FOREIGN KEY (courseId) REFERENCES Course(id) ON DELETE CASCADE,
+    FOREIGN KEY (utilisateurId) REFERENCES Utilisateur(id) ON DELETE CASCADE
+);
+
+-- CourseReminderDAO.findPendingRecipients (parcours d'une course par utilisateur)
+CREATE INDEX IF NOT EXISTS idx_participation_course_user ON Participation(courseId, utilisateurId);
@@ -0,0 +1,14 @@
+-- Jetons de vérification conservés sous forme d'empreinte SHA-256 (hexadécimal) :
+-- une fuite de la table ne permet plus d'activer un compte (VerificationTokenStore).
+-- La colonne en clair n'est supprimée qu'en V8 : ce script la lit et doit
+-- pouvoir être rejoué tant qu'il n'a pas abouti.
+
+ALTER TABLE VerificationToken ADD COLUMN IF NOT EXISTS tokenHash VARCHAR(64);
+UPDATE VerificationToken SET tokenHash = LOWER(RAWTOHEX(HASH('SHA-256', STRINGTOUTF8(token)))) WHERE tokenHash IS NULL;
+ALTER TABLE VerificationToken ALTER COLUMN tokenHash SET NOT NULL;
+
+-- Recherche par empreinte ; un jeton n'est valable qu'une fois
+CREATE UNIQUE INDEX IF NOT EXISTS idx_verificationtoken_hash ON VerificationToken(tokenHash);
+
+-- Purge des jetons expirés par tranches, dans l'ordre d'expiration
+CREATE INDEX IF NOT EXISTS idx_verificationtoken_expiry ON VerificationToken(expiry_date);
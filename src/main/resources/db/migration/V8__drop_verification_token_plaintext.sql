@@ -0,0 +1,4 @@
+-- Le jeton en clair n'est plus conservé (empreintes remplies par V7)
+
+DROP INDEX IF EXISTS idx_verificationtoken_token;
+ALTER TABLE VerificationToken DROP COLUMN IF EXISTS token;
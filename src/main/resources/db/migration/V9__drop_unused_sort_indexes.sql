@@ -0,0 +1,8 @@
+-- Index de V1 que H2 n'utilise jamais (voir SchemaIndexUsageTest) : pour
+-- « colonne = ? ORDER BY date », l'optimiseur retient l'index de la clé
+-- étrangère, de même coût, et ne lit pas un index (colonne, date) comme
+-- déjà trié. Ils ne coûtaient qu'à l'écriture.
+
+DROP INDEX IF EXISTS idx_message_expediteur_date;
+DROP INDEX IF EXISTS idx_discussion_course_date;
+DROP INDEX IF EXISTS idx_course_createur;
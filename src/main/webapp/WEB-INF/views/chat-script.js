@@ -29,9 +29,8 @@ function sendMessage(event) {
     })
     .then(response => {
         if (response.ok) {
+            // Le message arrive par le flux de discussion
             messageInput.value = '';
-            // Recharger la page pour voir le nouveau message
-            window.location.reload();
         } else {
             throw new Error('Erreur lors de l\'envoi du message');
         }
@@ -65,8 +64,8 @@ function deleteMessage(messageId) {
     })
     .then(response => {
         if (response.ok) {
-            // Recharger la page pour voir la suppression
-            window.location.reload();
+            // Retiré sans attendre l'événement du flux
+            removeChatMessage(messageId);
         } else {
             throw new Error('Erreur lors de la suppression');
         }
@@ -77,7 +76,86 @@ function deleteMessage(messageId) {
     });
 }
 
-// Auto-focus sur le champ de saisie
+// Ouvre le flux SSE de la course : le navigateur se reconnecte tout seul
+// et reprend après le dernier événement reçu (en-tête Last-Event-ID)
+function openDiscussionFeed(contextPath) {
+    const chatContainer = document.getElementById('chat-messages');
+    if (!chatContainer || !window.EventSource) {
+        return;
+    }
+    
+    const url = contextPath + '/discussion/stream?courseId='
+        + encodeURIComponent(chatContainer.dataset.courseId)
+        + '&lastEventId=' + encodeURIComponent(chatContainer.dataset.feedCursor || '');
+    const feed = new EventSource(url);
+    
+    feed.addEventListener('message', function(event) {
+        appendChatMessage(JSON.parse(event.data));
+    });
+    feed.addEventListener('delete', function(event) {
+        removeChatMessage(JSON.parse(event.data).id);
+    });
+    // Événements manqués (serveur redémarré, déconnexion trop longue) : relire la page
+    feed.addEventListener('reset', function() {
+        feed.close();
+        window.location.reload();
+    });
+    window.addEventListener('beforeunload', function() {
+        feed.close();
+    });
+}
+
+// Ajoute un message reçu du flux, s'il n'est pas déjà affiché
+function appendChatMessage(message) {
+    const chatContainer = document.getElementById('chat-messages');
+    if (chatContainer.querySelector('.message-item[data-message-id="' + message.id + '"]')) {
+        return;
+    }
+    const emptyState = chatContainer.querySelector('.chat-empty');
+    if (emptyState) {
+        emptyState.remove();
+    }
+    
+    const item = document.createElement('div');
+    item.className = 'message-item';
+    item.dataset.messageId = message.id;
+    
+    const author = document.createElement('strong');
+    author.textContent = message.author;
+    const date = document.createElement('span');
+    date.textContent = ' ' + message.date;
+    const content = document.createElement('div');
+    content.textContent = message.content;
+    
+    item.appendChild(author);
+    item.appendChild(date);
+    if (chatContainer.dataset.canDelete === 'true') {
+        const button = document.createElement('button');
+        button.title = 'Supprimer ce message';
+        button.textContent = 'X';
+        button.addEventListener('click', function() {
+            deleteMessage(message.id);
+        });
+        item.appendChild(button);
+    }
+    item.appendChild(content);
+    
+    // Garder la vue en bas si l'utilisateur y était déjà
+    const atBottom = chatContainer.scrollHeight - chatContainer.scrollTop - chatContainer.clientHeight < 40;
+    chatContainer.appendChild(item);
+    if (atBottom) {
+        chatContainer.scrollTop = chatContainer.scrollHeight;
+    }
+}
+
+function removeChatMessage(messageId) {
+    const item = document.querySelector('#chat-messages .message-item[data-message-id="' + messageId + '"]');
+    if (item) {
+        item.remove();
+    }
+}
+
+// Auto-focus sur le champ de saisie et ouverture du flux
 document.addEventListener('DOMContentLoaded', function() {
     const messageInput = document.getElementById('messageInput');
     const chatContainer = document.getElementById('chat-messages');
@@ -90,4 +168,6 @@ document.addEventListener('DOMContentLoaded', function() {
     if (chatContainer) {
         chatContainer.scrollTop = chatContainer.scrollHeight;
     }
+    
+    openDiscussionFeed(chatContainer && chatContainer.dataset.contextPath || '');
 }); 
\ No newline at end of file
@@ -24,19 +24,24 @@
     <section class="search-hero">
         <h1 class="main-title" style="font-size: 2.2rem;">Découvrez nos prochaines courses</h1>
         
-        <!-- Barre de recherche -->
-        <div class="search-container">
+        <!-- Barre de recherche : filtres appliqués par le serveur sur toutes les courses -->
+        <form class="search-container" method="get" action="${pageContext.request.contextPath}/courses">
             <div class="search-input-container">
-                <input type="text" class="search-input" placeholder="Rechercher une course..." id="searchInput">
+                <input type="text" class="search-input" placeholder="Rechercher une course..." id="searchInput"
+                       name="q" value="<c:out value='${param.q}'/>">
             </div>
             <div class="filter-input-container">
-                <input type="text" class="filter-input" placeholder="Ville ou région..." id="cityFilter">
+                <input type="text" class="filter-input" placeholder="Ville ou région..." id="cityFilter"
+                       name="city" value="<c:out value='${param.city}'/>">
             </div>
             <div class="filter-input-container date-container">
-                <input type="text" class="filter-input" placeholder="Date (JJ/MM/AAAA)" id="dateFilter" data-value="">
+                <input type="text" class="filter-input" placeholder="Date (JJ/MM/AAAA)" id="dateFilter"
+                       name="date" value="<c:out value='${param.date}'/>">
             </div>
-            <button class="search-button" onclick="filterCourses()">Rechercher</button>
-        </div>
+            <c:if test="${not empty param.distance}"><input type="hidden" name="distance" value="<c:out value='${param.distance}'/>"></c:if>
+            <c:if test="${not empty param.sort}"><input type="hidden" name="sort" value="<c:out value='${param.sort}'/>"></c:if>
+            <button type="submit" class="search-button">Rechercher</button>
+        </form>
     </section>
 </section>
 
@@ -58,7 +63,7 @@
         <div style="display:flex; justify-content:space-between; align-items:center;">
             <div>
                 <h2 style="font-size:1.8rem; font-weight:700; color:#333; margin-bottom:8px;">Courses disponibles</h2>
-                <p style="color:#666; margin:0;">${courses.size()} course(s) trouvée(s)</p>
+                <p style="color:#666; margin:0;">${courses.size()} course(s) trouvée(s)<c:if test="${not empty nextCursor}"> sur cette page</c:if></p>
             </div>
         </div>
     </div>
@@ -145,6 +150,20 @@
                         </article>
                     </c:forEach>
                 </div>
+                <c:if test="${not empty nextCursor}">
+                    <c:url var="nextPageUrl" value="/courses">
+                        <c:param name="after" value="${nextCursor}"/>
+                        <c:param name="size" value="${pageSize}"/>
+                        <c:if test="${not empty param.q}"><c:param name="q" value="${param.q}"/></c:if>
+                        <c:if test="${not empty param.sort}"><c:param name="sort" value="${param.sort}"/></c:if>
+                        <c:if test="${not empty param.city}"><c:param name="city" value="${param.city}"/></c:if>
+                        <c:if test="${not empty param.date}"><c:param name="date" value="${param.date}"/></c:if>
+                        <c:if test="${not empty param.distance}"><c:param name="distance" value="${param.distance}"/></c:if>
+                    </c:url>
+                    <div style="text-align:center; margin-top:32px;">
+                        <a href="${nextPageUrl}" class="search-button">Page suivante</a>
+                    </div>
+                </c:if>
             </c:when>
             <c:otherwise>
                 <!-- Aucune course trouvée -->
@@ -167,80 +186,14 @@
 </main>
 
 <script>
-    // Fonction de filtrage des courses
-    function filterCourses() {
-        const searchTerm = document.getElementById('searchInput').value.toLowerCase();
-        const cityFilter = document.getElementById('cityFilter').value.toLowerCase();
-        const dateFilter = document.getElementById('dateFilter').dataset.value || '';
-        
-        const courses = document.querySelectorAll('.course-card');
-        let visibleCount = 0;
-        
-        courses.forEach(course => {
-            const courseName = course.getAttribute('data-course-name').toLowerCase();
-            const courseCity = course.getAttribute('data-course-city').toLowerCase();
-            const courseDate = course.getAttribute('data-course-date');
-            
-            let isVisible = true;
-            
-            // Filtre par nom
-            if (searchTerm && !courseName.includes(searchTerm)) {
-                isVisible = false;
-            }
-            
-            // Filtre par ville
-            if (cityFilter && !courseCity.includes(cityFilter)) {
-                isVisible = false;
-            }
-            
-            // Filtre par date (comparaison exacte au format YYYY-MM-DD)
-            if (dateFilter && courseDate && courseDate !== dateFilter) {
-                isVisible = false;
-            }
-            
-            if (isVisible) {
-                course.style.display = 'block';
-                visibleCount++;
-            } else {
-                course.style.display = 'none';
-            }
-        });
-        
-        // Mettre à jour le compteur dans l'interface
-        const counter = document.querySelector('.acceuil-bloc-blanc p');
-        if (counter) {
-            counter.textContent = `${visibleCount} course(s) trouvée(s)`;
-        }
-        console.log(`${visibleCount} course(s) trouvée(s)`);
-    }
-    
-    // Filtrage en temps réel
-    document.addEventListener('DOMContentLoaded', function() {
-        const searchInput = document.getElementById('searchInput');
-        const cityFilter = document.getElementById('cityFilter');
-        const dateInput = document.getElementById('dateFilter');
-        
-        if (searchInput) searchInput.addEventListener('input', filterCourses);
-        if (cityFilter) cityFilter.addEventListener('input', filterCourses);
-        if (dateInput) dateInput.addEventListener('change', filterCourses);
-        
-        console.log('Page des courses chargée avec ${courses.size()} courses');
-    });
-
-    // Initialize Flatpickr for French locale
+    // Date affichée en JJ/MM/AAAA, envoyée au serveur en AAAA-MM-JJ
     flatpickr("#dateFilter", {
         locale: "fr",
-        dateFormat: "d/m/Y",
-        allowInput: true,
-        onChange: function(selectedDates, dateStr, instance) {
-            if (selectedDates.length) {
-                const iso = selectedDates[0].toISOString().split('T')[0];
-                instance._input.dataset.value = iso; // store ISO for filtering
-            } else {
-                instance._input.dataset.value = '';
-            }
-            filterCourses();
-        }
+        dateFormat: "Y-m-d",
+        altInput: true,
+        altFormat: "d/m/Y",
+        altInputClass: "filter-input",
+        allowInput: true
     });
 </script>
 
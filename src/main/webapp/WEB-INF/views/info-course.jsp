@@ -251,10 +251,10 @@
                 <div style="font-weight:700; margin-bottom:8px;">Chat de la course</div>
                 
                 <!-- Zone de messages -->
-                <div id="chat-messages" style="background:#f8f9ff; border-radius:16px; border:1px solid #e2e7ff; padding:16px; min-height:200px; max-height:400px; overflow-y:auto; margin-bottom:12px;">
+                <div id="chat-messages" data-course-id="${course.id}" data-feed-cursor="${discussionFeedCursor}" data-can-delete="${isCreator}" style="background:#f8f9ff; border-radius:16px; border:1px solid #e2e7ff; padding:16px; min-height:200px; max-height:400px; overflow-y:auto; margin-bottom:12px;">
                     <c:choose>
                         <c:when test="${empty discussions}">
-                            <div style="text-align:center; color:#666; font-style:italic; padding:20px;">
+                            <div class="chat-empty" style="text-align:center; color:#666; font-style:italic; padding:20px;">
                                 Aucun message pour l'instant<br>
                                 <small>Soyez le premier à démarrer la conversation !</small>
                             </div>
@@ -498,9 +498,8 @@
         .then(response => {
             console.log('Réponse du serveur:', response.status);
             if (response.ok) {
+                // Le message arrive par le flux de discussion
                 messageInput.value = '';
-                // Recharger la page pour voir le nouveau message
-                window.location.reload();
             } else {
                 throw new Error('Erreur lors de envoi du message: ' + response.status);
             }
@@ -533,7 +532,8 @@
         })
         .then(response => {
             if (response.ok) {
-                window.location.reload();
+                // Retiré sans attendre l'événement du flux
+                removeChatMessage(messageId);
             } else {
                 throw new Error('Erreur lors de la suppression');
             }
@@ -544,6 +544,98 @@
         });
     }
     
+    // ===== FLUX DE DISCUSSION EN DIRECT =====
+    
+    // Ouvre le flux SSE de la course : le navigateur se reconnecte tout seul
+    // et reprend après le dernier événement reçu (en-tête Last-Event-ID)
+    function openDiscussionFeed() {
+        const chatContainer = document.getElementById('chat-messages');
+        if (!chatContainer || !window.EventSource) {
+            return;
+        }
+        
+        const url = '${pageContext.request.contextPath}/discussion/stream?courseId='
+            + encodeURIComponent(chatContainer.dataset.courseId)
+            + '&lastEventId=' + encodeURIComponent(chatContainer.dataset.feedCursor || '');
+        const feed = new EventSource(url);
+        
+        feed.addEventListener('message', function(event) {
+            appendChatMessage(JSON.parse(event.data));
+        });
+        feed.addEventListener('delete', function(event) {
+            removeChatMessage(JSON.parse(event.data).id);
+        });
+        // Événements manqués (serveur redémarré, déconnexion trop longue) : relire la page
+        feed.addEventListener('reset', function() {
+            feed.close();
+            window.location.reload();
+        });
+        window.addEventListener('beforeunload', function() {
+            feed.close();
+        });
+    }
+    
+    function appendChatMessage(message) {
+        const chatContainer = document.getElementById('chat-messages');
+        if (chatContainer.querySelector('.message-item[data-message-id="' + message.id + '"]')) {
+            return;
+        }
+        const emptyState = chatContainer.querySelector('.chat-empty');
+        if (emptyState) {
+            emptyState.remove();
+        }
+        
+        const item = document.createElement('div');
+        item.className = 'message-item';
+        item.dataset.messageId = message.id;
+        item.style.cssText = 'margin-bottom:12px; border-bottom:1px solid #eee; padding-bottom:8px;';
+        
+        const header = document.createElement('div');
+        header.style.cssText = 'display:flex; justify-content:space-between; align-items:center; margin-bottom:4px;';
+        const author = document.createElement('strong');
+        author.style.cssText = 'color:#6a82fb; font-size:0.9rem;';
+        author.textContent = message.author;
+        const meta = document.createElement('div');
+        meta.style.cssText = 'display:flex; align-items:center; gap:8px;';
+        const date = document.createElement('span');
+        date.style.cssText = 'font-size:0.75rem; color:#999;';
+        date.textContent = message.date;
+        meta.appendChild(date);
+        if (chatContainer.dataset.canDelete === 'true') {
+            const button = document.createElement('button');
+            button.style.cssText = 'background:none; border:none; color:#ff6a88; cursor:pointer; font-size:0.8rem; padding:2px 4px; border-radius:4px;';
+            button.title = 'Supprimer ce message';
+            button.textContent = 'X';
+            button.addEventListener('click', function() {
+                deleteMessage(message.id);
+            });
+            meta.appendChild(button);
+        }
+        header.appendChild(author);
+        header.appendChild(meta);
+        
+        const content = document.createElement('div');
+        content.style.cssText = 'color:#333; font-size:0.95rem; line-height:1.4;';
+        content.textContent = message.content;
+        
+        item.appendChild(header);
+        item.appendChild(content);
+        
+        // Garder la vue en bas si l'utilisateur y était déjà
+        const atBottom = chatContainer.scrollHeight - chatContainer.scrollTop - chatContainer.clientHeight < 40;
+        chatContainer.appendChild(item);
+        if (atBottom) {
+            chatContainer.scrollTop = chatContainer.scrollHeight;
+        }
+    }
+    
+    function removeChatMessage(messageId) {
+        const item = document.querySelector('#chat-messages .message-item[data-message-id="' + messageId + '"]');
+        if (item) {
+            item.remove();
+        }
+    }
+    
     // Auto-focus et scroll
     document.addEventListener('DOMContentLoaded', function() {
         // Traduire les jours en français
@@ -578,6 +670,8 @@
             chatContainer.scrollTop = chatContainer.scrollHeight;
         }
         
+        openDiscussionFeed();
+        
         // Initialiser la carte
         initMap();
     });
@@ -0,0 +1,118 @@
+package com.colorrun.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plans d'exécution des prédicats les plus fréquents des DAO, sur le
+ * schéma de référence puis après {@link SchemaMigrator#migrate(Connection)} :
+ * chaque requête doit passer par l'index créé pour elle, ou par celui de
+ * sa clé étrangère.
+ */
+class SchemaIndexUsageTest {
+
+    /** Requête d'un DAO → index attendu une fois le schéma migré */
+    private static final Map<String, String> MIGRATION_INDEXES = new LinkedHashMap<>();
+
+    /** Requêtes servies par l'index d'une clé étrangère du schéma de référence (voir V9) */
+    private static final String[] FOREIGN_KEY_PREDICATES = {
+            "SELECT * FROM Message WHERE expediteurId = ? ORDER BY date DESC",
+            "SELECT * FROM Discussion WHERE course_id = ? ORDER BY date ASC",
+            "SELECT * FROM Course WHERE USERCREATEID = ? ORDER BY DATE DESC"
+    };
+
+    static {
+        // Index de V1 remplacé par l'index unique de V2 sur les mêmes colonnes
+        MIGRATION_INDEXES.put("SELECT * FROM Participation WHERE utilisateurId = ? AND courseId = ?",
+                "uq_participation_user_course");
+        MIGRATION_INDEXES.put("SELECT COUNT(*) FROM Participation WHERE courseId = ? AND statut NOT IN ('CANCELED', 'CANCELLED')",
+                "idx_participation_course_statut");
+        MIGRATION_INDEXES.put("SELECT COUNT(*) FROM Message WHERE destinataireId = ? AND lu = FALSE",
+                "idx_message_destinataire_lu");
+        MIGRATION_INDEXES.put("SELECT * FROM Course WHERE DATE >= ? AND DATE < ? ORDER BY DATE, ID",
+                "idx_course_date");
+    }
+
+    @Test
+    void hotPredicatesUseAnIndexOnceMigrated() throws SQLException {
+        try (Connection connection = TestDatabase.openReferenceSchema("runton-explain")) {
+            insertRows(connection);
+            for (Map.Entry<String, String> predicate : MIGRATION_INDEXES.entrySet()) {
+                String plan = explain(connection, predicate.getKey());
+                assertFalse(uses(plan, predicate.getValue()), () -> "Avant migration : " + plan);
+            }
+
+            SchemaMigrator.migrate(connection);
+            analyze(connection);
+
+            for (Map.Entry<String, String> predicate : MIGRATION_INDEXES.entrySet()) {
+                String plan = explain(connection, predicate.getKey());
+                assertTrue(uses(plan, predicate.getValue()), () -> "Après migration : " + plan);
+            }
+            for (String predicate : FOREIGN_KEY_PREDICATES) {
+                String plan = explain(connection, predicate);
+                assertFalse(plan.contains(".tableScan"), () -> "Après migration : " + plan);
+            }
+            // Colonne et index ajoutés par V7
+            String tokenPlan = explain(connection,
+                    "SELECT user_id FROM VerificationToken WHERE tokenHash = ? AND expiry_date > ?");
+            assertTrue(uses(tokenPlan, "idx_verificationtoken_hash"), () -> "Après migration : " + tokenPlan);
+        }
+    }
+
+    /**
+     * Quelques centaines de lignes par table, pour que l'optimiseur compare
+     * les index sur des statistiques plutôt que sur des tables vides.
+     */
+    private static void insertRows(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO Utilisateur (nom, prenom, email, role, hashMotDePasse) "
+                    + "SELECT 'Test', 'u' || X, 'u' || X || '@test.colorrun.fr', 'USER', 'x' FROM SYSTEM_RANGE(1, 50)");
+            statement.execute("INSERT INTO Course (nom, date, lieu, distance, maxParticipants, prix, UserCreateId) "
+                    + "SELECT 'Course ' || X, DATEADD('DAY', X, CURRENT_TIMESTAMP), 'Lyon', 5, 10, 10, MOD(X, 50) + 1 "
+                    + "FROM SYSTEM_RANGE(1, 500)");
+            statement.execute("INSERT INTO Participation (utilisateurId, courseId, date, statut) "
+                    + "SELECT (X - 1) / 20 + 1, MOD(X - 1, 20) + 1, CURRENT_TIMESTAMP, 'REGISTERED' FROM SYSTEM_RANGE(1, 1000)");
+            statement.execute("INSERT INTO Message (expediteurId, destinataireId, date, contenu) "
+                    + "SELECT MOD(X, 50) + 1, MOD(X * 7, 50) + 1, DATEADD('MINUTE', X, CURRENT_TIMESTAMP), 'm' "
+                    + "FROM SYSTEM_RANGE(1, 2000)");
+            statement.execute("INSERT INTO Discussion (course_id, date, contenu, expediteurId) "
+                    + "SELECT MOD(X, 500) + 1, DATEADD('MINUTE', X, CURRENT_TIMESTAMP), 'm', MOD(X, 50) + 1 "
+                    + "FROM SYSTEM_RANGE(1, 2000)");
+        }
+        analyze(connection);
+    }
+
+    private static void analyze(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private static String explain(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                statement.setObject(i, 1);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    private static boolean uses(String plan, String index) {
+        return plan.toUpperCase(Locale.ROOT).contains("." + index.toUpperCase(Locale.ROOT) + ":");
+    }
+}
@@ -0,0 +1,132 @@
+package com.colorrun.config;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base H2 des tests : le schéma de référence puis les migrations, appliqués
+ * une fois par JVM sur la base désignée par <code>colorrun.db.url</code>
+ * (base en mémoire, voir la configuration de surefire dans le pom).
+ */
+public final class TestDatabase {
+
+    private static final String REFERENCE_SCHEMA = "RUNSCRIPT FROM 'db/sqlScriptDropAndCreateUpdated.sql'";
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static boolean initialized;
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Crée le schéma au premier appel.
+     */
+    public static synchronized void init() throws SQLException {
+        if (initialized) {
+            return;
+        }
+        try (Connection connection = DatabaseConfig.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(REFERENCE_SCHEMA);
+        }
+        SchemaMigrator.migrate();
+        initialized = true;
+    }
+
+    /**
+     * Ouvre une base en mémoire distincte, au schéma de référence sans
+     * migration ; elle disparaît à la fermeture de la connexion.
+     */
+    public static Connection openReferenceSchema(String name) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + name, "Runton", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(REFERENCE_SCHEMA);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    /**
+     * Enregistre un utilisateur à l'email unique.
+     *
+     * @return son identifiant
+     */
+    public static int createUser(String prefix) throws SQLException {
+        String sql = "INSERT INTO Utilisateur (nom, prenom, email, role, hashMotDePasse) VALUES (?, ?, ?, 'USER', 'x')";
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            int n = SEQUENCE.incrementAndGet();
+            statement.setString(1, "Test");
+            statement.setString(2, prefix + n);
+            statement.setString(3, prefix + n + "@test.colorrun.fr");
+            statement.executeUpdate();
+            return generatedKey(statement);
+        }
+    }
+
+    /**
+     * Enregistre une course dans un mois, organisée par {@code organizerId}.
+     *
+     * @return son identifiant
+     */
+    public static int createCourse(int organizerId, int maxParticipants) throws SQLException {
+        String sql = """
+            INSERT INTO Course (nom, date, lieu, distance, maxParticipants, prix, UserCreateId)
+            VALUES (?, ?, 'Lyon', 5, ?, 10, ?)
+            """;
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, "Course test " + SEQUENCE.incrementAndGet());
+            statement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now().plusMonths(1)));
+            statement.setInt(3, maxParticipants);
+            statement.setInt(4, organizerId);
+            statement.executeUpdate();
+            return generatedKey(statement);
+        }
+    }
+
+    /**
+     * Exécute une requête de comptage et retourne sa première colonne.
+     */
+    public static int count(String sql, Object... parameters) throws SQLException {
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    /**
+     * Exécute une mise à jour.
+     */
+    public static int update(String sql, Object... parameters) throws SQLException {
+        try (Connection connection = DatabaseConfig.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    private static int generatedKey(Statement statement) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            keys.next();
+            return keys.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.colorrun.dao;
+
+import com.colorrun.business.Dossard;
+import com.colorrun.config.TestDatabase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Numéros de dossard : réservation par blocs, numéros rendus et
+ * attributions concurrentes.
+ */
+class DossardNumberAllocatorTest {
+
+    private final DossardDAO dossardDAO = new DossardDAO();
+
+    @BeforeAll
+    static void initDatabase() throws SQLException {
+        TestDatabase.init();
+    }
+
+    @Test
+    void numbersAreReservedInBlocksDisjointBetweenInstances() throws SQLException {
+        int courseId = TestDatabase.createCourse(TestDatabase.createUser("orga"), 100);
+        DossardNumberAllocator allocator = new DossardNumberAllocator(dossardDAO, 5, false);
+
+        for (int expected = 1; expected <= 12; expected++) {
+            assertEquals(expected, allocator.next(courseId));
+        }
+        assertEquals(15, highWater(courseId));
+        assertTrue(allocator.getStatsSummary().contains("blocs=3"));
+
+        // Une autre instance reçoit le bloc suivant
+        DossardNumberAllocator other = new DossardNumberAllocator(dossardDAO, 5, false);
+        assertEquals(16, other.next(courseId));
+        assertEquals(20, highWater(courseId));
+    }
+
+    @Test
+    void returnedNumbersAreHandedOutAgainSmallestFirst() throws SQLException {
+        int courseId = TestDatabase.createCourse(TestDatabase.createUser("orga"), 100);
+        DossardNumberAllocator allocator = new DossardNumberAllocator(dossardDAO, 10, false);
+        for (int i = 1; i <= 5; i++) {
+            allocator.next(courseId);
+        }
+
+        // Le dernier numéro distribué recule la position du bloc
+        allocator.rollback(courseId, 5);
+        assertEquals(5, allocator.next(courseId));
+
+        allocator.rollback(courseId, 4);
+        allocator.rollback(courseId, 2);
+        allocator.rollback(courseId, 3);
+        assertEquals(2, allocator.next(courseId));
+        assertEquals(3, allocator.next(courseId));
+        assertEquals(4, allocator.next(courseId));
+        assertEquals(6, allocator.next(courseId));
+
+        // Numéro d'un dossard supprimé : gardé tant que la réutilisation est désactivée
+        allocator.release(courseId, 1);
+        assertEquals(7, allocator.next(courseId));
+    }
+
+    @Test
+    void concurrentCallsNeverShareANumber() throws Exception {
+        int courseId = TestDatabase.createCourse(TestDatabase.createUser("orga"), 10_000);
+        DossardNumberAllocator allocator = new DossardNumberAllocator(dossardDAO, 10, false);
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Integer>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    List<Integer> numbers = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        numbers.add(allocator.next(courseId));
+                    }
+                    return numbers;
+                }));
+            }
+            start.countDown();
+
+            TreeSet<Integer> all = new TreeSet<>();
+            for (Future<List<Integer>> result : results) {
+                for (int number : result.get(30, TimeUnit.SECONDS)) {
+                    assertTrue(all.add(number), "Numéro distribué deux fois : " + number);
+                }
+            }
+            // Sans trou : 1..N
+            assertEquals(threads * perThread, all.size());
+            assertEquals(threads * perThread, all.last());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void duplicateNumberIsToldApartFromDuplicateParticipant() throws SQLException {
+        int courseId = TestDatabase.createCourse(TestDatabase.createUser("orga"), 100);
+        int first = TestDatabase.createUser("coureur");
+        int second = TestDatabase.createUser("coureur");
+        dossardDAO.save(new Dossard(1, courseId, first));
+
+        SQLException sameNumber = assertThrows(SQLException.class,
+                () -> dossardDAO.save(new Dossard(1, courseId, second)));
+        assertTrue(DossardDAO.isDuplicateNumber(sameNumber));
+
+        SQLException sameParticipant = assertThrows(SQLException.class,
+                () -> dossardDAO.save(new Dossard(2, courseId, first)));
+        assertFalse(DossardDAO.isDuplicateNumber(sameParticipant));
+    }
+
+    private static int highWater(int courseId) throws SQLException {
+        return TestDatabase.count("SELECT highWater FROM DossardSequence WHERE courseId = ?", courseId);
+    }
+}
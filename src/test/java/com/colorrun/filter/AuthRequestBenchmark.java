@@ -0,0 +1,114 @@
+package com.colorrun.filter;
+
+import com.colorrun.business.User;
+import com.colorrun.security.TokenManager;
+import com.colorrun.util.MicroBenchmark;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Banc d'essai du coût d'authentification d'une requête : passage dans
+ * {@link AuthenticationFilter} puis trois contrôles de rôle, comme une page
+ * qui adapte son menu au rôle de l'utilisateur connecté.
+ * <p>
+ * Requêtes et session sont des doublures {@link Proxy} en mémoire (mêmes
+ * pour chaque requête, attributs de requête vidés entre deux) ; leur coût,
+ * quelques dizaines de nanosecondes par appel, est compris dans la mesure.
+ * </p>
+ * <pre>mvn -o test -Dtest=AuthRequestBenchmark</pre>
+ */
+class AuthRequestBenchmark {
+
+    @Test
+    void authenticatedRequests() throws Exception {
+        Map<String, Object> sessionAttributes = new HashMap<>();
+        HttpSession session = stub(HttpSession.class, sessionAttributes, null, null);
+
+        User user = new User();
+        user.setId(7);
+        user.setFirstName("Léa");
+        user.setLastName("Martin");
+        user.setEmail("lea.martin@example.com");
+        user.setRole("ORGANIZER");
+        TokenManager.createToken(user, session);
+
+        AuthenticationFilter filter = new AuthenticationFilter();
+        HttpServletResponse response = stub(HttpServletResponse.class, new HashMap<>(), null, null);
+        FilterChain roleChecks = (request, ignored) -> {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            if (TokenManager.isAuthenticated(httpRequest) && !TokenManager.isAdmin(httpRequest)) {
+                TokenManager.isOrganizer(httpRequest);
+            }
+        };
+
+        measure("page, filtre + 3 contrôles de rôle", "/runton/courses", session, filter, response, roleChecks);
+        measure("feuille de style", "/runton/css/style.css", session, filter, response, (request, ignored) -> { });
+    }
+
+    private static void measure(String name, String uri, HttpSession session, AuthenticationFilter filter,
+                                HttpServletResponse response, FilterChain chain) throws Exception {
+        Map<String, Object> requestAttributes = new HashMap<>();
+        HttpServletRequest request = stub(HttpServletRequest.class, requestAttributes, session, uri);
+        MicroBenchmark.measure(name, () -> {
+            requestAttributes.clear();
+            filter.doFilter(request, response, chain);
+            return request;
+        });
+    }
+
+    /**
+     * Doublure d'une requête, d'une réponse ou d'une session : attributs
+     * dans {@code attributes}, valeurs par défaut pour le reste.
+     */
+    private static <T> T stub(Class<T> type, Map<String, Object> attributes, HttpSession session, String uri) {
+        return type.cast(Proxy.newProxyInstance(AuthRequestBenchmark.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAttribute":
+                            return attributes.get((String) args[0]);
+                        case "setAttribute":
+                            attributes.put((String) args[0], args[1]);
+                            return null;
+                        case "removeAttribute":
+                            attributes.remove((String) args[0]);
+                            return null;
+                        case "getAttributeNames":
+                            return Collections.enumeration(attributes.keySet());
+                        case "getSession":
+                            return session;
+                        case "getRequestURI":
+                            return uri;
+                        case "getContextPath":
+                            return "/runton";
+                        case "getMethod":
+                            return "GET";
+                        case "getId":
+                            return "session-bench";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            Class<?> returnType = method.getReturnType();
+                            if (returnType == boolean.class) {
+                                return false;
+                            }
+                            if (returnType == int.class) {
+                                return 0;
+                            }
+                            if (returnType == long.class) {
+                                return 0L;
+                            }
+                            return null;
+                    }
+                }));
+    }
+}
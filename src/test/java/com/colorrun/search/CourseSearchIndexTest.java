@@ -0,0 +1,97 @@
+package com.colorrun.search;
+
+import com.colorrun.business.Course;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Correspondances de l'index de recherche et mises à jour incrémentales.
+ */
+class CourseSearchIndexTest {
+
+    private final CourseSearchIndex index = built(
+            course(1, "Marathon des Couleurs", "Lyon", "Téléthon"),
+            course(2, "Color Run Nocturne", "Saint-Étienne", "Restos du cœur"),
+            course(3, "Foulées roses", "Lyonnais", "Ligue contre le cancer"));
+
+    @Test
+    void exactTermMatchesWithoutCaseOrAccents() {
+        assertEquals(List.of(2), ids(index.search("SAINT etienne", 0)));
+        assertEquals(List.of(1), ids(index.search("telethon", 0)));
+        assertEquals(List.of(3), ids(index.search("foulees roses", 0)));
+    }
+
+    @Test
+    void prefixMatchesRankAfterExactMatches() {
+        assertEquals(List.of(1), ids(index.search("marath", 0)));
+        // « lyon » : exact pour la course 1, préfixe de « lyonnais » pour la course 3
+        assertEquals(List.of(1, 3), ids(index.search("lyon", 0)));
+    }
+
+    @Test
+    void oneTypoIsTolerated() {
+        assertEquals(List.of(2), ids(index.search("nocturme", 0)));
+        assertEquals(List.of(1), ids(index.search("telethin", 0)));
+        // Trop court pour la recherche approchée
+        assertTrue(index.search("rum", 0).isEmpty());
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        assertEquals(List.of(2), ids(index.search("color nocturne", 0)));
+        assertTrue(index.search("color marathon", 0).isEmpty());
+    }
+
+    @Test
+    void indexAndRemoveUpdateTheBuiltIndex() {
+        index.index(course(4, "Trail des Lumières", "Annecy", null));
+        assertEquals(List.of(4), ids(index.search("lumieres", 0)));
+
+        // Réindexation : les anciens termes disparaissent
+        index.index(course(4, "Trail des Neiges", "Annecy", null));
+        assertTrue(index.search("lumieres", 0).isEmpty());
+        assertEquals(List.of(4), ids(index.search("neiges", 0)));
+
+        index.remove(4);
+        assertTrue(index.search("annecy", 0).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void tokenizeIgnoresTheDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            assertEquals(List.of("inscription", "istres"), CourseSearchIndex.tokenize("INSCRIPTION Istres"));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    private static CourseSearchIndex built(Course... courses) {
+        CourseSearchIndex index = new CourseSearchIndex();
+        index.rebuild(List.of(courses), index.getModificationStamp());
+        return index;
+    }
+
+    private static Course course(int id, String name, String city, String cause) {
+        Course course = new Course();
+        course.setId(id);
+        course.setName(name);
+        course.setCity(city);
+        course.setCause(cause);
+        course.setDate(LocalDateTime.of(2026, 6, 1, 9, 0).plusDays(id));
+        return course;
+    }
+
+    private static List<Integer> ids(List<Course> courses) {
+        return courses.stream().map(Course::getId).collect(Collectors.toList());
+    }
+}
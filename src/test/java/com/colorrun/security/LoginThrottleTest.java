@@ -0,0 +1,78 @@
+package com.colorrun.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Limitation des tentatives de connexion, réservées avant le calcul BCrypt.
+ */
+class LoginThrottleTest {
+
+    @Test
+    void concurrentAttemptsOnOneAccountAreAdmittedUpToTheLimit() throws Exception {
+        LoginThrottle throttle = new LoginThrottle(5, 1000, 15, 1000);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 100; i++) {
+                String address = "10.0.0." + (i % 50);
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return throttle.tryAcquire("Lea@Example.com ", address) == 0;
+                }));
+            }
+            start.countDown();
+
+            int admitted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    admitted++;
+                }
+            }
+            assertEquals(5, admitted);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(throttle.tryAcquire("lea@example.com", "10.0.0.99") > 0);
+    }
+
+    @Test
+    void addressLimitReturnsTheAccountReservation() {
+        LoginThrottle throttle = new LoginThrottle(5, 2, 15, 1000);
+
+        assertEquals(0, throttle.tryAcquire("a@example.com", "10.0.0.1"));
+        assertEquals(0, throttle.tryAcquire("b@example.com", "10.0.0.1"));
+        assertTrue(throttle.tryAcquire("c@example.com", "10.0.0.1") > 0);
+
+        // Le refus par adresse n'a rien coûté au compte
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, throttle.tryAcquire("c@example.com", "10.0.1." + i));
+        }
+        assertTrue(throttle.tryAcquire("c@example.com", "10.0.2.1") > 0);
+    }
+
+    @Test
+    void successClearsTheAccountAndReleaseReturnsTheReservation() {
+        LoginThrottle throttle = new LoginThrottle(2, 1000, 15, 1000);
+
+        assertEquals(0, throttle.tryAcquire("lea@example.com", "10.0.0.1"));
+        throttle.release("lea@example.com", "10.0.0.1");
+        assertEquals(0, throttle.tryAcquire("lea@example.com", "10.0.0.1"));
+        assertEquals(0, throttle.tryAcquire("lea@example.com", "10.0.0.1"));
+        assertTrue(throttle.tryAcquire("lea@example.com", "10.0.0.1") > 0);
+
+        throttle.recordSuccess("lea@example.com", "10.0.0.1");
+        assertEquals(0, throttle.tryAcquire("lea@example.com", "10.0.0.1"));
+    }
+}
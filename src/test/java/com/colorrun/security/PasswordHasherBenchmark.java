@@ -0,0 +1,116 @@
+package com.colorrun.security;
+
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Banc d'essai des connexions concurrentes : vérifications BCrypt par
+ * seconde, selon le coût du hash, faites sur le thread du client (comme
+ * sur les threads Tomcat avant {@link PasswordHasher}) ou par le pool borné.
+ * Un dernier scénario sature le pool pour compter les refus.
+ * <pre>mvn -o test -Dtest=PasswordHasherBenchmark</pre>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.bench.clients</code> : clients simultanés (défaut : 8)</li>
+ *   <li><code>colorrun.bench.measureMillis</code> : durée de chaque mesure (défaut : 5000)</li>
+ * </ul>
+ */
+class PasswordHasherBenchmark {
+
+    private static final int CLIENTS = Integer.getInteger("colorrun.bench.clients", 8);
+    private static final long MEASURE_MILLIS = Long.getLong("colorrun.bench.measureMillis", 5000L);
+    private static final String PASSWORD = "motDePasse-2026";
+
+    /** Vérification d'un mot de passe par un client */
+    @FunctionalInterface
+    private interface Login {
+        boolean check(String hash);
+    }
+
+    @Test
+    void concurrentLogins() throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int cost : new int[] {8, 10, 11, 12}) {
+            String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(cost));
+            PasswordHasher hasher = new PasswordHasher(threads, 64, 30_000L);
+            try {
+                run("coût " + cost + ", thread du client", CLIENTS, hash, h -> BCrypt.checkpw(PASSWORD, h), null);
+                run("coût " + cost + ", pool de " + threads, CLIENTS, hash, h -> hasher.check(PASSWORD, h), hasher);
+            } finally {
+                hasher.close();
+            }
+        }
+
+        String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(10));
+        PasswordHasher hasher = new PasswordHasher(threads, 64, 30_000L);
+        try {
+            run("coût 10, 200 clients, file de 64", 200, hash, h -> hasher.check(PASSWORD, h), hasher);
+        } finally {
+            hasher.close();
+        }
+    }
+
+    /**
+     * Lance {@code clients} threads qui se connectent en boucle, et affiche
+     * le débit, les refus et la latence moyenne d'une connexion acceptée.
+     */
+    private static void run(String name, int clients, String hash, Login login, PasswordHasher hasher)
+            throws InterruptedException {
+        LongAdder accepted = new LongAdder();
+        LongAdder refused = new LongAdder();
+        LongAdder latencyNanos = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] deadline = new long[1];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Thread client = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < deadline[0]) {
+                    long begin = System.nanoTime();
+                    try {
+                        if (login.check(hash)) {
+                            accepted.increment();
+                            latencyNanos.add(System.nanoTime() - begin);
+                        }
+                    } catch (RejectedExecutionException e) {
+                        refused.increment();
+                        // Un client refusé réessaie un peu plus tard
+                        try {
+                            Thread.sleep(10);
+                        } catch (InterruptedException interrupted) {
+                            return;
+                        }
+                    }
+                }
+            }, "bench-client-" + i);
+            client.start();
+            threads.add(client);
+        }
+
+        long begin = System.nanoTime();
+        deadline[0] = begin + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+        start.countDown();
+        for (Thread client : threads) {
+            client.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        long ok = accepted.sum();
+        System.out.println(String.format(Locale.ROOT, "%-36s %8.1f logins/s %8d refus %8.0f ms/login%s",
+                name, ok / seconds, refused.sum(), ok == 0 ? 0.0 : latencyNanos.sum() / 1e6 / ok,
+                hasher == null ? "" : "  " + hasher.getStatsSummary()));
+    }
+}
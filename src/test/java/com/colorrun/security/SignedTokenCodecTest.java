@@ -0,0 +1,136 @@
+package com.colorrun.security;
+
+import com.colorrun.business.User;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Cookies signés : relecture, valeurs altérées, rotation de clé, et refus
+ * des tokens révoqués ou expirés par {@link TokenManager}.
+ */
+class SignedTokenCodecTest {
+
+    private static final byte[] KEY = "clé-de-test-de-trente-deux-octets!".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OTHER_KEY = "autre-clé-de-test-trente-deux-oct".getBytes(StandardCharsets.UTF_8);
+
+    private final SignedTokenCodec codec = new SignedTokenCodec(KEY, null);
+
+    @Test
+    void encodedTokenIsReadBack() {
+        UserToken token = new UserToken(user());
+
+        UserToken decoded = codec.decode(codec.encode(token));
+
+        assertNotNull(decoded);
+        assertEquals(token.getTokenId(), decoded.getTokenId());
+        assertEquals(7, decoded.getUserId());
+        assertEquals("Léa", decoded.getFirstName());
+        assertEquals("Martin", decoded.getLastName());
+        assertEquals("lea.martin@example.com", decoded.getEmail());
+        assertEquals("ORGANIZER", decoded.getRole());
+        assertEquals(token.getCreatedAt().truncatedTo(ChronoUnit.MILLIS), decoded.getCreatedAt());
+        assertEquals(token.getLastActivity().truncatedTo(ChronoUnit.MILLIS), decoded.getLastActivity());
+    }
+
+    @Test
+    void tamperedPayloadIsRejected() {
+        String value = codec.encode(new UserToken(user()));
+        int payload = value.indexOf('.') + 5;
+
+        assertNull(codec.decode(value.substring(0, payload) + flip(value.charAt(payload))
+                + value.substring(payload + 1)));
+    }
+
+    @Test
+    void tamperedSignatureIsRejected() {
+        String value = codec.encode(new UserToken(user()));
+        int last = value.length() - 2;
+
+        assertNull(codec.decode(value.substring(0, last) + flip(value.charAt(last)) + value.substring(last + 1)));
+    }
+
+    @Test
+    void truncatedValueIsRejected() {
+        String value = codec.encode(new UserToken(user()));
+
+        assertNull(codec.decode(value.substring(0, value.length() - 4)));
+        assertNull(codec.decode(value.substring(0, value.lastIndexOf('.'))));
+        assertNull(codec.decode("v1."));
+        assertNull(codec.decode(""));
+    }
+
+    @Test
+    void otherVersionIsRejected() {
+        String value = codec.encode(new UserToken(user()));
+
+        assertNull(codec.decode("v2" + value.substring(2)));
+        assertNull(codec.decode(value.substring(3)));
+    }
+
+    @Test
+    void previousKeyIsAcceptedDuringRotation() {
+        String signedWithOldKey = new SignedTokenCodec(KEY, null).encode(new UserToken(user()));
+
+        assertNotNull(new SignedTokenCodec(OTHER_KEY, KEY).decode(signedWithOldKey));
+        assertNull(new SignedTokenCodec(OTHER_KEY, null).decode(signedWithOldKey));
+    }
+
+    @Test
+    void revokedTokenIsRejected() {
+        TokenRevocationList revoked = new TokenRevocationList();
+        UserToken token = new UserToken(user());
+        String value = codec.encode(token);
+        assertNotNull(TokenManager.verifyCookie(value, codec, revoked));
+
+        revoked.revoke(token.getTokenId(), TokenManager.cookieDeadline(token));
+
+        assertNull(TokenManager.verifyCookie(value, codec, revoked));
+    }
+
+    @Test
+    void cookieExpiresAfterItsLifetimeEvenWhenActive() {
+        TokenRevocationList revoked = new TokenRevocationList();
+        LocalDateTime now = LocalDateTime.now();
+
+        assertNotNull(TokenManager.verifyCookie(
+                codec.encode(token(now.minusHours(23), now)), codec, revoked));
+        assertNull(TokenManager.verifyCookie(
+                codec.encode(token(now.minusHours(25), now)), codec, revoked));
+    }
+
+    @Test
+    void inactiveCookieIsRejected() {
+        LocalDateTime created = LocalDateTime.now().minusHours(25);
+
+        assertNull(TokenManager.verifyCookie(
+                codec.encode(token(created, created)), codec, new TokenRevocationList()));
+    }
+
+    private static UserToken token(LocalDateTime createdAt, LocalDateTime lastActivity) {
+        return new UserToken(UUID.randomUUID().toString(), 7, "Léa", "Martin", "lea.martin@example.com",
+                "ORGANIZER", createdAt, lastActivity);
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(7);
+        user.setFirstName("Léa");
+        user.setLastName("Martin");
+        user.setEmail("lea.martin@example.com");
+        user.setRole("ORGANIZER");
+        return user;
+    }
+
+    /** Autre caractère de l'alphabet Base64 URL */
+    private static char flip(char c) {
+        return c == 'A' ? 'B' : 'A';
+    }
+}
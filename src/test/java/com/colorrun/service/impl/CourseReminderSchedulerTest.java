@@ -0,0 +1,118 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.config.EmailConfig;
+import com.colorrun.config.TestDatabase;
+import com.colorrun.dao.CourseDAO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rappels de course : un seul email en file par participant, que l'envoi
+ * soit relancé ou exécuté en parallèle (par exemple sur deux instances).
+ */
+class CourseReminderSchedulerTest {
+
+    private static final int DAYS_BEFORE = 2;
+
+    @BeforeAll
+    static void configureEmail() throws SQLException {
+        TestDatabase.init();
+        // Les rappels ne sont mis en file que si l'envoi d'emails est configuré
+        System.setProperty("colorrun.email.enabled", "true");
+        System.setProperty("colorrun.email.smtp.host", "127.0.0.1");
+        System.setProperty("colorrun.email.smtp.auth", "false");
+        System.setProperty("colorrun.email.smtp.starttls", "false");
+        EmailConfig.getInstance().reloadConfiguration();
+    }
+
+    @Test
+    void secondRunQueuesNothing() throws Exception {
+        int courseId = TestDatabase.createCourse(TestDatabase.createUser("orga"), 100);
+        List<Integer> participants = register(courseId, 7);
+        int cancelled = TestDatabase.createUser("annule");
+        TestDatabase.update("INSERT INTO Participation (utilisateurId, courseId, date, statut) "
+                + "VALUES (?, ?, CURRENT_TIMESTAMP, 'CANCELLED')", cancelled, courseId);
+        CourseReminderScheduler scheduler = new CourseReminderScheduler(DAYS_BEFORE, 60, 3, 0);
+        LocalDate today = reminderDay(courseId);
+
+        scheduler.run(today);
+        assertEquals(0, scheduler.run(today));
+
+        assertOneReminderEach(courseId, participants);
+        assertEquals(0, outboxRows(cancelled));
+    }
+
+    @Test
+    void concurrentRunsQueueOneReminderPerParticipant() throws Exception {
+        int courseId = TestDatabase.createCourse(TestDatabase.createUser("orga"), 100);
+        List<Integer> participants = register(courseId, 25);
+        LocalDate today = reminderDay(courseId);
+
+        // Instances distinctes : leurs passages ne sont pas sérialisés par le verrou d'instance
+        int runners = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(runners);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < runners; i++) {
+                CourseReminderScheduler scheduler = new CourseReminderScheduler(DAYS_BEFORE, 60, 4, 0);
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return scheduler.run(today);
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        new CourseReminderScheduler(DAYS_BEFORE, 60, 4, 0).run(today);
+
+        assertOneReminderEach(courseId, participants);
+    }
+
+    private static List<Integer> register(int courseId, int count) throws SQLException {
+        List<Integer> participants = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int userId = TestDatabase.createUser("coureur");
+            TestDatabase.update("INSERT INTO Participation (utilisateurId, courseId, date, statut) "
+                    + "VALUES (?, ?, CURRENT_TIMESTAMP, 'REGISTERED')", userId, courseId);
+            participants.add(userId);
+        }
+        return participants;
+    }
+
+    /**
+     * @return la date à laquelle les rappels de la course sont dus
+     */
+    private static LocalDate reminderDay(int courseId) throws SQLException {
+        return new CourseDAO().findById(courseId).orElseThrow().getDate().toLocalDate().minusDays(DAYS_BEFORE);
+    }
+
+    private static void assertOneReminderEach(int courseId, List<Integer> participants) throws SQLException {
+        for (int userId : participants) {
+            assertEquals(1, outboxRows(userId), "Rappels en file pour l'utilisateur " + userId);
+        }
+        assertEquals(participants.size(), TestDatabase.count(
+                "SELECT COUNT(*) FROM CourseReminder WHERE courseId = ? AND daysBefore = ?", courseId, DAYS_BEFORE));
+    }
+
+    private static int outboxRows(int userId) throws SQLException {
+        return TestDatabase.count("SELECT COUNT(*) FROM EmailOutbox o JOIN Utilisateur u ON o.recipient = u.email "
+                + "WHERE u.id = ?", userId);
+    }
+}
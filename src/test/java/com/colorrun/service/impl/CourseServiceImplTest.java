@@ -0,0 +1,101 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.business.Course;
+import com.colorrun.business.CoursePage;
+import com.colorrun.cache.CourseCatalogCache;
+import com.colorrun.config.TestDatabase;
+import com.colorrun.search.CourseSearchIndex;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Nombre d'inscrits des courses servies par le catalogue en cache et par
+ * l'index de recherche, et pagination des résultats de recherche.
+ */
+class CourseServiceImplTest {
+
+    @BeforeAll
+    static void initDatabase() throws SQLException {
+        TestDatabase.init();
+    }
+
+    @Test
+    void registrationsShowInCatalogAndSearchWithoutReloadingTheCatalog() throws Exception {
+        int organizer = TestDatabase.createUser("orga");
+        int courseId = TestDatabase.createCourse(organizer, 2);
+        int first = TestDatabase.createUser("coureur");
+        int second = TestDatabase.createUser("coureur");
+        // Course créée hors du service : catalogue et index à reconstruire
+        CourseCatalogCache.getInstance().invalidate();
+        CourseSearchIndex.getInstance().invalidate();
+
+        CourseServiceImpl courses = new CourseServiceImpl();
+        ParticipationServiceImpl participations = new ParticipationServiceImpl();
+        String name = courses.getCourseById(courseId).getName();
+        assertEquals(0, find(courses.getAllCourses(), courseId).getCurrentParticipants());
+        assertEquals(0, find(courses.searchCourses(name), courseId).getCurrentParticipants());
+        long loads = CourseCatalogCache.getInstance().getLoadCount();
+
+        participations.register(first, courseId);
+        participations.register(second, courseId);
+
+        assertEquals(2, find(courses.getAllCourses(), courseId).getCurrentParticipants());
+        assertEquals(2, find(courses.searchCourses(name), courseId).getCurrentParticipants());
+        assertFalse(courses.hasAvailableSpots(courseId));
+
+        participations.cancelParticipation(first, courseId);
+
+        assertEquals(1, find(courses.getAllCourses(), courseId).getCurrentParticipants());
+        assertEquals(1, find(courses.searchCourses(name), courseId).getCurrentParticipants());
+        assertEquals(loads, CourseCatalogCache.getInstance().getLoadCount());
+    }
+
+    @Test
+    void searchResultsArePagedInTheRequestedOrder() throws Exception {
+        int organizer = TestDatabase.createUser("orga");
+        for (int i = 0; i < 5; i++) {
+            TestDatabase.createCourse(organizer, 10);
+        }
+        CourseCatalogCache.getInstance().invalidate();
+        CourseSearchIndex.getInstance().invalidate();
+        CourseServiceImpl courses = new CourseServiceImpl();
+
+        List<Integer> expected = courses.searchCourses("course test", null, null, null).stream()
+                .sorted(Comparator.comparing(Course::getName).thenComparingInt(Course::getId))
+                .map(Course::getId)
+                .collect(Collectors.toList());
+        List<Integer> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            CoursePage page = courses.searchCoursesPage("course test", null, null, null, "name", cursor, 2);
+            assertTrue(page.getCourses().size() <= 2);
+            page.getCourses().forEach(course -> paged.add(course.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertTrue(expected.size() >= 5);
+        assertEquals(expected, paged);
+
+        String next = courses.searchCoursesPage("course test", null, null, null, "name", null, 2).getNextCursor();
+        assertThrows(IllegalArgumentException.class,
+                () -> courses.searchCoursesPage("course test", null, null, null, "date", next, 2));
+    }
+
+    private static Course find(List<Course> courses, int courseId) {
+        return courses.stream()
+                .filter(course -> course.getId() == courseId)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Course " + courseId + " absente"));
+    }
+}
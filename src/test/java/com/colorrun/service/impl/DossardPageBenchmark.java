@@ -0,0 +1,72 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.business.Course;
+import com.colorrun.business.Dossard;
+import com.colorrun.business.Participation;
+import com.colorrun.business.User;
+import com.colorrun.util.MicroBenchmark;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+/**
+ * Banc d'essai du rendu des pages PDF de dossard, cache de rendu désactivé.
+ * <p>
+ * Le QR code de la page de participation est fourni en PNG, rendu une fois :
+ * seule la page est mesurée.
+ * </p>
+ * <pre>mvn -o test -Dtest=DossardPageBenchmark</pre>
+ */
+class DossardPageBenchmark {
+
+    static {
+        // Avant le chargement de RenderedFileCache
+        System.setProperty("colorrun.cache.render.enabled", "false");
+    }
+
+    @Test
+    void pages() throws Exception {
+        User user = user();
+        Course course = course();
+        Participation participation = participation(user, course);
+        Dossard dossard = new Dossard(1042, course.getId(), user.getId());
+
+        PDFDossardServiceImpl pdfService = new PDFDossardServiceImpl();
+        DossardServiceImpl dossardService = new DossardServiceImpl();
+        byte[] qrCode = new QRCodeServiceImpl().generateQRCode(participation);
+
+        MicroBenchmark.measure("page de participation (QR en PNG)",
+                () -> pdfService.generateDossardPDF(user, course, participation, qrCode));
+        MicroBenchmark.measure("page de dossard (QR compris)",
+                () -> dossardService.genererPdfDossard(dossard, course, user));
+    }
+
+    static User user() {
+        User user = new User();
+        user.setId(7);
+        user.setFirstName("Léa");
+        user.setLastName("Martin");
+        user.setEmail("lea.martin@example.com");
+        return user;
+    }
+
+    static Course course() {
+        Course course = new Course();
+        course.setId(3);
+        course.setName("Color Run Lyon");
+        course.setCity("Lyon");
+        course.setDistance(5.0);
+        course.setDate(LocalDateTime.of(2026, 6, 14, 10, 0));
+        return course;
+    }
+
+    static Participation participation(User user, Course course) {
+        Participation participation = new Participation();
+        participation.setId(512);
+        participation.setUser(user);
+        participation.setCourse(course);
+        participation.setDate(LocalDateTime.of(2026, 5, 1, 9, 30));
+        participation.setStatus("REGISTERED");
+        return participation;
+    }
+}
@@ -0,0 +1,139 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.business.OutboxEmail;
+import com.colorrun.config.EmailConfig;
+import com.colorrun.config.TestDatabase;
+import com.colorrun.dao.EmailOutboxDAO;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * File d'emails et dispatcher, contre un serveur SMTP local
+ * ({@link LocalSmtpServer}).
+ */
+class EmailOutboxDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static LocalSmtpServer smtp;
+
+    private final EmailOutboxDAO outboxDAO = new EmailOutboxDAO();
+    private final EmailOutboxDispatcher dispatcher =
+            new EmailOutboxDispatcher(outboxDAO, 10, 1000, MAX_ATTEMPTS, 1, 7);
+
+    @BeforeAll
+    static void startSmtp() throws Exception {
+        TestDatabase.init();
+        smtp = new LocalSmtpServer();
+        System.setProperty("colorrun.email.enabled", "true");
+        System.setProperty("colorrun.email.smtp.host", "127.0.0.1");
+        System.setProperty("colorrun.email.smtp.port", String.valueOf(smtp.getPort()));
+        System.setProperty("colorrun.email.smtp.auth", "false");
+        System.setProperty("colorrun.email.smtp.starttls", "false");
+        EmailConfig.getInstance().reloadConfiguration();
+    }
+
+    @AfterAll
+    static void stopSmtp() throws Exception {
+        smtp.close();
+    }
+
+    @BeforeEach
+    void emptyOutbox() throws SQLException {
+        TestDatabase.update("DELETE FROM EmailOutbox");
+    }
+
+    @Test
+    void queuedEmailIsDeliveredAndMarkedSent() throws Exception {
+        long id = outboxDAO.enqueue(new OutboxEmail("ok@test.colorrun.fr", "Bienvenue", "<p>Bonjour</p>"));
+
+        assertEquals(1, dispatcher.drain());
+
+        assertEquals(1, smtp.receivedFor("ok@test.colorrun.fr").size());
+        assertTrue(smtp.receivedFor("ok@test.colorrun.fr").get(0).data.contains("Subject: Bienvenue"));
+        assertEquals(1, TestDatabase.count(
+                "SELECT COUNT(*) FROM EmailOutbox WHERE id = ? AND status = 'SENT' AND attempts = 1", id));
+    }
+
+    @Test
+    void permanentRejectionIsDeadLetteredAtOnce() throws Exception {
+        long id = outboxDAO.enqueue(new OutboxEmail("perm@test.colorrun.fr", "Refusé", "<p>x</p>"));
+
+        dispatcher.drain();
+
+        assertEquals(1, TestDatabase.count(
+                "SELECT COUNT(*) FROM EmailOutbox WHERE id = ? AND status = 'DEAD' AND attempts = 1", id));
+    }
+
+    @Test
+    void temporaryRejectionIsRetriedUntilMaxAttempts() throws Exception {
+        long id = outboxDAO.enqueue(new OutboxEmail("temp@test.colorrun.fr", "Plus tard", "<p>x</p>"));
+
+        for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+            dispatcher.drain();
+            assertEquals(1, TestDatabase.count(
+                    "SELECT COUNT(*) FROM EmailOutbox WHERE id = ? AND status = 'PENDING' AND attempts = ?", id, attempt));
+            makeDue(id);
+        }
+        dispatcher.drain();
+
+        assertEquals(1, TestDatabase.count(
+                "SELECT COUNT(*) FROM EmailOutbox WHERE id = ? AND status = 'DEAD' AND attempts = ?", id, MAX_ATTEMPTS));
+    }
+
+    @Test
+    void claimCountsTheAttemptSoAnEmailThatNeverFinishesIsAbandoned() throws Exception {
+        long id = outboxDAO.enqueue(new OutboxEmail("poison@test.colorrun.fr", "Poison", "<p>x</p>"));
+
+        // Réservé puis jamais conclu (arrêt pendant l'envoi), jusqu'à épuisement des essais
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            List<OutboxEmail> claimed = outboxDAO.claimDue(10, Duration.ofMinutes(5), MAX_ATTEMPTS);
+            assertEquals(1, claimed.size());
+            assertEquals(attempt, claimed.get(0).getAttempts());
+            makeDue(id);
+        }
+        assertTrue(outboxDAO.claimDue(10, Duration.ofMinutes(5), MAX_ATTEMPTS).isEmpty());
+
+        dispatcher.drain();
+
+        assertEquals(0, smtp.receivedFor("poison@test.colorrun.fr").size());
+        assertEquals(1, TestDatabase.count(
+                "SELECT COUNT(*) FROM EmailOutbox WHERE id = ? AND status = 'DEAD'", id));
+    }
+
+    @Test
+    void registrationConfirmationIsQueuedOnlyWithTheRegistration() throws Exception {
+        int organizer = TestDatabase.createUser("orga");
+        int courseId = TestDatabase.createCourse(organizer, 1);
+        int first = TestDatabase.createUser("coureur");
+        int second = TestDatabase.createUser("coureur");
+        ParticipationServiceImpl participations = new ParticipationServiceImpl();
+
+        participations.register(first, courseId,
+                p -> new OutboxEmail("first@test.colorrun.fr", "Inscription " + p.getId(), "<p>ok</p>"));
+        // Course complète : l'inscription est refusée et son email annulé avec elle
+        assertThrows(SQLException.class, () -> participations.register(second, courseId,
+                p -> new OutboxEmail("second@test.colorrun.fr", "Inscription", "<p>ok</p>")));
+
+        assertEquals(1, TestDatabase.count(
+                "SELECT COUNT(*) FROM EmailOutbox WHERE recipient = 'first@test.colorrun.fr'"));
+        assertEquals(0, TestDatabase.count(
+                "SELECT COUNT(*) FROM EmailOutbox WHERE recipient = 'second@test.colorrun.fr'"));
+        dispatcher.drain();
+        assertEquals(1, smtp.receivedFor("first@test.colorrun.fr").size());
+    }
+
+    private static void makeDue(long id) throws SQLException {
+        TestDatabase.update("UPDATE EmailOutbox SET nextAttemptAt = DATEADD('MINUTE', -1, CURRENT_TIMESTAMP) WHERE id = ?", id);
+    }
+}
@@ -0,0 +1,69 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.business.Course;
+import com.colorrun.business.User;
+import com.colorrun.util.MicroBenchmark;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Banc d'essai de la composition des emails de rappel (sujet et corps HTML),
+ * tel qu'appelé pour chaque destinataire d'un envoi groupé.
+ * <p>
+ * Pour comparaison, le même modèle est aussi rendu par Thymeleaf (résolveur
+ * de chaînes, modèle en cache).
+ * </p>
+ * <pre>mvn -o test -Dtest=EmailTemplateBenchmark</pre>
+ */
+class EmailTemplateBenchmark {
+
+    static {
+        // Avant le chargement d'EmailConfig : composition sans serveur SMTP
+        System.setProperty("colorrun.email.enabled", "true");
+        System.setProperty("colorrun.email.smtp.auth", "false");
+    }
+
+    @Test
+    void courseReminder() throws Exception {
+        User user = DossardPageBenchmark.user();
+        Course course = DossardPageBenchmark.course();
+        course.setDate(LocalDateTime.now().plusDays(3));
+        EmailServiceImpl emailService = new EmailServiceImpl();
+
+        MicroBenchmark.measure("rappel de course", () -> emailService.composeCourseReminder(user, course));
+
+        String source;
+        try (InputStream in = EmailTemplateBenchmark.class.getResourceAsStream("/email/course-reminder.html")) {
+            if (in == null) {
+                // Corps encore écrit dans le code
+                return;
+            }
+            source = new String(in.readAllBytes(), StandardCharsets.UTF_8)
+                    .replaceAll("\\$\\{(\\w+)\\}", "[[\\${$1}]]");
+        }
+        StringTemplateResolver resolver = new StringTemplateResolver();
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCacheable(true);
+        TemplateEngine engine = new TemplateEngine();
+        engine.setTemplateResolver(resolver);
+
+        MicroBenchmark.measure("même corps, Thymeleaf", () -> {
+            Context context = new Context(Locale.FRANCE);
+            context.setVariable("title", "Plus que 3 jours !");
+            context.setVariable("firstName", user.getFirstName());
+            context.setVariable("courseName", course.getName());
+            context.setVariable("when", "dans 3 jours");
+            context.setVariable("date", "14/06/2026 à 10:00");
+            context.setVariable("city", course.getCity());
+            return engine.process(source, context);
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.colorrun.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rendu des modèles d'email compilés.
+ */
+class EmailTemplateTest {
+
+    private final EmailTemplate welcome = EmailTemplate.load("welcome", "firstName");
+
+    @Test
+    void valuesAreInsertedAndEscaped() {
+        String html = welcome.render("Léa <b>& \"Zoé\"</b>'s");
+
+        assertTrue(html.contains("Léa &lt;b&gt;&amp; &quot;Zoé&quot;&lt;/b&gt;&#39;s"));
+        assertFalse(html.contains("${"));
+        assertTrue(html.startsWith("<!DOCTYPE html>"));
+        assertTrue(html.trim().endsWith("</html>"));
+    }
+
+    @Test
+    void plainValueIsInsertedAsIs() {
+        assertTrue(welcome.render("Léa").contains("Félicitations Léa !"));
+    }
+
+    @Test
+    void nullValueIsRenderedEmpty() {
+        assertEquals(welcome.render(""), welcome.render((Object) null));
+    }
+
+    @Test
+    void everyDeclaredVariableMustBeUsed() {
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.load("welcome", "firstName", "unknown"));
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.load("welcome"));
+    }
+
+    @Test
+    void valueCountMustMatch() {
+        assertThrows(IllegalArgumentException.class, () -> welcome.render("Léa", "de trop"));
+    }
+}
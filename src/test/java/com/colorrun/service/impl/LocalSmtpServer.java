@@ -0,0 +1,135 @@
+package com.colorrun.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Serveur SMTP minimal pour les tests : accepte les messages sans
+ * authentification ni TLS et les garde en mémoire.
+ * <p>
+ * Les destinataires en <code>temp@…</code> sont refusés temporairement
+ * (451), ceux en <code>perm@…</code> définitivement (550).
+ * </p>
+ */
+final class LocalSmtpServer implements AutoCloseable {
+
+    /** Message reçu : destinataires et contenu brut */
+    static final class Received {
+        final List<String> recipients;
+        final String data;
+
+        Received(List<String> recipients, String data) {
+            this.recipients = recipients;
+            this.data = data;
+        }
+    }
+
+    private final ServerSocket server;
+    private final List<Received> received = Collections.synchronizedList(new ArrayList<>());
+
+    LocalSmtpServer() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "local-smtp");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * @return les messages reçus pour ce destinataire
+     */
+    List<Received> receivedFor(String recipient) {
+        List<Received> matches = new ArrayList<>();
+        synchronized (received) {
+            for (Received message : received) {
+                if (message.recipients.contains(recipient)) {
+                    matches.add(message);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread session = new Thread(() -> session(socket), "local-smtp-session");
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            reply(out, "220 local-smtp");
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                    reply(out, "250 local-smtp");
+                } else if (command.startsWith("MAIL")) {
+                    recipients.clear();
+                    reply(out, "250 OK");
+                } else if (command.startsWith("RCPT")) {
+                    String recipient = line.substring(line.indexOf('<') + 1, line.lastIndexOf('>'));
+                    if (recipient.startsWith("temp@")) {
+                        reply(out, "451 Try again later");
+                    } else if (recipient.startsWith("perm@")) {
+                        reply(out, "550 No such user");
+                    } else {
+                        recipients.add(recipient);
+                        reply(out, "250 OK");
+                    }
+                } else if (command.startsWith("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    StringBuilder data = new StringBuilder();
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        data.append(line).append('\n');
+                    }
+                    received.add(new Received(new ArrayList<>(recipients), data.toString()));
+                    reply(out, "250 Queued");
+                } else if (command.startsWith("RSET") || command.startsWith("NOOP")) {
+                    recipients.clear();
+                    reply(out, "250 OK");
+                } else if (command.startsWith("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // Client parti
+        }
+    }
+
+    private static void reply(PrintWriter out, String line) {
+        out.print(line + "\r\n");
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+}
@@ -0,0 +1,153 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.business.Course;
+import com.colorrun.business.Participation;
+import com.colorrun.business.User;
+import com.colorrun.config.TestDatabase;
+import com.colorrun.dao.ParticipationDAO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Inscriptions concurrentes sur H2 : une course ne doit jamais dépasser
+ * {@code maxParticipants}.
+ */
+class ParticipationServiceImplTest {
+
+    private static final int SEATS = 10;
+    private static final int RUNNERS = 40;
+
+    @BeforeAll
+    static void initDatabase() throws SQLException {
+        TestDatabase.init();
+    }
+
+    @Test
+    void concurrentRegistrationsNeverOversellACourse() throws Exception {
+        int organizer = TestDatabase.createUser("orga");
+        int courseId = TestDatabase.createCourse(organizer, SEATS);
+        List<Integer> runners = new ArrayList<>();
+        for (int i = 0; i < RUNNERS; i++) {
+            runners.add(TestDatabase.createUser("coureur"));
+        }
+
+        ParticipationServiceImpl service = new ParticipationServiceImpl();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int runner : runners) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        service.register(runner, courseId);
+                        return true;
+                    } catch (SQLException e) {
+                        assertEquals("Course is already full", e.getMessage());
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int registered = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    registered++;
+                }
+            }
+
+            assertEquals(SEATS, registered);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(SEATS, TestDatabase.count(
+                "SELECT COUNT(*) FROM Participation WHERE courseId = ? AND statut NOT IN ('CANCELED', 'CANCELLED')", courseId));
+        assertEquals(SEATS, TestDatabase.count("SELECT currentParticipants FROM Course WHERE id = ?", courseId));
+    }
+
+    @Test
+    void rowLockAloneNeverOversellsACourse() throws Exception {
+        // Sans le verrou en mémoire du service, comme deux instances de l'application
+        int organizer = TestDatabase.createUser("orga");
+        int courseId = TestDatabase.createCourse(organizer, SEATS);
+        List<Integer> runners = new ArrayList<>();
+        for (int i = 0; i < RUNNERS; i++) {
+            runners.add(TestDatabase.createUser("coureur"));
+        }
+
+        ParticipationDAO dao = new ParticipationDAO();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int runner : runners) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        dao.saveIfSeatAvailable(participation(runner, courseId));
+                        return true;
+                    } catch (SQLException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int registered = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    registered++;
+                }
+            }
+
+            assertEquals(SEATS, registered);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(SEATS, TestDatabase.count(
+                "SELECT COUNT(*) FROM Participation WHERE courseId = ? AND statut NOT IN ('CANCELED', 'CANCELLED')", courseId));
+    }
+
+    @Test
+    void cancellationFreesASeat() throws Exception {
+        int organizer = TestDatabase.createUser("orga");
+        int courseId = TestDatabase.createCourse(organizer, 1);
+        int first = TestDatabase.createUser("coureur");
+        int second = TestDatabase.createUser("coureur");
+        ParticipationServiceImpl service = new ParticipationServiceImpl();
+
+        service.register(first, courseId);
+        assertThrows(SQLException.class, () -> service.register(second, courseId));
+        service.cancelParticipation(first, courseId);
+        service.register(second, courseId);
+
+        assertEquals(1, TestDatabase.count("SELECT currentParticipants FROM Course WHERE id = ?", courseId));
+    }
+
+    private static Participation participation(int userId, int courseId) {
+        User user = new User();
+        user.setId(userId);
+        Course course = new Course();
+        course.setId(courseId);
+        Participation participation = new Participation();
+        participation.setUser(user);
+        participation.setCourse(course);
+        participation.setDate(LocalDateTime.now());
+        participation.setStatus("REGISTERED");
+        return participation;
+    }
+}
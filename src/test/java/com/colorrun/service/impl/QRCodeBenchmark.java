@@ -0,0 +1,60 @@
+package com.colorrun.service.impl;
+
+import com.colorrun.business.Course;
+import com.colorrun.business.Dossard;
+import com.colorrun.business.Participation;
+import com.colorrun.business.User;
+import com.colorrun.util.MicroBenchmark;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+/**
+ * Banc d'essai de l'encodage des QR codes, en PNG et dans les pages PDF,
+ * cache de rendu désactivé.
+ * <p>
+ * Le mode PDF se choisit comme en production :
+ * </p>
+ * <pre>mvn -o test -Dtest=QRCodeBenchmark -Dcolorrun.qr.pdfMode=vector</pre>
+ */
+class QRCodeBenchmark {
+
+    static {
+        // Avant le chargement de RenderedFileCache
+        System.setProperty("colorrun.cache.render.enabled", "false");
+    }
+
+    @Test
+    void qrCodes() throws Exception {
+        User user = DossardPageBenchmark.user();
+        Course course = DossardPageBenchmark.course();
+        Participation participation = DossardPageBenchmark.participation(user, course);
+        Dossard dossard = new Dossard(1042, course.getId(), user.getId());
+
+        QRCodeServiceImpl qrCodeService = new QRCodeServiceImpl();
+        DossardServiceImpl dossardService = new DossardServiceImpl();
+        PDFDossardServiceImpl pdfService = new PDFDossardServiceImpl();
+
+        MicroBenchmark.measure("QR code PNG de participation",
+                () -> qrCodeService.generateQRCode(participation));
+        MicroBenchmark.measure("QR code PNG de dossard",
+                () -> dossardService.genererQrCode(dossard));
+        MicroBenchmark.measure("page de participation, via PNG",
+                () -> pdfService.generateDossardPDF(user, course, participation,
+                        qrCodeService.generateQRCode(participation)));
+        MicroBenchmark.measure("page de dossard",
+                () -> dossardService.genererPdfDossard(dossard, course, user));
+
+        // Absente avant l'encodage direct de la matrice : cherchée par réflexion
+        // pour que le banc compile aussi sur les versions précédentes
+        Method direct;
+        try {
+            direct = PDFDossardServiceImpl.class.getMethod("generateDossardPDF",
+                    User.class, Course.class, Participation.class);
+        } catch (NoSuchMethodException e) {
+            return;
+        }
+        MicroBenchmark.measure("page de participation, matrice dessinée",
+                () -> direct.invoke(pdfService, user, course, participation));
+    }
+}
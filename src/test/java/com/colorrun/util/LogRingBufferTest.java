@@ -0,0 +1,92 @@
+package com.colorrun.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * File circulaire des logs : dépôts concurrents, lecteur unique.
+ */
+class LogRingBufferTest {
+
+    @Test
+    void concurrentOffersAreReadOnceEachInProducerOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 20_000;
+        LogRingBuffer<Long> buffer = new LogRingBuffer<>(64);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int p = 0; p < producers; p++) {
+                long producer = p;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    for (long i = 0; i < perProducer; i++) {
+                        // File pleine : laisser le lecteur libérer une case
+                        while (!buffer.offer(producer << 32 | i)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            long[] next = new long[producers];
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            for (int read = 0; read < producers * perProducer; ) {
+                Long item = buffer.poll();
+                if (item == null) {
+                    assertTrue(System.nanoTime() < deadline, "Éléments perdus : " + read + " lus");
+                    Thread.yield();
+                    continue;
+                }
+                int producer = (int) (item >>> 32);
+                // Ni perte ni doublon : chaque producteur est relu dans l'ordre, sans trou
+                assertEquals(next[producer], item & 0xFFFFFFFFL);
+                next[producer]++;
+                read++;
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void fullBufferRejectsUntilAnItemIsRead() {
+        LogRingBuffer<Integer> buffer = new LogRingBuffer<>(5);
+        assertEquals(8, buffer.capacity());
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(8));
+        assertEquals(8, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(8));
+        assertFalse(buffer.offer(9));
+
+        for (int i = 1; i <= 8; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+    }
+}
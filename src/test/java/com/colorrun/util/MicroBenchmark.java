@@ -0,0 +1,116 @@
+package com.colorrun.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Mesure de débit des bancs d'essai (classes <code>*Benchmark</code> des
+ * tests) : l'opération est préchauffée, puis enchaînée sur le thread courant
+ * pendant une durée fixe. Le débit, la durée moyenne et les octets alloués
+ * par opération sont affichés.
+ *
+ * <p>Les bancs ne sont pas lancés par <code>mvn test</code> (surefire ne
+ * retient que les classes <code>*Test</code>) ; on les lance un par un :</p>
+ * <pre>mvn -o test -Dtest=EmailTemplateBenchmark</pre>
+ * <p>Ils n'utilisent que des API publiques antérieures aux optimisations
+ * mesurées : recopiés sur le commit parent, ils donnent la mesure « avant ».</p>
+ *
+ * <p><strong>Propriétés système :</strong></p>
+ * <ul>
+ *   <li><code>colorrun.bench.warmupMillis</code> : durée du préchauffage (défaut : 2000)</li>
+ *   <li><code>colorrun.bench.measureMillis</code> : durée de la mesure (défaut : 5000)</li>
+ * </ul>
+ */
+public final class MicroBenchmark {
+
+    private static final long WARMUP_MILLIS = Long.getLong("colorrun.bench.warmupMillis", 2000L);
+    private static final long MEASURE_MILLIS = Long.getLong("colorrun.bench.measureMillis", 5000L);
+
+    /** Empêche le JIT d'éliminer les opérations dont le résultat est ignoré */
+    private static volatile int sink;
+
+    /**
+     * Opération mesurée ; son résultat est consommé.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    /**
+     * Résultat d'une mesure.
+     */
+    public static final class Result {
+        private final String name;
+        private final long operations;
+        private final long elapsedNanos;
+        private final long allocatedBytes;
+
+        Result(String name, long operations, long elapsedNanos, long allocatedBytes) {
+            this.name = name;
+            this.operations = operations;
+            this.elapsedNanos = elapsedNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public double getOpsPerSecond() {
+            return operations * 1e9 / elapsedNanos;
+        }
+
+        public double getNanosPerOp() {
+            return (double) elapsedNanos / operations;
+        }
+
+        public double getBytesPerOp() {
+            return (double) allocatedBytes / operations;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-44s %,12.0f op/s %,12.0f ns/op %,10.1f Ko/op",
+                    name, getOpsPerSecond(), getNanosPerOp(), getBytesPerOp() / 1024);
+        }
+    }
+
+    private MicroBenchmark() {
+    }
+
+    /**
+     * Préchauffe puis mesure l'opération, et affiche le résultat.
+     */
+    public static Result measure(String name, Operation operation) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        loop(operation, WARMUP_MILLIS);
+
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long operations = loop(operation, MEASURE_MILLIS);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        Result result = new Result(name, operations, elapsed, allocated);
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Enchaîne l'opération par lots de 16 jusqu'à l'échéance.
+     *
+     * @return le nombre d'opérations
+     */
+    private static long loop(Operation operation, long millis) throws Exception {
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        long operations = 0;
+        int consumed = 0;
+        do {
+            for (int i = 0; i < 16; i++) {
+                consumed += System.identityHashCode(operation.run());
+            }
+            operations += 16;
+        } while (System.nanoTime() < deadline);
+        sink = consumed;
+        return operations;
+    }
+}